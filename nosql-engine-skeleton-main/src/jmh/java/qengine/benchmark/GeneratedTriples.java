@@ -0,0 +1,41 @@
+package qengine.benchmark;
+
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import qengine.program.SyntheticDataGenerator;
+
+/**
+ * Jeux de triplets générés pour les benchmarks par {@link SyntheticDataGenerator},
+ * reproductibles à graine fixée.
+ */
+final class GeneratedTriples {
+
+    static final int PREDICATES = 32;
+    static final int CHARACTERISTIC_SETS = 64;
+    static final long SEED = 42;
+
+    private GeneratedTriples() {
+    }
+
+    /**
+     * Génère des triplets encodés : prédicats dans [0, {@link #PREDICATES}), nœuds ensuite.
+     * Des doublons sont possibles, comme dans un chargement réel.
+     *
+     * @param count nombre de triplets à générer
+     * @return les triplets {sujet, prédicat, objet}
+     */
+    static int[][] encoded(int count) {
+        SyntheticDataGenerator generator =
+                new SyntheticDataGenerator(count, PREDICATES, 1.0, CHARACTERISTIC_SETS, 1.0, SEED);
+        int[][] triples = new int[count][];
+        int[] next = {0};
+        generator.generate((subject, predicate, object) ->
+                triples[next[0]++] = new int[]{PREDICATES + subject, predicate, PREDICATES + object});
+        return triples;
+    }
+
+    // Terme associé à un identifiant généré
+    static Term term(int id) {
+        return SameObjectTermFactory.instance().createOrGetLiteral("http://example.org/bench/" + id);
+    }
+}
@@ -0,0 +1,70 @@
+package qengine.benchmark;
+
+import fr.boreal.model.logicalElements.api.Term;
+import org.openjdk.jmh.annotations.*;
+import qengine.storage.RDFDictionary;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de {@link RDFDictionary} : remplissage, encodage d'un terme connu et décodage.
+ */
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RDFDictionaryBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Terms {
+
+        @Param({"10000", "100000", "1000000"})
+        public int terms;
+
+        Term[] values;
+        RDFDictionary dictionary;
+        int cursor = 0;
+
+        @Setup
+        public void fill() {
+            values = new Term[terms];
+            dictionary = new RDFDictionary();
+            for (int i = 0; i < terms; i++) {
+                values[i] = GeneratedTriples.term(i);
+                dictionary.encode(values[i]);
+            }
+        }
+
+        int next() {
+            cursor = cursor + 1 == terms ? 0 : cursor + 1;
+            return cursor;
+        }
+    }
+
+    // Encodage de termes nouveaux dans un dictionnaire vide
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, batchSize = 1)
+    @Measurement(iterations = 5, batchSize = 1)
+    public RDFDictionary encodeNew(Terms terms) {
+        RDFDictionary dictionary = new RDFDictionary();
+        for (Term term : terms.values) {
+            dictionary.encode(term);
+        }
+        return dictionary;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int encodeExisting(Terms terms) {
+        return terms.dictionary.encode(terms.values[terms.next()]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Term decode(Terms terms) {
+        return terms.dictionary.decode(terms.next());
+    }
+}
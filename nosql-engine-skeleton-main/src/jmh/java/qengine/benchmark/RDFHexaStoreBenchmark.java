@@ -0,0 +1,154 @@
+package qengine.benchmark;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.storage.RDFHexaStore;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de {@link RDFHexaStore#match(RDFAtom)} et {@link RDFHexaStore#match(StarQuery)},
+ * réponses comprises : chaque itérateur est consommé entièrement.
+ */
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RDFHexaStoreBenchmark {
+
+    private static final int QUERIES = 256;
+
+    @State(Scope.Benchmark)
+    public static class Store {
+
+        @Param({"10000", "100000", "1000000"})
+        public int triples;
+
+        RDFHexaStore store;
+        int[][] encoded;
+
+        @Setup
+        public void load() {
+            encoded = GeneratedTriples.encoded(triples);
+            store = new RDFHexaStore();
+            for (int[] triple : encoded) {
+                store.add(new RDFAtom(GeneratedTriples.term(triple[0]), GeneratedTriples.term(triple[1]),
+                        GeneratedTriples.term(triple[2])));
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class AtomPatterns {
+
+        @Param({"SP_", "S_O", "_PO", "S__", "_P_", "__O"})
+        public String pattern;
+
+        RDFAtom[] atoms;
+        int cursor = 0;
+
+        @Setup
+        public void build(Store store) {
+            Variable[] variables = {variable("?s"), variable("?p"), variable("?o")};
+            Random random = new Random(GeneratedTriples.SEED);
+            atoms = new RDFAtom[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                int[] triple = store.encoded[random.nextInt(store.encoded.length)];
+                Term[] terms = new Term[3];
+                for (int k = 0; k < 3; k++) {
+                    terms[k] = pattern.charAt(k) == '_' ? variables[k] : GeneratedTriples.term(triple[k]);
+                }
+                atoms[i] = new RDFAtom(terms);
+            }
+        }
+
+        RDFAtom next() {
+            RDFAtom atom = atoms[cursor];
+            cursor = (cursor + 1) % QUERIES;
+            return atom;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class StarQueries {
+
+        // Nombre d'atomes de l'étoile
+        @Param({"2", "3", "4"})
+        public int atoms;
+
+        // Objet du premier atome fixé (étoile sélective) ou variable
+        @Param({"true", "false"})
+        public boolean bound;
+
+        StarQuery[] queries;
+        int cursor = 0;
+
+        @Setup
+        public void build(Store store) {
+            // Prédicats et objets de chaque sujet
+            Map<Integer, Map<Integer, Integer>> bySubject = new HashMap<>();
+            for (int[] triple : store.encoded) {
+                bySubject.computeIfAbsent(triple[0], s -> new TreeMap<>()).putIfAbsent(triple[1], triple[2]);
+            }
+            List<Map<Integer, Integer>> eligible = bySubject.values().stream()
+                    .filter(predicates -> predicates.size() >= atoms)
+                    .toList();
+
+            Random random = new Random(GeneratedTriples.SEED);
+            Variable center = variable("?x");
+            queries = new StarQuery[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                List<Map.Entry<Integer, Integer>> entries =
+                        new ArrayList<>(eligible.get(random.nextInt(eligible.size())).entrySet());
+                Collections.shuffle(entries, random);
+                List<RDFAtom> rdfAtoms = new ArrayList<>();
+                List<Variable> answers = new ArrayList<>(List.of(center));
+                for (int k = 0; k < atoms; k++) {
+                    Term predicate = GeneratedTriples.term(entries.get(k).getKey());
+                    if (k == 0 && bound) {
+                        rdfAtoms.add(new RDFAtom(center, predicate, GeneratedTriples.term(entries.get(k).getValue())));
+                    } else {
+                        Variable object = variable("?o" + k);
+                        answers.add(object);
+                        rdfAtoms.add(new RDFAtom(center, predicate, object));
+                    }
+                }
+                queries[i] = new StarQuery("bench" + i, rdfAtoms, answers);
+            }
+        }
+
+        StarQuery next() {
+            StarQuery query = queries[cursor];
+            cursor = (cursor + 1) % QUERIES;
+            return query;
+        }
+    }
+
+    @Benchmark
+    public void matchAtom(Store store, AtomPatterns patterns, Blackhole blackhole) {
+        consume(store.store.match(patterns.next()), blackhole);
+    }
+
+    @Benchmark
+    public void matchStar(Store store, StarQueries queries, Blackhole blackhole) {
+        consume(store.store.match(queries.next()), blackhole);
+    }
+
+    private static void consume(Iterator<Substitution> results, Blackhole blackhole) {
+        while (results.hasNext()) {
+            blackhole.consume(results.next());
+        }
+    }
+
+    private static Variable variable(String name) {
+        return SameObjectTermFactory.instance().createOrGetVariable(name);
+    }
+}
@@ -0,0 +1,93 @@
+package qengine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import qengine.storage.RDFIndex;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de {@link RDFIndex} : chargement par addTriple et findMatches pour chaque motif d'accès.
+ * Le motif se lit sujet/prédicat/objet, {@code _} désignant une position libre.
+ */
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RDFIndexBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Data {
+
+        @Param({"10000", "100000", "1000000"})
+        public int triples;
+
+        int[][] encoded;
+
+        @Setup
+        public void generate() {
+            encoded = GeneratedTriples.encoded(triples);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Loaded {
+
+        @Param({"10000", "100000", "1000000"})
+        public int triples;
+
+        @Param({"SPO", "SP_", "S_O", "_PO", "S__", "_P_", "__O", "___"})
+        public String pattern;
+
+        RDFIndex index;
+        int[][] lookups; // Motifs tirés de triplets existants
+        int cursor = 0;
+
+        @Setup
+        public void load() {
+            int[][] encoded = GeneratedTriples.encoded(triples);
+            index = new RDFIndex();
+            for (int[] triple : encoded) {
+                index.addTriple(triple[0], triple[1], triple[2]);
+            }
+
+            Random random = new Random(GeneratedTriples.SEED);
+            lookups = new int[1024][];
+            for (int i = 0; i < lookups.length; i++) {
+                int[] triple = encoded[random.nextInt(encoded.length)];
+                lookups[i] = new int[3];
+                for (int k = 0; k < 3; k++) {
+                    lookups[i][k] = pattern.charAt(k) == '_' ? -1 : triple[k];
+                }
+            }
+        }
+
+        int[] nextLookup() {
+            int[] lookup = lookups[cursor];
+            cursor = (cursor + 1) & (lookups.length - 1);
+            return lookup;
+        }
+    }
+
+    // Chargement complet d'un index vide
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, batchSize = 1)
+    @Measurement(iterations = 5, batchSize = 1)
+    public RDFIndex addTriple(Data data) {
+        RDFIndex index = new RDFIndex();
+        for (int[] triple : data.encoded) {
+            index.addTriple(triple[0], triple[1], triple[2]);
+        }
+        return index;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void findMatches(Loaded loaded, Blackhole blackhole) {
+        int[] lookup = loaded.nextLookup();
+        blackhole.consume(loaded.index.findMatches(lookup[0], lookup[1], lookup[2]));
+    }
+}
@@ -0,0 +1,61 @@
+package qengine.model;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+
+import java.util.Objects;
+
+/**
+ * Condition de préfixe d'une requête en étoile sur une variable, issue d'un
+ * {@code FILTER(STRSTARTS(?nom, "Ali"))} SparQL : la variable doit être liée à un littéral dont le
+ * libellé commence par le préfixe. Les parseurs utilisant la traduction {@code Raw}, les IRI sont
+ * eux aussi des littéraux : contrairement à SparQL, un IRI dont le texte commence par le préfixe
+ * satisfait la condition ({@code STRSTARTS(?x, "http://")} retient les sujets et objets IRI).
+ */
+public final class PrefixFilter {
+
+    private final Variable variable;
+    private final String prefix;
+
+    /**
+     * Constructeur.
+     *
+     * @throws NullPointerException si la variable ou le préfixe est null
+     */
+    public PrefixFilter(Variable variable, String prefix) {
+        this.variable = Objects.requireNonNull(variable, "La variable ne peut pas être null.");
+        this.prefix = Objects.requireNonNull(prefix, "Le préfixe ne peut pas être null.");
+    }
+
+    // Vrai si le terme est un littéral commençant par le préfixe (IRI compris, voir la classe)
+    public boolean accepts(Term term) {
+        return term instanceof Literal<?> && term.label().startsWith(prefix);
+    }
+
+    public Variable getVariable() {
+        return variable;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PrefixFilter that = (PrefixFilter) o;
+        return variable.equals(that.variable) && prefix.equals(that.prefix);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(variable, prefix);
+    }
+
+    @Override
+    public String toString() {
+        return "PrefixFilter{" + variable + " starts with \"" + prefix + "\"}";
+    }
+}
@@ -0,0 +1,178 @@
+package qengine.model;
+
+import fr.boreal.model.logicalElements.api.Variable;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Condition de plage d'une requête en étoile sur une variable, issue d'un FILTER SparQL
+ * (ex. {@code FILTER(?date > "2000-01-01")} ou {@code FILTER(?prix >= 10 && ?prix < 20)}).
+ * Les valeurs sont comparées numériquement ou comme des dates ISO (aaaa-mm-jj), selon la nature des
+ * bornes ; une valeur qui n'est pas de cette nature ne satisfait pas la condition.
+ */
+public final class RangeFilter {
+
+    /**
+     * Nature des valeurs comparées.
+     */
+    public enum Kind {
+        NUMERIC, DATE;
+
+        private static final Pattern NUMBER = Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+
+        /**
+         * Clé de comparaison d'un libellé : le nombre, ou le jour depuis le 1970-01-01 pour une date.
+         *
+         * @return la clé, ou NaN si le libellé n'est pas une valeur de cette nature
+         */
+        public double key(String label) {
+            if (this == DATE) {
+                if (label.length() != 10) {
+                    return Double.NaN;
+                }
+                try {
+                    return LocalDate.parse(label).toEpochDay();
+                } catch (DateTimeException e) {
+                    return Double.NaN;
+                }
+            }
+            return NUMBER.matcher(label).matches() ? Double.parseDouble(label) : Double.NaN;
+        }
+
+        // Nature d'une borne : date si elle en a la forme, nombre sinon
+        static Kind of(String bound) {
+            if (!Double.isNaN(DATE.key(bound))) {
+                return DATE;
+            }
+            if (!Double.isNaN(NUMERIC.key(bound))) {
+                return NUMERIC;
+            }
+            throw new IllegalArgumentException("La borne d'un FILTER doit être un nombre ou une date : " + bound);
+        }
+    }
+
+    private final Variable variable;
+    private final Kind kind;
+    private final double lower; // -Infinity sans borne inférieure
+    private final boolean lowerInclusive;
+    private final double upper; // +Infinity sans borne supérieure
+    private final boolean upperInclusive;
+
+    /**
+     * Constructeur.
+     *
+     * @param lower borne inférieure (clé de comparaison), {@link Double#NEGATIVE_INFINITY} si absente
+     * @param upper borne supérieure (clé de comparaison), {@link Double#POSITIVE_INFINITY} si absente
+     * @throws IllegalArgumentException si une borne est NaN
+     */
+    public RangeFilter(Variable variable, Kind kind, double lower, boolean lowerInclusive,
+                       double upper, boolean upperInclusive) {
+        if (Double.isNaN(lower) || Double.isNaN(upper)) {
+            throw new IllegalArgumentException("Les bornes d'un FILTER ne peuvent pas être NaN.");
+        }
+        this.variable = Objects.requireNonNull(variable, "La variable ne peut pas être null.");
+        this.kind = Objects.requireNonNull(kind, "La nature ne peut pas être null.");
+        this.lower = lower;
+        this.lowerInclusive = lowerInclusive;
+        this.upper = upper;
+        this.upperInclusive = upperInclusive;
+    }
+
+    /**
+     * Condition d'une comparaison {@code variable opérateur borne}.
+     *
+     * @param operator l'un de {@code <}, {@code <=}, {@code >}, {@code >=}, {@code =}
+     * @param bound    le libellé de la borne, nombre ou date
+     * @throws IllegalArgumentException si l'opérateur n'est pas supporté ou si la borne n'est ni un nombre ni une date
+     */
+    public static RangeFilter of(Variable variable, String operator, String bound) {
+        Kind kind = Kind.of(bound);
+        double key = kind.key(bound);
+        double min = Double.NEGATIVE_INFINITY;
+        double max = Double.POSITIVE_INFINITY;
+        return switch (operator) {
+            case "<" -> new RangeFilter(variable, kind, min, false, key, false);
+            case "<=" -> new RangeFilter(variable, kind, min, false, key, true);
+            case ">" -> new RangeFilter(variable, kind, key, false, max, false);
+            case ">=" -> new RangeFilter(variable, kind, key, true, max, false);
+            case "=" -> new RangeFilter(variable, kind, key, true, key, true);
+            default -> throw new IllegalArgumentException("Opérateur de FILTER non supporté : " + operator);
+        };
+    }
+
+    /**
+     * Conjonction de deux conditions sur la même variable.
+     *
+     * @throws IllegalArgumentException si les variables ou les natures diffèrent
+     */
+    public RangeFilter intersect(RangeFilter other) {
+        if (!variable.equals(other.variable) || kind != other.kind) {
+            throw new IllegalArgumentException("Conditions incompatibles : " + this + " et " + other);
+        }
+        boolean otherLower = other.lower > lower || other.lower == lower && !other.lowerInclusive;
+        boolean otherUpper = other.upper < upper || other.upper == upper && !other.upperInclusive;
+        return new RangeFilter(variable,
+                kind,
+                otherLower ? other.lower : lower, otherLower ? other.lowerInclusive : lowerInclusive,
+                otherUpper ? other.upper : upper, otherUpper ? other.upperInclusive : upperInclusive);
+    }
+
+    // Vrai si la clé de comparaison est dans la plage
+    public boolean contains(double key) {
+        return (key > lower || lowerInclusive && key == lower) && (key < upper || upperInclusive && key == upper);
+    }
+
+    // Vrai si le libellé est une valeur de la bonne nature comprise dans la plage
+    public boolean accepts(String label) {
+        return contains(kind.key(label)); // NaN n'est dans aucune plage
+    }
+
+    public Variable getVariable() {
+        return variable;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public double getLower() {
+        return lower;
+    }
+
+    public boolean isLowerInclusive() {
+        return lowerInclusive;
+    }
+
+    public double getUpper() {
+        return upper;
+    }
+
+    public boolean isUpperInclusive() {
+        return upperInclusive;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RangeFilter that = (RangeFilter) o;
+        return variable.equals(that.variable) && kind == that.kind
+                && Double.compare(lower, that.lower) == 0 && lowerInclusive == that.lowerInclusive
+                && Double.compare(upper, that.upper) == 0 && upperInclusive == that.upperInclusive;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(variable, kind, lower, lowerInclusive, upper, upperInclusive);
+    }
+
+    @Override
+    public String toString() {
+        return "RangeFilter{" + variable + " in " + kind
+                + (lowerInclusive ? "[" : "]") + lower + ", " + upper + (upperInclusive ? "]" : "[")
+                + '}';
+    }
+}
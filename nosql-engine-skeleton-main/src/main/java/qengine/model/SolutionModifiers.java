@@ -0,0 +1,90 @@
+package qengine.model;
+
+import java.util.Objects;
+
+/**
+ * Modificateurs de solutions d'une requête en étoile (LIMIT, OFFSET et ORDER BY).
+ * Le tri n'est supporté que sur la variable centrale et suit l'ordre des identifiants
+ * attribués par le dictionnaire, et non l'ordre lexicographique des termes.
+ */
+public final class SolutionModifiers {
+
+    /**
+     * Ordre de parcours des valeurs de la variable centrale.
+     */
+    public enum CentralOrder {
+        NONE, ASC, DESC
+    }
+
+    // Valeur de limite signifiant "pas de limite"
+    public static final long NO_LIMIT = -1;
+
+    // Aucun modificateur : toutes les réponses, dans un ordre quelconque
+    public static final SolutionModifiers NONE = new SolutionModifiers(NO_LIMIT, 0, CentralOrder.NONE);
+
+    private final long limit;
+    private final long offset;
+    private final CentralOrder order;
+
+    /**
+     * Constructeur.
+     *
+     * @param limit  nombre maximal de réponses, ou {@link #NO_LIMIT}
+     * @param offset nombre de réponses à ignorer avant la première réponse retournée
+     * @param order  ordre de parcours de la variable centrale
+     * @throws IllegalArgumentException si la limite ou le décalage sont négatifs
+     */
+    public SolutionModifiers(long limit, long offset, CentralOrder order) {
+        if (limit < NO_LIMIT) {
+            throw new IllegalArgumentException("La limite ne peut pas être négative : " + limit);
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("Le décalage ne peut pas être négatif : " + offset);
+        }
+        this.limit = limit;
+        this.offset = offset;
+        this.order = Objects.requireNonNull(order, "L'ordre ne peut pas être null.");
+    }
+
+    public boolean hasLimit() {
+        return limit != NO_LIMIT;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public CentralOrder getOrder() {
+        return order;
+    }
+
+    public boolean isOrdered() {
+        return order != CentralOrder.NONE;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SolutionModifiers that = (SolutionModifiers) o;
+        return limit == that.limit && offset == that.offset && order == that.order;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(limit, offset, order);
+    }
+
+    @Override
+    public String toString() {
+        return "SolutionModifiers{" +
+                "limit=" + limit +
+                ", offset=" + offset +
+                ", order=" + order +
+                '}';
+    }
+}
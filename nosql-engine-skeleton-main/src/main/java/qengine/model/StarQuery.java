@@ -30,6 +30,15 @@ public class StarQuery implements Query {
     // Variable centrale de la requête en étoile
     private final Variable centralVariable;
 
+    // Modificateurs de solutions (LIMIT, OFFSET, ORDER BY)
+    private final SolutionModifiers modifiers;
+
+    // Conditions de plage (FILTER), au plus une par variable
+    private final List<RangeFilter> filters;
+
+    // Conditions de préfixe (FILTER STRSTARTS), au plus une par variable
+    private final List<PrefixFilter> prefixFilters;
+
     /**
      * Constructeur pour une requête en étoile.
      *
@@ -40,15 +49,72 @@ public class StarQuery implements Query {
      * @throws IllegalArgumentException si les atomes RDF ne forment pas une requête en étoile
      */
     public StarQuery(String label, List<RDFAtom> rdfAtoms, Collection<Variable> answerVariables) {
+        this(label, rdfAtoms, answerVariables, SolutionModifiers.NONE);
+    }
+
+    /**
+     * Constructeur pour une requête en étoile avec modificateurs de solutions.
+     *
+     * @param label           le label de la requête
+     * @param rdfAtoms        la collection des triplets RDF
+     * @param answerVariables les variables réponses
+     * @param modifiers       les modificateurs de solutions (LIMIT, OFFSET, ORDER BY)
+     * @throws NullPointerException     si l'un des paramètres est null
+     * @throws IllegalArgumentException si les atomes RDF ne forment pas une requête en étoile
+     */
+    public StarQuery(String label, List<RDFAtom> rdfAtoms, Collection<Variable> answerVariables,
+                     SolutionModifiers modifiers) {
+        this(label, rdfAtoms, answerVariables, modifiers, List.of());
+    }
+
+    /**
+     * Constructeur pour une requête en étoile avec modificateurs de solutions et conditions de plage.
+     *
+     * @param label           le label de la requête
+     * @param rdfAtoms        la collection des triplets RDF
+     * @param answerVariables les variables réponses
+     * @param modifiers       les modificateurs de solutions (LIMIT, OFFSET, ORDER BY)
+     * @param filters         les conditions de plage, au plus une par variable
+     * @throws NullPointerException     si l'un des paramètres est null
+     * @throws IllegalArgumentException si les atomes RDF ne forment pas une requête en étoile, ou si
+     *                                  une condition porte sur une variable absente ou déjà filtrée
+     */
+    public StarQuery(String label, List<RDFAtom> rdfAtoms, Collection<Variable> answerVariables,
+                     SolutionModifiers modifiers, List<RangeFilter> filters) {
+        this(label, rdfAtoms, answerVariables, modifiers, filters, List.of());
+    }
+
+    /**
+     * Constructeur pour une requête en étoile avec modificateurs de solutions, conditions de plage
+     * et conditions de préfixe.
+     *
+     * @param label           le label de la requête
+     * @param rdfAtoms        la collection des triplets RDF
+     * @param answerVariables les variables réponses
+     * @param modifiers       les modificateurs de solutions (LIMIT, OFFSET, ORDER BY)
+     * @param filters         les conditions de plage, au plus une par variable
+     * @param prefixFilters   les conditions de préfixe, au plus une par variable
+     * @throws NullPointerException     si l'un des paramètres est null
+     * @throws IllegalArgumentException si les atomes RDF ne forment pas une requête en étoile, ou si
+     *                                  une condition porte sur une variable absente ou déjà filtrée
+     */
+    public StarQuery(String label, List<RDFAtom> rdfAtoms, Collection<Variable> answerVariables,
+                     SolutionModifiers modifiers, List<RangeFilter> filters, List<PrefixFilter> prefixFilters) {
         this.label = Objects.requireNonNull(label, "Le label ne peut pas être null.");
         this.rdfAtoms = Objects.requireNonNull(rdfAtoms, "Les triplets RDF ne peuvent pas être null.");
         this.answerVariables = Objects.requireNonNull(answerVariables, "Les variables réponses ne peuvent pas être null.");
+        this.modifiers = Objects.requireNonNull(modifiers, "Les modificateurs ne peuvent pas être null.");
+        this.filters = List.copyOf(Objects.requireNonNull(filters, "Les conditions ne peuvent pas être null."));
+        this.prefixFilters = List.copyOf(Objects.requireNonNull(prefixFilters,
+                "Les conditions de préfixe ne peuvent pas être null."));
 
         // Déterminer la variable centrale
         this.centralVariable = determineCentralVariable(rdfAtoms);
 
         // Vérifier que toutes les variables réponses sont valides
         validateAnswerVariables(answerVariables, rdfAtoms);
+        validateFilters(this.filters.stream().map(RangeFilter::getVariable).toList(), rdfAtoms);
+        validateFilters(this.prefixFilters.stream().map(PrefixFilter::getVariable).toList(), rdfAtoms);
     }
 
     /**
@@ -96,6 +162,26 @@ public class StarQuery implements Query {
         }
     }
 
+    /**
+     * Valide que chaque condition d'une même sorte porte sur une variable distincte présente dans les triplets RDF.
+     *
+     * @param variables les variables des conditions
+     * @param rdfAtoms  la collection de triplets RDF
+     * @throws IllegalArgumentException si une variable filtrée est absente ou filtrée deux fois
+     */
+    private void validateFilters(List<Variable> variables, Collection<RDFAtom> rdfAtoms) {
+        Set<Variable> filtered = new HashSet<>();
+        for (Variable variable : variables) {
+            if (rdfAtoms.stream().noneMatch(atom -> Arrays.asList(atom.getTerms()).contains(variable))) {
+                throw new IllegalArgumentException("La variable filtrée " + variable +
+                        " n'est pas présente dans les triplets RDF.");
+            }
+            if (!filtered.add(variable)) {
+                throw new IllegalArgumentException("La variable " + variable + " est filtrée plusieurs fois.");
+            }
+        }
+    }
+
     /**
      * Retourne le label de la requête.
      *
@@ -135,7 +221,34 @@ public class StarQuery implements Query {
     }
 
     /**
-     * Convertit la requete en étoile en requete pour Integraal
+     * Retourne les modificateurs de solutions de la requête.
+     *
+     * @return les modificateurs (LIMIT, OFFSET, ORDER BY)
+     */
+    public SolutionModifiers getModifiers() {
+        return modifiers;
+    }
+
+    /**
+     * Retourne les conditions de plage de la requête.
+     *
+     * @return les conditions (FILTER), vide si la requête n'en a pas
+     */
+    public List<RangeFilter> getFilters() {
+        return filters;
+    }
+
+    /**
+     * Retourne les conditions de préfixe de la requête.
+     *
+     * @return les conditions, au plus une par variable
+     */
+    public List<PrefixFilter> getPrefixFilters() {
+        return prefixFilters;
+    }
+
+    /**
+     * Convertit la requete en étoile en requete pour Integraal (sans les FILTER)
      *
      * @return FOQuery
      */
@@ -152,12 +265,15 @@ public class StarQuery implements Query {
         return label.equals(that.label) &&
                 rdfAtoms.equals(that.rdfAtoms) &&
                 answerVariables.equals(that.answerVariables) &&
-                centralVariable.equals(that.centralVariable);
+                centralVariable.equals(that.centralVariable) &&
+                modifiers.equals(that.modifiers) &&
+                filters.equals(that.filters) &&
+                prefixFilters.equals(that.prefixFilters);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(label, rdfAtoms, answerVariables, centralVariable);
+        return Objects.hash(label, rdfAtoms, answerVariables, centralVariable, modifiers, filters, prefixFilters);
     }
 
     @Override
@@ -167,6 +283,9 @@ public class StarQuery implements Query {
                 ",\n\t rdfAtoms=" + rdfAtoms +
                 ",\n\t answerVariables=" + answerVariables +
                 ",\n\t centralVariable=" + centralVariable +
+                ",\n\t modifiers=" + modifiers +
+                ",\n\t filters=" + filters +
+                ",\n\t prefixFilters=" + prefixFilters +
                 '}';
     }
 }
@@ -6,28 +6,51 @@ import fr.boreal.model.logicalElements.api.Variable;
 import fr.boreal.model.logicalElements.factory.api.TermFactory;
 import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
 import fr.boreal.model.query.api.Query;
+import org.eclipse.rdf4j.model.vocabulary.FN;
+import org.eclipse.rdf4j.query.algebra.And;
+import org.eclipse.rdf4j.query.algebra.Compare;
+import org.eclipse.rdf4j.query.algebra.Filter;
+import org.eclipse.rdf4j.query.algebra.FunctionCall;
+import org.eclipse.rdf4j.query.algebra.Order;
+import org.eclipse.rdf4j.query.algebra.OrderElem;
 import org.eclipse.rdf4j.query.algebra.Projection;
 import org.eclipse.rdf4j.query.algebra.ProjectionElemList;
+import org.eclipse.rdf4j.query.algebra.Slice;
 import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.ValueConstant;
+import org.eclipse.rdf4j.query.algebra.ValueExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
 import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
 import org.eclipse.rdf4j.query.algebra.helpers.StatementPatternCollector;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 import org.eclipse.rdf4j.query.parser.sparql.SPARQLParser;
 
+import qengine.model.PrefixFilter;
 import qengine.model.RDFAtom;
+import qengine.model.RangeFilter;
+import qengine.model.SolutionModifiers;
 import qengine.model.StarQuery;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.regex.Pattern;
 
 /**
  * Un parser pour analyser des requêtes SparQL en requêtes en étoile.
  */
 public class StarQuerySparQLParser implements Parser<Query> {
 
+    // Fin de requête suivie de modificateurs de solutions sur la même ligne, ex. "} LIMIT 10"
+    private static final Pattern END_WITH_MODIFIERS =
+            Pattern.compile(".*}\\s*((ORDER\\s+BY|LIMIT|OFFSET)\\b.*)", Pattern.CASE_INSENSITIVE);
+    // Ligne de modificateurs de solutions seule, après l'accolade fermante, ex. "LIMIT 10"
+    private static final Pattern MODIFIERS_LINE =
+            Pattern.compile("(ORDER\\s+BY|LIMIT|OFFSET)\\b.*", Pattern.CASE_INSENSITIVE);
+
     private final Iterator<String> queryIterator;
+    private String pendingLine = null; // Ligne lue après une requête, qui appartient à la suivante
     private final TermFactory termFactory = SameObjectTermFactory.instance();
     private final SPARQLParser sparqlParser = new SPARQLParser();
     private Query nextQuery = null;
@@ -43,6 +66,26 @@ public class StarQuerySparQLParser implements Parser<Query> {
         this.queryIterator = lines.iterator();
     }
 
+    // Parser sans fichier, pour les requêtes isolées
+    private StarQuerySparQLParser() {
+        this.queryIterator = Collections.emptyIterator();
+    }
+
+    /**
+     * Analyse une requête SparQL isolée, par exemple reçue par le réseau. Contrairement à la lecture
+     * d'un fichier, où seules des lignes de modificateurs de solutions peuvent suivre l'accolade
+     * fermante, tout le texte est analysé comme une seule requête.
+     *
+     * @param queryString le texte de la requête
+     * @return la requête en étoile
+     * @throws IllegalArgumentException si la requête n'est pas une requête en étoile valide
+     * @throws org.eclipse.rdf4j.query.MalformedQueryException si la requête n'est pas du SparQL valide
+     */
+    public static StarQuery parseQuery(String queryString) {
+        StarQuerySparQLParser parser = new StarQuerySparQLParser();
+        return parser.parseStarQuery(parser.sparqlParser.parseQuery(queryString, null));
+    }
+
     @Override
     public boolean hasNext() {
         if (nextQuery != null) {
@@ -50,17 +93,27 @@ public class StarQuerySparQLParser implements Parser<Query> {
         }
 
         try {
-            while (queryIterator.hasNext()) {
+            while (hasNextLine()) {
                 StringBuilder queryBuilder = new StringBuilder();
 
                 // Construire une requête multi-ligne jusqu'à rencontrer "}"
-                while (queryIterator.hasNext()) {
-                    String line = queryIterator.next();
+                boolean closed = false;
+                while (!closed && hasNextLine()) {
+                    String line = nextLine();
                     queryBuilder.append(line).append(System.lineSeparator());
 
-                    if (line.trim().endsWith("}")) {
+                    String trimmed = line.trim();
+                    closed = trimmed.endsWith("}") || END_WITH_MODIFIERS.matcher(trimmed).matches();
+                }
+
+                // Puis les lignes de modificateurs qui suivent, jusqu'à une ligne vide ou une autre requête
+                while (closed && hasNextLine()) {
+                    String line = nextLine();
+                    if (!MODIFIERS_LINE.matcher(line.trim()).matches()) {
+                        pendingLine = line;
                         break;
                     }
+                    queryBuilder.append(line).append(System.lineSeparator());
                 }
 
                 String queryString = queryBuilder.toString().trim();
@@ -77,6 +130,19 @@ public class StarQuerySparQLParser implements Parser<Query> {
         return false;
     }
 
+    private boolean hasNextLine() {
+        return pendingLine != null || queryIterator.hasNext();
+    }
+
+    private String nextLine() {
+        if (pendingLine == null) {
+            return queryIterator.next();
+        }
+        String line = pendingLine;
+        pendingLine = null;
+        return line;
+    }
+
     @Override
     public Query next() {
         if (!hasNext()) {
@@ -129,9 +195,155 @@ public class StarQuerySparQLParser implements Parser<Query> {
         }
 
         List<Variable> answerVariables = extractAnswerVariables(parsedQuery, variables);
+        SolutionModifiers modifiers = extractSolutionModifiers(parsedQuery, centralVariable);
+        Map<Variable, RangeFilter> filters = new LinkedHashMap<>();
+        Map<Variable, PrefixFilter> prefixFilters = new LinkedHashMap<>();
+        extractFilters(parsedQuery, variables, filters, prefixFilters);
 
         // Construire la requête en étoile
-        return new StarQuery(parsedQuery.getSourceString(), rdfAtoms, answerVariables);
+        return new StarQuery(parsedQuery.getSourceString(), rdfAtoms, answerVariables, modifiers,
+                new ArrayList<>(filters.values()), new ArrayList<>(prefixFilters.values()));
+    }
+
+    /**
+     * Extrait les conditions des FILTER de la requête : comparaisons d'une variable à un nombre ou à
+     * une date, et {@code STRSTARTS(?variable, "préfixe")}, éventuellement combinées par {@code &&}.
+     * Les conditions de plage sur une même variable sont fusionnées en une seule plage, les préfixes
+     * en le plus long.
+     *
+     * @param parsedQuery   la requête SparQL analysée
+     * @param variables     le dictionnaire des variables
+     * @param filters       reçoit les conditions de plage, au plus une par variable
+     * @param prefixFilters reçoit les conditions de préfixe, au plus une par variable
+     * @throws IllegalArgumentException si un FILTER contient une autre forme de condition
+     */
+    private void extractFilters(ParsedQuery parsedQuery, Map<String, Variable> variables,
+                                Map<Variable, RangeFilter> filters, Map<Variable, PrefixFilter> prefixFilters) {
+        parsedQuery.getTupleExpr().visit(new AbstractQueryModelVisitor<RuntimeException>() {
+            @Override
+            public void meet(Filter node) {
+                collectConditions(node.getCondition(), variables, filters, prefixFilters);
+                super.meet(node);
+            }
+        });
+    }
+
+    // Ajoute les conditions d'une expression de FILTER, en les fusionnant par variable
+    private void collectConditions(ValueExpr condition, Map<String, Variable> variables,
+                                   Map<Variable, RangeFilter> filters, Map<Variable, PrefixFilter> prefixFilters) {
+        if (condition instanceof And and) {
+            collectConditions(and.getLeftArg(), variables, filters, prefixFilters);
+            collectConditions(and.getRightArg(), variables, filters, prefixFilters);
+            return;
+        }
+        if (condition instanceof FunctionCall call && call.getURI().equals(FN.STARTS_WITH.stringValue())
+                && call.getArgs().size() == 2 && call.getArgs().get(0) instanceof Var var && !var.hasValue()) {
+            String prefix = constantLabel(call.getArgs().get(1));
+            if (prefix != null) {
+                prefixFilters.merge(variableOf(var, variables), new PrefixFilter(variableOf(var, variables), prefix),
+                        StarQuerySparQLParser::longestPrefix);
+                return;
+            }
+        }
+        if (condition instanceof Compare compare) {
+            String operator = compare.getOperator().getSymbol();
+            String left = constantLabel(compare.getLeftArg());
+            String right = constantLabel(compare.getRightArg());
+            RangeFilter filter = null;
+            if (right != null && compare.getLeftArg() instanceof Var var && !var.hasValue()) {
+                filter = RangeFilter.of(variableOf(var, variables), operator, right);
+            } else if (left != null && compare.getRightArg() instanceof Var var && !var.hasValue()) {
+                // Constante à gauche : "3 < ?x" équivaut à "?x > 3"
+                filter = RangeFilter.of(variableOf(var, variables), mirror(operator), left);
+            }
+            if (filter != null) {
+                filters.merge(filter.getVariable(), filter, RangeFilter::intersect);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Seules les comparaisons d'une variable à un nombre ou à une date "
+                + "et STRSTARTS, combinées par &&, sont supportées dans FILTER : " + condition);
+    }
+
+    // Conjonction de deux préfixes d'une même variable : le plus long, s'il prolonge l'autre
+    private static PrefixFilter longestPrefix(PrefixFilter first, PrefixFilter second) {
+        if (second.getPrefix().startsWith(first.getPrefix())) {
+            return second;
+        }
+        if (first.getPrefix().startsWith(second.getPrefix())) {
+            return first;
+        }
+        throw new IllegalArgumentException("Préfixes incompatibles : " + first + " et " + second);
+    }
+
+    // Libellé d'une constante d'expression, null si l'expression n'est pas une constante
+    private static String constantLabel(ValueExpr expr) {
+        if (expr instanceof ValueConstant constant) {
+            return constant.getValue().stringValue();
+        }
+        if (expr instanceof Var var && var.hasValue()) {
+            return var.getValue().stringValue();
+        }
+        return null;
+    }
+
+    private Variable variableOf(Var var, Map<String, Variable> variables) {
+        return variables.computeIfAbsent("?" + var.getName(), termFactory::createOrGetVariable);
+    }
+
+    private static String mirror(String operator) {
+        return switch (operator) {
+            case "<" -> ">";
+            case "<=" -> ">=";
+            case ">" -> "<";
+            case ">=" -> "<=";
+            default -> operator;
+        };
+    }
+
+    /**
+     * Extrait les modificateurs LIMIT, OFFSET et ORDER BY de la requête SparQL analysée.
+     *
+     * @param parsedQuery     la requête SparQL analysée
+     * @param centralVariable la variable centrale de la requête
+     * @return les modificateurs de solutions
+     * @throws IllegalArgumentException si le tri porte sur une autre variable que la variable centrale
+     */
+    private SolutionModifiers extractSolutionModifiers(ParsedQuery parsedQuery, Variable centralVariable) {
+        long[] slice = {SolutionModifiers.NO_LIMIT, 0}; // Utilisation d'un tableau pour capturer le résultat
+        List<OrderElem> orderElems = new ArrayList<>();
+
+        parsedQuery.getTupleExpr().visit(new AbstractQueryModelVisitor<RuntimeException>() {
+            @Override
+            public void meet(Slice node) {
+                if (node.hasLimit()) {
+                    slice[0] = node.getLimit();
+                }
+                if (node.hasOffset()) {
+                    slice[1] = node.getOffset();
+                }
+                super.meet(node);
+            }
+
+            @Override
+            public void meet(Order node) {
+                orderElems.addAll(node.getElements());
+                super.meet(node);
+            }
+        });
+
+        SolutionModifiers.CentralOrder order = SolutionModifiers.CentralOrder.NONE;
+        if (!orderElems.isEmpty()) {
+            OrderElem elem = orderElems.get(0);
+            if (orderElems.size() > 1 || !(elem.getExpr() instanceof Var var)
+                    || !centralVariable.label().equals("?" + var.getName())) {
+                throw new IllegalArgumentException("ORDER BY n'est supporté que sur la variable centrale "
+                        + centralVariable.label() + ".");
+            }
+            order = elem.isAscending() ? SolutionModifiers.CentralOrder.ASC : SolutionModifiers.CentralOrder.DESC;
+        }
+
+        return new SolutionModifiers(slice[0], slice[1], order);
     }
 
     /**
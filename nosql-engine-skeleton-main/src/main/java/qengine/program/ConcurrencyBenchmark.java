@@ -0,0 +1,107 @@
+package qengine.program;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.storage.ConcurrentRDFHexaStore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesure le passage à l'échelle des lectures de {@link ConcurrentRDFHexaStore} : pour 1, 2, 4...
+ * threads lecteurs, la moitié des données est chargée, puis un thread écrivain insère l'autre moitié
+ * pendant que les lecteurs évaluent la charge de requêtes en boucle. Le débit de lecture (requêtes/s)
+ * et le nombre de triplets insérés pendant la mesure sont rapportés pour chaque configuration.
+ *
+ * Usage : ConcurrencyBenchmark [fichier.nt] [fichier.queryset] [durée en secondes] [lecteurs max]
+ */
+public class ConcurrencyBenchmark {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String dataFile = args.length > 0 ? args[0] : "data/100K.nt";
+        String queryFile = args.length > 1 ? args[1] : "data/STAR_ALL_workload.queryset";
+        long durationMillis = (long) ((args.length > 2 ? Double.parseDouble(args[2]) : 5) * 1000);
+        int maxReaders = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+
+        List<RDFAtom> atoms = Verification.parseRDFData(dataFile);
+        List<StarQuery> queries = Verification.parseSparQLQueries(queryFile);
+        System.out.println(atoms.size() + " triplets, " + queries.size() + " requêtes, "
+                + Runtime.getRuntime().availableProcessors() + " processeurs");
+        System.out.printf("%8s %14s %12s %18s%n", "lecteurs", "requêtes/s", "par lecteur", "triplets insérés/s");
+        for (int readers = 1; readers <= maxReaders; readers *= 2) {
+            Result result = run(atoms, queries, readers, durationMillis);
+            System.out.printf("%8d %14.1f %12.1f %18.1f%n", readers, result.queriesPerSecond(),
+                    result.queriesPerSecond() / readers, result.insertsPerSecond());
+        }
+    }
+
+    /**
+     * Résultat d'une mesure.
+     */
+    record Result(long queries, long inserts, long nanos) {
+
+        double queriesPerSecond() {
+            return queries / (nanos / 1e9);
+        }
+
+        double insertsPerSecond() {
+            return inserts / (nanos / 1e9);
+        }
+    }
+
+    /**
+     * Charge la première moitié des atomes, puis mesure pendant {@code durationMillis} le débit de
+     * {@code readers} lecteurs concurrents d'un écrivain qui insère la seconde moitié.
+     */
+    static Result run(List<RDFAtom> atoms, List<StarQuery> queries, int readers, long durationMillis)
+            throws InterruptedException {
+        ConcurrentRDFHexaStore store = new ConcurrentRDFHexaStore();
+        int half = atoms.size() / 2;
+        store.addAll(atoms.subList(0, half));
+        List<RDFAtom> pending = atoms.subList(half, atoms.size());
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder completed = new LongAdder();
+        LongAdder inserted = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        threads.add(new Thread(() -> {
+            for (RDFAtom atom : pending) {
+                if (!running.get()) {
+                    return;
+                }
+                store.add(atom);
+                inserted.increment();
+            }
+        }, "écrivain"));
+        for (int r = 0; r < readers; r++) {
+            int offset = r;
+            threads.add(new Thread(() -> {
+                for (int i = offset; running.get(); i++) {
+                    consume(store.match(queries.get(i % queries.size())));
+                    completed.increment();
+                }
+            }, "lecteur-" + r));
+        }
+
+        long start = System.nanoTime();
+        threads.forEach(Thread::start);
+        Thread.sleep(durationMillis);
+        running.set(false);
+        long elapsed = System.nanoTime() - start;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return new Result(completed.sum(), inserted.sum(), elapsed);
+    }
+
+    private static void consume(Iterator<Substitution> results) {
+        while (results.hasNext()) {
+            results.next();
+        }
+    }
+}
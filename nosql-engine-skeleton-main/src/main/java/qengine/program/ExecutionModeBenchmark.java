@@ -0,0 +1,62 @@
+package qengine.program;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.storage.ExecutionMode;
+import qengine.storage.RDFHexaStore;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Compare l'évaluation ligne à ligne et l'évaluation par vecteurs des requêtes en étoile
+ * sur un jeu de données et une charge de requêtes (par défaut la charge WatDiv).
+ *
+ * Usage : ExecutionModeBenchmark [fichier.nt] [fichier.queryset] [tours]
+ */
+public class ExecutionModeBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        String dataFile = args.length > 0 ? args[0] : "data/100K.nt";
+        String queryFile = args.length > 1 ? args[1] : "data/STAR_ALL_workload.queryset";
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        System.out.println("=== Chargement de " + dataFile + " ===");
+        List<RDFAtom> atoms = Verification.parseRDFData(dataFile);
+        List<StarQuery> queries = Verification.parseSparQLQueries(queryFile);
+        RDFHexaStore store = new RDFHexaStore();
+        store.addAll(atoms);
+        System.out.println(store.size() + " triplets, " + queries.size() + " requêtes");
+
+        // Préchauffage du JIT sur les deux modes
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            run(store, queries, mode);
+        }
+
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            long answers = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                answers = run(store, queries, mode);
+            }
+            double millis = (System.nanoTime() - start) / 1_000_000.0 / rounds;
+            System.out.printf("%-5s : %10.2f ms par passe, %d réponses%n", mode, millis, answers);
+        }
+    }
+
+    // Évalue toute la charge et retourne le nombre total de réponses
+    private static long run(RDFHexaStore store, List<StarQuery> queries, ExecutionMode mode) {
+        store.setExecutionMode(mode);
+        long answers = 0;
+        for (StarQuery query : queries) {
+            Iterator<Substitution> results = store.match(query);
+            while (results.hasNext()) {
+                results.next();
+                answers++;
+            }
+        }
+        return answers;
+    }
+}
@@ -0,0 +1,108 @@
+package qengine.program;
+
+/**
+ * Histogramme de latences à précision relative bornée, sur le modèle d'HdrHistogram.
+ * Les valeurs (en nanosecondes) inférieures à {@link #SUB_BUCKETS} sont comptées exactement ;
+ * au-delà, chaque puissance de deux est découpée en {@link #SUB_BUCKETS}/2 intervalles égaux,
+ * soit une erreur relative inférieure à 2/{@link #SUB_BUCKETS} pour une mémoire fixe.
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKETS = 128;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int HALF_BITS = Integer.numberOfTrailingZeros(HALF);
+
+    private final long[] counts = new long[SUB_BUCKETS + (64 - HALF_BITS) * HALF];
+    private long count = 0;
+    private long total = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    /**
+     * Enregistre une valeur.
+     *
+     * @param value la valeur, positive ou nulle
+     */
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Une latence ne peut pas être négative : " + value);
+        }
+        counts[indexOf(value)]++;
+        count++;
+        total += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    // Ajoute toutes les valeurs d'un autre histogramme
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        total += other.total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * Valeur sous laquelle se trouve le pourcentage donné des valeurs enregistrées, à la précision
+     * de l'histogramme (borne haute de l'intervalle, sans dépasser le maximum observé).
+     *
+     * @param percentile le pourcentage, entre 0 et 100
+     * @return la valeur au percentile, 0 si l'histogramme est vide
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Le percentile doit être compris entre 0 et 100 : " + percentile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalent(i), max);
+            }
+        }
+        return max;
+    }
+
+    // Intervalle d'une valeur : exact sous SUB_BUCKETS, puis HALF intervalles par puissance de deux
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - HALF_BITS;
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    // Plus grande valeur comptée dans un intervalle
+    static long highestEquivalent(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long mantissa = (index - SUB_BUCKETS) % HALF + HALF;
+        long upper = (mantissa + 1) << shift;
+        return upper <= 0 ? Long.MAX_VALUE : upper - 1;
+    }
+}
@@ -0,0 +1,120 @@
+package qengine.program;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import qengine.model.StarQuery;
+import qengine.parser.RDFAtomParser;
+import qengine.storage.ConcurrentRDFHexaStore;
+import qengine.storage.ShardServer;
+import qengine.storage.ShardedRDFStore;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Déploiement réparti sur une seule machine : plusieurs JVM de shard, chacune chargeant la part du
+ * fichier .nt dont les sujets lui sont attribués, et un coordinateur qui leur diffuse les requêtes
+ * par des sockets locales.
+ *
+ * Usage :
+ *   ShardedCluster worker [port] [fichier.nt] [numéro du shard] [nombre de shards]
+ *       démarre un shard (port 0 : port libre) et affiche "PRET [port] [triplets]" une fois chargé
+ *   ShardedCluster local [fichier.nt] [fichier.queryset] [nombre de shards]
+ *       lance les shards dans des JVM filles, évalue la charge de requêtes puis arrête les shards
+ */
+public class ShardedCluster {
+
+    private static final String READY = "PRET ";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String mode = args.length > 0 ? args[0] : "local";
+        switch (mode) {
+            case "worker" -> worker(Integer.parseInt(args[1]), args[2], Integer.parseInt(args[3]),
+                    Integer.parseInt(args[4]));
+            case "local" -> local(args.length > 1 ? args[1] : "data/100K.nt",
+                    args.length > 2 ? args[2] : "data/STAR_ALL_workload.queryset",
+                    args.length > 3 ? Integer.parseInt(args[3]) : 2);
+            default -> throw new IllegalArgumentException("Mode inconnu : " + mode + " (worker ou local)");
+        }
+    }
+
+    // Charge la part du fichier attribuée au shard puis sert les requêtes jusqu'à l'arrêt du processus.
+    // Le fichier est lu au fil de l'eau : seuls les triplets du shard sont conservés en mémoire.
+    private static void worker(int port, String dataFile, int shard, int shardCount)
+            throws IOException, InterruptedException {
+        ConcurrentRDFHexaStore store = new ConcurrentRDFHexaStore();
+        try (RDFAtomParser parser = new RDFAtomParser(new FileReader(dataFile), RDFFormat.NTRIPLES)) {
+            store.addAll(parser.getRDFAtoms()
+                    .filter(atom -> ShardedRDFStore.shardOf(atom.getTripleSubject(), shardCount) == shard));
+        }
+        ShardServer server = new ShardServer(store, port);
+        System.out.println(READY + server.getPort() + " " + store.size());
+        System.out.flush();
+        Thread.currentThread().join(); // Les connexions sont servies par les threads du serveur
+    }
+
+    private static void local(String dataFile, String queryFile, int shardCount)
+            throws IOException, InterruptedException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<Process> workers = new ArrayList<>();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> workers.forEach(Process::destroy)));
+
+        long loadStart = System.nanoTime();
+        for (int shard = 0; shard < shardCount; shard++) {
+            workers.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    ShardedCluster.class.getName(), "worker", "0", dataFile, String.valueOf(shard),
+                    String.valueOf(shardCount))
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+        }
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            String[] ready = awaitReady(workers.get(shard)).split(" ");
+            addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(ready[1])));
+            System.out.println("Shard " + shard + " : port " + ready[1] + ", " + ready[2] + " triplets");
+        }
+        System.out.printf("Shards prêts en %.1f s%n", (System.nanoTime() - loadStart) / 1e9);
+
+        try {
+            ShardedRDFStore store = new ShardedRDFStore(addresses);
+            List<StarQuery> queries = Verification.parseSparQLQueries(queryFile);
+            long answers = 0;
+            long start = System.nanoTime();
+            for (StarQuery query : queries) {
+                Iterator<Substitution> results = store.match(query);
+                while (results.hasNext()) {
+                    results.next();
+                    answers++;
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d requêtes, %d réponses en %.2f s (%.1f requêtes/s)%n",
+                    queries.size(), answers, seconds, queries.size() / seconds);
+        } finally {
+            workers.forEach(Process::destroy);
+        }
+    }
+
+    // Attend la ligne "PRET" du shard, puis continue de vider sa sortie pour qu'il ne se bloque pas en écriture
+    private static String awaitReady(Process worker) throws IOException, InterruptedException {
+        BufferedReader output = new BufferedReader(new InputStreamReader(worker.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = output.readLine()) != null) {
+            if (line.startsWith(READY)) {
+                Thread drain = new Thread(() -> output.lines().forEach(ignored -> { }), "sortie-shard");
+                drain.setDaemon(true);
+                drain.start();
+                return line;
+            }
+        }
+        throw new IllegalStateException("Le shard s'est arrêté avant d'être prêt (code " + worker.waitFor() + ").");
+    }
+}
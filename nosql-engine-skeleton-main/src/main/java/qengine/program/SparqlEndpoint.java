@@ -0,0 +1,205 @@
+package qengine.program;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Variable;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.parser.StarQuerySparQLParser;
+import qengine.storage.RDFHexaStore;
+import qengine.storage.RDFStorage;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Point d'accès HTTP pour les requêtes SparQL en étoile, sur le serveur HTTP du JDK.
+ * Chaque requête HTTP est traitée par son propre thread virtuel : un client qui lit lentement
+ * ses réponses n'occupe pas de thread système.
+ * <p>
+ * La requête est transmise comme dans le protocole SPARQL : paramètre {@code query} en GET ou dans
+ * un formulaire POST, ou corps {@code application/sparql-query}. Les réponses sont envoyées au fil
+ * de l'évaluation, en valeurs séparées par des tabulations : une ligne d'en-tête avec les variables
+ * réponses, puis une ligne par réponse avec le libellé brut de chaque terme. Ce n'est pas le format
+ * TSV des résultats SPARQL 1.1 : les parseurs du moteur traduisent IRI et littéraux en libellés
+ * (traduction brute), si bien que leur syntaxe ({@code <iri>}, {@code "littéral"}) ne peut pas être
+ * restituée. Une erreur pendant l'envoi coupe la connexion, plutôt que de terminer normalement une
+ * réponse tronquée. Le store partagé n'est pas modifié par le point d'accès.
+ * <p>
+ * Le serveur n'écoute par défaut que sur l'interface de bouclage.
+ *
+ * Usage : SparqlEndpoint [fichier.nt] [port] [adresse d'écoute]
+ */
+public class SparqlEndpoint implements Closeable {
+
+    public static final String PATH = "/sparql";
+    private static final String RESULT_TYPE = "text/tab-separated-values; charset=utf-8";
+
+    private final RDFStorage store;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public static void main(String[] args) throws IOException {
+        String dataFile = args.length > 0 ? args[0] : "data/100K.nt";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        InetAddress host = args.length > 2 ? InetAddress.getByName(args[2]) : InetAddress.getLoopbackAddress();
+
+        RDFHexaStore store = new RDFHexaStore();
+        List<RDFAtom> atoms = Verification.parseRDFData(dataFile);
+        store.addAll(atoms);
+        SparqlEndpoint endpoint = new SparqlEndpoint(store, host, port);
+        System.out.println(store.size() + " triplets, point d'accès SPARQL : http://"
+                + host.getHostAddress() + ":" + endpoint.getPort() + PATH);
+    }
+
+    /**
+     * Démarre le point d'accès sur l'interface de bouclage.
+     *
+     * @param store le store interrogé, partagé par toutes les requêtes
+     * @param port  le port d'écoute, ou 0 pour un port libre quelconque (voir {@link #getPort()})
+     * @throws IOException si le port ne peut pas être ouvert
+     */
+    public SparqlEndpoint(RDFStorage store, int port) throws IOException {
+        this(store, InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * Démarre le point d'accès.
+     *
+     * @param store le store interrogé, partagé par toutes les requêtes
+     * @param host  l'adresse d'écoute ; l'adresse joker expose le store sur toutes les interfaces
+     * @param port  le port d'écoute, ou 0 pour un port libre quelconque (voir {@link #getPort()})
+     * @throws IOException si le port ne peut pas être ouvert
+     */
+    public SparqlEndpoint(RDFStorage store, InetAddress host, int port) throws IOException {
+        this.store = store;
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext(PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String queryString;
+        try {
+            queryString = readQueryString(exchange);
+        } catch (IllegalArgumentException e) {
+            reject(exchange, 400, e.getMessage());
+            return;
+        }
+        if (queryString == null) {
+            reject(exchange, 405, "Méthode non supportée : " + exchange.getRequestMethod());
+            return;
+        }
+
+        StarQuery query;
+        try {
+            query = StarQuerySparQLParser.parseQuery(queryString);
+        } catch (RuntimeException e) {
+            reject(exchange, 400, "Requête invalide : " + e.getMessage());
+            return;
+        }
+
+        Iterator<Substitution> results;
+        try {
+            results = store.match(query);
+        } catch (RuntimeException e) {
+            reject(exchange, 500, "Erreur d'évaluation : " + e.getMessage());
+            return;
+        }
+
+        // Longueur inconnue : réponse envoyée par morceaux, au fur et à mesure de l'évaluation
+        exchange.getResponseHeaders().set("Content-Type", RESULT_TYPE);
+        exchange.sendResponseHeaders(200, 0);
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+            List<Variable> variables = List.copyOf(query.getAnswerVariables());
+            writeRow(writer, variables.stream().map(Variable::label).toList());
+            while (results.hasNext()) {
+                Substitution substitution = results.next();
+                writeRow(writer, variables.stream().map(variable -> substitution.createImageOf(variable).label()).toList());
+            }
+            writer.flush();
+        } catch (RuntimeException | IOException e) {
+            // Le statut 200 est déjà parti : fermer l'échange terminerait normalement un corps tronqué.
+            // L'exception laisse le serveur couper la connexion sans le dernier morceau, et le client
+            // voit une réponse incomplète.
+            throw new IOException("Réponse interrompue : " + e.getMessage(), e);
+        }
+        exchange.close();
+    }
+
+    /**
+     * @return le texte de la requête, ou null si la méthode HTTP n'est pas supportée
+     * @throws IllegalArgumentException si la requête est absente
+     */
+    private static String readQueryString(HttpExchange exchange) throws IOException {
+        String queryString = switch (exchange.getRequestMethod()) {
+            case "GET" -> parameter(exchange.getRequestURI().getRawQuery());
+            case "POST" -> {
+                String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                yield contentType != null && contentType.startsWith("application/x-www-form-urlencoded")
+                        ? parameter(body)
+                        : body;
+            }
+            default -> null;
+        };
+        if ("".equals(queryString)) {
+            throw new IllegalArgumentException("Paramètre query manquant.");
+        }
+        return queryString;
+    }
+
+    // Valeur du paramètre "query" d'une chaîne encodée comme un formulaire, ou "" s'il est absent
+    private static String parameter(String encoded) {
+        if (encoded != null) {
+            for (String pair : encoded.split("&")) {
+                if (pair.startsWith("query=")) {
+                    return URLDecoder.decode(pair.substring("query=".length()), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        return "";
+    }
+
+    // Les barres obliques inverses, tabulations et fins de ligne des libellés sont échappées
+    private static void writeRow(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write('\t');
+            }
+            writer.write(values.get(i).replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n")
+                    .replace("\r", "\\r"));
+        }
+        writer.write('\n');
+    }
+
+    // Répond par une erreur avant toute réponse, puis termine l'échange
+    private static void reject(HttpExchange exchange, int status, String message) throws IOException {
+        try (exchange) {
+            byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+}
@@ -0,0 +1,347 @@
+package qengine.program;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Générateur de jeux de données N-Triples et de requêtes en étoile dans l'esprit de WatDiv,
+ * pour mesurer le passage à l'échelle sans dépendre de fichiers externes.
+ *
+ * Les sujets sont répartis entre des ensembles caractéristiques (ensembles de prédicats) tirés selon
+ * une loi de Zipf ; chaque ensemble contient des prédicats eux-mêmes tirés selon une loi de Zipf, d'où
+ * quelques prédicats très fréquents et une longue traîne. Chaque prédicat a un type d'objet :
+ * catégorie (domaine fini de valeurs), référence vers un autre sujet ou valeur unique. Un prédicat
+ * sur cinq est multivalué. La génération est déterministe pour une graine donnée et se fait en flux,
+ * ce qui permet de produire des fichiers de plusieurs centaines de millions de triplets.
+ */
+public class SyntheticDataGenerator {
+
+    private static final String NAMESPACE = "http://example.org/synth/";
+    private static final int MIN_SET_SIZE = 2;
+    private static final int MAX_SET_SIZE = 8;
+    private static final int MAX_VALUES_PER_PREDICATE = 3; // Pour les prédicats multivalués
+
+    /**
+     * Reçoit les triplets générés. Sujets et objets partagent l'espace des nœuds
+     * (voir {@link #nodeCount()}), les prédicats sont numérotés de 0 à predicates - 1. Les valeurs
+     * de catégories, les valeurs uniques puis les sujets occupent des plages disjointes ; celle des
+     * sujets vient en dernier, car leur nombre n'est connu qu'à la fin de la génération.
+     */
+    public interface TripleConsumer {
+        void accept(int subject, int predicate, int object);
+    }
+
+    // Type d'objet d'un prédicat
+    enum ObjectKind {CATEGORY, REFERENCE, UNIQUE}
+
+    private final long triples;
+    private final long seed;
+    private final int[][] characteristicSets; // Prédicats de chaque ensemble
+    private final double[] setCumulative; // Distribution cumulée des ensembles
+    private final ObjectKind[] kinds; // Type d'objet de chaque prédicat
+    private final boolean[] multiValued;
+    private final int[] domains; // Nombre de valeurs des prédicats CATEGORY
+    private final int[] categoryOffsets; // Premier nœud des valeurs de chaque prédicat CATEGORY
+    private final int subjects; // Estimation du nombre de sujets, cible des prédicats REFERENCE
+    private final int categoryNodes;
+    private final int firstSubject; // Premier nœud des sujets, après les valeurs uniques
+
+    /**
+     * Constructeur.
+     *
+     * @param triples            nombre de triplets à générer
+     * @param predicates         nombre de prédicats distincts
+     * @param predicateSkew      exposant de Zipf de la popularité des prédicats (0 : uniforme)
+     * @param characteristicSets nombre d'ensembles caractéristiques
+     * @param setSkew            exposant de Zipf de la répartition des sujets entre ensembles (0 : uniforme)
+     * @param seed               graine du générateur pseudo-aléatoire
+     */
+    public SyntheticDataGenerator(long triples, int predicates, double predicateSkew,
+                                  int characteristicSets, double setSkew, long seed) {
+        if (triples <= 0 || predicates < MIN_SET_SIZE || characteristicSets <= 0) {
+            throw new IllegalArgumentException("Paramètres de génération invalides : triplets=" + triples
+                    + ", prédicats=" + predicates + ", ensembles=" + characteristicSets);
+        }
+        if (predicateSkew < 0 || setSkew < 0) {
+            throw new IllegalArgumentException("Les exposants de Zipf doivent être positifs.");
+        }
+        this.triples = triples;
+        this.seed = seed;
+        Random random = new Random(seed);
+
+        // Type d'objet et domaine de chaque prédicat
+        this.kinds = new ObjectKind[predicates];
+        this.multiValued = new boolean[predicates];
+        this.domains = new int[predicates];
+        this.categoryOffsets = new int[predicates];
+        int categories = 0;
+        for (int p = 0; p < predicates; p++) {
+            kinds[p] = ObjectKind.values()[p % 3];
+            multiValued[p] = p % 5 == 4;
+            if (kinds[p] == ObjectKind.CATEGORY) {
+                domains[p] = (int) Math.round(Math.pow(10, 1 + random.nextDouble() * 3)); // Entre 10 et 10 000 valeurs
+                categoryOffsets[p] = categories;
+                categories += domains[p];
+            }
+        }
+
+        // Ensembles caractéristiques : prédicats distincts tirés selon leur popularité
+        double[] predicateCumulative = zipfCumulative(predicates, predicateSkew);
+        this.characteristicSets = new int[characteristicSets][];
+        for (int c = 0; c < characteristicSets; c++) {
+            int size = MIN_SET_SIZE + random.nextInt(Math.min(MAX_SET_SIZE, predicates) - MIN_SET_SIZE + 1);
+            Set<Integer> chosen = new TreeSet<>();
+            while (chosen.size() < size) {
+                chosen.add(sample(predicateCumulative, random));
+            }
+            this.characteristicSets[c] = chosen.stream().mapToInt(Integer::intValue).toArray();
+        }
+        this.setCumulative = zipfCumulative(characteristicSets, setSkew);
+
+        // Nombre moyen de triplets par sujet, pour dimensionner l'espace des sujets
+        double expected = 0;
+        for (int c = 0; c < characteristicSets; c++) {
+            double perSubject = 0;
+            for (int p : this.characteristicSets[c]) {
+                perSubject += multiValued[p] ? (MAX_VALUES_PER_PREDICATE + 1) / 2.0 : 1;
+            }
+            expected += (setCumulative[c] - (c == 0 ? 0 : setCumulative[c - 1])) * perSubject;
+        }
+        // Chaque sujet porte au moins un triplet : il y a au plus autant de sujets que de triplets
+        if ((long) categories + 2 * triples > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Trop de triplets pour des identifiants entiers : " + triples);
+        }
+        this.subjects = (int) Math.min(triples, (long) Math.ceil(triples / expected));
+        this.categoryNodes = categories;
+        this.firstSubject = (int) (categories + triples);
+    }
+
+    // Borne du nombre de nœuds distincts (valeurs de catégories, valeurs uniques et sujets)
+    public long nodeCount() {
+        return (long) categoryNodes + 2 * triples;
+    }
+
+    public int subjectCount() {
+        return subjects;
+    }
+
+    int[][] getCharacteristicSets() {
+        return characteristicSets;
+    }
+
+    ObjectKind kindOf(int predicate) {
+        return kinds[predicate];
+    }
+
+    int domainOf(int predicate) {
+        return kinds[predicate] == ObjectKind.CATEGORY ? domains[predicate] : subjects;
+    }
+
+    /**
+     * Génère exactement le nombre de triplets demandé, sujet par sujet. Des doublons sont possibles
+     * pour les prédicats multivalués, comme dans un chargement réel. Le nombre de sujets générés peut
+     * dépasser {@link #subjectCount()}, qui n'est qu'une estimation : leurs nœuds restent distincts
+     * des valeurs de catégories et des valeurs uniques.
+     */
+    public void generate(TripleConsumer consumer) {
+        Random random = new Random(seed + 1);
+        long emitted = 0;
+        for (int subject = 0; emitted < triples; subject++) {
+            int[] set = characteristicSets[sample(setCumulative, random)];
+            for (int i = 0; i < set.length && emitted < triples; i++) {
+                int predicate = set[i];
+                int values = multiValued[predicate] ? 1 + random.nextInt(MAX_VALUES_PER_PREDICATE) : 1;
+                for (int v = 0; v < values && emitted < triples; v++) {
+                    consumer.accept(firstSubject + subject, predicate, object(predicate, emitted, random));
+                    emitted++;
+                }
+            }
+        }
+    }
+
+    // Objet d'un triplet selon le type du prédicat
+    private int object(int predicate, long tripleIndex, Random random) {
+        return switch (kinds[predicate]) {
+            case CATEGORY -> categoryOffsets[predicate] + random.nextInt(domains[predicate]);
+            case REFERENCE -> firstSubject + random.nextInt(subjects);
+            case UNIQUE -> (int) (categoryNodes + tripleIndex);
+        };
+    }
+
+    /**
+     * Écrit les triplets générés au format N-Triples.
+     */
+    public void writeNTriples(Writer writer) throws IOException {
+        StringBuilder line = new StringBuilder();
+        IOException[] failure = new IOException[1];
+        generate((subject, predicate, object) -> {
+            if (failure[0] != null) {
+                return;
+            }
+            line.setLength(0);
+            line.append(node(subject)).append(' ').append(predicate(predicate)).append(' ')
+                    .append(node(object)).append(" .\n");
+            try {
+                writer.write(line.toString());
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    /**
+     * Génère des requêtes en étoile sur des formes présentes dans les données : chaque requête reprend
+     * des prédicats d'un ensemble caractéristique tiré selon sa fréquence. Si la sélectivité visée est
+     * inférieure à 1, l'atome dont le prédicat s'en approche le plus reçoit un objet constant, qui
+     * retient environ 1/domaine des sujets.
+     *
+     * @param count       nombre de requêtes
+     * @param minAtoms    nombre minimal d'atomes par requête
+     * @param maxAtoms    nombre maximal d'atomes par requête
+     * @param selectivity part visée des sujets de la forme retenus par la requête, dans ]0, 1]
+     * @return les requêtes SPARQL
+     */
+    public List<String> generateQueries(int count, int minAtoms, int maxAtoms, double selectivity) {
+        if (minAtoms < 1 || maxAtoms < minAtoms || selectivity <= 0 || selectivity > 1) {
+            throw new IllegalArgumentException("Paramètres de requêtes invalides : atomes=[" + minAtoms + ", "
+                    + maxAtoms + "], sélectivité=" + selectivity);
+        }
+        Random random = new Random(seed + 2);
+        List<String> queries = new ArrayList<>(count);
+        for (int q = 0; q < count; q++) {
+            List<Integer> predicates = new ArrayList<>();
+            for (int p : characteristicSets[sample(setCumulative, random)]) {
+                predicates.add(p);
+            }
+            Collections.shuffle(predicates, random);
+            int atoms = Math.min(predicates.size(), minAtoms + random.nextInt(maxAtoms - minAtoms + 1));
+            predicates = predicates.subList(0, atoms);
+
+            // Atome à objet constant : domaine le plus proche de 1 / sélectivité
+            int bound = -1;
+            if (selectivity < 1) {
+                double best = Double.MAX_VALUE;
+                for (int i = 0; i < atoms; i++) {
+                    int predicate = predicates.get(i);
+                    if (kinds[predicate] == ObjectKind.UNIQUE) {
+                        continue;
+                    }
+                    double distance = Math.abs(Math.log(domainOf(predicate)) + Math.log(selectivity));
+                    if (distance < best) {
+                        best = distance;
+                        bound = i;
+                    }
+                }
+            }
+
+            StringBuilder select = new StringBuilder("SELECT ?v0");
+            StringBuilder where = new StringBuilder();
+            int variables = 1;
+            for (int i = 0; i < atoms; i++) {
+                int predicate = predicates.get(i);
+                String object;
+                if (i == bound) {
+                    object = node(kinds[predicate] == ObjectKind.CATEGORY
+                            ? categoryOffsets[predicate] + random.nextInt(domains[predicate])
+                            : firstSubject + random.nextInt(subjects));
+                } else {
+                    object = "?v" + variables++;
+                    select.append(' ').append(object);
+                }
+                where.append("\t?v0 ").append(predicate(predicate)).append(' ').append(object)
+                        .append(i == atoms - 1 ? " . }" : " .").append('\n');
+            }
+            queries.add(select.append(" WHERE {\n").append(where).toString());
+        }
+        return queries;
+    }
+
+    /**
+     * Écrit des requêtes au format des fichiers .queryset (une ligne vide entre deux requêtes).
+     */
+    public void writeQueries(Writer writer, List<String> queries) throws IOException {
+        for (String query : queries) {
+            writer.write(query);
+            writer.write('\n');
+        }
+    }
+
+    // IRI d'un nœud, préfixé par sa plage : Value, Unique ou Entity
+    String node(int id) {
+        if (id >= firstSubject) {
+            return "<" + NAMESPACE + "Entity" + (id - firstSubject) + ">";
+        }
+        return "<" + NAMESPACE + (id < categoryNodes ? "Value" : "Unique") + id + ">";
+    }
+
+    private static String predicate(int id) {
+        return "<" + NAMESPACE + "p" + id + ">";
+    }
+
+    // Distribution cumulée normalisée de Zipf : le rang r a un poids 1 / (r + 1)^skew
+    static double[] zipfCumulative(int size, double skew) {
+        double[] cumulative = new double[size];
+        double total = 0;
+        for (int r = 0; r < size; r++) {
+            total += 1.0 / Math.pow(r + 1, skew);
+            cumulative[r] = total;
+        }
+        for (int r = 0; r < size; r++) {
+            cumulative[r] /= total;
+        }
+        return cumulative;
+    }
+
+    // Tire un rang selon une distribution cumulée
+    static int sample(double[] cumulative, Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+
+    /**
+     * Usage : SyntheticDataGenerator sortie.nt triplets [sortie.queryset] [requêtes] [sélectivité]
+     * [prédicats] [asymétrie des prédicats] [ensembles] [asymétrie des ensembles] [graine]
+     * Exemple : SyntheticDataGenerator data/1M.nt 1000000 data/1M.queryset 1000 0.01
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage : SyntheticDataGenerator sortie.nt triplets [sortie.queryset] [requêtes]"
+                    + " [sélectivité] [prédicats] [asymétrie des prédicats] [ensembles] [asymétrie des ensembles] [graine]");
+            return;
+        }
+        Path dataFile = Path.of(args[0]);
+        long triples = Long.parseLong(args[1]);
+        String queryFile = args.length > 2 ? args[2] : null;
+        int queries = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        double selectivity = args.length > 4 ? Double.parseDouble(args[4]) : 0.01;
+        int predicates = args.length > 5 ? Integer.parseInt(args[5]) : 32;
+        double predicateSkew = args.length > 6 ? Double.parseDouble(args[6]) : 1.0;
+        int sets = args.length > 7 ? Integer.parseInt(args[7]) : 64;
+        double setSkew = args.length > 8 ? Double.parseDouble(args[8]) : 1.0;
+        long seed = args.length > 9 ? Long.parseLong(args[9]) : 42;
+
+        SyntheticDataGenerator generator =
+                new SyntheticDataGenerator(triples, predicates, predicateSkew, sets, setSkew, seed);
+        long start = System.nanoTime();
+        try (BufferedWriter writer = Files.newBufferedWriter(dataFile)) {
+            generator.writeNTriples(writer);
+        }
+        System.out.printf("%d triplets (%d sujets) écrits dans %s en %.1f s%n", triples,
+                generator.subjectCount(), dataFile, (System.nanoTime() - start) / 1e9);
+
+        if (queryFile != null) {
+            try (BufferedWriter writer = Files.newBufferedWriter(Path.of(queryFile))) {
+                generator.writeQueries(writer, generator.generateQueries(queries, 1, 4, selectivity));
+            }
+            System.out.println(queries + " requêtes écrites dans " + queryFile);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package qengine.program;
+
+import fr.boreal.model.formula.api.FOFormula;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.queryEvaluation.api.FOQueryEvaluator;
+import fr.boreal.query_evaluation.generic.GenericFOQueryEvaluator;
+import fr.boreal.storage.natives.SimpleInMemoryGraphStore;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.storage.ExecutionMode;
+import qengine.storage.RDFHexaStore;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Benchmark de bout en bout d'une charge de requêtes en étoile (par défaut la charge WatDiv).
+ * Charge les données, exécute des tours de préchauffage puis les tours mesurés, et rapporte le temps
+ * de chargement, les percentiles de latence par requête, le débit, le détail par modèle de requête
+ * et le pic de mémoire du tas. Le rapport JSON permet de comparer plusieurs stores côte à côte.
+ *
+ * Usage : WorkloadBenchmark [fichier.nt] [fichier.queryset] [store] [préchauffage] [tours] [sortie.json]
+ * avec store parmi {@link #STORES} ; sans fichier de sortie, le JSON est écrit sur la sortie standard.
+ */
+public class WorkloadBenchmark {
+
+    /**
+     * Moteur évalué par le benchmark.
+     */
+    interface Engine {
+
+        void load(List<RDFAtom> atoms);
+
+        Iterator<Substitution> evaluate(StarQuery query);
+    }
+
+    static final List<String> STORES = List.of("hexastore", "hexastore-batch", "integraal");
+
+    static Engine createEngine(String store) {
+        switch (store) {
+            case "hexastore", "hexastore-batch" -> {
+                RDFHexaStore hexastore = new RDFHexaStore();
+                hexastore.setExecutionMode(store.equals("hexastore") ? ExecutionMode.ROW : ExecutionMode.BATCH);
+                return new Engine() {
+                    public void load(List<RDFAtom> atoms) {
+                        hexastore.addAll(atoms);
+                    }
+
+                    public Iterator<Substitution> evaluate(StarQuery query) {
+                        return hexastore.match(query);
+                    }
+                };
+            }
+            case "integraal" -> {
+                SimpleInMemoryGraphStore integraalStore = new SimpleInMemoryGraphStore();
+                FOQueryEvaluator<FOFormula> evaluator = GenericFOQueryEvaluator.defaultInstance();
+                return new Engine() {
+                    public void load(List<RDFAtom> atoms) {
+                        atoms.forEach(integraalStore::add);
+                    }
+
+                    public Iterator<Substitution> evaluate(StarQuery query) {
+                        return evaluator.evaluate(query.asFOQuery(), integraalStore);
+                    }
+                };
+            }
+            default -> throw new IllegalArgumentException("Store inconnu : " + store + " (attendu : " + STORES + ")");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String dataFile = args.length > 0 ? args[0] : "data/100K.nt";
+        String queryFile = args.length > 1 ? args[1] : "data/STAR_ALL_workload.queryset";
+        String store = args.length > 2 ? args[2] : "hexastore";
+        int warmup = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        int runs = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+        String output = args.length > 5 ? args[5] : null;
+
+        List<RDFAtom> atoms = Verification.parseRDFData(dataFile);
+        List<StarQuery> queries = Verification.parseSparQLQueries(queryFile);
+        System.err.println(atoms.size() + " triplets, " + queries.size() + " requêtes, store " + store);
+
+        Report report = run(createEngine(store), atoms, queries, warmup, runs);
+        String json = report.toJson(store, dataFile, queryFile);
+        if (output == null) {
+            System.out.println(json);
+        } else {
+            Files.writeString(Path.of(output), json);
+            System.err.println("Rapport écrit dans " + output);
+        }
+        report.print(System.err);
+    }
+
+    /**
+     * Charge les atomes puis exécute la charge : {@code warmup} tours non mesurés et {@code runs} tours mesurés.
+     */
+    static Report run(Engine engine, List<RDFAtom> atoms, List<StarQuery> queries, int warmup, int runs) {
+        Report report = new Report(atoms.size(), queries.size(), warmup, runs);
+        resetPeakHeap();
+        long start = System.nanoTime();
+        engine.load(atoms);
+        report.loadNanos = System.nanoTime() - start;
+        System.gc();
+        report.heapAfterLoad = usedHeap();
+
+        List<String> templates = queries.stream().map(WorkloadBenchmark::templateOf).toList();
+        for (int round = 0; round < warmup; round++) {
+            for (StarQuery query : queries) {
+                consume(engine.evaluate(query));
+            }
+        }
+
+        long measuredStart = System.nanoTime();
+        for (int round = 0; round < runs; round++) {
+            long answers = 0;
+            for (int i = 0; i < queries.size(); i++) {
+                long queryStart = System.nanoTime();
+                long count = consume(engine.evaluate(queries.get(i)));
+                long latency = System.nanoTime() - queryStart;
+                report.latencies.record(latency);
+                report.byTemplate.computeIfAbsent(templates.get(i), t -> new LatencyHistogram()).record(latency);
+                answers += count;
+            }
+            report.answersPerRun = answers;
+        }
+        report.measuredNanos = System.nanoTime() - measuredStart;
+        report.peakHeap = peakHeap();
+        return report;
+    }
+
+    /**
+     * Modèle d'une requête : ses atomes avec les constantes objet remplacées par {@code %},
+     * ce qui regroupe les instances d'un même modèle WatDiv.
+     */
+    static String templateOf(StarQuery query) {
+        StringJoiner joiner = new StringJoiner(" . ");
+        for (RDFAtom atom : query.getRdfAtoms()) {
+            joiner.add(render(atom.getTripleSubject()) + " " + render(atom.getTriplePredicate()) + " "
+                    + (atom.getTripleObject() instanceof Variable ? render(atom.getTripleObject()) : "%"));
+        }
+        return joiner.toString();
+    }
+
+    private static String render(Term term) {
+        return term instanceof Variable ? "?v" : "<" + term.label() + ">";
+    }
+
+    private static long consume(Iterator<Substitution> results) {
+        long count = 0;
+        while (results.hasNext()) {
+            results.next();
+            count++;
+        }
+        return count;
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Résultats d'une exécution du benchmark.
+     */
+    static final class Report {
+
+        final int triples;
+        final int queries;
+        final int warmup;
+        final int runs;
+        final LatencyHistogram latencies = new LatencyHistogram();
+        final Map<String, LatencyHistogram> byTemplate = new TreeMap<>();
+        long loadNanos;
+        long measuredNanos;
+        long answersPerRun;
+        long heapAfterLoad;
+        long peakHeap;
+
+        Report(int triples, int queries, int warmup, int runs) {
+            this.triples = triples;
+            this.queries = queries;
+            this.warmup = warmup;
+            this.runs = runs;
+        }
+
+        // Requêtes par seconde sur les tours mesurés
+        double throughput() {
+            return measuredNanos == 0 ? 0 : latencies.getCount() / (measuredNanos / 1e9);
+        }
+
+        String toJson(String store, String dataFile, String queryFile) {
+            StringBuilder json = new StringBuilder("{\n");
+            json.append("  \"store\": ").append(quote(store)).append(",\n");
+            json.append("  \"data\": ").append(quote(dataFile)).append(",\n");
+            json.append("  \"queryFile\": ").append(quote(queryFile)).append(",\n");
+            json.append("  \"triples\": ").append(triples).append(",\n");
+            json.append("  \"queries\": ").append(queries).append(",\n");
+            json.append("  \"warmupRounds\": ").append(warmup).append(",\n");
+            json.append("  \"runs\": ").append(runs).append(",\n");
+            json.append("  \"loadMillis\": ").append(format(loadNanos / 1e6)).append(",\n");
+            json.append("  \"throughputQps\": ").append(format(throughput())).append(",\n");
+            json.append("  \"answersPerRun\": ").append(answersPerRun).append(",\n");
+            json.append("  \"heapAfterLoadBytes\": ").append(heapAfterLoad).append(",\n");
+            json.append("  \"peakHeapBytes\": ").append(peakHeap).append(",\n");
+            json.append("  \"latencyMicros\": ").append(latencyJson(latencies)).append(",\n");
+            json.append("  \"templates\": [");
+            String separator = "\n";
+            for (Map.Entry<String, LatencyHistogram> entry : byTemplate.entrySet()) {
+                json.append(separator).append("    {\"template\": ").append(quote(entry.getKey()))
+                        .append(", \"latencyMicros\": ").append(latencyJson(entry.getValue())).append("}");
+                separator = ",\n";
+            }
+            json.append(byTemplate.isEmpty() ? "]\n" : "\n  ]\n");
+            return json.append("}\n").toString();
+        }
+
+        void print(PrintStream out) {
+            out.printf("Chargement : %.1f ms, débit : %.1f requêtes/s, pic du tas : %d Mo%n",
+                    loadNanos / 1e6, throughput(), peakHeap >> 20);
+            out.printf("Latence (µs) : p50 %.1f, p95 %.1f, p99 %.1f, max %.1f%n",
+                    latencies.getValueAtPercentile(50) / 1e3, latencies.getValueAtPercentile(95) / 1e3,
+                    latencies.getValueAtPercentile(99) / 1e3, latencies.getMax() / 1e3);
+        }
+
+        private static String latencyJson(LatencyHistogram histogram) {
+            return "{\"count\": " + histogram.getCount()
+                    + ", \"mean\": " + format(histogram.getMean() / 1e3)
+                    + ", \"p50\": " + format(histogram.getValueAtPercentile(50) / 1e3)
+                    + ", \"p95\": " + format(histogram.getValueAtPercentile(95) / 1e3)
+                    + ", \"p99\": " + format(histogram.getValueAtPercentile(99) / 1e3)
+                    + ", \"max\": " + format(histogram.getMax() / 1e3) + "}";
+        }
+
+        private static String format(double value) {
+            return String.format(Locale.ROOT, "%.3f", value);
+        }
+
+        private static String quote(String value) {
+            StringBuilder quoted = new StringBuilder("\"");
+            for (char c : value.toCharArray()) {
+                switch (c) {
+                    case '"' -> quoted.append("\\\"");
+                    case '\\' -> quoted.append("\\\\");
+                    case '\n' -> quoted.append("\\n");
+                    case '\t' -> quoted.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            quoted.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            quoted.append(c);
+                        }
+                    }
+                }
+            }
+            return quoted.append('"').toString();
+        }
+    }
+}
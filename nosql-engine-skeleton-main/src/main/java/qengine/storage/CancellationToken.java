@@ -0,0 +1,19 @@
+package qengine.storage;
+
+/**
+ * Jeton d'annulation coopérative d'une requête : un autre thread (client déconnecté, arrêt du
+ * serveur...) appelle {@link #cancel()}, et l'évaluation s'interrompt à sa prochaine vérification
+ * par une {@link QueryAbortedException}.
+ */
+public final class CancellationToken {
+
+    private volatile boolean cancelled = false;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
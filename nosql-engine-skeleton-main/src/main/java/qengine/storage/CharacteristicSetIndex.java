@@ -0,0 +1,277 @@
+package qengine.storage;
+
+import java.util.*;
+
+/**
+ * Index des ensembles caractéristiques : l'ensemble des prédicats portés par chaque sujet.
+ * Les sujets sont regroupés par ensemble, ce qui permet d'estimer le nombre de réponses d'une
+ * requête en étoile et de ne parcourir que les sujets qui possèdent tous ses prédicats.
+ * L'index est maintenu à chaque nouveau triplet à partir de l'index HexaStore.
+ */
+public class CharacteristicSetIndex {
+
+    /**
+     * Groupe de sujets partageant exactement le même ensemble de prédicats.
+     */
+    public static final class CharacteristicSet {
+
+        private final int[] predicates; // Prédicats triés
+        private final long[] occurrences; // Nombre de triplets par prédicat, aligné sur predicates
+        private final Set<Integer> subjects = new HashSet<>();
+
+        private CharacteristicSet(int[] predicates) {
+            this.predicates = predicates;
+            this.occurrences = new long[predicates.length];
+        }
+
+        public int[] getPredicates() {
+            return predicates.clone();
+        }
+
+        public Set<Integer> getSubjects() {
+            return Collections.unmodifiableSet(subjects);
+        }
+
+        public int distinctSubjects() {
+            return subjects.size();
+        }
+
+        // Nombre de triplets de l'ensemble portant ce prédicat, 0 s'il n'en fait pas partie
+        public long occurrences(int predicate) {
+            int i = Arrays.binarySearch(predicates, predicate);
+            return i >= 0 ? occurrences[i] : 0;
+        }
+
+        // Vrai si l'ensemble contient tous les prédicats donnés (triés)
+        public boolean containsAll(int[] sortedPredicates) {
+            int i = 0;
+            for (int predicate : sortedPredicates) {
+                while (i < predicates.length && predicates[i] < predicate) {
+                    i++;
+                }
+                if (i == predicates.length || predicates[i] != predicate) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final RDFIndex index;
+    private final Map<Integer, CharacteristicSet> bySubject = new HashMap<>();
+    private final Map<List<Integer>, CharacteristicSet> byPredicates = new HashMap<>();
+    private final Map<Integer, Set<CharacteristicSet>> setsByPredicate = new HashMap<>(); // Ensembles contenant chaque prédicat
+
+    public CharacteristicSetIndex(RDFIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Met à jour l'ensemble du sujet après l'ajout d'un nouveau triplet (sujet, prédicat, objet).
+     */
+    public void onTripleAdded(int subject, int predicate) {
+        CharacteristicSet current = bySubject.get(subject);
+        int position = current != null ? Arrays.binarySearch(current.predicates, predicate) : -1;
+        if (position >= 0) {
+            current.occurrences[position]++; // Prédicat déjà connu : l'ensemble ne change pas
+            return;
+        }
+
+        // Nouveau prédicat pour ce sujet : il change d'ensemble caractéristique
+        int[] predicates;
+        if (current == null) {
+            predicates = new int[]{predicate};
+        } else {
+            detach(subject, current);
+            predicates = Arrays.copyOf(current.predicates, current.predicates.length + 1);
+            predicates[predicates.length - 1] = predicate;
+            Arrays.sort(predicates);
+        }
+        attach(subject, predicates);
+    }
+
+    /**
+     * Met à jour l'ensemble du sujet après le retrait d'un triplet (sujet, prédicat, objet) de l'index.
+     */
+    public void onTripleRemoved(int subject, int predicate) {
+        onTriplesRemoved(subject, new int[]{predicate});
+    }
+
+    /**
+     * Met à jour l'ensemble du sujet après le retrait d'un lot de ses triplets de l'index.
+     *
+     * @param subject    le sujet des triplets retirés
+     * @param predicates le prédicat de chaque triplet retiré (un prédicat peut apparaître plusieurs fois)
+     */
+    public void onTriplesRemoved(int subject, int[] predicates) {
+        CharacteristicSet current = bySubject.get(subject);
+        if (current == null) {
+            return;
+        }
+        for (int predicate : predicates) {
+            int position = Arrays.binarySearch(current.predicates, predicate);
+            if (position >= 0) {
+                current.occurrences[position]--;
+            }
+        }
+
+        // Prédicats que le sujet porte encore d'après l'index
+        int[] remaining = Arrays.stream(current.predicates)
+                .filter(p -> !index.findCandidates(subject, p, -1, 2).isEmpty())
+                .toArray();
+        if (remaining.length == current.predicates.length) {
+            return; // L'ensemble ne change pas
+        }
+        // Les occurrences retirées sont déjà décomptées : detach ne soustrait que celles restant dans l'index
+        detach(subject, current);
+        if (remaining.length > 0) {
+            attach(subject, remaining);
+        }
+    }
+
+    // Ensemble caractéristique d'un sujet, ou null s'il n'a aucun triplet
+    public CharacteristicSet getSet(int subject) {
+        return bySubject.get(subject);
+    }
+
+    public Collection<CharacteristicSet> getSets() {
+        return Collections.unmodifiableCollection(byPredicates.values());
+    }
+
+    /**
+     * Nombre d'ensembles caractéristiques que {@link #supersetsOf(int[])} doit examiner :
+     * ceux du prédicat le plus rare parmi les prédicats donnés.
+     */
+    public int scanCost(int[] predicates) {
+        int cost = byPredicates.size();
+        for (int predicate : predicates) {
+            cost = Math.min(cost, setsByPredicate.getOrDefault(predicate, Collections.emptySet()).size());
+        }
+        return cost;
+    }
+
+    /**
+     * Retourne les ensembles caractéristiques contenant tous les prédicats donnés.
+     *
+     * @param predicates les prédicats (dans un ordre quelconque)
+     * @return les ensembles qui les contiennent tous
+     */
+    public List<CharacteristicSet> supersetsOf(int[] predicates) {
+        int[] sorted = predicates.clone();
+        Arrays.sort(sorted);
+
+        // Parcourt uniquement les ensembles du prédicat le plus rare
+        Collection<CharacteristicSet> scanned = byPredicates.values();
+        for (int predicate : sorted) {
+            Set<CharacteristicSet> sets = setsByPredicate.getOrDefault(predicate, Collections.emptySet());
+            if (sets.size() < scanned.size()) {
+                scanned = sets;
+            }
+        }
+
+        List<CharacteristicSet> result = new ArrayList<>();
+        for (CharacteristicSet set : scanned) {
+            if (set.containsAll(sorted)) {
+                result.add(set);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Nombre exact de sujets possédant tous les prédicats donnés.
+     */
+    public long countSubjects(int[] predicates) {
+        long count = 0;
+        for (CharacteristicSet set : supersetsOf(predicates)) {
+            count += set.distinctSubjects();
+        }
+        return count;
+    }
+
+    /**
+     * Estime le nombre de réponses d'une étoile centrée sur le sujet.
+     * Pour chaque ensemble contenant tous les prédicats, le nombre de sujets est multiplié par le
+     * nombre moyen d'objets par sujet de chaque prédicat ; un objet fixé réduit ce facteur
+     * par sa sélectivité au sein du prédicat. Le résultat est exact lorsque chaque prédicat
+     * a un seul objet par sujet et qu'aucun objet n'est fixé.
+     *
+     * @param predicates les prédicats des atomes de l'étoile
+     * @param objects    l'objet fixé de chaque atome, ou -1 s'il est variable
+     * @return le nombre estimé de réponses
+     */
+    public double estimateStar(int[] predicates, int[] objects) {
+        // Part des triplets de chaque prédicat portant l'objet fixé
+        double[] objectSelectivity = new double[predicates.length];
+        for (int i = 0; i < predicates.length; i++) {
+            if (objects[i] == -1) {
+                objectSelectivity[i] = 1.0;
+            } else {
+                long total = predicateOccurrences(predicates[i]);
+                long withObject = index.findCandidates(-1, predicates[i], objects[i], 0).size();
+                objectSelectivity[i] = total == 0 ? 0 : (double) withObject / total;
+            }
+        }
+
+        double estimate = 0;
+        for (CharacteristicSet set : supersetsOf(predicates)) {
+            double distinct = set.distinctSubjects();
+            double rows = distinct;
+            for (int i = 0; i < predicates.length; i++) {
+                rows *= set.occurrences(predicates[i]) / distinct * objectSelectivity[i];
+            }
+            estimate += rows;
+        }
+        return estimate;
+    }
+
+    // Nombre total de triplets portant un prédicat, sommé sur les ensembles caractéristiques
+    private long predicateOccurrences(int predicate) {
+        long total = 0;
+        for (CharacteristicSet set : setsByPredicate.getOrDefault(predicate, Collections.emptySet())) {
+            total += set.occurrences(predicate);
+        }
+        return total;
+    }
+
+    private void attach(int subject, int[] predicates) {
+        CharacteristicSet set = byPredicates.computeIfAbsent(key(predicates), k -> {
+            CharacteristicSet created = new CharacteristicSet(predicates);
+            for (int predicate : predicates) {
+                setsByPredicate.computeIfAbsent(predicate, p -> new HashSet<>()).add(created);
+            }
+            return created;
+        });
+        set.subjects.add(subject);
+        for (int i = 0; i < predicates.length; i++) {
+            set.occurrences[i] += index.findCandidates(subject, predicates[i], -1, 2).size();
+        }
+        bySubject.put(subject, set);
+    }
+
+    private void detach(int subject, CharacteristicSet set) {
+        set.subjects.remove(subject);
+        for (int i = 0; i < set.predicates.length; i++) {
+            set.occurrences[i] -= index.findCandidates(subject, set.predicates[i], -1, 2).size();
+        }
+        if (set.subjects.isEmpty()) {
+            byPredicates.remove(key(set.predicates));
+            for (int predicate : set.predicates) {
+                Set<CharacteristicSet> sets = setsByPredicate.get(predicate);
+                sets.remove(set);
+                if (sets.isEmpty()) {
+                    setsByPredicate.remove(predicate);
+                }
+            }
+        }
+        bySubject.remove(subject);
+    }
+
+    private static List<Integer> key(int[] predicates) {
+        List<Integer> key = new ArrayList<>(predicates.length);
+        for (int predicate : predicates) {
+            key.add(predicate);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,497 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Atom;
+import fr.boreal.model.logicalElements.api.Substitution;
+import qengine.model.RDFAtom;
+import qengine.model.RangeFilter;
+import qengine.model.StarQuery;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Variante thread-safe de {@link RDFHexaStore} à versions multiples (MVCC) : des appels à
+ * {@code match} peuvent s'exécuter sans verrou pendant que d'autres threads ajoutent des triplets,
+ * et chaque requête voit un état cohérent du store.
+ *
+ * Le chemin d'écriture suit le modèle LSM : le contenu est une base immuable et compacte
+ * ({@link SortedIndex}, tableaux triés) et un petit delta concurrent à base de tables de hachage.
+ * L'écrivain (les écritures sont sérialisées par un verrou) indexe les nouveaux triplets dans le
+ * delta avec le numéro de la version suivante, puis publie cette version d'un seul coup ; un
+ * {@code addAll} devient ainsi visible en bloc. Chaque requête épingle la version courante et ignore
+ * les triplets plus récents, même partiellement indexés ; la base et le delta sont fusionnés à la
+ * volée dans les recherches.
+ *
+ * Lorsque le delta dépasse un seuil, le plus grand du seuil fixé et d'un huitième de la base, il
+ * est figé et remplacé par un delta vide, puis fusionné dans une nouvelle base par un thread de
+ * compaction, sans bloquer ni les lecteurs ni les écrivains ; si la fusion échoue, le delta figé
+ * est remis dans la version courante et la fusion retentée plus tard. Pendant la fusion, les
+ * requêtes lisent la base, le delta figé et le nouveau delta. Les anciennes versions restent
+ * utilisables par les requêtes qui les ont épinglées et sont libérées par le ramasse-miettes dès
+ * qu'aucune ne les référence plus.
+ *
+ * Un retrait est une pierre tombale portant le numéro de la version qui le publie, dans une table
+ * de retraits à côté du delta : les versions antérieures voient encore le triplet, les suivantes
+ * ne le voient plus, qu'il soit dans la base, dans le delta figé ou dans le delta. La table est
+ * figée avec le delta, et la fusion omet de la nouvelle base les triplets qu'elle désigne. Un
+ * {@code removeAll} est publié en bloc, comme un {@code addAll}. Le nouvel ajout d'un triplet
+ * retiré efface sa pierre tombale dans une copie de la table, publiée avec la version suivante :
+ * les versions qui ont vu le retrait gardent l'ancienne table.
+ *
+ * Les ensembles caractéristiques et les tables de propriétés ne sont pas maintenus : les requêtes
+ * en étoile sont évaluées ligne à ligne sur les index. Comme pour {@link RDFHexaStore}, chaque
+ * évaluation respecte les {@link QueryLimits} du store et un éventuel {@link CancellationToken},
+ * alimente l'écouteur de mesures et résout les FILTER de plage par des {@link ValueIndex}, construits
+ * une fois par version.
+ */
+public class ConcurrentRDFHexaStore implements RDFStorage {
+
+    static final int DEFAULT_DELTA_THRESHOLD = 1 << 16;
+    static final int DELTA_RATIO = 8; // Le delta est fusionné dès qu'il dépasse la base divisée par ce ratio
+
+    // Fusions en arrière-plan, partagées par tous les stores (au plus une fusion en cours par store)
+    private static final ExecutorService COMPACTION = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "compaction-rdf");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Version publiée du store.
+     *
+     * @param frozen         ancien delta en cours de fusion dans la base, ou null
+     * @param frozenRemovals retraits publiés avant le gel du delta, appliqués par la fusion, ou null
+     * @param removals       version de retrait des triplets retirés depuis le gel du delta
+     * @param deltaSize      ajouts et retraits accumulés depuis le gel du delta
+     * @param valueIndexes   index des valeurs par (prédicat, nature), construits à la première requête filtrée
+     */
+    private record Version(long number, SortedIndex base, RDFIndex frozen, TripleVersions frozenRemovals,
+                           RDFIndex delta, TripleVersions deltaVersions, TripleVersions removals, long size,
+                           long deltaSize, Map<Long, ValueIndex> valueIndexes) {
+
+        Version(long number, SortedIndex base, RDFIndex frozen, TripleVersions frozenRemovals, RDFIndex delta,
+                TripleVersions deltaVersions, TripleVersions removals, long size, long deltaSize) {
+            this(number, base, frozen, frozenRemovals, delta, deltaVersions, removals, size, deltaSize,
+                    new ConcurrentHashMap<>());
+        }
+
+        List<TripleIndex> layers() {
+            return frozen == null ? List.of(base) : List.of(base, frozen);
+        }
+    }
+
+    /**
+     * Vue figée du store à une version donnée. Toutes les évaluations faites sur un même snapshot
+     * voient les mêmes triplets, quelles que soient les insertions concurrentes.
+     */
+    public final class Snapshot {
+
+        private final Version version;
+        private final SnapshotIndex index;
+
+        private Snapshot(Version version) {
+            this.version = version;
+            this.index = new SnapshotIndex(version.layers(), version.frozenRemovals(), version.delta(),
+                    version.deltaVersions(), version.removals(), version.number());
+        }
+
+        public long getVersion() {
+            return version.number();
+        }
+
+        public long size() {
+            return version.size();
+        }
+
+        public Iterator<Substitution> match(RDFAtom atom) {
+            return match(atom, null);
+        }
+
+        /**
+         * Évalue un atome sous les limites du store, en s'interrompant si le jeton est annulé.
+         *
+         * @param token le jeton d'annulation, ou null
+         * @throws QueryAbortedException si l'évaluation est annulée, hors délai ou trop volumineuse
+         */
+        public Iterator<Substitution> match(RDFAtom atom, CancellationToken token) {
+            return RDFHexaStore.matchAtom(dictionary, index, atom, QueryGuard.start(queryLimits, token));
+        }
+
+        public Iterator<Substitution> match(StarQuery query) {
+            return match(query, null);
+        }
+
+        /**
+         * Évalue une requête en étoile sous les limites du store, en s'interrompant si le jeton est
+         * annulé, pendant l'appel ou pendant la lecture de l'itérateur.
+         *
+         * @param token le jeton d'annulation, ou null
+         * @throws QueryAbortedException si l'évaluation est annulée, hors délai ou trop volumineuse
+         */
+        public Iterator<Substitution> match(StarQuery query, CancellationToken token) {
+            QueryGuard guard = QueryGuard.start(queryLimits, token);
+            if (query.getRdfAtoms().isEmpty()) {
+                return Collections.emptyIterator();
+            }
+            return new StarQueryIterator(dictionary, index, null, null, query, ExecutionMode.ROW, metricsListener,
+                    guard, this::valueIndex);
+        }
+
+        // Index des valeurs d'un prédicat, partagé par les vues de la même version
+        private ValueIndex valueIndex(int predicate, RangeFilter.Kind kind) {
+            return version.valueIndexes().computeIfAbsent((long) predicate << 1 | kind.ordinal(),
+                    key -> ValueIndex.build(dictionary, index, predicate, kind));
+        }
+
+        public Collection<Atom> getAtoms() {
+            return RDFHexaStore.decodeAll(dictionary, index);
+        }
+    }
+
+    private final RDFDictionary dictionary = new RDFDictionary(true);
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final int deltaThreshold;
+    private volatile Version current;
+    private final List<int[]> pending = new ArrayList<>(); // Triplets insérés dans le delta mais pas encore publiés
+    private final List<int[]> pendingRemovals = new ArrayList<>(); // Pierres tombales pas encore publiées
+    private TripleVersions revivedRemovals = null; // Copie de la table des retraits, si des triplets retirés sont rajoutés
+    private int revived = 0; // Triplets retirés rajoutés depuis la dernière publication
+    private volatile CompletableFuture<Void> compaction = CompletableFuture.completedFuture(null);
+    private volatile QueryLimits queryLimits = QueryLimits.NONE; // Délai et lignes intermédiaires autorisés par requête
+    private volatile Consumer<QueryMetrics> metricsListener = null; // Reçoit les mesures de chaque requête en étoile
+
+    public ConcurrentRDFHexaStore() {
+        this(DEFAULT_DELTA_THRESHOLD);
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param deltaThreshold nombre minimal de triplets du delta au-delà duquel il est fusionné dans la
+     *                       base, en arrière-plan ; le seuil croît ensuite avec la base
+     */
+    public ConcurrentRDFHexaStore(int deltaThreshold) {
+        if (deltaThreshold < 1) {
+            throw new IllegalArgumentException("Le seuil du delta doit être strictement positif : " + deltaThreshold);
+        }
+        this.deltaThreshold = deltaThreshold;
+        this.current = new Version(0, SortedIndex.empty(), null, null, new RDFIndex(true), new TripleVersions(),
+                new TripleVersions(), 0, 0);
+    }
+
+    // Épingle la version courante
+    public Snapshot snapshot() {
+        return new Snapshot(current);
+    }
+
+    // Numéro de la dernière version publiée
+    public long getVersion() {
+        return current.number();
+    }
+
+    public QueryLimits getQueryLimits() {
+        return queryLimits;
+    }
+
+    /**
+     * Fixe les limites appliquées à chaque évaluation, comme {@link RDFHexaStore#setQueryLimits}.
+     *
+     * @param queryLimits les limites, {@link QueryLimits#NONE} pour n'en appliquer aucune
+     */
+    public void setQueryLimits(QueryLimits queryLimits) {
+        this.queryLimits = Objects.requireNonNull(queryLimits, "Les limites ne peuvent pas être null.");
+    }
+
+    /**
+     * Active l'instrumentation des requêtes en étoile, comme {@link RDFHexaStore#setMetricsListener}.
+     *
+     * @param metricsListener l'écouteur, ou null pour désactiver l'instrumentation
+     */
+    public void setMetricsListener(Consumer<QueryMetrics> metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Attend la fin des fusions du delta dans la base, y compris celles qu'elles déclenchent.
+     */
+    public void awaitCompaction() {
+        CompletableFuture<Void> running = compaction;
+        while (!running.isDone() || running != compaction) {
+            running.join();
+            running = compaction;
+        }
+        running.join(); // Relance l'erreur éventuelle de la dernière fusion
+    }
+
+    @Override
+    public boolean add(RDFAtom atom) {
+        return addAll(Stream.of(atom));
+    }
+
+    /**
+     * Les atomes d'un même appel sont publiés ensemble, dans une seule version. Si le flux échoue
+     * en cours de route (erreur d'analyse, dictionnaire plein...), les triplets déjà indexés sont
+     * retirés du delta et l'erreur est relancée : aucun n'est publié.
+     */
+    @Override
+    public boolean addAll(Stream<RDFAtom> atoms) {
+        writeLock.lock();
+        try {
+            boolean added;
+            try {
+                added = atoms.map(this::insert).reduce(Boolean::logicalOr).orElse(false);
+            } catch (RuntimeException | Error e) {
+                rollback();
+                throw e;
+            }
+            publish();
+            return added;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Indexe un triplet dans le delta avec le numéro de la prochaine version, sans le publier
+    private boolean insert(RDFAtom atom) {
+        int subjectId = dictionary.encode(atom.getTripleSubject());
+        int predicateId = dictionary.encode(atom.getTriplePredicate());
+        int objectId = dictionary.encode(atom.getTripleObject());
+
+        Version version = current;
+        TripleVersions removals = revivedRemovals != null ? revivedRemovals : version.removals();
+        if (version.deltaVersions().get(subjectId, predicateId, objectId) != 0
+                || inLayers(version, subjectId, predicateId, objectId)) {
+            if (removals.get(subjectId, predicateId, objectId) == 0) {
+                return false; // Triplet déjà présent
+            }
+            // Triplet retiré : sa pierre tombale est effacée dans une copie, publiée avec la version suivante
+            if (revivedRemovals == null) {
+                revivedRemovals = version.removals().copy();
+            }
+            revivedRemovals.remove(subjectId, predicateId, objectId);
+            revived++;
+            return true;
+        }
+        version.deltaVersions().putIfAbsent(subjectId, predicateId, objectId, version.number() + 1);
+        pending.add(new int[]{subjectId, predicateId, objectId});
+        version.delta().addTriple(subjectId, predicateId, objectId);
+        return true;
+    }
+
+    // Vrai si le triplet est dans la base ou dans le delta figé, sans avoir été retiré avant le gel
+    private static boolean inLayers(Version version, int subject, int predicate, int object) {
+        if (version.frozenRemovals() != null && version.frozenRemovals().get(subject, predicate, object) != 0) {
+            return false; // Omis par la fusion en cours ; un nouvel ajout va dans le delta
+        }
+        return !version.base().findMatches(subject, predicate, object).isEmpty()
+                || version.frozen() != null && !version.frozen().findMatches(subject, predicate, object).isEmpty();
+    }
+
+    // Pose une pierre tombale portant le numéro de la prochaine version, sans la publier
+    private boolean delete(RDFAtom atom) {
+        int subjectId = dictionary.lookup(atom.getTripleSubject());
+        int predicateId = dictionary.lookup(atom.getTriplePredicate());
+        int objectId = dictionary.lookup(atom.getTripleObject());
+        if (subjectId == -1 || predicateId == -1 || objectId == -1) {
+            return false; // Terme inconnu : le triplet ne peut pas être présent
+        }
+
+        Version version = current;
+        if (version.removals().get(subjectId, predicateId, objectId) != 0) {
+            return false; // Déjà retiré, ou retiré plus tôt dans ce lot
+        }
+        if (version.deltaVersions().get(subjectId, predicateId, objectId) == 0
+                && !inLayers(version, subjectId, predicateId, objectId)) {
+            return false;
+        }
+        version.removals().putIfAbsent(subjectId, predicateId, objectId, version.number() + 1);
+        pendingRemovals.add(new int[]{subjectId, predicateId, objectId});
+        return true;
+    }
+
+    // Annule les écritures en attente ; invisibles des lecteurs, elles ne sont jamais publiées
+    private void rollback() {
+        Version version = current;
+        for (int[] triple : pending) {
+            version.deltaVersions().remove(triple[0], triple[1], triple[2]);
+            version.delta().removeTriple(triple[0], triple[1], triple[2]);
+        }
+        for (int[] triple : pendingRemovals) {
+            version.removals().remove(triple[0], triple[1], triple[2]);
+        }
+        pending.clear();
+        pendingRemovals.clear();
+        revivedRemovals = null;
+        revived = 0;
+    }
+
+    // Rend visibles les écritures en attente, puis lance la fusion du delta s'il est trop grand
+    private void publish() {
+        int added = pending.size() + revived;
+        int removed = pendingRemovals.size();
+        if (added == 0 && removed == 0) {
+            return;
+        }
+        Version version = current;
+        TripleVersions removals = revivedRemovals != null ? revivedRemovals : version.removals();
+        current = new Version(version.number() + 1, version.base(), version.frozen(), version.frozenRemovals(),
+                version.delta(), version.deltaVersions(), removals, version.size() + added - removed,
+                version.deltaSize() + pending.size() + removed);
+        pending.clear();
+        pendingRemovals.clear();
+        revivedRemovals = null;
+        revived = 0;
+        startCompaction();
+    }
+
+    // Fige le delta et le fusionne en arrière-plan, si le seuil est dépassé et qu'aucune fusion n'est en cours
+    private void startCompaction() {
+        Version version = current;
+        if (version.frozen() != null || version.deltaSize() <= compactionThreshold(version.base())) {
+            return;
+        }
+        // Tous les triplets et retraits du delta sont publiés : figés, seuls les retraits les filtrent
+        current = new Version(version.number(), version.base(), version.delta(), version.removals(),
+                new RDFIndex(true), new TripleVersions(), new TripleVersions(), version.size(), 0);
+        SortedIndex base = version.base();
+        RDFIndex frozen = version.delta();
+        TripleVersions frozenRemovals = version.removals();
+        compaction = CompletableFuture.runAsync(() -> {
+            SortedIndex merged;
+            try {
+                List<int[]> kept = new ArrayList<>();
+                for (int[] triple : frozen.getAllTriples()) {
+                    if (frozenRemovals.get(triple[0], triple[1], triple[2]) == 0) {
+                        kept.add(triple);
+                    }
+                }
+                merged = SortedIndex.merge(base, kept, frozenRemovals.size() == 0 ? null : frozenRemovals);
+            } catch (RuntimeException | Error e) {
+                restore(frozen, frozenRemovals);
+                throw e;
+            }
+            writeLock.lock();
+            try {
+                Version latest = current;
+                current = new Version(latest.number(), merged, null, null, latest.delta(), latest.deltaVersions(),
+                        latest.removals(), latest.size(), latest.deltaSize());
+                startCompaction(); // Le nouveau delta a pu dépasser le seuil pendant la fusion
+            } finally {
+                writeLock.unlock();
+            }
+        }, COMPACTION);
+    }
+
+    /**
+     * Seuil de fusion : le delta peut atteindre une fraction fixe de la base. Chaque fusion réécrit
+     * toute la base ; avec un seuil fixe, ingérer N triplets coûterait O(N²/seuil), alors qu'une
+     * base qui croît d'un facteur constant entre deux fusions ramène ce coût à O(N) amorti.
+     */
+    private int compactionThreshold(SortedIndex base) {
+        return Math.max(deltaThreshold, base.size() / DELTA_RATIO);
+    }
+
+    /**
+     * Après l'échec d'une fusion, remet le delta figé dans la version courante : les triplets
+     * visibles du delta figé et du delta courant sont recopiés dans un nouveau delta, et les
+     * triplets retirés de la base dans une nouvelle table de retraits, publiés sans changer de
+     * version. Sans cela, le delta figé resterait en place et aucune fusion ne serait plus lancée.
+     * La fusion est retentée à la prochaine publication qui dépasse le seuil.
+     */
+    private void restore(RDFIndex frozen, TripleVersions frozenRemovals) {
+        writeLock.lock();
+        try {
+            Version latest = current;
+            // Aucune écriture n'est en attente : l'état de la dernière version suffit, et toutes les
+            // versions qui liront les nouvelles tables le voient entièrement (numéro 1)
+            SnapshotIndex visible = new SnapshotIndex(latest.layers(), latest.frozenRemovals(), latest.delta(),
+                    latest.deltaVersions(), latest.removals(), latest.number());
+            RDFIndex delta = new RDFIndex(true);
+            TripleVersions deltaVersions = new TripleVersions();
+            TripleVersions removals = new TripleVersions();
+            for (int[] triple : visible.getAllTriples()) {
+                if (latest.base().findMatches(triple[0], triple[1], triple[2]).isEmpty()) {
+                    deltaVersions.putIfAbsent(triple[0], triple[1], triple[2], 1);
+                    delta.addTriple(triple[0], triple[1], triple[2]);
+                }
+            }
+            TripleVersions.Visitor hidden = (subject, predicate, object, version) -> {
+                if (!latest.base().findMatches(subject, predicate, object).isEmpty()
+                        && visible.findMatches(subject, predicate, object).isEmpty()) {
+                    removals.putIfAbsent(subject, predicate, object, 1);
+                }
+            };
+            frozenRemovals.forEach(hidden);
+            latest.removals().forEach(hidden);
+            current = new Version(latest.number(), latest.base(), null, null, delta, deltaVersions, removals,
+                    latest.size(), deltaVersions.size() + removals.size());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(RDFAtom atom) {
+        return removeAll(Stream.of(atom));
+    }
+
+    /**
+     * Les atomes d'un même appel sont retirés ensemble, dans une seule version : les snapshots
+     * antérieurs continuent de les voir. Si le flux échoue en cours de route, aucun retrait n'est
+     * publié. Les identifiants du dictionnaire ne sont pas libérés, car les anciennes versions
+     * peuvent encore les lire.
+     */
+    @Override
+    public boolean removeAll(Stream<RDFAtom> atoms) {
+        writeLock.lock();
+        try {
+            boolean removed;
+            try {
+                removed = atoms.map(this::delete).reduce(Boolean::logicalOr).orElse(false);
+            } catch (RuntimeException | Error e) {
+                rollback();
+                throw e;
+            }
+            publish();
+            return removed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Iterator<Substitution> match(RDFAtom atom) {
+        return snapshot().match(atom);
+    }
+
+    // Évalue un atome sur la version courante, sous les limites du store
+    public Iterator<Substitution> match(RDFAtom atom, CancellationToken token) {
+        return snapshot().match(atom, token);
+    }
+
+    @Override
+    public Iterator<Substitution> match(StarQuery query) {
+        return snapshot().match(query);
+    }
+
+    @Override
+    public Iterator<Substitution> match(StarQuery query, CancellationToken token) {
+        return snapshot().match(query, token);
+    }
+
+    @Override
+    public long size() {
+        return current.size();
+    }
+
+    @Override
+    public Collection<Atom> getAtoms() {
+        return snapshot().getAtoms();
+    }
+}
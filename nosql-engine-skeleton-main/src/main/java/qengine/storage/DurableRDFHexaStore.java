@@ -0,0 +1,313 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Atom;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * {@link RDFHexaStore} persistant dans un répertoire : une sauvegarde complète (point de reprise)
+ * et un journal d'écriture ({@link WriteAheadLog}) des modifications faites depuis. Chaque ajout ou
+ * retrait est journalisé (nouveaux termes du dictionnaire puis triplet encodé) et validé avant d'être
+ * appliqué au store en mémoire : une modification n'est visible qu'une fois validée, et une
+ * validation en échec laisse le store inchangé. Les modifications validées sont appliquées dans
+ * l'ordre du journal ; à l'ouverture, la sauvegarde est chargée puis le journal rejoué par-dessus.
+ *
+ * La durabilité d'une modification validée dépend de la {@link FsyncPolicy}. Les modifications
+ * d'un même {@code addAll} ou {@code removeAll} sont validées ensemble, et les validations de
+ * threads concurrents partagent leurs fsync. Comme {@link RDFHexaStore}, le store ne permet pas
+ * de lire pendant une écriture ; les lectures sont évaluées par le store en mémoire, sous ses
+ * {@link QueryLimits} et avec un éventuel {@link CancellationToken}. La libération des identifiants du dictionnaire n'est pas
+ * utilisée : le rejeu suppose que les identifiants sont attribués dans l'ordre.
+ */
+public class DurableRDFHexaStore implements RDFStorage, Closeable {
+
+    static final String SNAPSHOT = "snapshot.bin";
+    static final String LOG = "wal.log";
+    private static final int MAGIC = 0x52444653;
+
+    private final Path directory;
+    private final RDFHexaStore store = new RDFHexaStore();
+    private final WriteAheadLog log;
+    private final long replayedRecords;
+
+    // Modifications journalisées mais pas encore appliquées, dans l'ordre du journal (protégées par store)
+    private final Deque<Change> unapplied = new ArrayDeque<>();
+    // Dernière modification non appliquée de chaque triplet : son état pour les écritures suivantes
+    private final Map<Triple, Change> latest = new HashMap<>();
+
+    private record Triple(int subject, int predicate, int object) {
+    }
+
+    private record Change(long position, boolean add, Triple triple) {
+    }
+
+    // Ouvre le store avec un fsync à chaque validation
+    public DurableRDFHexaStore(Path directory) throws IOException {
+        this(directory, FsyncPolicy.ALWAYS, 0);
+    }
+
+    /**
+     * Ouvre (ou crée) un store persistant.
+     *
+     * @param directory      le répertoire de la sauvegarde et du journal
+     * @param policy         la politique de synchronisation du journal
+     * @param intervalMillis pour {@link FsyncPolicy#INTERVAL}, période du fsync de fond
+     */
+    public DurableRDFHexaStore(Path directory, FsyncPolicy policy, long intervalMillis) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        loadSnapshot(directory.resolve(SNAPSHOT));
+        this.replayedRecords = WriteAheadLog.replay(directory.resolve(LOG), new WriteAheadLog.Listener() {
+            public void onTerm(int id, Term term) {
+                checkTerm(id, term, "le journal");
+            }
+
+            public void onAdd(int subject, int predicate, int object) {
+                store.addEncoded(subject, predicate, object);
+            }
+
+            public void onRemove(int subject, int predicate, int object) {
+                store.removeEncoded(new int[]{subject, predicate, object});
+            }
+        });
+        this.log = new WriteAheadLog(directory.resolve(LOG), policy, intervalMillis);
+    }
+
+    // Nombre d'enregistrements du journal rejoués à l'ouverture
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    @Override
+    public boolean add(RDFAtom atom) {
+        long position;
+        synchronized (store) {
+            position = logAdd(atom);
+        }
+        return commitAndApply(position);
+    }
+
+    @Override
+    public boolean addAll(Stream<RDFAtom> atoms) {
+        long position = -1;
+        synchronized (store) {
+            for (Iterator<RDFAtom> it = atoms.iterator(); it.hasNext(); ) {
+                position = Math.max(position, logAdd(it.next()));
+            }
+        }
+        return commitAndApply(position);
+    }
+
+    // Journalise l'ajout d'un atome ; retourne la position de fin du journal, -1 si l'atome était présent
+    private long logAdd(RDFAtom atom) {
+        RDFDictionary dictionary = store.dictionary();
+        int known = dictionary.size();
+        Triple triple = new Triple(dictionary.encode(atom.getTripleSubject()),
+                dictionary.encode(atom.getTriplePredicate()), dictionary.encode(atom.getTripleObject()));
+        for (int id = known; id < dictionary.size(); id++) {
+            log.logTerm(id, dictionary.decode(id));
+        }
+        if (present(triple)) {
+            return -1;
+        }
+        return enqueue(true, triple, log.logAdd(triple.subject(), triple.predicate(), triple.object()));
+    }
+
+    @Override
+    public boolean remove(RDFAtom atom) {
+        return removeAll(Stream.of(atom));
+    }
+
+    @Override
+    public boolean removeAll(Stream<RDFAtom> atoms) {
+        long position = -1;
+        synchronized (store) {
+            for (Iterator<RDFAtom> it = atoms.iterator(); it.hasNext(); ) {
+                int[] ids = store.lookupTriple(it.next());
+                if (ids == null) {
+                    continue;
+                }
+                Triple triple = new Triple(ids[0], ids[1], ids[2]);
+                if (present(triple)) {
+                    position = enqueue(false, triple, log.logRemove(ids[0], ids[1], ids[2]));
+                }
+            }
+        }
+        return commitAndApply(position);
+    }
+
+    // Présence d'un triplet en tenant compte des modifications journalisées non encore appliquées
+    private boolean present(Triple triple) {
+        Change change = latest.get(triple);
+        return change != null ? change.add()
+                : store.containsEncoded(triple.subject(), triple.predicate(), triple.object());
+    }
+
+    private long enqueue(boolean add, Triple triple, long position) {
+        Change change = new Change(position, add, triple);
+        unapplied.add(change);
+        latest.put(triple, change);
+        return position;
+    }
+
+    // Valide le journal jusqu'à position puis applique les modifications validées ; faux si rien n'a changé
+    private boolean commitAndApply(long position) {
+        if (position < 0) {
+            return false;
+        }
+        try {
+            log.commit(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Échec de l'écriture du journal", e);
+        }
+        synchronized (store) {
+            applyUpTo(position);
+        }
+        return true;
+    }
+
+    // Applique, dans l'ordre du journal, les modifications validées jusqu'à position ; appelé sous store
+    private void applyUpTo(long position) {
+        List<int[]> removals = new ArrayList<>();
+        while (!unapplied.isEmpty() && unapplied.peek().position() <= position) {
+            Change change = unapplied.poll();
+            Triple triple = change.triple();
+            if (change.add()) {
+                store.removeEncoded(removals); // Les retraits précédents sont appliqués groupés, avant l'ajout
+                removals.clear();
+                store.addEncoded(triple.subject(), triple.predicate(), triple.object());
+            } else {
+                removals.add(new int[]{triple.subject(), triple.predicate(), triple.object()});
+            }
+            latest.remove(triple, change);
+        }
+        store.removeEncoded(removals);
+    }
+
+    /**
+     * Point de reprise : écrit une sauvegarde complète (fichier temporaire renommé atomiquement),
+     * puis vide le journal. Une panne entre les deux étapes est sans effet, car le rejeu d'un
+     * journal déjà inclus dans la sauvegarde ne modifie pas le store.
+     */
+    public void checkpoint() throws IOException {
+        synchronized (store) {
+            // Les modifications journalisées doivent être dans la sauvegarde avant que le journal soit vidé
+            long appended = log.getAppendedPosition();
+            log.commit(appended);
+            applyUpTo(appended);
+            Path temporary = directory.resolve(SNAPSHOT + ".tmp");
+            try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                RDFDictionary dictionary = store.dictionary();
+                out.writeInt(MAGIC);
+                out.writeInt(dictionary.size());
+                for (int id = 0; id < dictionary.size(); id++) {
+                    TermCodec.write(out, dictionary.decode(id));
+                }
+                List<int[]> triples = store.encodedTriples();
+                out.writeLong(triples.size());
+                for (int[] triple : triples) {
+                    out.writeInt(triple[0]);
+                    out.writeInt(triple[1]);
+                    out.writeInt(triple[2]);
+                }
+                out.flush();
+                file.getFD().sync();
+            }
+            Files.move(temporary, directory.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            log.truncate();
+        }
+    }
+
+    private void loadSnapshot(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Fichier de sauvegarde invalide : " + file);
+            }
+            int terms = in.readInt();
+            for (int id = 0; id < terms; id++) {
+                checkTerm(id, TermCodec.read(in), "la sauvegarde");
+            }
+            long triples = in.readLong();
+            for (long t = 0; t < triples; t++) {
+                store.addEncoded(in.readInt(), in.readInt(), in.readInt());
+            }
+        }
+    }
+
+    // Encode un terme relu et vérifie qu'il retrouve son identifiant d'origine
+    private void checkTerm(int id, Term term, String source) {
+        int encoded = store.dictionary().encode(term);
+        if (encoded != id) {
+            throw new IllegalStateException("Identifiant incohérent dans " + source + " pour " + term
+                    + " : " + id + " attendu, " + encoded + " obtenu");
+        }
+    }
+
+    public QueryLimits getQueryLimits() {
+        return store.getQueryLimits();
+    }
+
+    /**
+     * Fixe les limites appliquées à chaque évaluation, comme {@link RDFHexaStore#setQueryLimits}.
+     *
+     * @param queryLimits les limites, {@link QueryLimits#NONE} pour n'en appliquer aucune
+     */
+    public void setQueryLimits(QueryLimits queryLimits) {
+        store.setQueryLimits(queryLimits);
+    }
+
+    @Override
+    public Iterator<Substitution> match(RDFAtom atom) {
+        return store.match(atom);
+    }
+
+    // Évalue un atome sous les limites du store, en s'interrompant si le jeton est annulé
+    public Iterator<Substitution> match(RDFAtom atom, CancellationToken token) {
+        return store.match(atom, token);
+    }
+
+    @Override
+    public Iterator<Substitution> match(StarQuery query) {
+        return store.match(query);
+    }
+
+    /**
+     * Évalue une requête en étoile sous les limites du store, en s'interrompant si le jeton est
+     * annulé, pendant l'appel ou pendant la lecture de l'itérateur.
+     *
+     * @throws QueryAbortedException si la requête est annulée, hors délai ou trop volumineuse
+     */
+    @Override
+    public Iterator<Substitution> match(StarQuery query, CancellationToken token) {
+        return store.match(query, token);
+    }
+
+    @Override
+    public long size() {
+        return store.size();
+    }
+
+    @Override
+    public Collection<Atom> getAtoms() {
+        return store.getAtoms();
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+}
@@ -0,0 +1,83 @@
+package qengine.storage;
+
+import java.util.*;
+
+/**
+ * Schéma émergent : tables de propriétés construites pour les groupes de prédicats les plus
+ * fréquents du jeu de données. Une requête en étoile centrée sur le sujet dont tous les prédicats
+ * sont couverts par une table est évaluée par un parcours de cette table au lieu d'intersections
+ * dans l'index. Le schéma reflète l'état du store au moment de sa construction.
+ */
+public class EmergentSchema {
+
+    // Taille des groupes de prédicats retenus
+    public static final int MIN_PREDICATES = 3;
+    public static final int MAX_PREDICATES = 6;
+    // Nombre maximal de tables construites
+    public static final int MAX_TABLES = 8;
+
+    private final CharacteristicSetIndex characteristicSets;
+    private final List<PropertyTable> tables;
+
+    private EmergentSchema(CharacteristicSetIndex characteristicSets, List<PropertyTable> tables) {
+        this.characteristicSets = characteristicSets;
+        this.tables = tables;
+    }
+
+    /**
+     * Détecte les groupes de {@link #MIN_PREDICATES} à {@link #MAX_PREDICATES} prédicats partagés
+     * par au moins {@code minSubjects} sujets et construit une table pour les plus denses.
+     *
+     * @param index              l'index HexaStore
+     * @param characteristicSets les ensembles caractéristiques du store
+     * @param minSubjects        nombre minimal de sujets couverts par une table
+     * @return le schéma émergent
+     */
+    public static EmergentSchema detect(RDFIndex index, CharacteristicSetIndex characteristicSets, int minSubjects) {
+        Map<List<Integer>, Long> coverage = new HashMap<>();
+        for (CharacteristicSetIndex.CharacteristicSet set : characteristicSets.getSets()) {
+            int[] predicates = set.getPredicates();
+            if (predicates.length < MIN_PREDICATES || predicates.length > MAX_PREDICATES) {
+                continue;
+            }
+            List<Integer> key = Arrays.stream(predicates).boxed().toList();
+            coverage.computeIfAbsent(key, k -> characteristicSets.countSubjects(predicates));
+        }
+
+        // Les groupes qui remplacent le plus de sondages (sujets x prédicats) d'abord
+        List<PropertyTable> tables = coverage.entrySet().stream()
+                .filter(entry -> entry.getValue() >= minSubjects)
+                .sorted(Comparator.comparingLong(
+                        (Map.Entry<List<Integer>, Long> entry) -> entry.getValue() * entry.getKey().size()).reversed())
+                .limit(MAX_TABLES)
+                .map(entry -> PropertyTable.build(index, characteristicSets,
+                        entry.getKey().stream().mapToInt(Integer::intValue).toArray()))
+                .toList();
+        return new EmergentSchema(characteristicSets, tables);
+    }
+
+    public List<PropertyTable> getTables() {
+        return Collections.unmodifiableList(tables);
+    }
+
+    /**
+     * Cherche une table capable de répondre seule à une étoile sur ces prédicats : elle doit les
+     * contenir tous et couvrir chaque sujet qui les possède.
+     *
+     * @param predicates les prédicats de l'étoile
+     * @return la table à parcourir, ou null si aucune ne convient
+     */
+    public PropertyTable route(int[] predicates) {
+        int[] sorted = Arrays.stream(predicates).distinct().sorted().toArray();
+        PropertyTable best = null;
+        for (PropertyTable table : tables) {
+            if (table.covers(sorted) && (best == null || table.cellCount() < best.cellCount())) {
+                best = table;
+            }
+        }
+        if (best == null || characteristicSets.countSubjects(sorted) != best.rowCount()) {
+            return null; // Des sujets possédant ces prédicats ne sont pas dans la table
+        }
+        return best;
+    }
+}
@@ -0,0 +1,137 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
+
+import java.util.*;
+
+/**
+ * Substitution adossée à une ligne d'identifiants encodés.
+ * Les termes ne sont décodés par le dictionnaire qu'au moment où ils sont demandés :
+ * {@link #createImageOf(Term)} décode une seule variable, les autres opérations
+ * décodent la ligne entière une fois pour toutes.
+ */
+public class EncodedSubstitution extends SubstitutionImpl {
+
+    private final RDFDictionary dictionary;
+    private final Variable[] variables; // Disposition des colonnes, partagée par toutes les lignes
+    private final int[] row; // Identifiant lié à chaque variable
+    private final QueryMetrics metrics; // Compte les décodages, null si l'instrumentation est désactivée
+    private boolean decoded = false;
+
+    EncodedSubstitution(RDFDictionary dictionary, Variable[] variables, int[] row) {
+        this(dictionary, variables, row, null);
+    }
+
+    EncodedSubstitution(RDFDictionary dictionary, Variable[] variables, int[] row, QueryMetrics metrics) {
+        this.dictionary = dictionary;
+        this.variables = variables;
+        this.row = row;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Retourne l'identifiant encodé lié à une variable, sans décodage.
+     *
+     * @param variable la variable
+     * @return l'identifiant, ou -1 si la variable n'est pas liée
+     */
+    public int getId(Variable variable) {
+        int slot = slotOf(variable);
+        return slot != -1 ? row[slot] : -1;
+    }
+
+    @Override
+    public Term createImageOf(Term term) {
+        if (decoded || !(term instanceof Variable variable)) {
+            return super.createImageOf(term);
+        }
+        int slot = slotOf(variable);
+        return slot != -1 ? decodeId(row[slot]) : term;
+    }
+
+    @Override
+    public Collection<Variable> keys() {
+        return decoded ? super.keys() : List.of(variables);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return decoded ? super.isEmpty() : variables.length == 0;
+    }
+
+    @Override
+    public Map<Variable, Term> toMap() {
+        decode();
+        return super.toMap();
+    }
+
+    @Override
+    public void add(Variable variable, Term term) {
+        decode();
+        super.add(variable, term);
+    }
+
+    @Override
+    public Optional<Substitution> merged(Substitution other) {
+        decode();
+        return super.merged(other);
+    }
+
+    @Override
+    public Substitution limitedTo(Collection<Variable> vars) {
+        decode();
+        return super.limitedTo(vars);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        decode();
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        decode();
+        return super.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        decode();
+        return super.toString();
+    }
+
+    // Matérialise la ligne dans la substitution sous-jacente
+    private void decode() {
+        if (decoded) {
+            return;
+        }
+        decoded = true;
+        for (int i = 0; i < variables.length; i++) {
+            super.add(variables[i], decodeId(row[i]));
+        }
+    }
+
+    private Term decodeId(int id) {
+        if (metrics == null) {
+            return dictionary.decode(id);
+        }
+        long start = System.nanoTime();
+        Term term = dictionary.decode(id);
+        metrics.decodeNanos += System.nanoTime() - start;
+        metrics.decodes++;
+        return term;
+    }
+
+    private int slotOf(Variable variable) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(variable)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,18 @@
+package qengine.storage;
+
+/**
+ * Mode d'exécution des requêtes en étoile.
+ */
+public enum ExecutionMode {
+
+    /**
+     * Un candidat de la variable centrale à la fois, sondé dans les ensembles de l'index.
+     */
+    ROW,
+
+    /**
+     * Les candidats sont traités par vecteurs d'entiers de taille fixe ; chaque filtre
+     * parcourt le vecteur entier dans une boucle serrée avant le développement des réponses.
+     */
+    BATCH
+}
@@ -0,0 +1,342 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Term;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+/**
+ * Dictionnaire compact pour les données riches en IRI : les libellés sont triés et rangés par blocs de
+ * {@link #BLOCK_SIZE} en codage frontal (chaque libellé ne stocke que le suffixe qui le distingue du
+ * précédent), dans un seul tableau d'octets UTF-8. Les préfixes communs (espaces de noms) ne sont
+ * ainsi stockés qu'une fois par bloc, et aucun objet n'est conservé par terme.
+ *
+ * La recherche d'un libellé se fait par dichotomie sur les têtes de blocs puis par parcours d'un
+ * bloc ; deux tableaux d'entiers relient le rang d'un libellé dans l'ordre trié à son identifiant.
+ * Les nouveaux termes sont d'abord placés dans un delta à base de tables de hachage, fusionné dans
+ * les blocs lorsqu'il dépasse un huitième de la partie compacte (ou par {@link #compact()}).
+ * Un terme libéré reste dans les blocs jusqu'à la fusion suivante, mais n'y est plus trouvé.
+ *
+ * Le décodage reconstruit un nouveau terme à chaque appel, hors de la fabrique de termes partagée
+ * qui le conserverait indéfiniment : il est plus coûteux qu'avec {@link RDFDictionary}, en échange
+ * d'une empreinte plusieurs fois plus faible. Comme le
+ * dictionnaire par défaut, cette implémentation n'est pas prévue pour un usage concurrent.
+ */
+public class FrontCodedDictionary extends RDFDictionary {
+
+    static final int BLOCK_SIZE = 16;
+    private static final int MIN_DELTA = 1024; // Taille du delta en dessous de laquelle il n'est pas fusionné
+
+    // Partie compacte : clés (nature du terme puis libellé UTF-8) triées, en blocs codés frontalement
+    private byte[] blocks = new byte[0];
+    private int[] blockOffsets = new int[0]; // Début de chaque bloc dans blocks
+    private int[] idByRank = new int[0]; // Identifiant de chaque clé, dans l'ordre trié
+    private int[] rankById = new int[0]; // Rang de chaque identifiant dans la partie compacte, -1 sinon
+    private int baseCount = 0; // Nombre de clés de la partie compacte, libérées comprises
+    private int maxKeyLength = 0;
+
+    // Delta des termes ajoutés depuis la dernière fusion
+    private final Map<Term, Integer> deltaIds = new HashMap<>();
+    private final Map<Integer, Term> deltaTerms = new HashMap<>();
+
+    private int nextId = 0;
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    private int termCount = 0;
+
+    public FrontCodedDictionary() {
+        this(false);
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param inlineLiterals si vrai, les littéraux entiers, dates et booléens sont encodés dans leur
+     *                       identifiant (voir {@link RDFDictionary#RDFDictionary(boolean, boolean)})
+     */
+    public FrontCodedDictionary(boolean inlineLiterals) {
+        super(false, inlineLiterals);
+    }
+
+    @Override
+    public int encode(Term term) {
+        if (term == null) {
+            throw new NullPointerException("Term cannot be null");
+        }
+        int id = lookup(term);
+        if (id != -1) {
+            return id;
+        }
+        Integer free = freeIds.poll();
+        id = free != null ? free : nextId++;
+        if (isInlineLiterals() && id >= InlineLiterals.TAG) {
+            throw new IllegalStateException("Plus d'identifiants disponibles hors de l'espace des littéraux en ligne.");
+        }
+        deltaIds.put(term, id);
+        deltaTerms.put(id, term);
+        termCount++;
+        if (deltaIds.size() >= Math.max(MIN_DELTA, baseCount / 8)) {
+            compact();
+        }
+        return id;
+    }
+
+    @Override
+    public int lookup(Term term) {
+        int inline = inlineId(term);
+        if (inline != -1) {
+            return inline;
+        }
+        Integer id = deltaIds.get(term);
+        if (id != null) {
+            return id;
+        }
+        int rank = rankOf(key(term));
+        if (rank < 0) {
+            return -1;
+        }
+        int baseId = idByRank[rank];
+        return rankById[baseId] == rank ? baseId : -1; // Sinon, terme libéré
+    }
+
+    @Override
+    public Term decode(int id) {
+        if (InlineLiterals.isInline(id)) {
+            return super.decode(id);
+        }
+        Term term = deltaTerms.get(id);
+        if (term != null) {
+            return term;
+        }
+        if (id < 0 || id >= rankById.length || rankById[id] < 0) {
+            return null;
+        }
+        byte[] key = keyAt(rankById[id]);
+        return TermCodec.decode(key);
+    }
+
+    @Override
+    public int size() {
+        return nextId;
+    }
+
+    @Override
+    public int termCount() {
+        return termCount;
+    }
+
+    @Override
+    public boolean release(int id) {
+        Term term = deltaTerms.remove(id);
+        if (term != null) {
+            deltaIds.remove(term);
+        } else if (id >= 0 && id < rankById.length && rankById[id] >= 0) {
+            rankById[id] = -1; // La clé reste dans son bloc jusqu'à la prochaine fusion
+        } else {
+            return false;
+        }
+        freeIds.add(id);
+        termCount--;
+        return true;
+    }
+
+    /**
+     * Fusionne le delta et retire les termes libérés de la partie compacte, qui est reconstruite.
+     */
+    public void compact() {
+        List<byte[]> keys = new ArrayList<>(termCount);
+        List<Integer> ids = new ArrayList<>(termCount);
+        if (baseCount > 0) {
+            Cursor cursor = new Cursor(0);
+            while (cursor.next()) {
+                int id = idByRank[cursor.rank];
+                if (rankById[id] == cursor.rank) {
+                    keys.add(Arrays.copyOf(cursor.current, cursor.length));
+                    ids.add(id);
+                }
+            }
+        }
+        deltaTerms.forEach((id, term) -> {
+            keys.add(key(term));
+            ids.add(id);
+        });
+
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(keys.get(a), keys.get(b)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        blockOffsets = new int[(order.length + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        idByRank = new int[order.length];
+        rankById = new int[nextId];
+        Arrays.fill(rankById, -1);
+        maxKeyLength = 0;
+        byte[] previous = null;
+        for (int rank = 0; rank < order.length; rank++) {
+            byte[] key = keys.get(order[rank]);
+            if (rank % BLOCK_SIZE == 0) {
+                // Tête de bloc : clé complète
+                blockOffsets[rank / BLOCK_SIZE] = out.size();
+                writeVarInt(out, key.length);
+                out.write(key, 0, key.length);
+            } else {
+                int shared = Arrays.mismatch(previous, key);
+                writeVarInt(out, shared);
+                writeVarInt(out, key.length - shared);
+                out.write(key, shared, key.length - shared);
+            }
+            int id = ids.get(order[rank]);
+            idByRank[rank] = id;
+            rankById[id] = rank;
+            maxKeyLength = Math.max(maxKeyLength, key.length);
+            previous = key;
+        }
+        blocks = out.toByteArray();
+        baseCount = order.length;
+        deltaIds.clear();
+        deltaTerms.clear();
+    }
+
+    // Clé d'un terme : sa nature (littéral ou constante) puis son libellé en UTF-8
+    private static byte[] key(Term term) {
+        return TermCodec.encode(term);
+    }
+
+    // Rang d'une clé dans la partie compacte, -1 si elle est absente
+    private int rankOf(byte[] key) {
+        if (baseCount == 0 || key.length > maxKeyLength) {
+            return -1;
+        }
+        Cursor cursor = new Cursor(blockOf(key));
+        while (cursor.next()) {
+            int comparison = Arrays.compareUnsigned(cursor.current, 0, cursor.length, key, 0, key.length);
+            if (comparison >= 0) {
+                return comparison == 0 ? cursor.rank : -1;
+            }
+        }
+        return -1;
+    }
+
+    // Dernier bloc dont la tête est inférieure ou égale à la clé (0 si aucun)
+    private int blockOf(byte[] key) {
+        int low = 0;
+        int high = blockOffsets.length - 1;
+        int[] position = new int[1];
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            position[0] = blockOffsets[middle];
+            int length = readVarInt(blocks, position);
+            if (Arrays.compareUnsigned(blocks, position[0], position[0] + length, key, 0, key.length) <= 0) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    // Clé de rang donné, reconstruite depuis la tête de son bloc
+    private byte[] keyAt(int rank) {
+        Cursor cursor = new Cursor(rank / BLOCK_SIZE);
+        while (cursor.rank < rank) {
+            cursor.next();
+        }
+        return Arrays.copyOf(cursor.current, cursor.length);
+    }
+
+    /**
+     * Les clés des littéraux étant triées dans les blocs, les littéraux d'un préfixe forment une
+     * tranche de rangs : elle est trouvée par dichotomie sur les têtes de blocs, sans index
+     * supplémentaire. Les littéraux du delta sont examinés un à un.
+     */
+    @Override
+    public Set<Integer> literalsWithPrefix(String prefix) {
+        byte[] keyPrefix = TermCodec.literalPrefix(prefix);
+
+        Set<Integer> ids = new HashSet<>();
+        if (baseCount > 0 && keyPrefix.length <= maxKeyLength) {
+            Cursor cursor = new Cursor(blockOf(keyPrefix));
+            while (cursor.next()) {
+                int shared = Arrays.mismatch(cursor.current, 0, cursor.length, keyPrefix, 0, keyPrefix.length);
+                if (shared == -1 || shared == keyPrefix.length) {
+                    int id = idByRank[cursor.rank];
+                    if (rankById[id] == cursor.rank) {
+                        ids.add(id); // Sinon, terme libéré
+                    }
+                } else if (shared < cursor.length
+                        && Byte.toUnsignedInt(cursor.current[shared]) > Byte.toUnsignedInt(keyPrefix[shared])) {
+                    break; // Clé au-delà de la tranche du préfixe
+                }
+            }
+        }
+        deltaTerms.forEach((id, term) -> {
+            if (term instanceof Literal<?> && term.label().startsWith(prefix)) {
+                ids.add(id);
+            }
+        });
+        return Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * Parcours séquentiel des clés de la partie compacte à partir de la tête d'un bloc ; les blocs
+     * étant contigus, le parcours se poursuit dans les blocs suivants.
+     */
+    private final class Cursor {
+
+        final byte[] current = new byte[maxKeyLength];
+        int length = 0;
+        int rank;
+        private final int[] position;
+
+        Cursor(int block) {
+            this.rank = block * BLOCK_SIZE - 1;
+            this.position = new int[]{blockOffsets[block]};
+        }
+
+        // Passe à la clé suivante, faux s'il n'y en a plus
+        boolean next() {
+            if (rank + 1 >= baseCount) {
+                return false;
+            }
+            rank++;
+            int shared = rank % BLOCK_SIZE == 0 ? 0 : readVarInt(blocks, position);
+            int suffix = readVarInt(blocks, position);
+            System.arraycopy(blocks, position[0], current, shared, suffix);
+            position[0] += suffix;
+            length = shared + suffix;
+            return true;
+        }
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(byte[] bytes, int[] position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    // Empreinte de la partie compacte : blocs et tableaux de rangs
+    long compactBytes() {
+        return MemoryReport.array(blocks.length, 1) + MemoryReport.array(blockOffsets.length, 4)
+                + MemoryReport.array(idByRank.length, 4) + MemoryReport.array(rankById.length, 4);
+    }
+
+    // Termes du delta, non encore fusionnés
+    Collection<Term> deltaTerms() {
+        return deltaTerms.values();
+    }
+}
@@ -0,0 +1,23 @@
+package qengine.storage;
+
+/**
+ * Moment où le journal d'écriture ({@link WriteAheadLog}) force ses écritures sur le disque.
+ * Les politiques vont de la plus durable à la plus rapide à l'ingestion.
+ */
+public enum FsyncPolicy {
+    /**
+     * fsync à chaque validation : une insertion validée survit à une panne du système.
+     * Les validations concurrentes partagent le même fsync (validation groupée).
+     */
+    ALWAYS,
+    /**
+     * fsync par une tâche de fond à chaque intervalle, si le journal a avancé depuis le précédent :
+     * une panne du système peut perdre les validations du dernier intervalle, une panne du seul
+     * processus n'en perd aucune.
+     */
+    INTERVAL,
+    /**
+     * Pas de fsync hors points de reprise et fermeture : le système décide quand écrire ses caches.
+     */
+    NEVER
+}
@@ -0,0 +1,128 @@
+package qengine.storage;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Encodage des littéraux simples directement dans les bits de leur identifiant : entiers, dates
+ * ISO (aaaa-mm-jj) et booléens. Un identifiant en ligne a le bit 30 à 1, ce qui le distingue des
+ * identifiants du dictionnaire (attribués à partir de 0, toujours inférieurs à 2^30) tout en restant
+ * positif ; les bits 28 et 29 donnent la nature de la valeur et les 28 bits de poids faible la valeur
+ * décalée de {@link #BIAS}. Pour une même nature, l'ordre des identifiants est celui des valeurs.
+ *
+ * Seuls les libellés canoniques sont encodés (pas de zéro ou de signe superflu, date valide) : le
+ * libellé se reconstruit à l'identique à partir de la valeur, sans accès au dictionnaire.
+ */
+final class InlineLiterals {
+
+    static final int TAG = 1 << 30;
+
+    static final int INTEGER = 0;
+    static final int DATE = 1;
+    static final int BOOLEAN = 2;
+
+    private static final int KIND_SHIFT = 28;
+    private static final int PAYLOAD_MASK = (1 << KIND_SHIFT) - 1;
+    static final long BIAS = 1L << (KIND_SHIFT - 1); // Valeurs représentables : [-BIAS, BIAS)
+
+    private InlineLiterals() {
+    }
+
+    static boolean isInline(int id) {
+        return id >= 0 && (id & TAG) != 0;
+    }
+
+    static int kind(int id) {
+        return (id >>> KIND_SHIFT) & 3;
+    }
+
+    // Valeur d'un identifiant en ligne : l'entier, le jour depuis le 1970-01-01 ou 0/1 pour un booléen
+    static long value(int id) {
+        return (id & PAYLOAD_MASK) - BIAS;
+    }
+
+    static int encode(int kind, long value) {
+        return TAG | kind << KIND_SHIFT | (int) (value + BIAS);
+    }
+
+    private static boolean fits(long value) {
+        return value >= -BIAS && value < BIAS;
+    }
+
+    /**
+     * Identifiant en ligne d'un libellé de littéral.
+     *
+     * @return l'identifiant, ou -1 si le libellé n'est pas la forme canonique d'une valeur encodable
+     */
+    static int encode(String label) {
+        int length = label.length();
+        if (length == 0) {
+            return -1;
+        }
+        if (label.equals("true") || label.equals("false")) {
+            return encode(BOOLEAN, label.length() == 4 ? 1 : 0);
+        }
+        if (length == 10 && label.charAt(4) == '-' && label.charAt(7) == '-') {
+            return encodeDate(label);
+        }
+        return encodeInteger(label);
+    }
+
+    private static int encodeInteger(String label) {
+        boolean negative = label.charAt(0) == '-';
+        int start = negative ? 1 : 0;
+        int length = label.length() - start;
+        // Au plus 9 chiffres, sans zéro initial (ni "-0")
+        if (length == 0 || length > 9 || label.charAt(start) == '0' && (length > 1 || negative)) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < label.length(); i++) {
+            char c = label.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        value = negative ? -value : value;
+        return fits(value) ? encode(INTEGER, value) : -1;
+    }
+
+    private static int encodeDate(String label) {
+        int year = digits(label, 0, 4);
+        int month = digits(label, 5, 7);
+        int day = digits(label, 8, 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return -1;
+        }
+        try {
+            return encode(DATE, LocalDate.of(year, month, day).toEpochDay());
+        } catch (DateTimeException e) {
+            return -1; // Date invalide, conservée telle quelle dans le dictionnaire
+        }
+    }
+
+    // Entier formé des chiffres de label[from, to), -1 si un caractère n'est pas un chiffre
+    private static int digits(String label, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = label.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // Libellé canonique d'un identifiant en ligne
+    static String label(int id) {
+        long value = value(id);
+        return switch (kind(id)) {
+            case INTEGER -> Long.toString(value);
+            case DATE -> LocalDate.ofEpochDay(value).toString();
+            case BOOLEAN -> value != 0 ? "true" : "false";
+            default -> throw new IllegalArgumentException("Identifiant en ligne invalide : " + id);
+        };
+    }
+}
@@ -0,0 +1,241 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Term;
+
+import java.util.*;
+
+/**
+ * Estimation de l'empreinte mémoire des structures d'un {@link RDFHexaStore}.
+ * Les tailles sont calculées à partir du nombre d'éléments de chaque structure et d'un modèle
+ * de JVM 64 bits à références compressées (en-têtes de 12 octets, alignement sur 8 octets) :
+ * elles servent à comparer les structures et à prévoir la capacité, pas à mesurer le tas au
+ * octet près. Les ensembles de troisième niveau des permutations (listes de valeurs) sont
+ * comptés à part, avec la distribution de leurs tailles.
+ */
+public final class MemoryReport {
+
+    // Modèle d'objets de la JVM (références compressées)
+    static final int HEADER = 12;
+    static final int REFERENCE = 4;
+    static final int HASH_MAP = 48; // Objet HashMap, sans sa table
+    static final int HASH_SET = 16; // Objet HashSet, sans sa HashMap
+    static final int NODE = 32; // HashMap.Node : hash, clé, valeur, suivant
+    static final int INTEGER = 16; // Integer hors du cache [-128, 127]
+    static final int TERM = 24; // Objet terme sans son libellé
+    static final int STRING = 24; // Objet String sans son tableau
+
+    /**
+     * Empreinte estimée d'une structure.
+     */
+    public static final class Structure {
+
+        private final String name;
+        private final long bytes;
+        private final long entries;
+
+        Structure(String name, long bytes, long entries) {
+            this.name = name;
+            this.bytes = bytes;
+            this.entries = entries;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        // Nombre d'éléments de la structure (termes, clés, listes...)
+        public long getEntries() {
+            return entries;
+        }
+    }
+
+    private final long triples;
+    private final List<Structure> structures = new ArrayList<>();
+    private final Map<String, long[]> setSizes = new LinkedHashMap<>(); // Histogramme par permutation
+
+    private MemoryReport(long triples) {
+        this.triples = triples;
+    }
+
+    /**
+     * Estime l'empreinte des structures d'un store.
+     *
+     * @param schema les tables de propriétés, ou null si elles ne sont pas construites
+     */
+    static MemoryReport estimate(RDFDictionary dictionary, RDFIndex index, CharacteristicSetIndex characteristicSets,
+                                 EmergentSchema schema, long triples) {
+        MemoryReport report = new MemoryReport(triples);
+        report.estimateDictionary(dictionary);
+        for (Map.Entry<String, Map<Integer, Map<Integer, Set<Integer>>>> permutation : index.permutations().entrySet()) {
+            report.estimatePermutation(permutation.getKey(), permutation.getValue());
+        }
+        report.estimateCharacteristicSets(characteristicSets);
+        if (schema != null) {
+            report.estimatePropertyTables(schema);
+        }
+        return report;
+    }
+
+    private void estimateDictionary(RDFDictionary dictionary) {
+        int size = dictionary.termCount();
+        if (dictionary instanceof FrontCodedDictionary frontCoded) {
+            // Blocs compacts, plus les tables de hachage et les termes du delta
+            Collection<Term> delta = frontCoded.deltaTerms();
+            long boxes = 0;
+            long terms = 0;
+            for (Term term : delta) {
+                boxes += 2L * INTEGER;
+                terms += TERM + STRING + array(term.label().length(), 1);
+            }
+            structures.add(new Structure("dictionnaire",
+                    frontCoded.compactBytes() + 2 * hashMap(delta.size()) + boxes, size));
+            structures.add(new Structure("termes", terms, delta.size()));
+            return;
+        }
+        long boxes = 0;
+        long terms = 0;
+        for (int id = 0; id < dictionary.size(); id++) {
+            Term term = dictionary.decode(id);
+            if (term == null) {
+                continue; // Identifiant libéré
+            }
+            boxes += 2 * boxed(id); // Identifiant en valeur de termToId et en clé de idToTerm
+            terms += TERM + STRING + array(term.label().length(), 1);
+        }
+        structures.add(new Structure("dictionnaire", 2 * hashMap(size) + boxes, size));
+        structures.add(new Structure("termes", terms, size));
+    }
+
+    private void estimatePermutation(String name, Map<Integer, Map<Integer, Set<Integer>>> permutation) {
+        long maps = hashMap(permutation.size());
+        long lists = 0;
+        long listCount = 0;
+        long[] histogram = new long[32];
+        for (Map.Entry<Integer, Map<Integer, Set<Integer>>> first : permutation.entrySet()) {
+            maps += boxed(first.getKey()) + hashMap(first.getValue().size());
+            for (Map.Entry<Integer, Set<Integer>> second : first.getValue().entrySet()) {
+                maps += boxed(second.getKey());
+                Set<Integer> values = second.getValue();
+                lists += HASH_SET + hashMap(values.size());
+                for (int value : values) {
+                    lists += boxed(value);
+                }
+                listCount++;
+                histogram[31 - Integer.numberOfLeadingZeros(values.size())]++;
+            }
+        }
+        structures.add(new Structure(name, maps, permutation.size()));
+        structures.add(new Structure(name + " listes", lists, listCount));
+        setSizes.put(name, histogram);
+    }
+
+    private void estimateCharacteristicSets(CharacteristicSetIndex characteristicSets) {
+        long subjects = 0;
+        long bytes = 0;
+        Collection<CharacteristicSetIndex.CharacteristicSet> sets = characteristicSets.getSets();
+        for (CharacteristicSetIndex.CharacteristicSet set : sets) {
+            int predicates = set.getPredicates().length;
+            int members = set.distinctSubjects();
+            subjects += members;
+            // Ensemble, tableaux de prédicats et d'occurrences, clé de byPredicates, sujets
+            bytes += align(HEADER + 3 * REFERENCE) + array(predicates, 4) + array(predicates, 8)
+                    + NODE + align(HEADER + 2 * 4 + REFERENCE) + array(predicates, REFERENCE) + (long) predicates * INTEGER
+                    + HASH_SET + hashMap(members) + (long) members * INTEGER;
+            bytes += (long) predicates * NODE; // Entrée dans setsByPredicate
+        }
+        bytes += hashMap((int) subjects) + hashMap(sets.size());
+        structures.add(new Structure("ensembles caractéristiques", bytes, sets.size()));
+    }
+
+    private void estimatePropertyTables(EmergentSchema schema) {
+        long bytes = 0;
+        for (PropertyTable table : schema.getTables()) {
+            int columns = table.getPredicates().length;
+            bytes += align(HEADER + 4 * REFERENCE) + array(columns, 4) + array(table.rowCount(), 4)
+                    + 2 * array(columns, REFERENCE) + columns * array(table.rowCount() + 1, 4)
+                    + columns * array(0, 4) + 4 * table.cellCount();
+        }
+        structures.add(new Structure("tables de propriétés", bytes, schema.getTables().size()));
+    }
+
+    public long getTriples() {
+        return triples;
+    }
+
+    public List<Structure> getStructures() {
+        return Collections.unmodifiableList(structures);
+    }
+
+    // Octets estimés d'une structure, 0 si elle n'existe pas
+    public long getBytes(String structure) {
+        return structures.stream().filter(s -> s.getName().equals(structure)).mapToLong(Structure::getBytes).sum();
+    }
+
+    public long getTotalBytes() {
+        return structures.stream().mapToLong(Structure::getBytes).sum();
+    }
+
+    public double getBytesPerTriple() {
+        return triples == 0 ? 0 : (double) getTotalBytes() / triples;
+    }
+
+    /**
+     * Distribution des tailles des listes d'une permutation : la case k compte les listes
+     * dont la taille est comprise entre 2^k et 2^(k+1) - 1.
+     *
+     * @param permutation le nom de la permutation, par exemple "po_s"
+     * @return l'histogramme, vide si la permutation est inconnue
+     */
+    public long[] getSetSizeHistogram(String permutation) {
+        long[] histogram = setSizes.get(permutation);
+        return histogram != null ? histogram.clone() : new long[0];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%-28s %14s %12s%n", "structure", "octets", "éléments"));
+        for (Structure structure : structures) {
+            text.append(String.format("%-28s %14d %12d%n", structure.getName(), structure.getBytes(), structure.getEntries()));
+        }
+        text.append(String.format("%-28s %14d%n", "total", getTotalBytes()));
+        text.append(String.format(Locale.ROOT, "%.1f octets par triplet (%d triplets)%n", getBytesPerTriple(), triples));
+        for (Map.Entry<String, long[]> entry : setSizes.entrySet()) {
+            text.append(entry.getKey()).append(" tailles des listes :");
+            long[] histogram = entry.getValue();
+            for (int k = 0; k < histogram.length; k++) {
+                if (histogram[k] > 0) {
+                    text.append(' ').append(1L << k).append('+').append('=').append(histogram[k]);
+                }
+            }
+            text.append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+
+    // Taille estimée d'une HashMap de {@code size} entrées, table et nœuds compris
+    static long hashMap(int size) {
+        int capacity = 16;
+        while (capacity * 0.75 < size) {
+            capacity <<= 1;
+        }
+        return HASH_MAP + array(capacity, REFERENCE) + (long) size * NODE;
+    }
+
+    static long array(long length, int elementBytes) {
+        return align(16 + length * elementBytes);
+    }
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    // Taille d'un Integer boxé, nulle pour les valeurs du cache
+    static long boxed(int value) {
+        return value >= -128 && value <= 127 ? 0 : INTEGER;
+    }
+}
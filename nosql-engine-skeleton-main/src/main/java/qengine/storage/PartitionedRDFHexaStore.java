@@ -0,0 +1,552 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Atom;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Variable;
+import qengine.model.RDFAtom;
+import qengine.model.RangeFilter;
+import qengine.model.SolutionModifiers;
+import qengine.model.StarQuery;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Store RDF partitionné par sujet : chaque triplet est rangé dans l'une des K partitions selon
+ * l'identifiant de son sujet, chaque partition étant un {@link RDFHexaStore} avec son propre
+ * index et ses propres ensembles caractéristiques. Le dictionnaire est partagé par les partitions,
+ * si bien qu'un terme a le même identifiant partout.
+ * <p>
+ * Une étoile centrée sur le sujet est entièrement contenue dans une partition : elle est évaluée
+ * en parallèle sur toutes les partitions, dont les réponses sont lues par lots au fil de la
+ * consommation (et fusionnées selon l'identifiant de la variable centrale si la requête est
+ * triée). Les autres étoiles (variable centrale en position objet) relient des triplets de
+ * partitions différentes : elles sont évaluées sur l'union des index des partitions.
+ * <p>
+ * Les écritures ne sont pas thread-safe vis-à-vis des lectures, comme pour {@link RDFHexaStore}.
+ */
+public class PartitionedRDFHexaStore implements RDFStorage {
+
+    // Évaluation des partitions, partagée par tous les stores partitionnés
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "partition-rdf");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final int CURSOR_BATCH = 256; // Réponses lues d'une partition par tâche
+
+    private final RDFDictionary dictionary = new RDFDictionary(true); // Encodé en parallèle par les partitions
+    private final RDFHexaStore[] partitions;
+    private final PartitionUnion union = new PartitionUnion();
+    // Index des valeurs de l'union par (prédicat, nature), pour les étoiles à cheval sur plusieurs partitions
+    private final Map<Long, ValueIndex> valueIndexes = new ConcurrentHashMap<>();
+    private volatile QueryLimits queryLimits = QueryLimits.NONE;
+
+    /**
+     * Crée un store avec une partition par processeur disponible.
+     */
+    public PartitionedRDFHexaStore() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param partitionCount le nombre de partitions
+     * @throws IllegalArgumentException si le nombre de partitions n'est pas strictement positif
+     */
+    public PartitionedRDFHexaStore(int partitionCount) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("Le nombre de partitions doit être strictement positif : "
+                    + partitionCount);
+        }
+        this.partitions = new RDFHexaStore[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new RDFHexaStore(dictionary);
+        }
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    // Nombre de triplets de chaque partition, pour vérifier l'équilibre du partitionnement
+    public long[] partitionSizes() {
+        return Arrays.stream(partitions).mapToLong(RDFHexaStore::size).toArray();
+    }
+
+    // Les identifiants sont attribués séquentiellement : le modulo répartit les sujets uniformément
+    private RDFHexaStore partitionOf(int subjectId) {
+        return partitions[Math.floorMod(subjectId, partitions.length)];
+    }
+
+    @Override
+    public boolean add(RDFAtom atom) {
+        return changed(partitionOf(dictionary.encode(atom.getTripleSubject())).add(atom));
+    }
+
+    @Override
+    public boolean addAll(Stream<RDFAtom> atoms) {
+        // Répartit les atomes, puis charge les partitions en parallèle
+        Map<RDFHexaStore, List<RDFAtom>> batches = new IdentityHashMap<>();
+        atoms.forEach(atom -> batches.computeIfAbsent(partitionOf(dictionary.encode(atom.getTripleSubject())),
+                p -> new ArrayList<>()).add(atom));
+        List<Boolean> modified = scatter(List.copyOf(batches.keySet()),
+                partition -> partition.addAll(batches.get(partition)));
+        return changed(modified.contains(true));
+    }
+
+    @Override
+    public boolean remove(RDFAtom atom) {
+        int subjectId = dictionary.lookup(atom.getTripleSubject());
+        return changed(subjectId != -1 && partitionOf(subjectId).remove(atom));
+    }
+
+    @Override
+    public boolean removeAll(Stream<RDFAtom> atoms) {
+        Map<RDFHexaStore, List<RDFAtom>> batches = new IdentityHashMap<>();
+        atoms.forEach(atom -> {
+            int subjectId = dictionary.lookup(atom.getTripleSubject());
+            if (subjectId != -1) {
+                batches.computeIfAbsent(partitionOf(subjectId), p -> new ArrayList<>()).add(atom);
+            }
+        });
+        List<Boolean> modified = scatter(List.copyOf(batches.keySet()),
+                partition -> partition.removeAll(batches.get(partition)));
+        return changed(modified.contains(true));
+    }
+
+    // Invalide les index des valeurs de l'union si une écriture a modifié le store
+    private boolean changed(boolean modified) {
+        if (modified) {
+            valueIndexes.clear();
+        }
+        return modified;
+    }
+
+    @Override
+    public long size() {
+        return Arrays.stream(partitions).mapToLong(RDFHexaStore::size).sum();
+    }
+
+    @Override
+    public Collection<Atom> getAtoms() {
+        List<Atom> atoms = new ArrayList<>();
+        for (RDFHexaStore partition : partitions) {
+            atoms.addAll(partition.getAtoms());
+        }
+        return atoms;
+    }
+
+    @Override
+    public Iterator<Substitution> match(RDFAtom atom) {
+        // Sujet fixé : une seule partition peut contenir le triplet
+        if (!(atom.getTripleSubject() instanceof Variable)) {
+            int subjectId = dictionary.lookup(atom.getTripleSubject());
+            return subjectId != -1 ? partitionOf(subjectId).match(atom) : Collections.emptyIterator();
+        }
+        return Arrays.stream(partitions)
+                .flatMap(partition -> stream(partition.match(atom)))
+                .iterator();
+    }
+
+    @Override
+    public Iterator<Substitution> match(StarQuery query) {
+        return match(query, null);
+    }
+
+    /**
+     * Évalue une étoile sous les limites du store ({@link #setQueryLimits}), en s'arrêtant dès que
+     * le jeton est annulé.
+     */
+    @Override
+    public Iterator<Substitution> match(StarQuery query, CancellationToken token) {
+        if (query.getRdfAtoms().isEmpty()) {
+            return Collections.emptyIterator(); // Vide si pas de pattern
+        }
+        Variable central = query.getCentralVariable();
+        boolean subjectStar = query.getRdfAtoms().stream()
+                .allMatch(atom -> central.equals(atom.getTripleSubject()));
+        return subjectStar ? matchPerPartition(query, token) : matchAcrossPartitions(query, token);
+    }
+
+    public QueryLimits getQueryLimits() {
+        return queryLimits;
+    }
+
+    /**
+     * Limites appliquées à chaque requête en étoile : sur chaque partition pour une étoile centrée
+     * sur le sujet, sur l'ensemble des partitions sinon. Dans le premier cas, le nombre de lignes
+     * intermédiaires est borné par partition : les K partitions évaluées en parallèle peuvent
+     * matérialiser ensemble jusqu'à K fois {@link QueryLimits#getMaxIntermediateRows()}.
+     *
+     * @param queryLimits les limites, {@link QueryLimits#NONE} pour n'en appliquer aucune
+     */
+    public void setQueryLimits(QueryLimits queryLimits) {
+        this.queryLimits = Objects.requireNonNull(queryLimits, "Les limites ne peuvent pas être null.");
+        for (RDFHexaStore partition : partitions) {
+            partition.setQueryLimits(queryLimits);
+        }
+    }
+
+    // Étoile centrée sur le sujet : évaluée indépendamment sur chaque partition, réponses lues par lots
+    private Iterator<Substitution> matchPerPartition(StarQuery query, CancellationToken token) {
+        SolutionModifiers modifiers = query.getModifiers();
+        // Chaque partition retourne au plus ses OFFSET + LIMIT premières réponses, le décalage est appliqué à la fusion
+        long localLimit = modifiers.hasLimit() ? modifiers.getOffset() + modifiers.getLimit() : SolutionModifiers.NO_LIMIT;
+        StarQuery local = new StarQuery(query.getLabel(), query.getRdfAtoms(), query.getAnswerVariables(),
+                new SolutionModifiers(localLimit, 0, modifiers.getOrder()), query.getFilters(), query.getPrefixFilters());
+
+        List<PartitionCursor> cursors = Arrays.stream(partitions)
+                .map(partition -> new PartitionCursor(() -> partition.match(local, token)))
+                .toList();
+        Iterator<Substitution> answers = modifiers.isOrdered()
+                ? mergeOrdered(cursors, query.getCentralVariable(), modifiers.getOrder())
+                : mergeUnordered(cursors);
+        return applyRange(stream(answers), modifiers).iterator();
+    }
+
+    // Réponses dans l'ordre où les partitions les produisent : un lot déjà évalué est lu en priorité
+    private static Iterator<Substitution> mergeUnordered(List<PartitionCursor> cursors) {
+        List<PartitionCursor> live = new ArrayList<>(cursors);
+        return new Iterator<>() {
+            private PartitionCursor current;
+
+            @Override
+            public boolean hasNext() {
+                while (current == null || !current.buffered()) {
+                    live.removeIf(PartitionCursor::exhausted);
+                    if (live.isEmpty()) {
+                        return false;
+                    }
+                    current = live.stream().filter(PartitionCursor::ready).findFirst().orElse(live.get(0));
+                    current.advance(); // Attend le lot si aucune partition n'est prête
+                }
+                return true;
+            }
+
+            @Override
+            public Substitution next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    // Fusion des réponses triées de chaque partition selon l'identifiant de la variable centrale
+    private Iterator<Substitution> mergeOrdered(List<PartitionCursor> cursors, Variable central,
+                                                SolutionModifiers.CentralOrder order) {
+        Comparator<PartitionCursor> byId = Comparator.comparingInt(cursor -> cursor.headId);
+        PriorityQueue<PartitionCursor> heads = new PriorityQueue<>(
+                order == SolutionModifiers.CentralOrder.ASC ? byId : byId.reversed());
+        return new Iterator<>() {
+            private boolean started;
+
+            // Chaque partition doit avoir livré sa première réponse avant la première comparaison
+            private void start() {
+                started = true;
+                for (PartitionCursor cursor : cursors) {
+                    push(cursor);
+                }
+            }
+
+            private void push(PartitionCursor cursor) {
+                while (!cursor.buffered() && !cursor.exhausted()) {
+                    cursor.advance();
+                }
+                if (cursor.buffered()) {
+                    cursor.headId = centralId(cursor.peek(), central);
+                    heads.add(cursor);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (!started) {
+                    start();
+                }
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Substitution next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                PartitionCursor cursor = heads.poll();
+                Substitution answer = cursor.next();
+                push(cursor);
+                return answer;
+            }
+        };
+    }
+
+    private int centralId(Substitution substitution, Variable central) {
+        if (substitution instanceof EncodedSubstitution encoded) {
+            return encoded.getId(central);
+        }
+        return dictionary.lookup(substitution.createImageOf(central));
+    }
+
+    /**
+     * Réponses d'une partition lues par lots : le lot suivant est évalué en arrière-plan pendant
+     * que le précédent est consommé, si bien qu'au plus deux lots par partition sont en mémoire.
+     * La requête elle-même est planifiée par la première tâche, en parallèle des autres partitions.
+     */
+    private static final class PartitionCursor {
+        private final Supplier<Iterator<Substitution>> evaluation;
+        private Iterator<Substitution> answers; // Lu par une seule tâche à la fois
+        private List<Substitution> batch = List.of();
+        private int position;
+        private CompletableFuture<List<Substitution>> pending; // null une fois la partition épuisée
+        int headId; // Identifiant central de la prochaine réponse, pour la fusion triée
+
+        PartitionCursor(Supplier<Iterator<Substitution>> evaluation) {
+            this.evaluation = evaluation;
+            this.pending = fetch();
+        }
+
+        private CompletableFuture<List<Substitution>> fetch() {
+            return CompletableFuture.supplyAsync(() -> {
+                if (answers == null) {
+                    answers = evaluation.get();
+                }
+                List<Substitution> next = new ArrayList<>(CURSOR_BATCH);
+                while (next.size() < CURSOR_BATCH && answers.hasNext()) {
+                    next.add(answers.next());
+                }
+                return next;
+            }, WORKERS);
+        }
+
+        // Vrai si une réponse du lot courant reste à lire
+        boolean buffered() {
+            return position < batch.size();
+        }
+
+        boolean exhausted() {
+            return !buffered() && pending == null;
+        }
+
+        // Vrai si le lot suivant est disponible sans attendre
+        boolean ready() {
+            return pending != null && pending.isDone();
+        }
+
+        // Remplace le lot courant, lu entièrement, par le lot suivant, en l'attendant si nécessaire
+        void advance() {
+            if (buffered() || pending == null) {
+                return;
+            }
+            batch = join(pending);
+            position = 0;
+            pending = batch.size() < CURSOR_BATCH ? null : fetch();
+        }
+
+        Substitution peek() {
+            return batch.get(position);
+        }
+
+        Substitution next() {
+            return batch.get(position++);
+        }
+    }
+
+    /**
+     * Étoile dont la variable centrale n'est pas toujours sujet : les triplets d'une même réponse
+     * peuvent appartenir à des partitions différentes. Elle est évaluée comme sur un seul store,
+     * sur l'union des index des partitions ({@link PartitionUnion}) : candidats de la variable
+     * centrale intersectés d'un atome à l'autre, réponses encodées et limites de la requête.
+     */
+    private Iterator<Substitution> matchAcrossPartitions(StarQuery query, CancellationToken token) {
+        return new StarQueryIterator(dictionary, union, null, null, query, ExecutionMode.ROW, null,
+                QueryGuard.start(queryLimits, token), this::valueIndex);
+    }
+
+    // Index des valeurs d'un prédicat sur l'union, mis en cache jusqu'à la prochaine modification du store
+    private ValueIndex valueIndex(int predicate, RangeFilter.Kind kind) {
+        return valueIndexes.computeIfAbsent((long) predicate << 1 | kind.ordinal(),
+                key -> ValueIndex.build(dictionary, union, predicate, kind));
+    }
+
+    /**
+     * Vue en lecture de l'union des index des partitions, sans copie : un motif au sujet fixé ne
+     * consulte que la partition du sujet, les autres parcourent toutes les partitions.
+     */
+    private final class PartitionUnion implements TripleIndex {
+
+        @Override
+        public List<int[]> findMatches(int subject, int predicate, int object, QueryGuard guard) {
+            if (subject != -1) {
+                return partitionOf(subject).index().findMatches(subject, predicate, object, guard);
+            }
+            List<int[]> results = new ArrayList<>();
+            for (RDFHexaStore partition : partitions) {
+                for (int[] triple : partition.index().findMatches(-1, predicate, object, guard)) {
+                    RDFIndex.collect(results, guard, triple);
+                }
+            }
+            return results;
+        }
+
+        @Override
+        public Set<Integer> findCandidates(int subject, int predicate, int object, int position) {
+            if (subject != -1) {
+                return partitionOf(subject).index().findCandidates(subject, predicate, object, position);
+            }
+            List<Set<Integer>> sets = new ArrayList<>();
+            for (RDFHexaStore partition : partitions) {
+                Set<Integer> candidates = partition.index().findCandidates(-1, predicate, object, position);
+                if (!candidates.isEmpty()) {
+                    sets.add(candidates);
+                }
+            }
+            if (sets.isEmpty()) {
+                return Set.of();
+            }
+            // Un sujet n'appartient qu'à une partition : l'union des sujets est disjointe
+            return sets.size() == 1 ? sets.get(0) : new UnionSet(sets, position == 0);
+        }
+
+        @Override
+        public List<int[]> getAllTriples() {
+            List<int[]> triples = new ArrayList<>();
+            for (RDFHexaStore partition : partitions) {
+                triples.addAll(partition.index().getAllTriples());
+            }
+            return triples;
+        }
+    }
+
+    // Union non modifiable d'ensembles de candidats ; la taille d'une union non disjointe est calculée une fois
+    private static final class UnionSet extends AbstractSet<Integer> {
+        private final List<Set<Integer>> sets;
+        private final boolean disjoint;
+        private int size = -1;
+
+        UnionSet(List<Set<Integer>> sets, boolean disjoint) {
+            this.sets = sets;
+            this.disjoint = disjoint;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            for (Set<Integer> set : sets) {
+                if (set.contains(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int size() {
+            if (size == -1) {
+                int count = 0;
+                if (disjoint) {
+                    for (Set<Integer> set : sets) {
+                        count += set.size();
+                    }
+                } else {
+                    for (Iterator<Integer> it = iterator(); it.hasNext(); it.next()) {
+                        count++;
+                    }
+                }
+                size = count;
+            }
+            return size;
+        }
+
+        // Une valeur est retournée par le premier ensemble qui la contient
+        @Override
+        public Iterator<Integer> iterator() {
+            return new Iterator<>() {
+                private int current;
+                private Iterator<Integer> values = sets.get(0).iterator();
+                private Integer next;
+
+                @Override
+                public boolean hasNext() {
+                    while (next == null) {
+                        if (values.hasNext()) {
+                            Integer value = values.next();
+                            if (disjoint || !seenBefore(value)) {
+                                next = value;
+                            }
+                        } else if (++current < sets.size()) {
+                            values = sets.get(current).iterator();
+                        } else {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+
+                private boolean seenBefore(Integer value) {
+                    for (int i = 0; i < current; i++) {
+                        if (sets.get(i).contains(value)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+
+                @Override
+                public Integer next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Integer value = next;
+                    next = null;
+                    return value;
+                }
+            };
+        }
+    }
+
+    // Applique OFFSET puis LIMIT à des réponses déjà ordonnées
+    static <T> Stream<T> applyRange(Stream<T> answers, SolutionModifiers modifiers) {
+        answers = answers.skip(modifiers.getOffset());
+        return modifiers.hasLimit() ? answers.limit(modifiers.getLimit()) : answers;
+    }
+
+    // Exécute une tâche sur chaque partition en parallèle et retourne les résultats dans l'ordre des partitions
+    private static <T> List<T> scatter(List<RDFHexaStore> targets, Function<RDFHexaStore, T> task) {
+        if (targets.size() == 1) {
+            return List.of(task.apply(targets.get(0)));
+        }
+        List<CompletableFuture<T>> futures = targets.stream()
+                .map(partition -> CompletableFuture.supplyAsync(() -> task.apply(partition), WORKERS))
+                .toList();
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(join(future));
+        }
+        return results;
+    }
+
+    // Attend le résultat d'une tâche, en relançant son exception d'exécution telle quelle
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static <T> Stream<T> stream(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+}
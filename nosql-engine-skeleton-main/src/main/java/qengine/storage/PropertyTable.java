@@ -0,0 +1,120 @@
+package qengine.storage;
+
+import java.util.Arrays;
+
+/**
+ * Table de propriétés : une ligne par sujet possédant tous les prédicats du groupe, une colonne
+ * par prédicat. Chaque colonne est stockée en tableaux d'entiers contigus (décalages + valeurs)
+ * pour accepter plusieurs objets par sujet. Les lignes sont triées par identifiant de sujet.
+ */
+public class PropertyTable {
+
+    private final int[] predicates; // Prédicats triés, un par colonne
+    private final int[] subjects; // Sujets triés, un par ligne
+    private final int[][] offsets; // Par colonne : début des valeurs de chaque ligne (taille lignes + 1)
+    private final int[][] values; // Par colonne : objets de toutes les lignes, à la suite
+
+    private PropertyTable(int[] predicates, int[] subjects, int[][] offsets, int[][] values) {
+        this.predicates = predicates;
+        this.subjects = subjects;
+        this.offsets = offsets;
+        this.values = values;
+    }
+
+    /**
+     * Construit la table d'un groupe de prédicats à partir des index.
+     *
+     * @param index              l'index HexaStore
+     * @param characteristicSets les ensembles caractéristiques, pour retrouver les sujets couverts
+     * @param predicates         les prédicats du groupe
+     * @return la table de propriétés
+     */
+    public static PropertyTable build(RDFIndex index, CharacteristicSetIndex characteristicSets, int[] predicates) {
+        int[] sortedPredicates = predicates.clone();
+        Arrays.sort(sortedPredicates);
+
+        int[] subjects = characteristicSets.supersetsOf(sortedPredicates).stream()
+                .flatMap(set -> set.getSubjects().stream())
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .toArray();
+
+        int[][] offsets = new int[sortedPredicates.length][];
+        int[][] values = new int[sortedPredicates.length][];
+        for (int column = 0; column < sortedPredicates.length; column++) {
+            int[] columnOffsets = new int[subjects.length + 1];
+            int[] columnValues = new int[subjects.length];
+            int length = 0;
+            for (int row = 0; row < subjects.length; row++) {
+                columnOffsets[row] = length;
+                for (int object : index.findCandidates(subjects[row], sortedPredicates[column], -1, 2)) {
+                    if (length == columnValues.length) {
+                        columnValues = Arrays.copyOf(columnValues, columnValues.length * 2 + 1);
+                    }
+                    columnValues[length++] = object;
+                }
+            }
+            columnOffsets[subjects.length] = length;
+            offsets[column] = columnOffsets;
+            values[column] = Arrays.copyOf(columnValues, length);
+        }
+        return new PropertyTable(sortedPredicates, subjects, offsets, values);
+    }
+
+    public int[] getPredicates() {
+        return predicates.clone();
+    }
+
+    public int rowCount() {
+        return subjects.length;
+    }
+
+    public int subject(int row) {
+        return subjects[row];
+    }
+
+    // Ligne d'un sujet, par dichotomie, -1 s'il n'appartient pas à la table
+    public int rowOf(int subject) {
+        int row = Arrays.binarySearch(subjects, subject);
+        return row >= 0 ? row : -1;
+    }
+
+    // Colonne d'un prédicat, -1 s'il n'appartient pas à la table
+    public int columnOf(int predicate) {
+        int column = Arrays.binarySearch(predicates, predicate);
+        return column >= 0 ? column : -1;
+    }
+
+    // Vrai si la table contient tous les prédicats donnés (triés)
+    public boolean covers(int[] sortedPredicates) {
+        for (int predicate : sortedPredicates) {
+            if (columnOf(predicate) == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Début des objets d'une ligne dans une colonne (inclus)
+    public int valuesFrom(int column, int row) {
+        return offsets[column][row];
+    }
+
+    // Fin des objets d'une ligne dans une colonne (exclue)
+    public int valuesTo(int column, int row) {
+        return offsets[column][row + 1];
+    }
+
+    public int value(int column, int position) {
+        return values[column][position];
+    }
+
+    // Nombre total de valeurs stockées, toutes colonnes confondues
+    public long cellCount() {
+        long cells = 0;
+        for (int[] column : values) {
+            cells += column.length;
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,26 @@
+package qengine.storage;
+
+/**
+ * Levée pendant l'évaluation d'une requête interrompue avant la fin : annulée, hors délai ou
+ * dépassant le nombre de lignes intermédiaires autorisé (voir {@link QueryLimits}).
+ */
+public class QueryAbortedException extends RuntimeException {
+
+    /**
+     * Cause de l'interruption.
+     */
+    public enum Reason {
+        CANCELLED, TIMEOUT, ROW_LIMIT
+    }
+
+    private final Reason reason;
+
+    public QueryAbortedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,86 @@
+package qengine.storage;
+
+/**
+ * Garde d'une requête en cours d'évaluation : vérifie son jeton d'annulation, son délai et la taille
+ * des résultats intermédiaires qu'elle matérialise. Les parcours d'index et les boucles de jointure
+ * l'appellent à chaque ligne ; l'horloge et le jeton ne sont consultés que toutes les
+ * {@link #CHECK_INTERVAL} lignes pour que la vérification reste négligeable.
+ * Un garde appartient à une seule requête, consommée par un seul thread à la fois.
+ */
+final class QueryGuard {
+
+    static final int CHECK_INTERVAL = 1024;
+
+    // Garde sans limite, partagé : ses méthodes ne modifient aucun état
+    static final QueryGuard NONE = new QueryGuard(QueryLimits.NONE, null);
+
+    private final boolean unlimited;
+    private final QueryLimits limits;
+    private final long deadline; // Selon System.nanoTime, significatif seulement avec un délai
+    private final long maxRows;
+    private final CancellationToken token;
+    private int countdown = CHECK_INTERVAL;
+
+    private QueryGuard(QueryLimits limits, CancellationToken token) {
+        this.unlimited = !limits.hasTimeout() && !limits.hasRowLimit() && token == null;
+        this.limits = limits;
+        this.deadline = System.nanoTime() + limits.getTimeoutMillis() * 1_000_000;
+        this.maxRows = limits.hasRowLimit() ? limits.getMaxIntermediateRows() : Long.MAX_VALUE;
+        this.token = token;
+    }
+
+    /**
+     * Démarre le garde d'une requête : le délai court à partir de maintenant.
+     *
+     * @param token le jeton d'annulation, ou null
+     * @throws QueryAbortedException si le jeton est déjà annulé
+     */
+    static QueryGuard start(QueryLimits limits, CancellationToken token) {
+        if (limits.equals(QueryLimits.NONE) && token == null) {
+            return NONE;
+        }
+        QueryGuard guard = new QueryGuard(limits, token);
+        guard.check();
+        return guard;
+    }
+
+    /**
+     * Signale une ligne ajoutée à un résultat intermédiaire.
+     *
+     * @param materialized le nombre de lignes de ce résultat, nouvelle ligne comprise
+     * @throws QueryAbortedException si ce nombre dépasse la limite, ou si la requête est annulée ou hors délai
+     */
+    void onRow(long materialized) {
+        if (unlimited) {
+            return;
+        }
+        if (materialized > maxRows) {
+            throw new QueryAbortedException(QueryAbortedException.Reason.ROW_LIMIT,
+                    "Requête interrompue : plus de " + maxRows + " lignes intermédiaires. "
+                            + "Ajoutez des constantes ou une limite à la requête.");
+        }
+        tick();
+    }
+
+    // Signale une unité de travail (candidat examiné, ligne produite)
+    void tick() {
+        if (!unlimited && --countdown <= 0) {
+            countdown = CHECK_INTERVAL;
+            check();
+        }
+    }
+
+    // Vérifie immédiatement l'annulation et le délai
+    void check() {
+        if (unlimited) {
+            return;
+        }
+        if (token != null && token.isCancelled()) {
+            throw new QueryAbortedException(QueryAbortedException.Reason.CANCELLED, "Requête annulée.");
+        }
+        if (limits.hasTimeout() && System.nanoTime() - deadline > 0) {
+            throw new QueryAbortedException(QueryAbortedException.Reason.TIMEOUT,
+                    "Requête interrompue : délai de " + limits.getTimeoutMillis() + " ms dépassé.");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package qengine.storage;
+
+/**
+ * Limites d'évaluation d'une requête : délai maximal et nombre maximal de lignes intermédiaires
+ * matérialisées à la fois (triplets lus dans un index ou lignes développées pour un candidat).
+ * Une requête qui les dépasse est interrompue par une {@link QueryAbortedException}, ce qui borne
+ * la mémoire qu'elle peut occuper. Un store qui évalue une requête par morceaux en parallèle (voir
+ * {@link PartitionedRDFHexaStore#setQueryLimits}) applique le nombre de lignes à chaque morceau.
+ */
+public final class QueryLimits {
+
+    // Valeur signifiant "pas de limite"
+    public static final long UNLIMITED = -1;
+
+    // Aucune limite
+    public static final QueryLimits NONE = new QueryLimits(UNLIMITED, UNLIMITED);
+
+    private final long timeoutMillis;
+    private final long maxIntermediateRows;
+
+    /**
+     * Constructeur.
+     *
+     * @param timeoutMillis       délai maximal d'évaluation en millisecondes, ou {@link #UNLIMITED}
+     * @param maxIntermediateRows nombre maximal de lignes intermédiaires, ou {@link #UNLIMITED}
+     * @throws IllegalArgumentException si une limite n'est ni strictement positive ni {@link #UNLIMITED}
+     */
+    public QueryLimits(long timeoutMillis, long maxIntermediateRows) {
+        if (timeoutMillis != UNLIMITED && timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Le délai doit être strictement positif : " + timeoutMillis);
+        }
+        if (maxIntermediateRows != UNLIMITED && maxIntermediateRows <= 0) {
+            throw new IllegalArgumentException("Le nombre de lignes doit être strictement positif : "
+                    + maxIntermediateRows);
+        }
+        this.timeoutMillis = timeoutMillis;
+        this.maxIntermediateRows = maxIntermediateRows;
+    }
+
+    public boolean hasTimeout() {
+        return timeoutMillis != UNLIMITED;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public boolean hasRowLimit() {
+        return maxIntermediateRows != UNLIMITED;
+    }
+
+    public long getMaxIntermediateRows() {
+        return maxIntermediateRows;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        QueryLimits that = (QueryLimits) o;
+        return timeoutMillis == that.timeoutMillis && maxIntermediateRows == that.maxIntermediateRows;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(timeoutMillis) * 31 + Long.hashCode(maxIntermediateRows);
+    }
+
+    @Override
+    public String toString() {
+        return "QueryLimits{" +
+                "timeoutMillis=" + timeoutMillis +
+                ", maxIntermediateRows=" + maxIntermediateRows +
+                '}';
+    }
+}
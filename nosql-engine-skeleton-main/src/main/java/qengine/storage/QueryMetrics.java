@@ -0,0 +1,146 @@
+package qengine.storage;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Compteurs et chronomètres d'une évaluation de requête en étoile.
+ * Ils sont remplis pendant le parcours de l'itérateur et transmis à l'écouteur du store
+ * lorsque l'itérateur est épuisé (ou la limite atteinte). Le nombre de décodages continue
+ * d'augmenter ensuite si les substitutions sont lues après la fin du parcours.
+ */
+public final class QueryMetrics {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final String label;
+    private final long[] rowsScanned; // Triplets ou valeurs lus par atome
+    private final long[] intermediateRows; // Lignes produites après chaque atome
+    long encodeNanos; // Recherche des constantes dans le dictionnaire
+    long planNanos; // Préparation complète : encodage, ensembles de candidats, choix du pilote
+    long evaluationNanos; // Temps passé à produire les réponses
+    long decodeNanos;
+    long indexLookups; // Accès aux index (findCandidates, findMatches)
+    long membershipProbes; // Tests d'appartenance d'un candidat à un ensemble
+    long candidates; // Candidats de la variable centrale examinés
+    long rejectedCandidates; // Candidats écartés par les sondages
+    long answers;
+    long decodes; // Termes décodés par le dictionnaire
+    long allocatedBytes; // Estimation des octets alloués par le thread évaluateur
+    boolean characteristicSetDriver; // Pilote fourni par les ensembles caractéristiques
+    boolean propertyTable; // Évaluation sur une table de propriétés
+
+    QueryMetrics(String label, int atoms) {
+        this.label = label;
+        this.rowsScanned = new long[atoms];
+        this.intermediateRows = new long[atoms];
+    }
+
+    void scanned(int atom, long rows) {
+        rowsScanned[atom] += rows;
+    }
+
+    void produced(int atom, long rows) {
+        intermediateRows[atom] += rows;
+    }
+
+    // Octets alloués jusqu'ici par le thread courant, -1 si la JVM ne le mesure pas
+    static long threadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean threads && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getEncodeNanos() {
+        return encodeNanos;
+    }
+
+    public long getPlanNanos() {
+        return planNanos;
+    }
+
+    public long getEvaluationNanos() {
+        return evaluationNanos;
+    }
+
+    public long getDecodeNanos() {
+        return decodeNanos;
+    }
+
+    public long getIndexLookups() {
+        return indexLookups;
+    }
+
+    public long getMembershipProbes() {
+        return membershipProbes;
+    }
+
+    public long getCandidates() {
+        return candidates;
+    }
+
+    public long getRejectedCandidates() {
+        return rejectedCandidates;
+    }
+
+    // Triplets (ou valeurs de table) lus pour l'atome donné, dans l'ordre de la requête
+    public long getRowsScanned(int atom) {
+        return rowsScanned[atom];
+    }
+
+    public long getTotalRowsScanned() {
+        return Arrays.stream(rowsScanned).sum();
+    }
+
+    // Lignes intermédiaires produites après le développement de l'atome donné
+    public long getIntermediateRows(int atom) {
+        return intermediateRows[atom];
+    }
+
+    public long getMaxIntermediateRows() {
+        return Arrays.stream(intermediateRows).max().orElse(0);
+    }
+
+    public long getAnswers() {
+        return answers;
+    }
+
+    public long getDecodes() {
+        return decodes;
+    }
+
+    // Estimation à partir du compteur d'allocations du thread, -1 si indisponible
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public boolean usedCharacteristicSets() {
+        return characteristicSetDriver;
+    }
+
+    public boolean usedPropertyTable() {
+        return propertyTable;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryMetrics{" +
+                "plan=" + planNanos / 1000 + "µs (encodage " + encodeNanos / 1000 + "µs)" +
+                ", évaluation=" + evaluationNanos / 1000 + "µs" +
+                ", accès index=" + indexLookups +
+                ", sondages=" + membershipProbes +
+                ", candidats=" + candidates + " (" + rejectedCandidates + " écartés)" +
+                ", lus=" + Arrays.toString(rowsScanned) +
+                ", intermédiaires=" + Arrays.toString(intermediateRows) +
+                ", réponses=" + answers +
+                ", décodages=" + decodes +
+                ", alloué=" + allocatedBytes + "o" +
+                '}';
+    }
+}
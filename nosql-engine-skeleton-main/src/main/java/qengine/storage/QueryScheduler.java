@@ -0,0 +1,274 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import qengine.model.StarQuery;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Contrôle d'admission des requêtes en étoile devant un {@link RDFStorage}. Le coût de chaque
+ * requête est estimé avant son exécution (par défaut avec les statistiques d'index de
+ * {@link RDFHexaStore#estimateCardinality}) ; elle est alors placée dans la file des requêtes
+ * légères ou dans celle des requêtes lourdes. Un nombre fixe de threads exécute les requêtes :
+ * au plus {@code maxExpensive} requêtes lourdes tournent à la fois, et une requête lourde n'est
+ * prise qu'après {@code cheapWeight} requêtes légères lorsque les deux files sont occupées.
+ * Les requêtes légères ne sont donc jamais bloquées derrière les lourdes, et les lourdes
+ * progressent quand même sous une charge légère continue.
+ *
+ * Les réponses sont matérialisées par le thread d'exécution : la durée d'une requête comprend
+ * le parcours complet de son itérateur. L'évaluation respecte les {@link QueryLimits} du store
+ * (délai, lignes intermédiaires), et l'annulation du futur d'une requête l'interrompt, qu'elle
+ * attende encore (elle est alors retirée de sa file) ou soit déjà en cours.
+ */
+public class QueryScheduler implements Closeable {
+
+    /**
+     * File d'attente d'une requête selon son coût estimé.
+     */
+    public enum Lane {
+        CHEAP, EXPENSIVE
+    }
+
+    /**
+     * État d'une file : requêtes en attente et en cours, requêtes terminées et temps d'attente
+     * (de la soumission au début de l'exécution) des requêtes démarrées.
+     */
+    public record LaneStats(int queued, int running, long started, long totalWaitNanos, long maxWaitNanos) {
+
+        public double averageWaitMillis() {
+            return started == 0 ? 0 : totalWaitNanos / 1e6 / started;
+        }
+    }
+
+    private record Task(StarQuery query, Lane lane, long submitted, CancellationToken token,
+                        CompletableFuture<List<Substitution>> result) {
+    }
+
+    // Compteurs d'une file, protégés par le verrou du scheduler
+    private static final class LaneState {
+        final Deque<Task> queue = new ArrayDeque<>();
+        int running = 0;
+        long started = 0;
+        long totalWaitNanos = 0;
+        long maxWaitNanos = 0;
+    }
+
+    private final RDFStorage storage;
+    private final ToDoubleFunction<StarQuery> costEstimator;
+    private final double expensiveThreshold;
+    private final int maxExpensive;
+    private final int cheapWeight;
+    private final Map<Lane, LaneState> lanes = new EnumMap<>(Lane.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private int cheapSinceExpensive = 0; // Requêtes légères démarrées depuis la dernière lourde
+    private boolean closed = false;
+
+    /**
+     * Scheduler devant un HexaStore, dont le coût est l'estimation du nombre de réponses.
+     *
+     * @param expensiveThreshold coût estimé à partir duquel une requête est lourde
+     * @param threads            nombre de requêtes exécutées simultanément
+     * @param maxExpensive       nombre maximal de requêtes lourdes exécutées simultanément
+     */
+    public QueryScheduler(RDFHexaStore store, double expensiveThreshold, int threads, int maxExpensive) {
+        this(store, store::estimateCardinality, expensiveThreshold, threads, maxExpensive, 4);
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param costEstimator      estimation du coût d'une requête, appelée à la soumission
+     * @param expensiveThreshold coût estimé à partir duquel une requête est lourde
+     * @param threads            nombre de requêtes exécutées simultanément
+     * @param maxExpensive       nombre maximal de requêtes lourdes exécutées simultanément, inférieur à threads
+     *                           pour qu'un thread reste toujours disponible pour les requêtes légères
+     * @param cheapWeight        requêtes légères démarrées avant une lourde lorsque les deux files attendent
+     */
+    public QueryScheduler(RDFStorage storage, ToDoubleFunction<StarQuery> costEstimator, double expensiveThreshold,
+                          int threads, int maxExpensive, int cheapWeight) {
+        if (threads < 2 || maxExpensive < 1 || maxExpensive >= threads) {
+            throw new IllegalArgumentException("Il faut au moins deux threads et 1 <= maxExpensive < threads : "
+                    + threads + ", " + maxExpensive);
+        }
+        if (cheapWeight < 1) {
+            throw new IllegalArgumentException("Le poids des requêtes légères doit être strictement positif : "
+                    + cheapWeight);
+        }
+        this.storage = storage;
+        this.costEstimator = costEstimator;
+        this.expensiveThreshold = expensiveThreshold;
+        this.maxExpensive = maxExpensive;
+        this.cheapWeight = cheapWeight;
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new LaneState());
+        }
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::work, "scheduler-rdf-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    // File attribuée à une requête d'après son coût estimé
+    public Lane classify(StarQuery query) {
+        return costEstimator.applyAsDouble(query) >= expensiveThreshold ? Lane.EXPENSIVE : Lane.CHEAP;
+    }
+
+    /**
+     * Soumet une requête : son coût est estimé immédiatement et elle attend son tour dans sa file.
+     *
+     * @return les réponses, disponibles à la fin de l'exécution ; l'échec de l'évaluation est
+     * transmis par le futur, dont l'annulation interrompt la requête
+     * @throws RejectedExecutionException si le scheduler est fermé
+     */
+    public CompletableFuture<List<Substitution>> submit(StarQuery query) {
+        Lane lane = classify(query);
+        CancellationToken token = new CancellationToken();
+        CompletableFuture<List<Substitution>> result = new CompletableFuture<>();
+        Task task = new Task(query, lane, System.nanoTime(), token, result);
+        result.whenComplete((answers, failure) -> {
+            if (failure instanceof CancellationException) {
+                token.cancel();
+                withdraw(task);
+            }
+        });
+        lock.lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("Le scheduler est fermé.");
+            }
+            lanes.get(lane).queue.add(task);
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        return task.result();
+    }
+
+    // Retire de sa file une requête annulée avant son démarrage : elle n'occupe aucun thread
+    // et n'entre ni dans la profondeur de la file ni dans les temps d'attente
+    private void withdraw(Task task) {
+        lock.lock();
+        try {
+            lanes.get(task.lane()).queue.remove(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public LaneStats stats(Lane lane) {
+        lock.lock();
+        try {
+            LaneState state = lanes.get(lane);
+            return new LaneStats(state.queue.size(), state.running, state.started, state.totalWaitNanos,
+                    state.maxWaitNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work() {
+        while (true) {
+            Task task;
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task == null) {
+                return; // Fermeture
+            }
+            try {
+                List<Substitution> answers = new ArrayList<>();
+                storage.match(task.query(), task.token()).forEachRemaining(answers::add);
+                task.result().complete(answers);
+            } catch (Throwable e) {
+                // Même une erreur doit terminer le futur, sans quoi l'appelant attendrait indéfiniment
+                task.result().completeExceptionally(e);
+            } finally {
+                finish(task.lane());
+            }
+        }
+    }
+
+    // Attend la prochaine requête admissible, null après fermeture
+    private Task take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    return null;
+                }
+                Lane lane = nextLane();
+                if (lane != null) {
+                    LaneState state = lanes.get(lane);
+                    Task task = state.queue.poll();
+                    if (task.result().isCancelled()) {
+                        continue; // Annulée pendant sa soumission, avant que withdraw ne puisse la retirer
+                    }
+                    long wait = System.nanoTime() - task.submitted();
+                    state.running++;
+                    state.started++;
+                    state.totalWaitNanos += wait;
+                    state.maxWaitNanos = Math.max(state.maxWaitNanos, wait);
+                    cheapSinceExpensive = lane == Lane.CHEAP ? cheapSinceExpensive + 1 : 0;
+                    return task;
+                }
+                available.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // File servie ensuite : une lourde si une place est libre et que les légères ont eu leur part
+    private Lane nextLane() {
+        LaneState cheap = lanes.get(Lane.CHEAP);
+        LaneState expensive = lanes.get(Lane.EXPENSIVE);
+        boolean expensiveAdmissible = !expensive.queue.isEmpty() && expensive.running < maxExpensive;
+        if (expensiveAdmissible && (cheap.queue.isEmpty() || cheapSinceExpensive >= cheapWeight)) {
+            return Lane.EXPENSIVE;
+        }
+        return cheap.queue.isEmpty() ? null : Lane.CHEAP;
+    }
+
+    private void finish(Lane lane) {
+        lock.lock();
+        try {
+            lanes.get(lane).running--;
+            available.signalAll(); // Une place lourde a pu se libérer
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Arrête les threads d'exécution ; les requêtes en cours se terminent et celles qui attendent
+     * sont annulées.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            for (LaneState state : lanes.values()) {
+                List<Task> waiting = new ArrayList<>(state.queue);
+                state.queue.clear(); // Avant l'annulation, qui retire chaque requête de sa file
+                for (Task task : waiting) {
+                    task.result().completeExceptionally(new CancellationException("Le scheduler est fermé."));
+                }
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,33 +1,229 @@
 package qengine.storage;
 
+import fr.boreal.model.logicalElements.api.Literal;
 import fr.boreal.model.logicalElements.api.Term; // Import de la classe Term représentant les termes RDF
-import java.util.HashMap;
-import java.util.Map;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class RDFDictionary {
 
     // Map associant chaque terme RDF (Term) à un identifiant unique (Integer)
-    private final Map<Term, Integer> termToId = new HashMap<>();
+    private final Map<Term, Integer> termToId;
     // Map inversée associant chaque identifiant unique (Integer) à son terme RDF (Term)
-    private final Map<Integer, Term> idToTerm = new HashMap<>();
+    private final Map<Integer, Term> idToTerm;
     // Identifiant numérique suivant à attribuer à un terme RDF
-    private int nextId = 0;
+    private final AtomicInteger nextId = new AtomicInteger();
+    // Identifiants libérés par release, réattribués en priorité
+    private final Queue<Integer> freeIds = new ConcurrentLinkedQueue<>();
+    // Entiers, dates et booléens encodés dans leur identifiant, hors des maps (voir InlineLiterals)
+    private final boolean inlineLiterals;
+    // Index des littéraux par libellé : base triée, complétée des littéraux ajoutés depuis sa construction
+    private volatile LiteralIndex literalIndex = new LiteralIndex(new String[0], new int[0]);
+    private final Queue<Map.Entry<String, Integer>> literalDelta = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger literalDeltaSize = new AtomicInteger();
+    private final Object literalMerge = new Object(); // Sérialise les fusions du delta dans la base
+    private static final int MIN_LITERAL_DELTA = 1024; // Taille du delta en dessous de laquelle il n'est pas fusionné
+
+    // Libellés des littéraux triés, avec leurs identifiants
+    private record LiteralIndex(String[] labels, int[] ids) {
+    }
+
+    public RDFDictionary() {
+        this(false);
+    }
+
+    // Avec concurrent, plusieurs threads peuvent encoder et décoder simultanément (ConcurrentHashMap).
+    public RDFDictionary(boolean concurrent) {
+        this(concurrent, false);
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param concurrent     si vrai, plusieurs threads peuvent encoder et décoder simultanément
+     * @param inlineLiterals si vrai, les littéraux entiers, dates ISO et booléens sous forme canonique
+     *                       sont encodés dans les bits de leur identifiant (bit 30 à 1) : ils n'occupent
+     *                       aucune entrée du dictionnaire et se décodent sans recherche dans les maps
+     */
+    public RDFDictionary(boolean concurrent, boolean inlineLiterals) {
+        this.termToId = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+        this.idToTerm = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+        this.inlineLiterals = inlineLiterals;
+    }
+
+    public boolean isInlineLiterals() {
+        return inlineLiterals;
+    }
+
+    // Identifiant en ligne d'un terme, -1 s'il n'en a pas
+    int inlineId(Term term) {
+        return inlineLiterals && term instanceof Literal<?> literal && literal.value() instanceof String label
+                ? InlineLiterals.encode(label) : -1;
+    }
 
-    
     public int encode(Term term) {
         if (term == null) {
             throw new NullPointerException("Term cannot be null"); // Protection contre les termes nulls.
         }
+        int inline = inlineId(term);
+        if (inline != -1) {
+            return inline;
+        }
         // Ajoute le terme au dictionnaire s'il n'existe pas encore, et retourne l'identifiant associé.
+        // La correspondance inverse est publiée avant l'identifiant : un lecteur qui voit l'identifiant peut le décoder.
         return termToId.computeIfAbsent(term, key -> {
-            idToTerm.put(nextId, term); // Ajout de la correspondance dans la map inversée.
-            return nextId++;           // Retourne l'identifiant courant, puis l'incrémente.
+            Integer free = freeIds.poll();
+            int id = free != null ? free : nextId.getAndIncrement();
+            if (inlineLiterals && id >= InlineLiterals.TAG) {
+                throw new IllegalStateException("Plus d'identifiants disponibles hors de l'espace des littéraux en ligne.");
+            }
+            idToTerm.put(id, term); // Ajout de la correspondance dans la map inversée.
+            if (term instanceof Literal<?>) {
+                literalDelta.add(Map.entry(term.label(), id));
+                literalDeltaSize.incrementAndGet();
+            }
+            return id;
         });
     }
 
-  
+    // Identifiant d'un terme déjà présent, sans l'ajouter au dictionnaire (-1 si inconnu).
+    public int lookup(Term term) {
+        int inline = inlineId(term);
+        if (inline != -1) {
+            return inline;
+        }
+        Integer id = termToId.get(term);
+        return id != null ? id : -1;
+    }
+
+    // Borne des identifiants attribués : ils sont compris entre 0 et size() - 1 (des identifiants libérés
+    // peuvent ne correspondre à aucun terme). Sans release, c'est le nombre de termes encodés.
+    // Les identifiants en ligne sont en dehors de cet intervalle.
+    public int size() {
+        return nextId.get();
+    }
+
+    // Nombre de termes présents dans le dictionnaire, hors littéraux en ligne.
+    public int termCount() {
+        return termToId.size();
+    }
+
+    /**
+     * Retire un terme du dictionnaire et rend son identifiant réutilisable par un prochain encodage.
+     * L'appelant garantit que l'identifiant n'est plus référencé, ni par l'index ni par un résultat
+     * encore en cours de lecture.
+     *
+     * @param id l'identifiant à libérer
+     * @return true si un terme portait cet identifiant
+     */
+    public boolean release(int id) {
+        Term term = idToTerm.remove(id);
+        if (term == null) {
+            return false;
+        }
+        termToId.remove(term); // Son entrée dans l'index des littéraux est écartée à la lecture
+        freeIds.add(id);
+        return true;
+    }
+
+    /**
+     * Identifiants des littéraux du dictionnaire dont le libellé commence par le préfixe
+     * (STRSTARTS). Comme dans {@link FrontCodedDictionary}, l'index est une base triée complétée
+     * d'un delta des littéraux ajoutés depuis, examinés un à un ; le delta est fusionné dans la base
+     * lorsqu'il dépasse un huitième de celle-ci, si bien qu'une insertion ne provoque pas de tri
+     * complet à la recherche suivante. Dans la base, chaque recherche est une dichotomie suivie d'un
+     * parcours des seuls libellés retenus. Les termes libérés sont écartés à la lecture, et les
+     * littéraux en ligne, sans entrée, ne sont pas retournés. Les IRI lus en traduction {@code Raw}
+     * étant des littéraux, ils sont indexés et retournés comme les autres (voir {@link qengine.model.PrefixFilter}).
+     *
+     * @return un ensemble non modifiable d'identifiants
+     */
+    public Set<Integer> literalsWithPrefix(String prefix) {
+        if (literalDeltaSize.get() >= Math.max(MIN_LITERAL_DELTA, literalIndex.labels().length / 8)) {
+            mergeLiteralDelta();
+        }
+        Set<Integer> ids = new HashSet<>();
+        // Le delta est lu avant la base : une fusion publie sa base avant de vider le delta
+        for (Map.Entry<String, Integer> entry : literalDelta) {
+            if (entry.getKey().startsWith(prefix) && isLiteral(entry.getValue(), entry.getKey())) {
+                ids.add(entry.getValue());
+            }
+        }
+        LiteralIndex index = literalIndex;
+        String[] labels = index.labels();
+        for (int i = firstAtLeast(labels, prefix); i < labels.length && labels[i].startsWith(prefix); i++) {
+            if (isLiteral(index.ids()[i], labels[i])) {
+                ids.add(index.ids()[i]);
+            }
+        }
+        return Collections.unmodifiableSet(ids);
+    }
+
+    // Vrai si l'identifiant porte toujours ce littéral (il a pu être libéré, puis réattribué)
+    private boolean isLiteral(int id, String label) {
+        Term term = idToTerm.get(id);
+        return term instanceof Literal<?> && term.label().equals(label);
+    }
+
+    // Premier rang dont le libellé n'est pas inférieur à la clé
+    private static int firstAtLeast(String[] labels, String key) {
+        int low = 0;
+        int high = labels.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (labels[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Trie le delta et le fusionne avec la base en écartant les termes libérés, puis retire du delta
+    // les entrées fusionnées ; les littéraux ajoutés pendant la fusion restent dans le delta
+    private void mergeLiteralDelta() {
+        synchronized (literalMerge) {
+            List<Map.Entry<String, Integer>> delta = new ArrayList<>(literalDelta);
+            if (delta.size() < Math.max(MIN_LITERAL_DELTA, literalIndex.labels().length / 8)) {
+                return; // Déjà fusionné par un autre thread
+            }
+            delta.sort(Map.Entry.comparingByKey());
+            LiteralIndex base = literalIndex;
+            String[] labels = new String[base.labels().length + delta.size()];
+            int[] ids = new int[labels.length];
+            int length = 0;
+            int next = 0;
+            for (int i = 0; i <= base.labels().length; i++) {
+                while (next < delta.size()
+                        && (i == base.labels().length || delta.get(next).getKey().compareTo(base.labels()[i]) < 0)) {
+                    Map.Entry<String, Integer> entry = delta.get(next++);
+                    if (isLiteral(entry.getValue(), entry.getKey())) {
+                        labels[length] = entry.getKey();
+                        ids[length++] = entry.getValue();
+                    }
+                }
+                if (i < base.labels().length && isLiteral(base.ids()[i], base.labels()[i])) {
+                    labels[length] = base.labels()[i];
+                    ids[length++] = base.ids()[i];
+                }
+            }
+            literalIndex = new LiteralIndex(Arrays.copyOf(labels, length), Arrays.copyOf(ids, length));
+            for (int i = 0; i < delta.size(); i++) {
+                literalDelta.poll();
+            }
+            literalDeltaSize.addAndGet(-delta.size());
+        }
+    }
+
     public Term decode(int id) {
+        if (InlineLiterals.isInline(id)) {
+            return SameObjectTermFactory.instance().createOrGetLiteral(InlineLiterals.label(id));
+        }
         return idToTerm.get(id); // Retourne le terme RDF associé à l'identifiant, ou null si inexistant.
     }
 
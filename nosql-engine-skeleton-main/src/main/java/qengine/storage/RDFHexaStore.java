@@ -1,14 +1,13 @@
 package qengine.storage;
 
 import fr.boreal.model.logicalElements.api.*;
-import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
-import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
-import org.apache.commons.lang3.NotImplementedException;
 import qengine.model.RDFAtom;
+import qengine.model.RangeFilter;
 import qengine.model.StarQuery;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 /**
@@ -21,11 +20,38 @@ public class RDFHexaStore implements RDFStorage {
 
     private final RDFDictionary dictionary; // Dictionnaire pour encoder/décoder les termes RDF
     private final RDFIndex index; // Index HexaStore pour stocker les triplets
+    private final CharacteristicSetIndex characteristicSets; // Ensembles de prédicats par sujet
     private long size = 0; // Nombre de triplets stockés
+    private ExecutionMode executionMode = ExecutionMode.ROW; // Mode d'évaluation des requêtes en étoile
+    private EmergentSchema emergentSchema = null; // Tables de propriétés optionnelles, null si absentes
+    private Consumer<QueryMetrics> metricsListener = null; // Reçoit les mesures de chaque requête en étoile
+    private boolean reclaimDictionaryIds = false; // Libère les termes qui n'apparaissent plus dans aucun triplet
+    private QueryLimits queryLimits = QueryLimits.NONE; // Délai et lignes intermédiaires autorisés par requête
+    // Index des valeurs par (prédicat, nature), construits à la première requête filtrée
+    private final Map<Long, ValueIndex> valueIndexes = new ConcurrentHashMap<>();
 
     public RDFHexaStore() {
-        this.dictionary = new RDFDictionary(); // Initialise le dictionnaire RDF
+        this(new RDFDictionary()); // Initialise le dictionnaire RDF
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param inlineLiterals si vrai, les littéraux entiers, dates et booléens sont encodés dans leur
+     *                       identifiant au lieu d'être ajoutés au dictionnaire
+     */
+    public RDFHexaStore(boolean inlineLiterals) {
+        this(new RDFDictionary(false, inlineLiterals));
+    }
+
+    /**
+     * Store utilisant un dictionnaire fourni, par exemple un {@link FrontCodedDictionary}, ou partagé
+     * avec d'autres stores (partitions).
+     */
+    public RDFHexaStore(RDFDictionary dictionary) {
+        this.dictionary = dictionary;
         this.index = new RDFIndex(); // Initialise l'index RDF
+        this.characteristicSets = new CharacteristicSetIndex(index);
     }
 
 
@@ -35,14 +61,226 @@ public class RDFHexaStore implements RDFStorage {
         int subjectId = dictionary.encode(atom.getTripleSubject());
         int predicateId = dictionary.encode(atom.getTriplePredicate());
         int objectId = dictionary.encode(atom.getTripleObject());
+        return addEncoded(subjectId, predicateId, objectId);
+    }
 
+    // Ajoute un triplet déjà encodé (rejeu d'un journal, chargement d'une sauvegarde)
+    boolean addEncoded(int subjectId, int predicateId, int objectId) {
         // Ajoute le triplet encodé dans les six index
-        index.addTriple(subjectId, predicateId, objectId);
+        if (!index.addTriple(subjectId, predicateId, objectId)) {
+            return false; // Triplet déjà présent
+        }
+        characteristicSets.onTripleAdded(subjectId, predicateId);
+        emergentSchema = null; // Les tables de propriétés ne reflètent plus le contenu du store
+        valueIndexes.clear();
 
         size++; // Incrémente le compteur de triplets
         return true; // Retourne true après ajout
     }
 
+    // Vrai si le triplet encodé est présent
+    boolean containsEncoded(int subjectId, int predicateId, int objectId) {
+        return index.findCandidates(subjectId, predicateId, -1, 2).contains(objectId);
+    }
+
+    RDFDictionary dictionary() {
+        return dictionary;
+    }
+
+    TripleIndex index() {
+        return index;
+    }
+
+
+    @Override
+    public boolean remove(RDFAtom atom) {
+        int[] triple = lookupTriple(atom);
+        return triple != null && removeEncoded(triple);
+    }
+
+    // Retire un triplet encodé, en libérant ses termes inutilisés si la libération est activée
+    boolean removeEncoded(int[] triple) {
+        if (!index.removeTriple(triple[0], triple[1], triple[2])) {
+            return false; // Triplet absent
+        }
+        characteristicSets.onTripleRemoved(triple[0], triple[1]);
+        emergentSchema = null;
+        valueIndexes.clear();
+        size--;
+        if (reclaimDictionaryIds) {
+            reclaim(triple);
+        }
+        return true;
+    }
+
+    /**
+     * Retire un lot de triplets : l'index les retire groupés par clé de premier niveau et les
+     * ensembles caractéristiques sont mis à jour une fois par sujet.
+     */
+    @Override
+    public boolean removeAll(Stream<RDFAtom> atoms) {
+        return !removeEncoded(atoms.map(this::lookupTriple).filter(Objects::nonNull).toList()).isEmpty();
+    }
+
+    // Retire un lot de triplets encodés et retourne ceux qui étaient présents
+    List<int[]> removeEncoded(List<int[]> triples) {
+        List<int[]> removed = index.removeTriples(triples);
+        if (removed.isEmpty()) {
+            return removed;
+        }
+        Map<Integer, List<Integer>> predicatesBySubject = new HashMap<>();
+        for (int[] triple : removed) {
+            predicatesBySubject.computeIfAbsent(triple[0], k -> new ArrayList<>()).add(triple[1]);
+        }
+        predicatesBySubject.forEach((subject, predicates) -> characteristicSets.onTriplesRemoved(subject,
+                predicates.stream().mapToInt(Integer::intValue).toArray()));
+        emergentSchema = null;
+        valueIndexes.clear();
+        size -= removed.size();
+        if (reclaimDictionaryIds) {
+            removed.forEach(this::reclaim);
+        }
+        return removed;
+    }
+
+    // Tous les triplets encodés du store
+    List<int[]> encodedTriples() {
+        return index.getAllTriples();
+    }
+
+    // Identifiants d'un atome, null si l'un de ses termes est inconnu (le triplet ne peut pas être présent)
+    int[] lookupTriple(RDFAtom atom) {
+        int[] triple = {dictionary.lookup(atom.getTripleSubject()), dictionary.lookup(atom.getTriplePredicate()),
+                dictionary.lookup(atom.getTripleObject())};
+        return triple[0] == -1 || triple[1] == -1 || triple[2] == -1 ? null : triple;
+    }
+
+    // Libère les termes d'un triplet retiré qui n'apparaissent plus à aucune position
+    private void reclaim(int[] triple) {
+        for (int id : triple) {
+            if (index.findCandidates(id, -1, -1, 1).isEmpty()
+                    && index.findCandidates(-1, id, -1, 0).isEmpty()
+                    && index.findCandidates(-1, -1, id, 0).isEmpty()) {
+                dictionary.release(id);
+            }
+        }
+    }
+
+    /**
+     * Active la libération des identifiants du dictionnaire lors des suppressions : un terme qui
+     * n'apparaît plus dans aucun triplet est retiré et son identifiant réattribué au prochain terme
+     * encodé. Désactivée par défaut, car les résultats encore en cours de lecture ne doivent plus
+     * référencer les termes retirés.
+     */
+    public void setReclaimDictionaryIds(boolean reclaimDictionaryIds) {
+        this.reclaimDictionaryIds = reclaimDictionaryIds;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    // Choisit l'évaluation ligne à ligne ou par vecteurs de candidats pour les requêtes en étoile
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = Objects.requireNonNull(executionMode, "Le mode d'exécution ne peut pas être null.");
+    }
+
+
+    /**
+     * Active l'instrumentation des requêtes en étoile : l'écouteur reçoit les mesures de chaque
+     * évaluation lorsque son itérateur est épuisé. Avec null, aucun compteur n'est tenu, sauf si
+     * l'événement JFR {@code qengine.StarQuery} est activé par un enregistrement.
+     *
+     * @param metricsListener l'écouteur, ou null pour désactiver l'instrumentation
+     */
+    public void setMetricsListener(Consumer<QueryMetrics> metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    public QueryLimits getQueryLimits() {
+        return queryLimits;
+    }
+
+    /**
+     * Fixe les limites appliquées à chaque évaluation d'atome ou de requête en étoile : au-delà du
+     * délai ou du nombre de lignes intermédiaires, l'évaluation lève une {@link QueryAbortedException}.
+     * Le délai court dès l'appel à {@code match}, lecture de l'itérateur comprise.
+     *
+     * @param queryLimits les limites, {@link QueryLimits#NONE} pour n'en appliquer aucune
+     */
+    public void setQueryLimits(QueryLimits queryLimits) {
+        this.queryLimits = Objects.requireNonNull(queryLimits, "Les limites ne peuvent pas être null.");
+    }
+
+    /**
+     * Estime la mémoire occupée par le dictionnaire, chaque permutation de l'index et ses listes,
+     * les ensembles caractéristiques et les tables de propriétés éventuelles.
+     *
+     * @return le rapport d'empreinte mémoire
+     */
+    public MemoryReport memoryReport() {
+        return MemoryReport.estimate(dictionary, index, characteristicSets, emergentSchema, size);
+    }
+
+    public CharacteristicSetIndex getCharacteristicSets() {
+        return characteristicSets;
+    }
+
+    /**
+     * Construit des tables de propriétés pour les groupes de prédicats partagés par au moins
+     * {@code minSubjects} sujets. Les requêtes en étoile qu'elles couvrent y sont ensuite évaluées
+     * automatiquement. Toute insertion invalide les tables : elles sont à reconstruire après chargement.
+     *
+     * @param minSubjects nombre minimal de sujets couverts par une table
+     * @return le schéma émergent construit
+     */
+    public EmergentSchema buildEmergentSchema(int minSubjects) {
+        emergentSchema = EmergentSchema.detect(index, characteristicSets, minSubjects);
+        return emergentSchema;
+    }
+
+    // Schéma émergent courant, null s'il n'a pas été construit ou a été invalidé
+    public EmergentSchema getEmergentSchema() {
+        return emergentSchema;
+    }
+
+    /**
+     * Estime le nombre de réponses d'une requête en étoile sans l'évaluer.
+     * Les étoiles centrées sur le sujet avec des prédicats fixés sont estimées par les ensembles
+     * caractéristiques ; les autres formes sont bornées par le plus petit ensemble de candidats.
+     *
+     * @param query la requête en étoile
+     * @return le nombre estimé de réponses
+     */
+    public double estimateCardinality(StarQuery query) {
+        List<RDFAtom> atoms = query.getRdfAtoms();
+        Variable central = query.getCentralVariable();
+        int[] predicates = new int[atoms.size()];
+        int[] objects = new int[atoms.size()];
+        boolean subjectStar = true;
+        double smallest = Double.MAX_VALUE;
+
+        for (int i = 0; i < atoms.size(); i++) {
+            RDFAtom atom = atoms.get(i);
+            int[] pattern = new int[3];
+            for (int k = 0; k < 3; k++) {
+                Term term = atom.getTerm(k);
+                pattern[k] = term instanceof Variable ? -1 : dictionary.lookup(term);
+                if (!(term instanceof Variable) && pattern[k] == -1) {
+                    return 0; // Constante inconnue
+                }
+            }
+            int position = atom.indexOf(central);
+            smallest = Math.min(smallest, index.findCandidates(pattern[0], pattern[1], pattern[2], position).size());
+
+            subjectStar &= position == 0 && pattern[1] != -1 && !central.equals(atom.getTripleObject());
+            predicates[i] = pattern[1];
+            objects[i] = atom.getTripleObject() instanceof Variable ? -1 : pattern[2];
+        }
+
+        return subjectStar ? characteristicSets.estimateStar(predicates, objects) : smallest;
+    }
+
 
     @Override
     public long size() {
@@ -52,50 +290,131 @@ public class RDFHexaStore implements RDFStorage {
  
     @Override
     public Iterator<Substitution> match(RDFAtom atom) {
-        // Récupère les termes du triplet
-        Term subjectTerm = atom.getTripleSubject();
-        Term predicateTerm = atom.getTriplePredicate();
-        Term objectTerm = atom.getTripleObject();
+        return match(atom, null);
+    }
 
-        // Encode les termes en entiers, ou -1 pour les variables
-        int subjectId = (subjectTerm instanceof Variable) ? -1 : dictionary.encode(subjectTerm);
-        int predicateId = (predicateTerm instanceof Variable) ? -1 : dictionary.encode(predicateTerm);
-        int objectId = (objectTerm instanceof Variable) ? -1 : dictionary.encode(objectTerm);
+    /**
+     * Évalue un atome sous les limites du store, en s'interrompant si le jeton est annulé.
+     *
+     * @param token le jeton d'annulation, ou null
+     * @throws QueryAbortedException si l'évaluation est annulée, hors délai ou trop volumineuse
+     */
+    public Iterator<Substitution> match(RDFAtom atom, CancellationToken token) {
+        return matchAtom(dictionary, index, atom, QueryGuard.start(queryLimits, token));
+    }
+
+    // Évaluation d'un atome sur un dictionnaire et un index, partagée avec les autres variantes du store
+    static Iterator<Substitution> matchAtom(RDFDictionary dictionary, TripleIndex index, RDFAtom atom) {
+        return matchAtom(dictionary, index, atom, QueryGuard.NONE);
+    }
+
+    static Iterator<Substitution> matchAtom(RDFDictionary dictionary, TripleIndex index, RDFAtom atom, QueryGuard guard) {
+        int[] pattern = new int[3]; // Identifiants des constantes, -1 pour les variables
+        int[] atomSlots = new int[3]; // Colonne de chaque variable dans les lignes, -1 pour les constantes
+        List<Variable> columns = new ArrayList<>();
+
+        for (int k = 0; k < 3; k++) {
+            Term term = atom.getTerm(k);
+            if (term instanceof Variable variable) {
+                pattern[k] = -1;
+                if (!columns.contains(variable)) {
+                    columns.add(variable);
+                }
+                atomSlots[k] = columns.indexOf(variable);
+            } else {
+                atomSlots[k] = -1;
+                pattern[k] = dictionary.lookup(term);
+                if (pattern[k] == -1) {
+                    return Collections.emptyIterator(); // Constante inconnue : aucun triplet ne peut correspondre
+                }
+            }
+        }
 
         // Trouve les triplets correspondants dans les index
-        List<int[]> matches = index.findMatches(subjectId, predicateId, objectId);
+        List<int[]> matches = index.findMatches(pattern[0], pattern[1], pattern[2], guard);
 
-        // Liste pour stocker les substitutions finales
-        List<Substitution> results = new ArrayList<>();
+        // Les lignes restent encodées, les termes ne sont décodés qu'à la lecture des substitutions
+        Variable[] variables = columns.toArray(new Variable[0]);
+        int[] unbound = new int[variables.length];
+        Arrays.fill(unbound, -1);
+        return matches.stream()
+                .map(triple -> StarQueryIterator.bind(atomSlots, triple, unbound))
+                .filter(Objects::nonNull)
+                .map(row -> (Substitution) new EncodedSubstitution(dictionary, variables, row))
+                .iterator();
+    }
 
-        // Parcourt les triplets correspondants
-        for (int[] triple : matches) {
-            Map<Variable, Term> substitutionMap = new HashMap<>();
 
-            // Ajoute les substitutions pour les variables dans le triplet
-            if (subjectTerm instanceof Variable) {
-                Term subject = dictionary.decode(triple[0]);
-                substitutionMap.put((Variable) subjectTerm, subject);
-            }
-            if (predicateTerm instanceof Variable) {
-                Term predicate = dictionary.decode(triple[1]);
-                substitutionMap.put((Variable) predicateTerm, predicate);
+    /**
+     * Évalue un lot de requêtes en étoile en partageant l'évaluation de leurs atomes communs : les
+     * requêtes qui ont en commun les mêmes atomes (?c, p, o) centrés sur le sujet, au moins deux,
+     * forment un groupe dont l'intersection des sujets de ces atomes est calculée une seule fois
+     * (voir {@link SharedScanIndex}). Les requêtes d'une charge qui ne diffèrent que par la
+     * constante objet d'un motif, comme {@code ?v0 <eligibleRegion> <CountryN>}, ne recroisent
+     * ainsi pas chacune leurs autres atomes.
+     * Les limites du store s'appliquent à chaque requête et leur délai court dès cet appel.
+     *
+     * @return un itérateur de réponses par requête, dans l'ordre du lot
+     */
+    @Override
+    public List<Iterator<Substitution>> matchAll(List<StarQuery> queries) {
+        // Atomes (?c, p, o) de chaque requête, par couple {prédicat, objet}
+        List<Map<List<Integer>, int[]>> atomsByQuery = new ArrayList<>(queries.size());
+        Map<List<Integer>, Integer> queriesByAtom = new HashMap<>();
+        for (StarQuery query : queries) {
+            Map<List<Integer>, int[]> atoms = new HashMap<>();
+            for (RDFAtom atom : query.getRdfAtoms()) {
+                if (!query.getCentralVariable().equals(atom.getTripleSubject())
+                        || atom.getTriplePredicate() instanceof Variable || atom.getTripleObject() instanceof Variable) {
+                    continue;
+                }
+                int predicate = dictionary.lookup(atom.getTriplePredicate());
+                int object = dictionary.lookup(atom.getTripleObject());
+                if (predicate != -1 && object != -1) {
+                    atoms.put(List.of(predicate, object), new int[]{predicate, object});
+                }
             }
-            if (objectTerm instanceof Variable) {
-                Term object = dictionary.decode(triple[2]);
-                substitutionMap.put((Variable) objectTerm, object);
+            atoms.keySet().forEach(key -> queriesByAtom.merge(key, 1, Integer::sum));
+            atomsByQuery.add(atoms);
+        }
+
+        // Groupes de requêtes ayant les mêmes atomes communs au lot
+        Map<Set<List<Integer>>, List<Integer>> groups = new HashMap<>();
+        for (int i = 0; i < queries.size(); i++) {
+            Map<List<Integer>, int[]> atoms = atomsByQuery.get(i);
+            atoms.keySet().removeIf(key -> queriesByAtom.get(key) < 2);
+            if (atoms.size() >= 2) {
+                groups.computeIfAbsent(Set.copyOf(atoms.keySet()), k -> new ArrayList<>()).add(i);
             }
+        }
 
-            // Crée une substitution et l'ajoute aux résultats
-            Substitution substitution = new SubstitutionImpl(substitutionMap);
-            results.add(substitution);
+        List<Iterator<Substitution>> results = new ArrayList<>(Collections.nCopies(queries.size(), null));
+        for (List<Integer> group : groups.values()) {
+            if (group.size() < 2) {
+                continue; // Une intersection propre à une requête ne gagne rien à être calculée à part
+            }
+            SharedScanIndex shared = new SharedScanIndex(index, atomsByQuery.get(group.get(0)).values());
+            for (int i : group) {
+                results.set(i, new StarQueryIterator(dictionary, shared, characteristicSets, emergentSchema,
+                        queries.get(i), executionMode, metricsListener, QueryGuard.start(queryLimits, null),
+                        this::valueIndex));
+            }
+        }
+        for (int i = 0; i < queries.size(); i++) {
+            if (results.get(i) == null) {
+                results.set(i, match(queries.get(i)));
+            }
         }
-        return results.iterator(); // Retourne un itérateur sur les substitutions
+        return results;
     }
 
-
     @Override
     public Collection<Atom> getAtoms() {
+        return decodeAll(dictionary, index);
+    }
+
+    // Décode tous les triplets d'un index en atomes RDF
+    static Collection<Atom> decodeAll(RDFDictionary dictionary, TripleIndex index) {
         // Liste pour stocker les atomes RDF décodés
         List<Atom> atoms = new ArrayList<>();
         
@@ -122,40 +441,35 @@ public class RDFHexaStore implements RDFStorage {
  
     @Override
     public Iterator<Substitution> match(StarQuery query) {
+        return match(query, null);
+    }
+
+    /**
+     * Évalue une requête en étoile sous les limites du store, en s'interrompant si le jeton est
+     * annulé. L'interruption peut survenir pendant l'appel ou pendant la lecture de l'itérateur.
+     * L'itérateur parcourt les ensembles de l'index sans les copier (sauf pour un tri) : il doit être
+     * lu avant la prochaine écriture dans le store (voir {@link RDFStorage#match(StarQuery)}).
+     *
+     * @param token le jeton d'annulation, ou null
+     * @throws QueryAbortedException si l'évaluation est annulée, hors délai ou trop volumineuse
+     */
+    @Override
+    public Iterator<Substitution> match(StarQuery query, CancellationToken token) {
+        QueryGuard guard = QueryGuard.start(queryLimits, token);
         if (query.getRdfAtoms().isEmpty()) {
             return Collections.emptyIterator(); // Vide si pas de pattern
         }
 
-        List<RDFAtom> atoms = query.getRdfAtoms();
-        List<Substitution> combinedResults = new ArrayList<>();
-
-        for (RDFAtom atom : atoms) {
-            Iterator<Substitution> atomMatches = match(atom);
-
-            if (combinedResults.isEmpty()) {
-                atomMatches.forEachRemaining(combinedResults::add);
-                continue;
-            }
-
-            List<Substitution> newResults = new ArrayList<>();
-            while (atomMatches.hasNext()) {
-                Substitution currentSubstitution = atomMatches.next();
-
-                for (Substitution existingSubstitution : combinedResults) {
-                    // Résoud un soucis d'optional substitution
-                    currentSubstitution.merged(existingSubstitution).ifPresent(newResults::add);
-                }
-            }
-
-            combinedResults = newResults;
-
-            //Quitte si c'est vide
-            if (combinedResults.isEmpty()) {
-                break;
-            }
-        }
+        // Évaluation paresseuse : intersection des candidats de la variable centrale,
+        // avec OFFSET/LIMIT et ORDER BY appliqués pendant le parcours
+        return new StarQueryIterator(dictionary, index, characteristicSets, emergentSchema, query, executionMode,
+                metricsListener, guard, this::valueIndex);
+    }
 
-        return combinedResults.iterator();
+    // Index des valeurs d'un prédicat, mis en cache jusqu'à la prochaine modification du store
+    private ValueIndex valueIndex(int predicate, RangeFilter.Kind kind) {
+        return valueIndexes.computeIfAbsent((long) predicate << 1 | kind.ordinal(),
+                key -> ValueIndex.build(dictionary, index, predicate, kind));
     }
 
 }
\ No newline at end of file
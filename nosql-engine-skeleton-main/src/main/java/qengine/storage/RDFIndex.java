@@ -1,36 +1,161 @@
 package qengine.storage;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class RDFIndex {
+public class RDFIndex implements TripleIndex {
 
     // Six indices pour permettre différentes combinaisons de recherche
-    private final Map<Integer, Map<Integer, Set<Integer>>> sp_o = new HashMap<>();
-    private final Map<Integer, Map<Integer, Set<Integer>>> so_p = new HashMap<>();
-    private final Map<Integer, Map<Integer, Set<Integer>>> ps_o = new HashMap<>();
-    private final Map<Integer, Map<Integer, Set<Integer>>> po_s = new HashMap<>();
-    private final Map<Integer, Map<Integer, Set<Integer>>> os_p = new HashMap<>();
-    private final Map<Integer, Map<Integer, Set<Integer>>> op_s = new HashMap<>();
-
-    // Ajoute un triplet à tous les indices
-    public void addTriple(int subject, int predicate, int object) {
-        addToIndex(sp_o, subject, predicate, object);
+    private final Map<Integer, Map<Integer, Set<Integer>>> sp_o;
+    private final Map<Integer, Map<Integer, Set<Integer>>> so_p;
+    private final Map<Integer, Map<Integer, Set<Integer>>> ps_o;
+    private final Map<Integer, Map<Integer, Set<Integer>>> po_s;
+    private final Map<Integer, Map<Integer, Set<Integer>>> os_p;
+    private final Map<Integer, Map<Integer, Set<Integer>>> op_s;
+    private final boolean concurrent; // Structures concurrentes : lectures possibles pendant les écritures
+
+    public RDFIndex() {
+        this(false);
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param concurrent si vrai, les index reposent sur des ConcurrentHashMap : les lectures
+     *                   peuvent avoir lieu pendant les insertions, sans verrou et sans
+     *                   ConcurrentModificationException (parcours faiblement cohérents)
+     */
+    public RDFIndex(boolean concurrent) {
+        this.concurrent = concurrent;
+        this.sp_o = newMap();
+        this.so_p = newMap();
+        this.ps_o = newMap();
+        this.po_s = newMap();
+        this.os_p = newMap();
+        this.op_s = newMap();
+    }
+
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    private <K, V> Map<K, V> newMap() {
+        return concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    private Set<Integer> newSet() {
+        return concurrent ? ConcurrentHashMap.newKeySet() : new HashSet<>();
+    }
+
+    // Ajoute un triplet à tous les indices, retourne false s'il était déjà présent
+    public boolean addTriple(int subject, int predicate, int object) {
+        if (!addToIndex(sp_o, subject, predicate, object)) {
+            return false;
+        }
         addToIndex(so_p, subject, object, predicate);
         addToIndex(ps_o, predicate, subject, object);
         addToIndex(po_s, predicate, object, subject);
         addToIndex(os_p, object, subject, predicate);
         addToIndex(op_s, object, predicate, subject);
+        return true;
+    }
+
+    // Retire un triplet de tous les indices, retourne false s'il était absent
+    public boolean removeTriple(int subject, int predicate, int object) {
+        if (!removeFromIndex(sp_o, subject, predicate, object)) {
+            return false;
+        }
+        removeFromIndex(so_p, subject, object, predicate);
+        removeFromIndex(ps_o, predicate, subject, object);
+        removeFromIndex(po_s, predicate, object, subject);
+        removeFromIndex(os_p, object, subject, predicate);
+        removeFromIndex(op_s, object, predicate, subject);
+        return true;
+    }
+
+    /**
+     * Retire un lot de triplets de tous les indices. Dans chaque permutation, les triplets sont
+     * regroupés par clé de premier niveau : chaque map interne n'est cherchée qu'une fois par lot.
+     * La suppression n'est pas atomique vis-à-vis d'insertions concurrentes.
+     *
+     * @param triples les triplets {sujet, prédicat, objet} à retirer
+     * @return les triplets effectivement retirés (présents et sans doublon)
+     */
+    public List<int[]> removeTriples(Collection<int[]> triples) {
+        List<int[]> present = new ArrayList<>();
+        Set<List<Integer>> seen = new HashSet<>();
+        for (int[] triple : triples) {
+            if (!findMatches(triple[0], triple[1], triple[2]).isEmpty()
+                    && seen.add(List.of(triple[0], triple[1], triple[2]))) {
+                present.add(triple);
+            }
+        }
+        removeGrouped(sp_o, present, 0, 1, 2);
+        removeGrouped(so_p, present, 0, 2, 1);
+        removeGrouped(ps_o, present, 1, 0, 2);
+        removeGrouped(po_s, present, 1, 2, 0);
+        removeGrouped(os_p, present, 2, 0, 1);
+        removeGrouped(op_s, present, 2, 1, 0);
+        return present;
+    }
+
+    // Retire des triplets d'une permutation, par groupes de même clé de premier niveau
+    private void removeGrouped(Map<Integer, Map<Integer, Set<Integer>>> index, List<int[]> triples,
+                               int first, int second, int third) {
+        Map<Integer, List<int[]>> groups = new HashMap<>();
+        for (int[] triple : triples) {
+            groups.computeIfAbsent(triple[first], k -> new ArrayList<>()).add(triple);
+        }
+        for (Map.Entry<Integer, List<int[]>> group : groups.entrySet()) {
+            Map<Integer, Set<Integer>> secondMap = index.get(group.getKey());
+            for (int[] triple : group.getValue()) {
+                Set<Integer> thirdSet = secondMap.get(triple[second]);
+                thirdSet.remove(triple[third]);
+                if (thirdSet.isEmpty()) {
+                    secondMap.remove(triple[second]);
+                }
+            }
+            if (secondMap.isEmpty()) {
+                index.remove(group.getKey());
+            }
+        }
+    }
+
+    // Méthode utilitaire pour retirer une valeur d'un index, en supprimant les maps devenues vides
+    private boolean removeFromIndex(Map<Integer, Map<Integer, Set<Integer>>> index, int first, int second, int third) {
+        Map<Integer, Set<Integer>> secondMap = index.get(first);
+        if (secondMap == null) {
+            return false;
+        }
+        Set<Integer> thirdSet = secondMap.get(second);
+        if (thirdSet == null || !thirdSet.remove(third)) {
+            return false;
+        }
+        if (thirdSet.isEmpty()) {
+            secondMap.remove(second);
+            if (secondMap.isEmpty()) {
+                index.remove(first);
+            }
+        }
+        return true;
     }
 
     // Méthode utilitaire pour ajouter des valeurs dans un index
-    private void addToIndex(Map<Integer, Map<Integer, Set<Integer>>> index, int first, int second, int third) {
-        index.computeIfAbsent(first, k -> new HashMap<>())
-             .computeIfAbsent(second, k -> new HashSet<>())
-             .add(third);
+    private boolean addToIndex(Map<Integer, Map<Integer, Set<Integer>>> index, int first, int second, int third) {
+        return index.computeIfAbsent(first, k -> newMap())
+                    .computeIfAbsent(second, k -> newSet())
+                    .add(third);
     }
 
     // Recherche des triplets correspondant aux critères donnés
+    @Override
     public List<int[]> findMatches(int subject, int predicate, int object) {
+        return findMatches(subject, predicate, object, QueryGuard.NONE);
+    }
+
+    // Même recherche, chaque triplet lu étant signalé au garde de la requête (annulation, délai, nombre de lignes)
+    @Override
+    public List<int[]> findMatches(int subject, int predicate, int object, QueryGuard guard) {
         List<int[]> results = new ArrayList<>();
 
         // Cas 1 : Tous les paramètres sont spécifiés
@@ -40,7 +165,7 @@ public class RDFIndex {
             if (secondMap != null) {
                 Set<Integer> thirdSet = secondMap.get(predicate);
                 if (thirdSet != null && thirdSet.contains(object)) {
-                    results.add(new int[]{subject, predicate, object});
+                    collect(results, guard, new int[]{subject, predicate, object});
                 }
             }
 
@@ -52,7 +177,7 @@ public class RDFIndex {
                 Set<Integer> thirdSet = secondMap.get(predicate);
                 if (thirdSet != null) {
                     for (int obj : thirdSet) {
-                        results.add(new int[]{subject, predicate, obj});
+                        collect(results, guard, new int[]{subject, predicate, obj});
                     }
                 }
             }
@@ -65,7 +190,7 @@ public class RDFIndex {
                 Set<Integer> thirdSet = secondMap.get(object);
                 if (thirdSet != null) {
                     for (int subj : thirdSet) {
-                        results.add(new int[]{subj, predicate, object});
+                        collect(results, guard, new int[]{subj, predicate, object});
                     }
                 }
             }
@@ -78,7 +203,7 @@ public class RDFIndex {
                 Set<Integer> thirdSet = secondMap.get(object);
                 if (thirdSet != null) {
                     for (int pred : thirdSet) {
-                        results.add(new int[]{subject, pred, object});
+                        collect(results, guard, new int[]{subject, pred, object});
                     }
                 }
             }
@@ -93,7 +218,7 @@ public class RDFIndex {
                 for (Map.Entry<Integer, Set<Integer>> entry : secondMap.entrySet()) {
                     int subjectValue = entry.getKey();
                     for (int objectValue : entry.getValue()) {
-                        results.add(new int[]{subjectValue, predicate, objectValue});
+                        collect(results, guard, new int[]{subjectValue, predicate, objectValue});
                     }
                 }
             }
@@ -106,12 +231,25 @@ public class RDFIndex {
                 for (Map.Entry<Integer, Set<Integer>> entry : secondMap.entrySet()) {
                     int subjectValue = entry.getKey();
                     for (int predicateValue : entry.getValue()) {
-                        results.add(new int[]{subjectValue, predicateValue, object});
+                        collect(results, guard, new int[]{subjectValue, predicateValue, object});
                     }
                 }
             }
 
-        // Cas 7 : Aucun paramètre spécifié
+        // Cas 7 : Sujet spécifié uniquement
+        } else if (subject != -1) {
+            // Recherche dans sp_o
+            Map<Integer, Set<Integer>> secondMap = sp_o.get(subject);
+            if (secondMap != null) {
+                for (Map.Entry<Integer, Set<Integer>> entry : secondMap.entrySet()) {
+                    int predicateValue = entry.getKey();
+                    for (int objectValue : entry.getValue()) {
+                        collect(results, guard, new int[]{subject, predicateValue, objectValue});
+                    }
+                }
+            }
+
+        // Cas 8 : Aucun paramètre spécifié
         } else {
             // Parcours complet de sp_o (ou de tout autre index)
             for (Map.Entry<Integer, Map<Integer, Set<Integer>>> entry1 : sp_o.entrySet()) {
@@ -119,7 +257,7 @@ public class RDFIndex {
                 for (Map.Entry<Integer, Set<Integer>> entry2 : entry1.getValue().entrySet()) {
                     int predicateValue = entry2.getKey();
                     for (int objectValue : entry2.getValue()) {
-                        results.add(new int[]{subjectValue, predicateValue, objectValue});
+                        collect(results, guard, new int[]{subjectValue, predicateValue, objectValue});
                     }
                 }
             }
@@ -127,7 +265,105 @@ public class RDFIndex {
 
         return results;
     }
-    
+
+    // Ajoute un triplet au résultat d'une recherche et le signale au garde
+    static void collect(List<int[]> results, QueryGuard guard, int[] triple) {
+        results.add(triple);
+        guard.onRow(results.size());
+    }
+
+    // Valeurs possibles à la position donnée (0 = sujet, 1 = prédicat, 2 = objet) pour un motif
+    // dont les autres positions sont fixées (ou -1). Retourne une vue non modifiable de l'index.
+    @Override
+    public Set<Integer> findCandidates(int subject, int predicate, int object, int position) {
+        Set<Integer> candidates;
+        switch (position) {
+            case 0 -> {
+                if (predicate != -1 && object != -1) {
+                    candidates = third(po_s, predicate, object);
+                } else if (predicate != -1) {
+                    candidates = second(ps_o, predicate);
+                } else if (object != -1) {
+                    candidates = second(os_p, object);
+                } else {
+                    candidates = sp_o.keySet();
+                }
+            }
+            case 1 -> {
+                if (subject != -1 && object != -1) {
+                    candidates = third(so_p, subject, object);
+                } else if (subject != -1) {
+                    candidates = second(sp_o, subject);
+                } else if (object != -1) {
+                    candidates = second(op_s, object);
+                } else {
+                    candidates = ps_o.keySet();
+                }
+            }
+            case 2 -> {
+                if (subject != -1 && predicate != -1) {
+                    candidates = third(sp_o, subject, predicate);
+                } else if (subject != -1) {
+                    candidates = second(so_p, subject);
+                } else if (predicate != -1) {
+                    candidates = second(po_s, predicate);
+                } else {
+                    candidates = os_p.keySet();
+                }
+            }
+            default -> throw new IllegalArgumentException("Position invalide : " + position);
+        }
+        return Collections.unmodifiableSet(candidates);
+    }
+
+    /**
+     * Sujets associés à chacun des objets demandés pour un prédicat, en un seul accès à
+     * po_s[prédicat] : la map du prédicat est parcourue une fois lorsque les objets demandés sont au
+     * moins aussi nombreux que ses clés, et sondée objet par objet sinon.
+     *
+     * @return une vue non modifiable des sujets de chaque objet présent, les objets absents sont omis
+     */
+    @Override
+    public Map<Integer, Set<Integer>> subjectsByObject(int predicate, Set<Integer> objects) {
+        Map<Integer, Set<Integer>> subjects = new HashMap<>();
+        Map<Integer, Set<Integer>> secondMap = po_s.get(predicate);
+        if (secondMap == null) {
+            return subjects;
+        }
+        if (objects.size() >= secondMap.size()) {
+            for (Map.Entry<Integer, Set<Integer>> entry : secondMap.entrySet()) {
+                if (objects.contains(entry.getKey())) {
+                    subjects.put(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
+                }
+            }
+        } else {
+            for (int object : objects) {
+                Set<Integer> thirdSet = secondMap.get(object);
+                if (thirdSet != null) {
+                    subjects.put(object, Collections.unmodifiableSet(thirdSet));
+                }
+            }
+        }
+        return subjects;
+    }
+
+    // Clés de second niveau d'un index pour une clé de premier niveau
+    private Set<Integer> second(Map<Integer, Map<Integer, Set<Integer>>> index, int first) {
+        Map<Integer, Set<Integer>> secondMap = index.get(first);
+        return secondMap != null ? secondMap.keySet() : Collections.emptySet();
+    }
+
+    // Valeurs de troisième niveau d'un index pour deux clés
+    private Set<Integer> third(Map<Integer, Map<Integer, Set<Integer>>> index, int first, int second) {
+        Map<Integer, Set<Integer>> secondMap = index.get(first);
+        if (secondMap == null) {
+            return Collections.emptySet();
+        }
+        Set<Integer> thirdSet = secondMap.get(second);
+        return thirdSet != null ? thirdSet : Collections.emptySet();
+    }
+
+    @Override
     public List<int[]> getAllTriples() {
         List<int[]> allTriples = new ArrayList<>();
         // Traverse the sp_o index (or any other index) to gather all triples
@@ -143,6 +379,18 @@ public class RDFIndex {
         return allTriples;
     }
 
+    // Les six permutations par nom, pour l'estimation de l'empreinte mémoire
+    Map<String, Map<Integer, Map<Integer, Set<Integer>>>> permutations() {
+        Map<String, Map<Integer, Map<Integer, Set<Integer>>>> permutations = new LinkedHashMap<>();
+        permutations.put("sp_o", sp_o);
+        permutations.put("so_p", so_p);
+        permutations.put("ps_o", ps_o);
+        permutations.put("po_s", po_s);
+        permutations.put("os_p", os_p);
+        permutations.put("op_s", op_s);
+        return permutations;
+    }
+
 }
 
 
@@ -2,6 +2,7 @@ package qengine.storage;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.stream.Stream;
 
 import fr.boreal.model.logicalElements.api.Atom;
@@ -22,6 +23,14 @@ public interface RDFStorage {
      */
     boolean add(RDFAtom a);
 
+    /**
+     * Retire un RDFAtom du store.
+     *
+     * @param a le RDFAtom à retirer
+     * @return true si le RDFAtom a été retiré, false s'il était absent
+     */
+    boolean remove(RDFAtom a);
+
     /**
      * @param a atom
      * @return un itérateur de substitutions correspondant aux match des atomes
@@ -30,11 +39,41 @@ public interface RDFStorage {
 
 
     /**
+     * Les réponses peuvent être calculées au fil de la lecture de l'itérateur, sur les index du
+     * store : sauf mention contraire du store (comme les versions de {@link ConcurrentRDFHexaStore}),
+     * l'itérateur doit être lu entièrement avant toute écriture. Un ajout ou un retrait pendant la
+     * lecture peut lever une {@link java.util.ConcurrentModificationException} ou produire des
+     * réponses incohérentes.
+     *
      * @param q star query
      * @return an itérateur de subsitutions décrivrant les réponses à la requete
      */
     Iterator<Substitution> match(StarQuery q);
 
+    /**
+     * Évalue une requête en étoile en s'interrompant si le jeton est annulé. Par défaut, le jeton
+     * n'est consulté qu'avant l'évaluation ; les stores qui appliquent des {@link QueryLimits} le
+     * consultent aussi pendant l'évaluation et la lecture des réponses.
+     *
+     * @param token le jeton d'annulation, ou null
+     * @throws QueryAbortedException si la requête est annulée
+     */
+    default Iterator<Substitution> match(StarQuery q, CancellationToken token) {
+        QueryGuard.start(QueryLimits.NONE, token);
+        return match(q);
+    }
+
+    /**
+     * Évalue un lot de requêtes en étoile. Par défaut, chaque requête est évaluée séparément ;
+     * un store peut partager entre les requêtes les parcours d'index qu'elles ont en commun.
+     *
+     * @param queries les requêtes du lot
+     * @return un itérateur de réponses par requête, dans l'ordre du lot
+     */
+    default List<Iterator<Substitution>> matchAll(List<StarQuery> queries) {
+        return queries.stream().map(this::match).toList();
+    }
+
     /**
      * Retourne le nombre d'atomes dans le Store.
      *
@@ -69,4 +108,24 @@ public interface RDFStorage {
     default boolean addAll(Collection<RDFAtom> atoms) {
         return this.addAll(atoms.stream());
     }
+
+    /**
+     * Retire des RDFAtom du store.
+     *
+     * @param atoms les RDFAtom à retirer
+     * @return true si au moins un RDFAtom a été retiré, false s'ils étaient tous absents
+     */
+    default boolean removeAll(Stream<RDFAtom> atoms) {
+        return atoms.map(this::remove).reduce(Boolean::logicalOr).orElse(false);
+    }
+
+    /**
+     * Retire des RDFAtom du store.
+     *
+     * @param atoms les RDFAtom à retirer
+     * @return true si au moins un RDFAtom a été retiré, false s'ils étaient tous absents
+     */
+    default boolean removeAll(Collection<RDFAtom> atoms) {
+        return this.removeAll(atoms.stream());
+    }
 }
@@ -0,0 +1,146 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import qengine.model.PrefixFilter;
+import qengine.model.RDFAtom;
+import qengine.model.RangeFilter;
+import qengine.model.SolutionModifiers;
+import qengine.model.StarQuery;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Format des échanges entre le coordinateur ({@link ShardedRDFStore}) et les processus
+ * de shard ({@link ShardServer}). Chaque connexion porte une seule requête, suivie de sa réponse :
+ * <pre>
+ * MATCH_QUERY [requête], MATCH_ATOM [atome] : [ROW] [nombre de variables] [variables]
+ *                                             ([ROW] [un terme par variable])* [END]
+ * ATOMS                                     : ([ROW] [sujet] [prédicat] [objet])* [END]
+ * SIZE                                      : [ROW] [long]
+ * ADD [atome], REMOVE [atome]               : [ROW] [booléen]
+ * </pre>
+ * Chaque enregistrement commence par son type : une erreur du shard interrompt la réponse
+ * par [ERROR] [message], y compris au milieu des lignes.
+ * Les termes sont échangés par libellé, les identifiants de dictionnaire étant propres à chaque processus ;
+ * pour la même raison, les réponses d'une requête triée le sont par libellé de la variable centrale
+ * (voir {@link #centralOrder}), un ordre commun à tous les shards.
+ */
+final class ShardProtocol {
+
+    // Types de requête
+    static final byte MATCH_QUERY = 1;
+    static final byte MATCH_ATOM = 2;
+    static final byte SIZE = 3;
+    static final byte ADD = 4;
+    static final byte ATOMS = 5;
+    static final byte REMOVE = 6;
+
+    // Types d'enregistrement de réponse
+    static final byte END = 0;
+    static final byte ROW = 1;
+    static final byte ERROR = 2;
+
+    private ShardProtocol() {
+    }
+
+    /**
+     * Ordre des réponses d'une requête triée sur un store réparti : libellé de la variable centrale,
+     * croissant ou décroissant.
+     */
+    static Comparator<Substitution> centralOrder(Variable central, SolutionModifiers.CentralOrder order) {
+        Comparator<Substitution> ascending = Comparator.comparing(answer -> answer.createImageOf(central).label());
+        return order == SolutionModifiers.CentralOrder.DESC ? ascending.reversed() : ascending;
+    }
+
+    static void writeTerm(DataOutputStream out, Term term) throws IOException {
+        TermCodec.write(out, term);
+    }
+
+    static Term readTerm(DataInputStream in) throws IOException {
+        return TermCodec.read(in);
+    }
+
+    static void writeAtom(DataOutputStream out, RDFAtom atom) throws IOException {
+        for (Term term : atom.getTerms()) {
+            writeTerm(out, term);
+        }
+    }
+
+    static RDFAtom readAtom(DataInputStream in) throws IOException {
+        return new RDFAtom(readTerm(in), readTerm(in), readTerm(in));
+    }
+
+    static void writeQuery(DataOutputStream out, StarQuery query) throws IOException {
+        writeString(out, query.getLabel());
+        out.writeInt(query.getRdfAtoms().size());
+        for (RDFAtom atom : query.getRdfAtoms()) {
+            writeAtom(out, atom);
+        }
+        out.writeInt(query.getAnswerVariables().size());
+        for (Variable variable : query.getAnswerVariables()) {
+            writeTerm(out, variable);
+        }
+        SolutionModifiers modifiers = query.getModifiers();
+        out.writeLong(modifiers.getLimit());
+        out.writeLong(modifiers.getOffset());
+        out.writeByte(modifiers.getOrder().ordinal());
+        out.writeInt(query.getFilters().size());
+        for (RangeFilter filter : query.getFilters()) {
+            writeTerm(out, filter.getVariable());
+            out.writeByte(filter.getKind().ordinal());
+            out.writeDouble(filter.getLower());
+            out.writeBoolean(filter.isLowerInclusive());
+            out.writeDouble(filter.getUpper());
+            out.writeBoolean(filter.isUpperInclusive());
+        }
+        out.writeInt(query.getPrefixFilters().size());
+        for (PrefixFilter filter : query.getPrefixFilters()) {
+            writeTerm(out, filter.getVariable());
+            writeString(out, filter.getPrefix());
+        }
+    }
+
+    static StarQuery readQuery(DataInputStream in) throws IOException {
+        String label = readString(in);
+        List<RDFAtom> atoms = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            atoms.add(readAtom(in));
+        }
+        List<Variable> answerVariables = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            answerVariables.add((Variable) readTerm(in));
+        }
+        SolutionModifiers modifiers = new SolutionModifiers(in.readLong(), in.readLong(),
+                SolutionModifiers.CentralOrder.values()[in.readByte()]);
+        List<RangeFilter> filters = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            filters.add(new RangeFilter((Variable) readTerm(in), RangeFilter.Kind.values()[in.readByte()],
+                    in.readDouble(), in.readBoolean(), in.readDouble(), in.readBoolean()));
+        }
+        List<PrefixFilter> prefixFilters = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            prefixFilters.add(new PrefixFilter((Variable) readTerm(in), readString(in)));
+        }
+        return new StarQuery(label, atoms, answerVariables, modifiers, filters, prefixFilters);
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8); // writeUTF est limité à 64 Ko
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
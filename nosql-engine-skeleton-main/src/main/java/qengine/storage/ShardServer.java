@@ -0,0 +1,171 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Atom;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import qengine.model.RDFAtom;
+import qengine.model.SolutionModifiers;
+import qengine.model.StarQuery;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static qengine.storage.ShardProtocol.*;
+
+/**
+ * Expose un shard (un {@link ConcurrentRDFHexaStore} contenant une partie des sujets) sur une
+ * socket locale, pour un coordinateur {@link ShardedRDFStore}. Chaque connexion est servie par son
+ * propre thread ; les réponses sont envoyées au fil de l'évaluation, sans être matérialisées.
+ * <p>
+ * Chaque lecture est évaluée sur une version épinglée du store ({@link ConcurrentRDFHexaStore#snapshot()}) :
+ * un coordinateur lent à lire ses réponses ne bloque ni les ajouts ni les autres requêtes.
+ */
+public class ShardServer implements Closeable {
+
+    private final ConcurrentRDFHexaStore store;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "shard-rdf");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Démarre le serveur sur l'interface de bouclage.
+     *
+     * @param store le shard servi
+     * @param port  le port d'écoute, ou 0 pour un port libre quelconque (voir {@link #getPort()})
+     * @throws IOException si le port ne peut pas être ouvert
+     */
+    public ShardServer(ConcurrentRDFHexaStore store, int port) throws IOException {
+        this.store = store;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "shard-rdf-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                return; // Socket fermée par close()
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            socket.setTcpNoDelay(true);
+            byte type = in.readByte();
+            try {
+                handle(type, in, out);
+            } catch (RuntimeException e) {
+                out.writeByte(ERROR);
+                writeString(out, String.valueOf(e.getMessage()));
+            }
+            out.flush();
+        } catch (IOException e) {
+            // Coordinateur déconnecté, par exemple une fois sa limite de réponses atteinte : la requête est abandonnée
+        }
+    }
+
+    private void handle(byte type, DataInputStream in, DataOutputStream out) throws IOException {
+        switch (type) {
+            case MATCH_QUERY -> {
+                StarQuery query = readQuery(in);
+                Iterator<Substitution> results = query.getModifiers().isOrdered()
+                        ? sortedByLabel(query)
+                        : store.snapshot().match(query);
+                writeSubstitutions(out, query.getRdfAtoms(), results);
+            }
+            case MATCH_ATOM -> {
+                RDFAtom atom = readAtom(in);
+                writeSubstitutions(out, List.of(atom), store.snapshot().match(atom));
+            }
+            case ATOMS -> {
+                for (Atom atom : store.snapshot().getAtoms()) {
+                    out.writeByte(ROW);
+                    writeAtom(out, (RDFAtom) atom);
+                }
+                out.writeByte(END);
+            }
+            case SIZE -> {
+                out.writeByte(ROW);
+                out.writeLong(store.size());
+            }
+            case ADD -> {
+                RDFAtom atom = readAtom(in);
+                boolean added = store.add(atom);
+                out.writeByte(ROW);
+                out.writeBoolean(added);
+            }
+            case REMOVE -> {
+                RDFAtom atom = readAtom(in);
+                boolean removed = store.remove(atom);
+                out.writeByte(ROW);
+                out.writeBoolean(removed);
+            }
+            default -> throw new IllegalArgumentException("Type de requête inconnu : " + type);
+        }
+    }
+
+    // Réponses d'une requête triée, dans l'ordre des libellés attendu par le coordinateur
+    private Iterator<Substitution> sortedByLabel(StarQuery query) {
+        SolutionModifiers modifiers = query.getModifiers();
+        StarQuery unordered = new StarQuery(query.getLabel(), query.getRdfAtoms(), query.getAnswerVariables(),
+                SolutionModifiers.NONE, query.getFilters(), query.getPrefixFilters());
+        List<Substitution> answers = new ArrayList<>();
+        store.snapshot().match(unordered).forEachRemaining(answers::add);
+        answers.sort(centralOrder(query.getCentralVariable(), modifiers.getOrder()));
+        return PartitionedRDFHexaStore.applyRange(answers.stream(), modifiers).iterator();
+    }
+
+    // Les variables des atomes, dans leur ordre d'apparition, forment l'en-tête des lignes
+    private static void writeSubstitutions(DataOutputStream out, List<RDFAtom> atoms, Iterator<Substitution> results)
+            throws IOException {
+        List<Variable> variables = new ArrayList<>();
+        for (RDFAtom atom : atoms) {
+            for (Term term : atom.getTerms()) {
+                if (term instanceof Variable variable && !variables.contains(variable)) {
+                    variables.add(variable);
+                }
+            }
+        }
+        out.writeByte(ROW);
+        out.writeInt(variables.size());
+        for (Variable variable : variables) {
+            writeTerm(out, variable);
+        }
+        while (results.hasNext()) {
+            Substitution substitution = results.next();
+            out.writeByte(ROW);
+            for (Variable variable : variables) {
+                writeTerm(out, substitution.createImageOf(variable));
+            }
+        }
+        out.writeByte(END);
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdown();
+    }
+}
@@ -0,0 +1,499 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Atom;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
+import qengine.model.PrefixFilter;
+import qengine.model.RDFAtom;
+import qengine.model.RangeFilter;
+import qengine.model.SolutionModifiers;
+import qengine.model.StarQuery;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static qengine.storage.ShardProtocol.*;
+
+/**
+ * Coordinateur d'un store réparti sur plusieurs processus : chaque shard ({@link ShardServer})
+ * possède les triplets dont le sujet lui est attribué par {@link #shardOf(Term, int)}.
+ * <p>
+ * Une étoile dont tous les atomes partagent le même sujet est diffusée aux shards, qui l'évaluent
+ * en parallèle ; leurs réponses sont lues au fil de l'eau, shard après shard. Les autres étoiles
+ * relient des triplets de shards différents : chaque atome est demandé à tous les shards, puis les
+ * réponses sont jointes par hachage par le coordinateur, sous les {@link QueryLimits} du
+ * coordinateur : chaque résultat intermédiaire qu'il matérialise (réponses d'un atome, jointure)
+ * compte dans la limite de lignes, et la jointure s'interrompt si la requête est annulée ou hors
+ * délai. Les réponses lues au fil de l'eau vérifient aussi l'annulation et le délai ; les shards
+ * appliquent leurs propres limites.
+ * <p>
+ * Le tri (ORDER BY) ne peut pas suivre les identifiants du dictionnaire, propres à chaque processus :
+ * sur un store réparti, il suit le libellé de la variable centrale. Chaque shard trie ses réponses
+ * dans cet ordre et le coordinateur fusionne leurs flux ; les étoiles jointes par le coordinateur
+ * sont triées par lui.
+ */
+public class ShardedRDFStore implements RDFStorage {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+
+    private final List<InetSocketAddress> shards;
+    private volatile QueryLimits queryLimits = QueryLimits.NONE; // Délai et lignes intermédiaires autorisés par requête
+
+    /**
+     * @param shards l'adresse de chaque shard, dans l'ordre de leur numéro
+     * @throws IllegalArgumentException si aucun shard n'est donné
+     */
+    public ShardedRDFStore(List<InetSocketAddress> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("Au moins un shard est nécessaire.");
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    /**
+     * Shard d'un sujet. Le libellé est haché plutôt que l'identifiant pour que le coordinateur
+     * et chaque shard s'accordent sans dictionnaire commun.
+     *
+     * @param subject    le sujet d'un triplet
+     * @param shardCount le nombre de shards
+     * @return le numéro du shard, entre 0 et shardCount - 1
+     */
+    public static int shardOf(Term subject, int shardCount) {
+        return Math.floorMod(subject.label().hashCode(), shardCount);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public QueryLimits getQueryLimits() {
+        return queryLimits;
+    }
+
+    /**
+     * Fixe les limites appliquées par le coordinateur à chaque requête en étoile, comme
+     * {@link RDFHexaStore#setQueryLimits}.
+     *
+     * @param queryLimits les limites, {@link QueryLimits#NONE} pour n'en appliquer aucune
+     */
+    public void setQueryLimits(QueryLimits queryLimits) {
+        this.queryLimits = Objects.requireNonNull(queryLimits, "Les limites ne peuvent pas être null.");
+    }
+
+    @Override
+    public boolean add(RDFAtom atom) {
+        return update(ADD, atom);
+    }
+
+    @Override
+    public boolean remove(RDFAtom atom) {
+        return update(REMOVE, atom);
+    }
+
+    // Ajout ou retrait d'un triplet par le shard de son sujet
+    private boolean update(byte type, RDFAtom atom) {
+        try (Connection connection = open(shards.get(shardOf(atom.getTripleSubject(), shards.size())))) {
+            connection.out.writeByte(type);
+            writeAtom(connection.out, atom);
+            connection.send();
+            connection.expectRow();
+            return connection.in.readBoolean();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (InetSocketAddress shard : shards) {
+            try (Connection connection = open(shard)) {
+                connection.out.writeByte(SIZE);
+                connection.send();
+                connection.expectRow();
+                size += connection.in.readLong();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public Collection<Atom> getAtoms() {
+        List<Atom> atoms = new ArrayList<>();
+        for (InetSocketAddress shard : shards) {
+            try (Connection connection = open(shard)) {
+                connection.out.writeByte(ATOMS);
+                connection.send();
+                while (connection.nextRecord()) {
+                    atoms.add(readAtom(connection.in));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return atoms;
+    }
+
+    @Override
+    public Iterator<Substitution> match(RDFAtom atom) {
+        List<InetSocketAddress> targets = atom.getTripleSubject() instanceof Variable
+                ? shards
+                : List.of(shards.get(shardOf(atom.getTripleSubject(), shards.size())));
+        return broadcast(targets, MATCH_ATOM, out -> writeAtom(out, atom), SolutionModifiers.NONE, null,
+                QueryGuard.NONE);
+    }
+
+    /**
+     * Une requête triée l'est par libellé de la variable centrale (voir la classe).
+     */
+    @Override
+    public Iterator<Substitution> match(StarQuery query) {
+        return match(query, null);
+    }
+
+    /**
+     * Évalue une étoile sous les limites du coordinateur ({@link #setQueryLimits}), en s'arrêtant dès
+     * que le jeton est annulé.
+     *
+     * @throws QueryAbortedException si la requête est annulée, hors délai ou trop volumineuse
+     */
+    @Override
+    public Iterator<Substitution> match(StarQuery query, CancellationToken token) {
+        QueryGuard guard = QueryGuard.start(queryLimits, token);
+        SolutionModifiers modifiers = query.getModifiers();
+        if (query.getRdfAtoms().isEmpty()) {
+            return Collections.emptyIterator(); // Vide si pas de pattern
+        }
+
+        Term subject = query.getRdfAtoms().get(0).getTripleSubject();
+        boolean sameSubject = query.getRdfAtoms().stream().allMatch(atom -> subject.equals(atom.getTripleSubject()));
+        if (!sameSubject) {
+            List<Map<Variable, Term>> rows = joinAtoms(query.getRdfAtoms(), atom -> {
+                List<Map<Variable, Term>> matches = new ArrayList<>();
+                match(atom).forEachRemaining(substitution -> {
+                    matches.add(substitution.toMap());
+                    guard.onRow(matches.size());
+                });
+                return matches;
+            }, guard);
+            Stream<Substitution> answers = applyFilters(rows.stream(), query)
+                    .map(row -> (Substitution) new SubstitutionImpl(row));
+            if (modifiers.isOrdered()) {
+                answers = answers.sorted(centralOrder(query.getCentralVariable(), modifiers.getOrder()));
+            }
+            return PartitionedRDFHexaStore.applyRange(answers, modifiers).iterator();
+        }
+
+        // Toutes les réponses d'un sujet sont dans un même shard : chacun retourne ses OFFSET + LIMIT
+        // premières réponses, dans l'ordre demandé, et le décalage est appliqué par le coordinateur
+        long localLimit = modifiers.hasLimit() ? modifiers.getOffset() + modifiers.getLimit() : SolutionModifiers.NO_LIMIT;
+        StarQuery local = new StarQuery(query.getLabel(), query.getRdfAtoms(), query.getAnswerVariables(),
+                new SolutionModifiers(localLimit, 0, modifiers.getOrder()), query.getFilters(),
+                query.getPrefixFilters());
+        List<InetSocketAddress> targets = subject instanceof Variable
+                ? shards
+                : List.of(shards.get(shardOf(subject, shards.size())));
+        return broadcast(targets, MATCH_QUERY, out -> writeQuery(out, local), modifiers,
+                modifiers.isOrdered() ? centralOrder(query.getCentralVariable(), modifiers.getOrder()) : null, guard);
+    }
+
+    /**
+     * Joint les réponses de chaque atome d'une étoile sur leurs variables communes. Les atomes au
+     * sujet fixé, qui ne touchent qu'un shard, sont évalués en premier.
+     *
+     * @param atoms   les atomes de l'étoile
+     * @param matcher les réponses d'un atome sur l'ensemble des shards
+     * @param guard   le garde de la requête, qui compte les lignes de chaque jointure
+     * @return les réponses de l'étoile, sans modificateurs appliqués
+     * @throws QueryAbortedException si une jointure dépasse la limite de lignes, ou si la requête est
+     *                               annulée ou hors délai
+     */
+    private static List<Map<Variable, Term>> joinAtoms(List<RDFAtom> atoms,
+                                                       Function<RDFAtom, List<Map<Variable, Term>>> matcher,
+                                                       QueryGuard guard) {
+        List<RDFAtom> ordered = new ArrayList<>(atoms);
+        ordered.sort(Comparator.comparing(atom -> atom.getTripleSubject() instanceof Variable));
+
+        List<Map<Variable, Term>> rows = null;
+        Set<Variable> bound = new HashSet<>();
+        for (RDFAtom atom : ordered) {
+            List<Map<Variable, Term>> matches = matcher.apply(atom);
+            List<Variable> atomVariables = Arrays.stream(atom.getTerms())
+                    .filter(Variable.class::isInstance).map(Variable.class::cast).distinct().toList();
+            rows = rows == null ? matches
+                    : hashJoin(rows, matches, atomVariables.stream().filter(bound::contains).toList(), guard);
+            bound.addAll(atomVariables);
+            if (rows.isEmpty()) {
+                return List.of();
+            }
+        }
+        return rows;
+    }
+
+    // Jointure par hachage : la table est construite sur les réponses de l'atome
+    private static List<Map<Variable, Term>> hashJoin(List<Map<Variable, Term>> rows, List<Map<Variable, Term>> matches,
+                                                      List<Variable> shared, QueryGuard guard) {
+        Map<List<Term>, List<Map<Variable, Term>>> table = new HashMap<>();
+        for (Map<Variable, Term> match : matches) {
+            table.computeIfAbsent(key(match, shared), k -> new ArrayList<>()).add(match);
+        }
+        List<Map<Variable, Term>> joined = new ArrayList<>();
+        for (Map<Variable, Term> row : rows) {
+            for (Map<Variable, Term> match : table.getOrDefault(key(row, shared), List.of())) {
+                Map<Variable, Term> combined = new HashMap<>(row);
+                combined.putAll(match);
+                joined.add(combined);
+                guard.onRow(joined.size());
+            }
+        }
+        return joined;
+    }
+
+    private static List<Term> key(Map<Variable, Term> row, List<Variable> variables) {
+        List<Term> key = new ArrayList<>(variables.size());
+        for (Variable variable : variables) {
+            key.add(row.get(variable));
+        }
+        return key;
+    }
+
+    // Réponses jointes satisfaisant les FILTER de plage et de préfixe de la requête
+    private static Stream<Map<Variable, Term>> applyFilters(Stream<Map<Variable, Term>> rows, StarQuery query) {
+        for (RangeFilter filter : query.getFilters()) {
+            rows = rows.filter(row -> filter.accepts(row.get(filter.getVariable()).label()));
+        }
+        for (PrefixFilter filter : query.getPrefixFilters()) {
+            rows = rows.filter(row -> filter.accepts(row.get(filter.getVariable())));
+        }
+        return rows;
+    }
+
+    private interface Request {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Envoie la requête à tous les shards visés avant de lire la première réponse : ils l'évaluent
+     * en parallèle.
+     *
+     * @param order ordre des réponses de chaque shard, à préserver en fusionnant leurs flux, ou null
+     * @param guard le garde de la requête, consulté à chaque réponse lue
+     */
+    private Iterator<Substitution> broadcast(List<InetSocketAddress> targets, byte type, Request request,
+                                             SolutionModifiers modifiers, Comparator<Substitution> order,
+                                             QueryGuard guard) {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (InetSocketAddress shard : targets) {
+                Connection connection = open(shard);
+                connections.add(connection);
+                connection.out.writeByte(type);
+                request.write(connection.out);
+                connection.send();
+            }
+        } catch (IOException e) {
+            connections.forEach(Connection::close);
+            throw new UncheckedIOException(e);
+        }
+        return new RemoteResults(connections, modifiers, order, guard);
+    }
+
+    private static Connection open(InetSocketAddress shard) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(shard, CONNECT_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+            return new Connection(shard, socket);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Connexion portant une requête vers un shard.
+     */
+    private static final class Connection implements Closeable {
+
+        private final InetSocketAddress shard;
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        private Connection(InetSocketAddress shard, Socket socket) throws IOException {
+            this.shard = shard;
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        private void send() throws IOException {
+            out.flush();
+        }
+
+        // Lit le type du prochain enregistrement : vrai pour une ligne, faux à la fin de la réponse
+        private boolean nextRecord() throws IOException {
+            byte type = in.readByte();
+            return switch (type) {
+                case ROW -> true;
+                case END -> false;
+                case ERROR -> throw new IllegalStateException("Erreur du shard " + shard + " : " + readString(in));
+                default -> throw new IllegalStateException("Enregistrement inconnu du shard " + shard + " : " + type);
+            };
+        }
+
+        private void expectRow() throws IOException {
+            if (!nextRecord()) {
+                throw new IllegalStateException("Réponse vide du shard " + shard);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // La connexion n'est plus utilisée
+            }
+        }
+    }
+
+    /**
+     * Réponses des shards lues au fil de l'eau, shard après shard, ou fusionnées en gardant une
+     * réponse d'avance par shard si elles sont triées. OFFSET et LIMIT sont appliqués ici : une fois
+     * la limite atteinte, les connexions restantes sont fermées et les shards abandonnent l'évaluation.
+     */
+    private static final class RemoteResults implements Iterator<Substitution> {
+
+        private final Deque<Connection> pending;
+        private final Comparator<Substitution> order; // Null si les réponses ne sont pas triées
+        private final QueryGuard guard;
+        private final Map<Connection, Variable[]> headers = new HashMap<>();
+        private PriorityQueue<Map.Entry<Substitution, Connection>> heads; // Réponse d'avance de chaque shard trié
+        private long toSkip;
+        private long remaining;
+        private Substitution next;
+
+        private RemoteResults(List<Connection> connections, SolutionModifiers modifiers,
+                              Comparator<Substitution> order, QueryGuard guard) {
+            this.pending = new ArrayDeque<>(connections);
+            this.order = order;
+            this.guard = guard;
+            this.toSkip = modifiers.getOffset();
+            this.remaining = modifiers.hasLimit() ? modifiers.getLimit() : Long.MAX_VALUE;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && remaining > 0) {
+                try {
+                    next = advance();
+                } catch (IOException e) {
+                    closeAll();
+                    throw new UncheckedIOException(e);
+                } catch (RuntimeException e) {
+                    closeAll();
+                    throw e;
+                }
+            }
+            if (next == null) {
+                closeAll();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Substitution next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Aucune réponse disponible");
+            }
+            Substitution result = next;
+            next = null;
+            remaining--;
+            return result;
+        }
+
+        private Substitution advance() throws IOException {
+            while (true) {
+                guard.tick();
+                Substitution answer = order == null ? nextInShardOrder() : nextInMergedOrder();
+                if (answer == null || toSkip == 0) {
+                    return answer;
+                }
+                toSkip--;
+            }
+        }
+
+        // Prochaine réponse du shard courant, puis des suivants
+        private Substitution nextInShardOrder() throws IOException {
+            while (!pending.isEmpty()) {
+                Substitution answer = read(pending.peek());
+                if (answer != null) {
+                    return answer;
+                }
+                pending.poll().close(); // Shard épuisé
+            }
+            return null;
+        }
+
+        // Plus petite des réponses d'avance des shards, remplacée par la suivante du même shard
+        private Substitution nextInMergedOrder() throws IOException {
+            if (heads == null) {
+                heads = new PriorityQueue<>(Map.Entry.comparingByKey(order));
+                for (Connection connection : pending) {
+                    offer(connection);
+                }
+            }
+            Map.Entry<Substitution, Connection> head = heads.poll();
+            if (head == null) {
+                return null;
+            }
+            offer(head.getValue());
+            return head.getKey();
+        }
+
+        private void offer(Connection connection) throws IOException {
+            Substitution answer = read(connection);
+            if (answer != null) {
+                heads.add(Map.entry(answer, connection));
+            } else {
+                pending.remove(connection);
+                connection.close(); // Shard épuisé
+            }
+        }
+
+        // Prochaine réponse d'un shard, null à la fin de sa réponse ; l'en-tête est lu au premier appel
+        private Substitution read(Connection connection) throws IOException {
+            Variable[] variables = headers.get(connection);
+            if (variables == null) {
+                connection.expectRow();
+                variables = new Variable[connection.in.readInt()];
+                for (int i = 0; i < variables.length; i++) {
+                    variables[i] = (Variable) readTerm(connection.in);
+                }
+                headers.put(connection, variables);
+            }
+            if (!connection.nextRecord()) {
+                return null;
+            }
+            Map<Variable, Term> row = new HashMap<>();
+            for (Variable variable : variables) {
+                row.put(variable, readTerm(connection.in));
+            }
+            return new SubstitutionImpl(row);
+        }
+
+        private void closeAll() {
+            pending.forEach(Connection::close);
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package qengine.storage;
+
+import java.util.*;
+
+/**
+ * Vue d'un index pour l'évaluation d'un groupe de requêtes en étoile qui partagent plusieurs
+ * atomes (?c, p, o) centrés sur le sujet : l'intersection des sujets de ces atomes communs est
+ * calculée une seule fois, puis retournée à chaque requête du groupe comme candidats de chacun
+ * de ces atomes. Une requête du groupe contenant tous les atomes communs, l'intersection de ses
+ * candidats est inchangée ; il ne lui reste qu'à la croiser avec ses propres atomes.
+ * Les autres recherches sont transmises à l'index sous-jacent.
+ */
+final class SharedScanIndex implements TripleIndex {
+
+    private final TripleIndex base;
+    private final Map<Long, Set<Integer>> common = new HashMap<>(); // (prédicat, objet) -> sujets communs
+    private final Set<Integer> subjects;
+
+    /**
+     * Constructeur.
+     *
+     * @param commonAtoms les couples {prédicat, objet} des atomes communs au groupe
+     */
+    SharedScanIndex(TripleIndex base, Collection<int[]> commonAtoms) {
+        this.base = base;
+        List<Set<Integer>> sets = new ArrayList<>();
+        for (int[] atom : commonAtoms) {
+            sets.add(base.findCandidates(-1, atom[0], atom[1], 0));
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+        Set<Integer> intersection = new HashSet<>(sets.get(0));
+        for (Set<Integer> set : sets.subList(1, sets.size())) {
+            intersection.retainAll(set);
+        }
+        this.subjects = Collections.unmodifiableSet(intersection);
+        for (int[] atom : commonAtoms) {
+            common.put(key(atom[0], atom[1]), subjects);
+        }
+    }
+
+    private static long key(int predicate, int object) {
+        return ((long) predicate << 32) | (object & 0xFFFFFFFFL);
+    }
+
+    // Sujets satisfaisant tous les atomes communs du groupe
+    Set<Integer> commonSubjects() {
+        return subjects;
+    }
+
+    @Override
+    public List<int[]> findMatches(int subject, int predicate, int object, QueryGuard guard) {
+        return base.findMatches(subject, predicate, object, guard);
+    }
+
+    @Override
+    public Set<Integer> findCandidates(int subject, int predicate, int object, int position) {
+        if (position == 0 && subject == -1 && predicate != -1 && object != -1) {
+            Set<Integer> shared = common.get(key(predicate, object));
+            if (shared != null) {
+                return shared;
+            }
+        }
+        return base.findCandidates(subject, predicate, object, position);
+    }
+
+    @Override
+    public Map<Integer, Set<Integer>> subjectsByObject(int predicate, Set<Integer> objects) {
+        return base.subjectsByObject(predicate, objects);
+    }
+
+    @Override
+    public List<int[]> getAllTriples() {
+        return base.getAllTriples();
+    }
+}
@@ -0,0 +1,168 @@
+package qengine.storage;
+
+import java.util.*;
+
+/**
+ * Vue en lecture d'une version d'un {@link ConcurrentRDFHexaStore} : les triplets de couches
+ * publiées (la base triée et, pendant une fusion, l'ancien delta figé) et ceux du delta courant
+ * dont le numéro de version ne dépasse pas celui de la vue. Les couches sont disjointes ; les
+ * triplets ajoutés au delta après la publication de la version, même partiellement indexés, sont
+ * ignorés, ce qui rend la vue cohérente entre les six permutations pendant toute la durée d'une
+ * requête.
+ *
+ * Les retraits sont des pierres tombales versionnées : un triplet retiré avant ou à la version de
+ * la vue est masqué, qu'il soit dans une couche ou dans le delta. Les retraits antérieurs à la
+ * fusion en cours, que celle-ci appliquera, masquent les triplets des couches quelle que soit leur
+ * version. Tant qu'aucun retrait n'est en attente de fusion, les recherches de candidats gardent
+ * les vues sur les tableaux de la base ; sinon elles filtrent les triplets correspondants.
+ */
+final class SnapshotIndex implements TripleIndex {
+
+    private final List<TripleIndex> layers; // Couches publiées, la première est la base
+    private final TripleVersions frozenRemovals; // Retraits appliqués par la fusion en cours, ou null
+    private final RDFIndex delta;
+    private final TripleVersions deltaVersions; // Version d'ajout de chaque triplet du delta
+    private final TripleVersions removals; // Version de retrait des triplets retirés depuis la dernière fusion
+    private final long version;
+    private final boolean filtered; // Vrai si des retraits peuvent masquer des triplets des couches
+
+    SnapshotIndex(List<TripleIndex> layers, TripleVersions frozenRemovals, RDFIndex delta,
+                  TripleVersions deltaVersions, TripleVersions removals, long version) {
+        this.layers = layers;
+        this.frozenRemovals = frozenRemovals;
+        this.delta = delta;
+        this.deltaVersions = deltaVersions;
+        this.removals = removals;
+        this.version = version;
+        this.filtered = frozenRemovals != null && frozenRemovals.size() > 0 || removals.size() > 0;
+    }
+
+    private boolean removed(int subject, int predicate, int object) {
+        long removedAt = removals.get(subject, predicate, object);
+        return removedAt != 0 && removedAt <= version;
+    }
+
+    private boolean visibleInLayers(int subject, int predicate, int object) {
+        return !filtered || !(frozenRemovals != null && frozenRemovals.get(subject, predicate, object) != 0)
+                && !removed(subject, predicate, object);
+    }
+
+    private boolean visibleInDelta(int subject, int predicate, int object) {
+        long added = deltaVersions.get(subject, predicate, object);
+        return added != 0 && added <= version && !removed(subject, predicate, object);
+    }
+
+    @Override
+    public List<int[]> findMatches(int subject, int predicate, int object, QueryGuard guard) {
+        List<int[]> results;
+        if (filtered) {
+            results = new ArrayList<>();
+            for (TripleIndex layer : layers) {
+                for (int[] triple : layer.findMatches(subject, predicate, object, guard)) {
+                    if (visibleInLayers(triple[0], triple[1], triple[2])) {
+                        results.add(triple); // Déjà signalé au garde par la couche
+                    }
+                }
+            }
+        } else {
+            results = layers.get(0).findMatches(subject, predicate, object, guard);
+            for (int i = 1; i < layers.size(); i++) {
+                for (int[] triple : layers.get(i).findMatches(subject, predicate, object, guard)) {
+                    RDFIndex.collect(results, guard, triple);
+                }
+            }
+        }
+        for (int[] triple : delta.findMatches(subject, predicate, object, guard)) {
+            if (visibleInDelta(triple[0], triple[1], triple[2])) {
+                RDFIndex.collect(results, guard, triple);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public Set<Integer> findCandidates(int subject, int predicate, int object, int position) {
+        if (filtered) {
+            // Un candidat n'est retenu que si l'un de ses triplets est visible
+            int[] pattern = {subject, predicate, object};
+            pattern[position] = -1;
+            Set<Integer> candidates = new HashSet<>();
+            for (int[] triple : findMatches(pattern[0], pattern[1], pattern[2])) {
+                candidates.add(triple[position]);
+            }
+            return Collections.unmodifiableSet(candidates);
+        }
+        Set<Integer> fromBase = layers.get(0).findCandidates(subject, predicate, object, position);
+        Set<Integer> extra = new HashSet<>();
+        for (int i = 1; i < layers.size(); i++) {
+            for (int candidate : layers.get(i).findCandidates(subject, predicate, object, position)) {
+                if (!fromBase.contains(candidate)) {
+                    extra.add(candidate);
+                }
+            }
+        }
+        int[] pattern = {subject, predicate, object};
+        pattern[position] = -1;
+        if (pattern[(position + 1) % 3] != -1 && pattern[(position + 2) % 3] != -1) {
+            // Motif entièrement fixé par le candidat : sa version suffit
+            for (int candidate : delta.findCandidates(subject, predicate, object, position)) {
+                pattern[position] = candidate;
+                if (!fromBase.contains(candidate) && visibleInDelta(pattern[0], pattern[1], pattern[2])) {
+                    extra.add(candidate);
+                }
+            }
+        } else {
+            // Un seul parcours des triplets du delta correspondant au motif
+            for (int[] triple : delta.findMatches(pattern[0], pattern[1], pattern[2])) {
+                int candidate = triple[position];
+                if (!fromBase.contains(candidate) && !extra.contains(candidate)
+                        && visibleInDelta(triple[0], triple[1], triple[2])) {
+                    extra.add(candidate);
+                }
+            }
+        }
+        return extra.isEmpty() ? fromBase : Collections.unmodifiableSet(new Union(fromBase, extra));
+    }
+
+    @Override
+    public List<int[]> getAllTriples() {
+        return findMatches(-1, -1, -1);
+    }
+
+    // Union de deux ensembles disjoints, sans copie de l'ensemble de la base
+    private static final class Union extends AbstractSet<Integer> {
+
+        private final Set<Integer> first;
+        private final Set<Integer> second;
+
+        Union(Set<Integer> first, Set<Integer> second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return first.contains(value) || second.contains(value);
+        }
+
+        @Override
+        public int size() {
+            return first.size() + second.size();
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            Iterator<Integer> firstValues = first.iterator();
+            Iterator<Integer> secondValues = second.iterator();
+            return new Iterator<>() {
+                public boolean hasNext() {
+                    return firstValues.hasNext() || secondValues.hasNext();
+                }
+
+                public Integer next() {
+                    return firstValues.hasNext() ? firstValues.next() : secondValues.next();
+                }
+            };
+        }
+    }
+}
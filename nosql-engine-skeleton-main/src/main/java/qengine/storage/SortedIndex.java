@@ -0,0 +1,343 @@
+package qengine.storage;
+
+import java.util.*;
+
+/**
+ * Index immuable et compact : chacune des six permutations est stockée en tableaux d'entiers triés
+ * (clés de premier niveau, clés de second niveau, valeurs) reliés par des tableaux de décalages,
+ * sans objet par triplet. Les recherches se font par dichotomie et les ensembles renvoyés sont des
+ * vues sur des tranches de tableaux triés.
+ *
+ * Un index trié se construit en une fois, ou par fusion d'un index trié existant avec de nouveaux
+ * triplets ; il sert de base aux stores dont les insertions vont dans un delta (voir
+ * {@link ConcurrentRDFHexaStore}).
+ */
+class SortedIndex implements TripleIndex {
+
+    // Positions (0 = sujet, 1 = prédicat, 2 = objet) dans l'ordre de chaque permutation
+    private static final int[][] ORDERS = {{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};
+    private static final int SP_O = 0, SO_P = 1, PS_O = 2, PO_S = 3, OS_P = 4, OP_S = 5;
+
+    /**
+     * Une permutation : triplets triés dans l'ordre de ses trois positions.
+     */
+    private static final class Permutation {
+
+        final int[] firsts;
+        final int[] firstOffsets; // Tranche de seconds de chaque clé de premier niveau
+        final int[] seconds;
+        final int[] secondOffsets; // Tranche de thirds de chaque clé de second niveau
+        final int[] thirds;
+
+        Permutation(int[] firsts, int[] firstOffsets, int[] seconds, int[] secondOffsets, int[] thirds) {
+            this.firsts = firsts;
+            this.firstOffsets = firstOffsets;
+            this.seconds = seconds;
+            this.secondOffsets = secondOffsets;
+            this.thirds = thirds;
+        }
+
+        // Rang d'une clé de premier niveau, négatif si absente
+        int first(int key) {
+            return Arrays.binarySearch(firsts, key);
+        }
+
+        // Rang d'une clé de second niveau sous une clé de premier niveau, négatif si absente
+        int second(int key1, int key2) {
+            int i = first(key1);
+            if (i < 0) {
+                return -1;
+            }
+            int j = Arrays.binarySearch(seconds, firstOffsets[i], firstOffsets[i + 1], key2);
+            return j < 0 ? -1 : j;
+        }
+    }
+
+    /**
+     * Construit les tableaux d'une permutation à partir de triplets ajoutés dans son ordre.
+     */
+    private static final class PermutationBuilder {
+
+        private final int[] firsts;
+        private final int[] firstOffsets;
+        private final int[] seconds;
+        private final int[] secondOffsets;
+        private final int[] thirds;
+        private int firstCount = 0;
+        private int secondCount = 0;
+        private int thirdCount = 0;
+
+        PermutationBuilder(int size) {
+            this.firsts = new int[size];
+            this.firstOffsets = new int[size + 1];
+            this.seconds = new int[size];
+            this.secondOffsets = new int[size + 1];
+            this.thirds = new int[size];
+        }
+
+        void append(int a, int b, int c) {
+            boolean newFirst = firstCount == 0 || firsts[firstCount - 1] != a;
+            if (newFirst) {
+                firsts[firstCount++] = a;
+                firstOffsets[firstCount] = secondCount;
+            }
+            if (newFirst || seconds[secondCount - 1] != b) {
+                seconds[secondCount++] = b;
+                firstOffsets[firstCount] = secondCount;
+                secondOffsets[secondCount] = thirdCount;
+            }
+            thirds[thirdCount++] = c;
+            secondOffsets[secondCount] = thirdCount;
+        }
+
+        Permutation build() {
+            return new Permutation(Arrays.copyOf(firsts, firstCount), Arrays.copyOf(firstOffsets, firstCount + 1),
+                    Arrays.copyOf(seconds, secondCount), Arrays.copyOf(secondOffsets, secondCount + 1),
+                    Arrays.copyOf(thirds, thirdCount));
+        }
+    }
+
+    private final Permutation[] permutations;
+
+    private SortedIndex(Permutation[] permutations) {
+        this.permutations = permutations;
+    }
+
+    static SortedIndex empty() {
+        return merge(null, List.of());
+    }
+
+    /**
+     * Fusionne un index trié et des triplets absents de celui-ci en un nouvel index trié.
+     * L'index d'origine n'est pas modifié.
+     *
+     * @param base    l'index trié existant, ou null
+     * @param triples les triplets {sujet, prédicat, objet} à ajouter, sans doublon ni triplet de la base
+     * @return le nouvel index
+     */
+    static SortedIndex merge(SortedIndex base, List<int[]> triples) {
+        return merge(base, triples, null);
+    }
+
+    /**
+     * Fusionne un index trié et des triplets absents de celui-ci, en omettant les triplets retirés
+     * de la base. L'index d'origine n'est pas modifié.
+     *
+     * @param removed les triplets de la base à omettre, ou null
+     */
+    static SortedIndex merge(SortedIndex base, List<int[]> triples, TripleVersions removed) {
+        int baseSize = base == null ? 0 : base.size();
+        Permutation[] merged = new Permutation[ORDERS.length];
+        for (int k = 0; k < ORDERS.length; k++) {
+            int[] order = ORDERS[k];
+            int[][] added = new int[triples.size()][];
+            for (int t = 0; t < added.length; t++) {
+                int[] triple = triples.get(t);
+                added[t] = new int[]{triple[order[0]], triple[order[1]], triple[order[2]]};
+            }
+            Arrays.sort(added, SortedIndex::compare);
+
+            PermutationBuilder builder = new PermutationBuilder(baseSize + added.length);
+            int[] scratch = new int[3];
+            int next = 0;
+            if (base != null) {
+                Permutation permutation = base.permutations[k];
+                for (int i = 0; i < permutation.firsts.length; i++) {
+                    int a = permutation.firsts[i];
+                    for (int j = permutation.firstOffsets[i]; j < permutation.firstOffsets[i + 1]; j++) {
+                        int b = permutation.seconds[j];
+                        for (int l = permutation.secondOffsets[j]; l < permutation.secondOffsets[j + 1]; l++) {
+                            int c = permutation.thirds[l];
+                            while (next < added.length && compare(added[next], a, b, c) < 0) {
+                                builder.append(added[next][0], added[next][1], added[next][2]);
+                                next++;
+                            }
+                            if (removed == null || !isRemoved(removed, order, scratch, a, b, c)) {
+                                builder.append(a, b, c);
+                            }
+                        }
+                    }
+                }
+            }
+            for (; next < added.length; next++) {
+                builder.append(added[next][0], added[next][1], added[next][2]);
+            }
+            merged[k] = builder.build();
+        }
+        return new SortedIndex(merged);
+    }
+
+    // Vrai si le triplet rangé dans l'ordre de la permutation fait partie des triplets retirés
+    private static boolean isRemoved(TripleVersions removed, int[] order, int[] triple, int a, int b, int c) {
+        triple[order[0]] = a;
+        triple[order[1]] = b;
+        triple[order[2]] = c;
+        return removed.get(triple[0], triple[1], triple[2]) != 0;
+    }
+
+    private static int compare(int[] left, int[] right) {
+        return compare(left, right[0], right[1], right[2]);
+    }
+
+    private static int compare(int[] left, int a, int b, int c) {
+        int cmp = Integer.compare(left[0], a);
+        if (cmp == 0) {
+            cmp = Integer.compare(left[1], b);
+        }
+        return cmp != 0 ? cmp : Integer.compare(left[2], c);
+    }
+
+    // Nombre de triplets
+    int size() {
+        return permutations[SP_O].thirds.length;
+    }
+
+    @Override
+    public List<int[]> findMatches(int subject, int predicate, int object, QueryGuard guard) {
+        List<int[]> results = new ArrayList<>();
+        // Permutation dont les positions fixées forment un préfixe
+        int k;
+        if (subject != -1) {
+            k = predicate != -1 || object == -1 ? SP_O : SO_P;
+        } else if (predicate != -1) {
+            k = object != -1 ? PO_S : PS_O;
+        } else {
+            k = object != -1 ? OS_P : SP_O;
+        }
+        int[] order = ORDERS[k];
+        int[] pattern = {subject, predicate, object};
+        int key1 = pattern[order[0]];
+        int key2 = pattern[order[1]];
+        int key3 = pattern[order[2]];
+        Permutation permutation = permutations[k];
+
+        int firstFrom = 0;
+        int firstTo = permutation.firsts.length;
+        if (key1 != -1) {
+            int i = permutation.first(key1);
+            if (i < 0) {
+                return results;
+            }
+            firstFrom = i;
+            firstTo = i + 1;
+        }
+        int[] triple = new int[3];
+        for (int i = firstFrom; i < firstTo; i++) {
+            triple[order[0]] = permutation.firsts[i];
+            int secondFrom = permutation.firstOffsets[i];
+            int secondTo = permutation.firstOffsets[i + 1];
+            if (key2 != -1) {
+                int j = Arrays.binarySearch(permutation.seconds, secondFrom, secondTo, key2);
+                if (j < 0) {
+                    continue;
+                }
+                secondFrom = j;
+                secondTo = j + 1;
+            }
+            for (int j = secondFrom; j < secondTo; j++) {
+                triple[order[1]] = permutation.seconds[j];
+                int thirdFrom = permutation.secondOffsets[j];
+                int thirdTo = permutation.secondOffsets[j + 1];
+                if (key3 != -1) {
+                    if (Arrays.binarySearch(permutation.thirds, thirdFrom, thirdTo, key3) >= 0) {
+                        triple[order[2]] = key3;
+                        RDFIndex.collect(results, guard, triple.clone());
+                    }
+                    continue;
+                }
+                for (int l = thirdFrom; l < thirdTo; l++) {
+                    triple[order[2]] = permutation.thirds[l];
+                    RDFIndex.collect(results, guard, triple.clone());
+                }
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public Set<Integer> findCandidates(int subject, int predicate, int object, int position) {
+        return switch (position) {
+            case 0 -> predicate != -1 && object != -1 ? third(PO_S, predicate, object)
+                    : predicate != -1 ? second(PS_O, predicate)
+                    : object != -1 ? second(OS_P, object)
+                    : first(SP_O);
+            case 1 -> subject != -1 && object != -1 ? third(SO_P, subject, object)
+                    : subject != -1 ? second(SP_O, subject)
+                    : object != -1 ? second(OP_S, object)
+                    : first(PS_O);
+            case 2 -> subject != -1 && predicate != -1 ? third(SP_O, subject, predicate)
+                    : subject != -1 ? second(SO_P, subject)
+                    : predicate != -1 ? second(PO_S, predicate)
+                    : first(OS_P);
+            default -> throw new IllegalArgumentException("Position invalide : " + position);
+        };
+    }
+
+    private Set<Integer> first(int k) {
+        int[] firsts = permutations[k].firsts;
+        return new SortedRange(firsts, 0, firsts.length);
+    }
+
+    private Set<Integer> second(int k, int key1) {
+        Permutation permutation = permutations[k];
+        int i = permutation.first(key1);
+        return i < 0 ? Collections.emptySet()
+                : new SortedRange(permutation.seconds, permutation.firstOffsets[i], permutation.firstOffsets[i + 1]);
+    }
+
+    private Set<Integer> third(int k, int key1, int key2) {
+        Permutation permutation = permutations[k];
+        int j = permutation.second(key1, key2);
+        return j < 0 ? Collections.emptySet()
+                : new SortedRange(permutation.thirds, permutation.secondOffsets[j], permutation.secondOffsets[j + 1]);
+    }
+
+    @Override
+    public List<int[]> getAllTriples() {
+        return findMatches(-1, -1, -1);
+    }
+
+    /**
+     * Vue non modifiable d'une tranche triée sans doublon d'un tableau.
+     */
+    private static final class SortedRange extends AbstractSet<Integer> {
+
+        private final int[] values;
+        private final int from;
+        private final int to;
+
+        SortedRange(int[] values, int from, int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return value instanceof Integer key && Arrays.binarySearch(values, from, to, key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return new Iterator<>() {
+                private int next = from;
+
+                public boolean hasNext() {
+                    return next < to;
+                }
+
+                public Integer next() {
+                    if (next >= to) {
+                        throw new NoSuchElementException();
+                    }
+                    return values[next++];
+                }
+            };
+        }
+    }
+}
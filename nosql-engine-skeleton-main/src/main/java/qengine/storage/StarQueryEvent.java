@@ -0,0 +1,61 @@
+package qengine.storage;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Événement JFR émis à la fin de chaque évaluation de requête en étoile lorsqu'un enregistrement
+ * l'active, par exemple : {@code -XX:StartFlightRecording:settings=profile}.
+ */
+@Name("qengine.StarQuery")
+@Label("Requête en étoile")
+@Category("QEngine")
+@Description("Évaluation d'une requête en étoile par RDFHexaStore")
+class StarQueryEvent extends Event {
+
+    @Label("Requête")
+    String query;
+
+    @Label("Préparation")
+    @Timespan(Timespan.NANOSECONDS)
+    long planNanos;
+
+    @Label("Accès aux index")
+    long indexLookups;
+
+    @Label("Sondages")
+    long membershipProbes;
+
+    @Label("Candidats")
+    long candidates;
+
+    @Label("Lignes lues")
+    long rowsScanned;
+
+    @Label("Lignes intermédiaires maximales")
+    long maxIntermediateRows;
+
+    @Label("Réponses")
+    long answers;
+
+    @Label("Alloué")
+    @DataAmount
+    long allocatedBytes;
+
+    void fill(QueryMetrics metrics) {
+        query = metrics.getLabel();
+        planNanos = metrics.getPlanNanos();
+        indexLookups = metrics.getIndexLookups();
+        membershipProbes = metrics.getMembershipProbes();
+        candidates = metrics.getCandidates();
+        rowsScanned = metrics.getTotalRowsScanned();
+        maxIntermediateRows = metrics.getMaxIntermediateRows();
+        answers = metrics.getAnswers();
+        allocatedBytes = metrics.getAllocatedBytes();
+    }
+}
@@ -0,0 +1,709 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import qengine.model.PrefixFilter;
+import qengine.model.RDFAtom;
+import qengine.model.RangeFilter;
+import qengine.model.SolutionModifiers;
+import qengine.model.StarQuery;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Évaluation paresseuse d'une requête en étoile sur les index d'un HexaStore.
+ * Pour chaque atome, les valeurs possibles de la variable centrale sont lues dans l'index adapté ;
+ * le plus petit ensemble pilote le parcours et les autres sont sondés par appartenance.
+ * Chaque candidat retenu est développé en réponses à la demande, ce qui permet d'appliquer
+ * OFFSET/LIMIT pendant l'évaluation et de s'arrêter dès que la limite est atteinte.
+ * Les réponses intermédiaires restent des lignes d'identifiants ({@code int[]}, une colonne
+ * par variable) ; les termes ne sont décodés qu'à la lecture d'une {@link EncodedSubstitution}.
+ * En mode {@link ExecutionMode#BATCH}, les candidats sont filtrés par vecteurs de
+ * {@link #BATCH_SIZE} entiers contre des bitmaps ou des tableaux triés.
+ * Lorsque la variable centrale est sujet d'atomes à prédicat fixé, les ensembles caractéristiques
+ * fournissent directement les seuls sujets possédant tous ces prédicats, s'ils sont moins nombreux
+ * que le plus petit ensemble de l'index.
+ * Si un {@link EmergentSchema} contient une table de propriétés couvrant tous les atomes d'une
+ * étoile centrée sur le sujet, les réponses sont lues dans ses lignes à la place des index : la table
+ * est parcourue entière si elle n'est pas plus longue que le plus petit ensemble de candidats, sinon
+ * ce dernier pilote et chaque candidat retenu est cherché par dichotomie parmi les lignes.
+ * Lorsqu'un écouteur est fourni ou que l'événement JFR {@link StarQueryEvent} est activé, l'évaluation
+ * remplit un {@link QueryMetrics} ; sinon aucun compteur n'est tenu.
+ * Un {@link QueryGuard} est consulté à chaque candidat et à chaque ligne intermédiaire : l'évaluation
+ * s'interrompt par une {@link QueryAbortedException} si la requête est annulée, hors délai ou trop volumineuse.
+ * Les FILTER de plage sont résolus par un {@link ValueIndex} lorsque leur variable est objet d'un atome
+ * à prédicat fixé : les valeurs admises deviennent un ensemble de candidats comme un autre et chaque
+ * ligne est vérifiée par appartenance ; sinon la valeur de chaque ligne est décodée et comparée.
+ * Les FILTER STRSTARTS sont résolus par l'index des littéraux du dictionnaire : les littéraux du
+ * préfixe restreignent la variable centrale directement, ou par leurs sujets lus dans po_s ; l'index
+ * n'est pas consulté si une constante inconnue rend la requête vide.
+ */
+final class StarQueryIterator implements Iterator<Substitution> {
+
+    // Taille des vecteurs de candidats en mode BATCH
+    static final int BATCH_SIZE = 1024;
+
+    private final RDFDictionary dictionary;
+    private final TripleIndex index;
+    private final Variable[] variables; // Colonnes des lignes, la variable centrale en colonne 0
+    private final int[][] patterns; // Motif encodé de chaque atome, -1 pour les variables
+    private final int[][] slots; // Colonne de chaque position d'un atome, -1 pour les constantes
+    private final boolean[] filterOnly; // Atomes dont la seule variable est la centrale : le sondage suffit
+    private final List<Set<Integer>> probes = new ArrayList<>(); // Ensembles de candidats sondés
+    private final PrimitiveIterator.OfInt driver; // Candidats pilotes de la variable centrale
+    private final Deque<Substitution> buffer = new ArrayDeque<>();
+    private final QueryGuard guard;
+    private long toSkip; // Réponses restant à ignorer (OFFSET)
+    private long remaining; // Réponses restant à produire (LIMIT)
+
+    // FILTER de plage de la requête
+    private final List<RangeFilter> filters;
+    private final int[] filterColumns; // Colonne de la variable de chaque filtre
+    private final List<Set<Integer>> filterValues = new ArrayList<>(); // Valeurs admises, null si non indexées
+    private final List<PrefixFilter> prefixFilters;
+    private final int[] prefixColumns; // Colonne de la variable de chaque condition de préfixe
+    private final List<Set<Integer>> prefixValues = new ArrayList<>(); // Littéraux du dictionnaire admis
+
+    // État du mode BATCH
+    private final boolean batchMode;
+    private long[][] probeBitmaps; // Bitmap par ensemble sondé dense, null sinon
+    private int[][] probeSorted; // Tableau trié par ensemble sondé creux, null sinon
+    private int[] batch;
+    private int batchLength = 0;
+    private int batchCursor = 0;
+
+    // Lecture dans une table de propriétés : le pilote énumère ses lignes (parcours complet)
+    // ou des candidats de la variable centrale, cherchés dans la table
+    private PropertyTable table;
+    private boolean tableScan = false;
+    private int[] tableColumns; // Colonne de la table pour chaque atome
+
+    // Instrumentation, null lorsqu'elle est désactivée
+    private final QueryMetrics metrics;
+    private final Consumer<QueryMetrics> listener;
+    private final StarQueryEvent event;
+    private final long planStart;
+    private boolean reported = false;
+
+    StarQueryIterator(RDFDictionary dictionary, TripleIndex index, StarQuery query) {
+        this(dictionary, index, null, null, query, ExecutionMode.ROW, null, QueryGuard.NONE,
+                (predicate, kind) -> ValueIndex.build(dictionary, index, predicate, kind));
+    }
+
+    StarQueryIterator(RDFDictionary dictionary, TripleIndex index, CharacteristicSetIndex characteristicSets,
+                      EmergentSchema schema, StarQuery query, ExecutionMode mode, Consumer<QueryMetrics> listener,
+                      QueryGuard guard, ValueIndex.Source valueIndexes) {
+        this.dictionary = dictionary;
+        this.index = index;
+        this.guard = guard;
+        guard.check();
+        StarQueryEvent queryEvent = new StarQueryEvent();
+        boolean instrumented = listener != null || queryEvent.isEnabled();
+        this.metrics = instrumented ? new QueryMetrics(query.getLabel(), query.getRdfAtoms().size()) : null;
+        this.listener = listener;
+        this.event = instrumented ? queryEvent : null;
+        this.planStart = instrumented ? System.nanoTime() : 0;
+        long allocationStart = instrumented ? QueryMetrics.threadAllocatedBytes() : 0;
+        if (instrumented) {
+            queryEvent.begin();
+        }
+        Variable centralVariable = query.getCentralVariable();
+        List<RDFAtom> atoms = query.getRdfAtoms();
+        this.patterns = new int[atoms.size()][];
+        this.slots = new int[atoms.size()][];
+        this.filterOnly = new boolean[atoms.size()];
+        List<Variable> columns = new ArrayList<>(List.of(centralVariable));
+
+        SolutionModifiers modifiers = query.getModifiers();
+        this.toSkip = modifiers.getOffset();
+        this.remaining = modifiers.hasLimit() ? modifiers.getLimit() : Long.MAX_VALUE;
+
+        List<Set<Integer>> candidateSets = new ArrayList<>();
+        List<Set<Integer>> notImplied = new ArrayList<>(); // Ensembles non garantis par les ensembles caractéristiques
+        List<Integer> subjectPredicates = new ArrayList<>(); // Prédicats fixés des atomes centrés sur le sujet
+        boolean unknownConstant = false;
+        boolean subjectStar = true; // Tous les atomes sont (?c, p, o) avec ?c absent de o
+        for (int i = 0; i < atoms.size(); i++) {
+            RDFAtom atom = atoms.get(i);
+            int[] pattern = new int[3];
+            int[] atomSlots = new int[3];
+            int centralPosition = -1;
+            int variableCount = 0;
+            for (int k = 0; k < 3; k++) {
+                Term term = atom.getTerm(k);
+                if (term instanceof Variable variable) {
+                    pattern[k] = -1;
+                    variableCount++;
+                    if (!columns.contains(variable)) {
+                        columns.add(variable);
+                    }
+                    atomSlots[k] = columns.indexOf(variable);
+                    if (centralPosition == -1 && atomSlots[k] == 0) {
+                        centralPosition = k;
+                    }
+                } else {
+                    atomSlots[k] = -1;
+                    long encodeStart = metrics != null ? System.nanoTime() : 0;
+                    pattern[k] = dictionary.lookup(term);
+                    if (metrics != null) {
+                        metrics.encodeNanos += System.nanoTime() - encodeStart;
+                    }
+                    // Une constante absente du dictionnaire ne peut correspondre à aucun triplet
+                    unknownConstant |= pattern[k] == -1;
+                }
+            }
+            patterns[i] = pattern;
+            slots[i] = atomSlots;
+            filterOnly[i] = variableCount == 1;
+            subjectStar &= centralPosition == 0 && pattern[1] != -1 && atomSlots[2] != 0;
+            if (!unknownConstant) {
+                Set<Integer> candidates = index.findCandidates(pattern[0], pattern[1], pattern[2], centralPosition);
+                if (metrics != null) {
+                    metrics.indexLookups++;
+                }
+                candidateSets.add(candidates);
+                if (centralPosition == 0 && pattern[1] != -1) {
+                    subjectPredicates.add(pattern[1]);
+                }
+                // (?c, p, ?o) : tout sujet de l'ensemble caractéristique possède le prédicat p
+                if (centralPosition != 0 || pattern[1] == -1 || pattern[2] != -1) {
+                    notImplied.add(candidates);
+                }
+            }
+        }
+
+        this.variables = columns.toArray(new Variable[0]);
+
+        this.filters = query.getFilters();
+        this.filterColumns = new int[filters.size()];
+        for (int f = 0; f < filters.size(); f++) {
+            RangeFilter filter = filters.get(f);
+            int column = columns.indexOf(filter.getVariable());
+            int atom = unknownConstant ? -1 : valueAtom(column);
+            filterColumns[f] = column;
+            if (atom == -1) {
+                filterValues.add(null); // Variable jamais objet d'un prédicat fixé : comparée ligne à ligne
+                continue;
+            }
+            ValueIndex.Range range = valueIndexes.get(patterns[atom][1], filter.getKind()).range(filter);
+            if (metrics != null) {
+                metrics.indexLookups++;
+            }
+            filterValues.add(range.objects());
+            // Restreint la variable centrale : valeurs admises, ou sujets qui en possèdent une
+            Set<Integer> candidates = column == 0 ? range.objects() : slots[atom][0] == 0 ? range.subjects() : null;
+            if (candidates != null) {
+                candidateSets.add(candidates);
+                notImplied.add(candidates);
+            }
+        }
+
+        this.prefixFilters = query.getPrefixFilters();
+        this.prefixColumns = new int[prefixFilters.size()];
+        for (int f = 0; f < prefixFilters.size(); f++) {
+            PrefixFilter filter = prefixFilters.get(f);
+            int column = columns.indexOf(filter.getVariable());
+            prefixColumns[f] = column;
+            if (unknownConstant) {
+                prefixValues.add(Set.of()); // Aucune réponse : l'index des littéraux n'est pas consulté
+                continue;
+            }
+            int atom = valueAtom(column);
+            Set<Integer> literals = dictionary.literalsWithPrefix(filter.getPrefix());
+            if (metrics != null) {
+                metrics.indexLookups++;
+            }
+            prefixValues.add(literals);
+            // Les littéraux en ligne n'ont pas d'entrée dans le dictionnaire : seuls ceux de l'atome sont connus
+            Set<Integer> objects = !dictionary.isInlineLiterals() ? literals
+                    : atom != -1 ? withInlineObjects(literals, patterns[atom][1], filter.getPrefix()) : null;
+            Set<Integer> candidates = null;
+            if (column == 0) {
+                candidates = objects;
+            } else if (objects != null && atom != -1 && slots[atom][0] == 0) {
+                // Sujets des littéraux retenus, lus dans po_s
+                candidates = new HashSet<>();
+                for (Set<Integer> subjects : index.subjectsByObject(patterns[atom][1], objects).values()) {
+                    candidates.addAll(subjects);
+                }
+            }
+            if (candidates != null) {
+                candidateSets.add(candidates);
+                notImplied.add(candidates);
+            }
+        }
+
+        if (unknownConstant) {
+            this.batchMode = false;
+            this.driver = Arrays.stream(new int[0]).iterator();
+            endPlan(allocationStart);
+            return;
+        }
+
+        int[] starPredicates = subjectPredicates.stream().mapToInt(Integer::intValue).distinct().toArray();
+        this.table = schema != null && subjectStar ? schema.route(starPredicates) : null;
+        candidateSets.sort(Comparator.comparingInt(Set::size));
+        if (table != null) {
+            this.batchMode = false;
+            this.tableColumns = new int[patterns.length];
+            for (int i = 0; i < patterns.length; i++) {
+                tableColumns[i] = table.columnOf(patterns[i][1]);
+            }
+            int rows = table.rowCount();
+            Set<Integer> smallest = candidateSets.get(0);
+            if (rows <= smallest.size()) {
+                // Les lignes sont triées par sujet : l'ordre de la table est celui de la variable centrale
+                this.tableScan = true;
+                this.driver = modifiers.getOrder() == SolutionModifiers.CentralOrder.DESC
+                        ? IntStream.range(0, rows).map(r -> rows - 1 - r).iterator()
+                        : IntStream.range(0, rows).iterator();
+            } else {
+                // Une ligne de la table garantit chaque prédicat : seuls les autres ensembles sont sondés
+                notImplied.removeIf(set -> set == smallest);
+                notImplied.sort(Comparator.comparingInt(Set::size));
+                probes.addAll(notImplied);
+                this.driver = modifiers.isOrdered()
+                        ? sorted(smallest.stream().mapToInt(Integer::intValue).toArray(), modifiers)
+                        : smallest.stream().mapToInt(Integer::intValue).iterator();
+            }
+            if (metrics != null) {
+                metrics.propertyTable = true;
+            }
+            endPlan(allocationStart);
+            return;
+        }
+        this.batchMode = mode == ExecutionMode.BATCH;
+
+        // Le plus petit ensemble pilote, les autres sont sondés du plus petit au plus grand
+        Set<Integer> driverSet = candidateSets.get(0);
+        int[] driverValues = null;
+        int driverSize = driverSet.size();
+
+        // Avec un seul prédicat, les sujets éligibles sont ceux de l'index : rien à gagner.
+        // L'examen des ensembles n'est tenté que s'il coûte moins que les sondages du pilote.
+        if (characteristicSets != null && starPredicates.length > 1
+                && characteristicSets.scanCost(starPredicates) <= driverSize) {
+            List<CharacteristicSetIndex.CharacteristicSet> eligible = characteristicSets.supersetsOf(starPredicates);
+            long total = eligible.stream().mapToLong(CharacteristicSetIndex.CharacteristicSet::distinctSubjects).sum();
+            if (total < driverSize) {
+                // Seuls les sujets des ensembles éligibles sont parcourus
+                driverValues = eligible.stream().flatMap(set -> set.getSubjects().stream())
+                        .mapToInt(Integer::intValue).toArray();
+                driverSize = driverValues.length;
+                if (metrics != null) {
+                    metrics.characteristicSetDriver = true;
+                }
+                notImplied.sort(Comparator.comparingInt(Set::size));
+                probes.addAll(notImplied);
+            }
+        }
+        if (driverValues == null) {
+            probes.addAll(candidateSets.subList(1, candidateSets.size()));
+        }
+
+        if (modifiers.isOrdered()) {
+            this.driver = sorted(driverValues != null ? driverValues
+                    : driverSet.stream().mapToInt(Integer::intValue).toArray(), modifiers);
+        } else if (driverValues != null) {
+            this.driver = Arrays.stream(driverValues).iterator();
+        } else {
+            this.driver = driverSet.stream().mapToInt(Integer::intValue).iterator();
+        }
+
+        if (batchMode) {
+            prepareBatchProbes(driverSize);
+        }
+        endPlan(allocationStart);
+    }
+
+    // Trie les candidats pilotes dans l'ordre demandé ; le tri matérialise tout le pilote
+    private PrimitiveIterator.OfInt sorted(int[] values, SolutionModifiers modifiers) {
+        guard.onRow(values.length);
+        Arrays.sort(values);
+        if (modifiers.getOrder() == SolutionModifiers.CentralOrder.DESC) {
+            reverse(values);
+        }
+        return Arrays.stream(values).iterator();
+    }
+
+    // Littéraux du dictionnaire complétés des objets en ligne du prédicat qui commencent par le préfixe
+    private Set<Integer> withInlineObjects(Set<Integer> literals, int predicate, String prefix) {
+        Set<Integer> objects = new HashSet<>(literals);
+        for (int object : index.findCandidates(-1, predicate, -1, 2)) {
+            if (InlineLiterals.isInline(object) && InlineLiterals.label(object).startsWith(prefix)) {
+                objects.add(object);
+            }
+        }
+        return objects;
+    }
+
+    // Premier atome à prédicat fixé dont l'objet est la colonne donnée, -1 s'il n'y en a pas
+    private int valueAtom(int column) {
+        for (int i = 0; i < patterns.length; i++) {
+            if (patterns[i][1] != -1 && slots[i][2] == column) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void endPlan(long allocationStart) {
+        if (metrics != null) {
+            metrics.planNanos = System.nanoTime() - planStart;
+            metrics.allocatedBytes = allocationStart == -1 ? -1 : QueryMetrics.threadAllocatedBytes() - allocationStart;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        fill();
+        return !buffer.isEmpty();
+    }
+
+    @Override
+    public Substitution next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("Aucune réponse disponible");
+        }
+        return buffer.poll();
+    }
+
+    private void fill() {
+        if (metrics == null) {
+            advance();
+            return;
+        }
+        if (reported) {
+            return;
+        }
+        long start = System.nanoTime();
+        long allocationStart = metrics.allocatedBytes == -1 ? -1 : QueryMetrics.threadAllocatedBytes();
+        advance();
+        metrics.evaluationNanos += System.nanoTime() - start;
+        if (allocationStart != -1) {
+            metrics.allocatedBytes += QueryMetrics.threadAllocatedBytes() - allocationStart;
+        }
+        if (buffer.isEmpty()) {
+            report(); // Parcours terminé : épuisement des candidats ou limite atteinte
+        }
+    }
+
+    // Transmet les mesures à l'écouteur et à JFR, une seule fois
+    private void report() {
+        reported = true;
+        if (listener != null) {
+            listener.accept(metrics);
+        }
+        if (event.shouldCommit()) {
+            event.fill(metrics);
+            event.commit();
+        }
+    }
+
+    // Avance sur les candidats jusqu'à produire au moins une réponse ou atteindre la limite
+    private void advance() {
+        while (buffer.isEmpty() && remaining > 0) {
+            int candidate;
+            if (batchMode) {
+                if (batchCursor == batchLength && !loadBatch()) {
+                    return;
+                }
+                candidate = batch[batchCursor++];
+            } else {
+                guard.tick();
+                if (!driver.hasNext()) {
+                    return;
+                }
+                candidate = driver.nextInt();
+                if (metrics != null) {
+                    metrics.candidates++;
+                }
+                if (!tableScan && !probe(candidate)) {
+                    if (metrics != null) {
+                        metrics.rejectedCandidates++;
+                    }
+                    continue;
+                }
+                if (table != null && !tableScan) {
+                    candidate = table.rowOf(candidate); // Le candidat devient sa ligne dans la table
+                    if (candidate == -1) {
+                        if (metrics != null) {
+                            metrics.rejectedCandidates++;
+                        }
+                        continue;
+                    }
+                }
+            }
+            for (int[] row : table != null ? expandRow(candidate) : expand(candidate)) {
+                if (!accepts(row)) {
+                    continue;
+                }
+                if (toSkip > 0) {
+                    toSkip--;
+                    continue;
+                }
+                if (remaining == 0) {
+                    break;
+                }
+                buffer.add(new EncodedSubstitution(dictionary, variables, row, metrics));
+                remaining--;
+                if (metrics != null) {
+                    metrics.answers++;
+                }
+            }
+        }
+    }
+
+    // Vérifie que la ligne satisfait toutes les conditions de plage et de préfixe de la requête
+    private boolean accepts(int[] row) {
+        for (int f = 0; f < filterColumns.length; f++) {
+            int value = row[filterColumns[f]];
+            Set<Integer> allowed = filterValues.get(f);
+            RangeFilter filter = filters.get(f);
+            if (allowed != null ? !allowed.contains(value)
+                    : !filter.contains(ValueIndex.key(dictionary, value, filter.getKind()))) {
+                return false;
+            }
+        }
+        for (int f = 0; f < prefixColumns.length; f++) {
+            int value = row[prefixColumns[f]];
+            if (!prefixValues.get(f).contains(value) && !(InlineLiterals.isInline(value)
+                    && InlineLiterals.label(value).startsWith(prefixFilters.get(f).getPrefix()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Vérifie que le candidat appartient à tous les ensembles sondés
+    private boolean probe(int candidate) {
+        for (Set<Integer> set : probes) {
+            if (metrics != null) {
+                metrics.membershipProbes++;
+            }
+            if (!set.contains(candidate)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Convertit les ensembles sondés en structures primitives lorsque leur construction coûte moins
+    // que les sondages qu'elle remplace : bitmap si l'ensemble est dense par rapport à l'espace des
+    // identifiants, tableau trié sinon. Les grands ensembles restent sondés tels quels, par vecteur.
+    private void prepareBatchProbes(int driverSize) {
+        int universe = dictionary.size();
+        probeBitmaps = new long[probes.size()][];
+        probeSorted = new int[probes.size()][];
+        for (int p = 0; p < probes.size(); p++) {
+            Set<Integer> set = probes.get(p);
+            if (set.size() > driverSize) {
+                continue;
+            }
+            if ((long) set.size() * 64 >= universe) {
+                probeBitmaps[p] = bitmap(set, universe);
+            }
+            if (probeBitmaps[p] == null) {
+                probeSorted[p] = set.stream().mapToInt(Integer::intValue).sorted().toArray();
+            }
+        }
+        batch = new int[BATCH_SIZE];
+    }
+
+    // Bitmap des identifiants de l'ensemble, null s'il contient des littéraux en ligne (hors de l'univers)
+    private static long[] bitmap(Set<Integer> set, int universe) {
+        long[] bits = new long[(universe >>> 6) + 1];
+        for (int id : set) {
+            if (id >= universe) {
+                return null;
+            }
+            bits[id >>> 6] |= 1L << id;
+        }
+        return bits;
+    }
+
+    // Charge le prochain vecteur non vide de candidats ayant passé tous les filtres
+    private boolean loadBatch() {
+        while (driver.hasNext()) {
+            int length = 0;
+            while (length < BATCH_SIZE && driver.hasNext()) {
+                batch[length++] = driver.nextInt();
+                guard.tick();
+            }
+            int loaded = length;
+            for (int p = 0; p < probeBitmaps.length && length > 0; p++) {
+                if (metrics != null) {
+                    metrics.membershipProbes += length;
+                }
+                if (probeBitmaps[p] != null) {
+                    length = filterBitmap(batch, length, probeBitmaps[p]);
+                } else if (probeSorted[p] != null) {
+                    length = filterSorted(batch, length, probeSorted[p]);
+                } else {
+                    length = filterSet(batch, length, probes.get(p));
+                }
+            }
+            if (metrics != null) {
+                metrics.candidates += loaded;
+                metrics.rejectedCandidates += loaded - length;
+            }
+            if (length > 0) {
+                batchLength = length;
+                batchCursor = 0;
+                return true;
+            }
+        }
+        batchLength = 0;
+        batchCursor = 0;
+        return false;
+    }
+
+    // Compacte le vecteur en ne gardant que les identifiants présents dans le bitmap (sans branchement).
+    // Les identifiants au-delà du bitmap (littéraux en ligne) sont lus dans le dernier mot, masqué.
+    static int filterBitmap(int[] values, int length, long[] bits) {
+        int out = 0;
+        int last = bits.length - 1;
+        long limit = (long) bits.length << 6;
+        for (int i = 0; i < length; i++) {
+            int value = values[i];
+            values[out] = value;
+            long inside = (value - limit) >> 63; // -1 si value < limit, 0 sinon
+            out += (int) ((bits[Math.min(value >>> 6, last)] >>> value) & 1L & inside);
+        }
+        return out;
+    }
+
+    // Compacte le vecteur en ne gardant que les identifiants présents dans le tableau trié
+    static int filterSorted(int[] values, int length, int[] sorted) {
+        int out = 0;
+        for (int i = 0; i < length; i++) {
+            int value = values[i];
+            values[out] = value;
+            out += Arrays.binarySearch(sorted, value) >= 0 ? 1 : 0;
+        }
+        return out;
+    }
+
+    // Compacte le vecteur en ne gardant que les identifiants présents dans l'ensemble de l'index
+    static int filterSet(int[] values, int length, Set<Integer> set) {
+        int out = 0;
+        for (int i = 0; i < length; i++) {
+            int value = values[i];
+            values[out] = value;
+            out += set.contains(value) ? 1 : 0;
+        }
+        return out;
+    }
+
+    // Développe un candidat de la variable centrale en l'ensemble de ses lignes encodées
+    private List<int[]> expand(int candidate) {
+        int[] initial = new int[variables.length];
+        Arrays.fill(initial, -1);
+        initial[0] = candidate;
+        List<int[]> rows = List.of(initial);
+
+        for (int i = 0; i < patterns.length && !rows.isEmpty(); i++) {
+            if (filterOnly[i]) {
+                continue; // Le candidat appartient déjà à l'ensemble de cet atome
+            }
+            int[] atomSlots = slots[i];
+            int[] pattern = patterns[i].clone();
+            for (int k = 0; k < 3; k++) {
+                if (atomSlots[k] == 0) {
+                    pattern[k] = candidate;
+                }
+            }
+
+            List<int[]> newRows = new ArrayList<>();
+            List<int[]> triples = index.findMatches(pattern[0], pattern[1], pattern[2], guard);
+            for (int[] triple : triples) {
+                for (int[] row : rows) {
+                    int[] extended = bind(atomSlots, triple, row);
+                    if (extended != null) {
+                        newRows.add(extended);
+                        guard.onRow(newRows.size());
+                    }
+                }
+            }
+            rows = newRows;
+            if (metrics != null) {
+                metrics.indexLookups++;
+                metrics.scanned(i, triples.size());
+                metrics.produced(i, rows.size());
+            }
+        }
+        return rows;
+    }
+
+    // Développe une ligne de la table de propriétés en lignes encodées, sans accès aux index
+    private List<int[]> expandRow(int tableRow) {
+        int subject = table.subject(tableRow);
+        int[] initial = new int[variables.length];
+        Arrays.fill(initial, -1);
+        initial[0] = subject;
+        List<int[]> rows = List.of(initial);
+        int[] triple = {subject, -1, -1};
+
+        for (int i = 0; i < patterns.length && !rows.isEmpty(); i++) {
+            int column = tableColumns[i];
+            int object = patterns[i][2];
+            triple[1] = patterns[i][1];
+            List<int[]> newRows = new ArrayList<>();
+            int from = table.valuesFrom(column, tableRow);
+            int to = table.valuesTo(column, tableRow);
+            for (int position = from; position < to; position++) {
+                int value = table.value(column, position);
+                if (object != -1 && value != object) {
+                    continue;
+                }
+                triple[2] = value;
+                for (int[] row : rows) {
+                    int[] extended = bind(slots[i], triple, row);
+                    if (extended != null) {
+                        newRows.add(extended);
+                        guard.onRow(newRows.size());
+                    }
+                }
+            }
+            rows = newRows;
+            if (metrics != null) {
+                metrics.scanned(i, to - from);
+                metrics.produced(i, rows.size());
+            }
+        }
+        return rows;
+    }
+
+    // Étend une ligne avec les variables d'un atome, null si incompatible
+    static int[] bind(int[] atomSlots, int[] triple, int[] row) {
+        int[] extended = null;
+        for (int k = 0; k < 3; k++) {
+            int slot = atomSlots[k];
+            if (slot == -1) {
+                continue;
+            }
+            int current = extended != null ? extended[slot] : row[slot];
+            if (current == -1) {
+                if (extended == null) {
+                    extended = row.clone();
+                }
+                extended[slot] = triple[k];
+            } else if (current != triple[k]) {
+                return null;
+            }
+        }
+        // Aucune nouvelle liaison : la ligne peut être partagée telle quelle
+        return extended != null ? extended : row;
+    }
+
+    private static void reverse(int[] values) {
+        for (int i = 0; i < values.length / 2; i++) {
+            int tmp = values[i];
+            values[i] = values[values.length - 1 - i];
+            values[values.length - 1 - i] = tmp;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import fr.boreal.model.logicalElements.impl.ConstantImpl;
+import fr.boreal.model.logicalElements.impl.LiteralImpl;
+import fr.boreal.model.logicalElements.impl.VariableImpl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Représentation binaire d'un terme, commune au journal ({@link WriteAheadLog}), à la sauvegarde
+ * de {@link DurableRDFHexaStore}, au {@link FrontCodedDictionary} et au protocole des shards
+ * ({@link ShardProtocol}) : un octet de nature (littéral, constante ou variable), qui indique
+ * comment recréer le terme, puis son libellé en UTF-8.
+ * <p>
+ * Les termes lus dans un flux passent par la fabrique de termes partagée ; ceux décodés depuis une
+ * clé du dictionnaire compressé sont créés directement, sans être conservés par la fabrique.
+ * <p>
+ * Les littéraux précèdent les constantes dans l'ordre des octets : les clés du dictionnaire
+ * compressé d'un même préfixe de littéral sont donc contiguës.
+ */
+final class TermCodec {
+
+    static final byte LITERAL = 0;
+    static final byte CONSTANT = 1;
+    static final byte VARIABLE = 2;
+
+    private TermCodec() {
+    }
+
+    static byte kindOf(Term term) {
+        if (term instanceof Literal<?>) {
+            return LITERAL;
+        }
+        return term instanceof Variable ? VARIABLE : CONSTANT;
+    }
+
+    /**
+     * @throws IllegalArgumentException si la nature est inconnue
+     */
+    static Term createTerm(byte kind, String label) {
+        return switch (kind) {
+            case LITERAL -> SameObjectTermFactory.instance().createOrGetLiteral(label);
+            case CONSTANT -> SameObjectTermFactory.instance().createOrGetConstant(label);
+            case VARIABLE -> SameObjectTermFactory.instance().createOrGetVariable(label);
+            default -> throw new IllegalArgumentException("Nature de terme inconnue : " + kind);
+        };
+    }
+
+    /**
+     * Crée le terme sans passer par la fabrique partagée, qui conserve chaque terme créé : le terme
+     * est égal, mais non identique, à celui de la fabrique de même libellé.
+     *
+     * @throws IllegalArgumentException si la nature est inconnue
+     */
+    static Term createDetachedTerm(byte kind, String label) {
+        return switch (kind) {
+            case LITERAL -> new LiteralImpl<>(label);
+            case CONSTANT -> new ConstantImpl(label);
+            case VARIABLE -> new VariableImpl(label);
+            default -> throw new IllegalArgumentException("Nature de terme inconnue : " + kind);
+        };
+    }
+
+    // Nature puis libellé, sans longueur : clé d'un terme dans le dictionnaire compressé
+    static byte[] encode(Term term) {
+        byte[] label = term.label().getBytes(StandardCharsets.UTF_8);
+        byte[] encoded = new byte[label.length + 1];
+        encoded[0] = kindOf(term);
+        System.arraycopy(label, 0, encoded, 1, label.length);
+        return encoded;
+    }
+
+    static Term decode(byte[] encoded) {
+        return createDetachedTerm(encoded[0], new String(encoded, 1, encoded.length - 1, StandardCharsets.UTF_8));
+    }
+
+    // Préfixe des clés des littéraux commençant par le libellé donné
+    static byte[] literalPrefix(String prefix) {
+        byte[] label = prefix.getBytes(StandardCharsets.UTF_8);
+        byte[] encoded = new byte[label.length + 1];
+        encoded[0] = LITERAL;
+        System.arraycopy(label, 0, encoded, 1, label.length);
+        return encoded;
+    }
+
+    // Nature, longueur du libellé puis libellé : forme d'un terme dans un flux
+    static void write(DataOutput out, Term term) throws IOException {
+        byte[] label = term.label().getBytes(StandardCharsets.UTF_8); // writeUTF est limité à 64 Ko
+        out.writeByte(kindOf(term));
+        out.writeInt(label.length);
+        out.write(label);
+    }
+
+    /**
+     * @throws IOException si le flux se termine avant le terme ou si sa nature est inconnue
+     */
+    static Term read(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        byte[] label = new byte[in.readInt()];
+        in.readFully(label);
+        try {
+            return createTerm(kind, new String(label, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package qengine.storage;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Accès en lecture aux triplets encodés d'un index. {@link RDFIndex} l'implémente, ainsi que les
+ * index non modifiables : base triée ({@link SortedIndex}), version figée d'un store concurrent
+ * ({@link SnapshotIndex}) et vues d'évaluation ({@link SharedScanIndex}).
+ */
+interface TripleIndex {
+
+    // Triplets correspondant au motif (-1 pour une position libre), signalés au garde de la requête
+    List<int[]> findMatches(int subject, int predicate, int object, QueryGuard guard);
+
+    default List<int[]> findMatches(int subject, int predicate, int object) {
+        return findMatches(subject, predicate, object, QueryGuard.NONE);
+    }
+
+    // Valeurs possibles à la position donnée (0 = sujet, 1 = prédicat, 2 = objet) pour un motif
+    // dont les autres positions sont fixées (ou -1). Retourne une vue non modifiable.
+    Set<Integer> findCandidates(int subject, int predicate, int object, int position);
+
+    /**
+     * Sujets associés à chacun des objets demandés pour un prédicat, par une recherche de
+     * candidats par objet.
+     *
+     * @return les sujets de chaque objet présent, les objets absents sont omis
+     */
+    default Map<Integer, Set<Integer>> subjectsByObject(int predicate, Set<Integer> objects) {
+        Map<Integer, Set<Integer>> subjects = new HashMap<>();
+        for (int object : objects) {
+            Set<Integer> candidates = findCandidates(-1, predicate, object, 0);
+            if (!candidates.isEmpty()) {
+                subjects.put(object, candidates);
+            }
+        }
+        return subjects;
+    }
+
+    List<int[]> getAllTriples();
+}
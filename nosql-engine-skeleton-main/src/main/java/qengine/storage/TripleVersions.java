@@ -0,0 +1,170 @@
+package qengine.storage;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Numéro de version de chaque triplet d'un delta, sans objet par triplet : table à adressage ouvert
+ * dont les clés sont rangées par trois dans un tableau d'entiers, à côté d'un tableau de versions
+ * (0 pour une case vide). Un triplet retiré garde sa case, marquée d'une pierre tombale que
+ * les recherches traversent et qu'un nouvel ajout du même triplet réutilise.
+ *
+ * Les ajouts sont faits par un seul écrivain à la fois (sérialisés par l'appelant) ; les lectures
+ * sont sans verrou. La version d'une case est publiée après ses clés, et un agrandissement publie
+ * les nouveaux tableaux d'un seul coup : un lecteur voit chaque triplet soit entièrement, soit pas.
+ */
+final class TripleVersions {
+
+    private static final VarHandle VERSIONS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long REMOVED = -1; // Pierre tombale : case occupée par un triplet retiré
+
+    private record Table(int[] keys, long[] versions) {
+
+        Table(int capacity) {
+            this(new int[3 * capacity], new long[capacity]);
+        }
+    }
+
+    /**
+     * Reçoit les triplets présents et leur version.
+     */
+    interface Visitor {
+        void accept(int subject, int predicate, int object, long version);
+    }
+
+    private volatile Table table = new Table(16);
+    private int size = 0;
+    private int used = 0; // Cases occupées, pierres tombales comprises
+
+    TripleVersions() {
+    }
+
+    private TripleVersions(Table table, int size, int used) {
+        this.table = table;
+        this.size = size;
+        this.used = used;
+    }
+
+    /**
+     * Copie indépendante : les écritures dans la copie ne sont pas vues par les lecteurs de
+     * l'original, et inversement.
+     */
+    TripleVersions copy() {
+        Table current = table;
+        return new TripleVersions(new Table(current.keys().clone(), current.versions().clone()), size, used);
+    }
+
+    // Version d'ajout du triplet, 0 s'il est absent
+    long get(int subject, int predicate, int object) {
+        Table current = table;
+        int slot = find(current, subject, predicate, object);
+        if (slot == -1) {
+            return 0;
+        }
+        long version = (long) VERSIONS.getAcquire(current.versions(), slot);
+        return version == REMOVED ? 0 : version;
+    }
+
+    // Case du triplet, pierre tombale comprise, -1 s'il n'en a pas
+    private static int find(Table table, int subject, int predicate, int object) {
+        int mask = table.versions().length - 1;
+        for (int slot = hash(subject, predicate, object) & mask; ; slot = (slot + 1) & mask) {
+            long version = (long) VERSIONS.getAcquire(table.versions(), slot);
+            if (version == 0) {
+                return -1;
+            }
+            int[] keys = table.keys();
+            if (keys[3 * slot] == subject && keys[3 * slot + 1] == predicate && keys[3 * slot + 2] == object) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Enregistre un triplet avec sa version s'il est absent.
+     *
+     * @param version numéro de version strictement positif
+     * @return faux si le triplet était déjà présent
+     */
+    boolean putIfAbsent(int subject, int predicate, int object, long version) {
+        int existing = find(table, subject, predicate, object);
+        if (existing != -1) {
+            if (table.versions()[existing] != REMOVED) {
+                return false;
+            }
+            VERSIONS.setRelease(table.versions(), existing, version); // Les clés sont déjà en place
+            size++;
+            return true;
+        }
+        if (2 * (used + 1) > table.versions().length) {
+            Table current = table;
+            // Même capacité si les pierres tombales occupent l'essentiel des cases
+            int capacity = current.versions().length;
+            Table larger = new Table(4 * (size + 1) <= capacity ? capacity : 2 * capacity);
+            used = 0;
+            for (int slot = 0; slot < current.versions().length; slot++) {
+                long kept = current.versions()[slot];
+                if (kept != 0 && kept != REMOVED) {
+                    int[] keys = current.keys();
+                    insert(larger, keys[3 * slot], keys[3 * slot + 1], keys[3 * slot + 2], kept);
+                    used++;
+                }
+            }
+            table = larger;
+        }
+        insert(table, subject, predicate, object, version);
+        size++;
+        used++;
+        return true;
+    }
+
+    /**
+     * Retire un triplet en laissant une pierre tombale dans sa case : les lecteurs concurrents ne
+     * voient plus le triplet, sans qu'aucun autre ne soit déplacé.
+     *
+     * @return faux si le triplet était absent
+     */
+    boolean remove(int subject, int predicate, int object) {
+        Table current = table;
+        int slot = find(current, subject, predicate, object);
+        if (slot == -1 || current.versions()[slot] == REMOVED) {
+            return false;
+        }
+        VERSIONS.setRelease(current.versions(), slot, REMOVED);
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Parcourt les triplets présents, sans ordre particulier
+    void forEach(Visitor visitor) {
+        Table current = table;
+        int[] keys = current.keys();
+        for (int slot = 0; slot < current.versions().length; slot++) {
+            long version = (long) VERSIONS.getAcquire(current.versions(), slot);
+            if (version != 0 && version != REMOVED) {
+                visitor.accept(keys[3 * slot], keys[3 * slot + 1], keys[3 * slot + 2], version);
+            }
+        }
+    }
+
+    private static void insert(Table table, int subject, int predicate, int object, long version) {
+        int mask = table.versions().length - 1;
+        int slot = hash(subject, predicate, object) & mask;
+        while (table.versions()[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table.keys()[3 * slot] = subject;
+        table.keys()[3 * slot + 1] = predicate;
+        table.keys()[3 * slot + 2] = object;
+        VERSIONS.setRelease(table.versions(), slot, version);
+    }
+
+    private static int hash(int subject, int predicate, int object) {
+        int h = subject * 0x9E3779B1 + predicate * 0x85EBCA6B + object * 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,113 @@
+package qengine.storage;
+
+import qengine.model.RangeFilter;
+
+import java.util.*;
+
+/**
+ * Index trié des valeurs d'un prédicat pour l'évaluation des FILTER de plage : les objets du
+ * prédicat dont le libellé est une valeur de la nature demandée (nombre ou date) sont rangés par
+ * clé de comparaison, avec leurs sujets. Une plage est résolue par recherche dichotomique de sa
+ * borne inférieure puis parcours jusqu'à sa borne supérieure, sans décoder les autres valeurs.
+ * L'index est une photographie : il doit être reconstruit après une modification du store.
+ */
+final class ValueIndex {
+
+    /**
+     * Fournit l'index des valeurs d'un prédicat, éventuellement mis en cache par le store.
+     */
+    @FunctionalInterface
+    interface Source {
+        ValueIndex get(int predicate, RangeFilter.Kind kind);
+    }
+
+    /**
+     * Résultat d'une plage : les objets du prédicat compris dans la plage et leurs sujets.
+     */
+    record Range(Set<Integer> objects, Set<Integer> subjects) {
+    }
+
+    private final double[] keys; // Clés croissantes, une par couple (objet, sujet)
+    private final int[] objects;
+    private final int[] subjects;
+
+    private ValueIndex(double[] keys, int[] objects, int[] subjects) {
+        this.keys = keys;
+        this.objects = objects;
+        this.subjects = subjects;
+    }
+
+    /**
+     * Construit l'index des valeurs d'un prédicat à partir de po_s.
+     */
+    static ValueIndex build(RDFDictionary dictionary, TripleIndex index, int predicate, RangeFilter.Kind kind) {
+        List<double[]> entries = new ArrayList<>(); // {clé, objet, sujet}
+        for (int object : index.findCandidates(-1, predicate, -1, 2)) {
+            double key = key(dictionary, object, kind);
+            if (Double.isNaN(key)) {
+                continue; // Valeur d'une autre nature : aucune plage ne la contient
+            }
+            for (int subject : index.findCandidates(-1, predicate, object, 0)) {
+                entries.add(new double[]{key, object, subject});
+            }
+        }
+        entries.sort(Comparator.comparingDouble(entry -> entry[0]));
+        double[] keys = new double[entries.size()];
+        int[] objects = new int[entries.size()];
+        int[] subjects = new int[entries.size()];
+        for (int i = 0; i < keys.length; i++) {
+            double[] entry = entries.get(i);
+            keys[i] = entry[0];
+            objects[i] = (int) entry[1];
+            subjects[i] = (int) entry[2];
+        }
+        return new ValueIndex(keys, objects, subjects);
+    }
+
+    // Clé de comparaison d'un terme encodé, NaN s'il n'est pas de la nature demandée
+    static double key(RDFDictionary dictionary, int id, RangeFilter.Kind kind) {
+        if (InlineLiterals.isInline(id)) {
+            // La valeur est dans l'identifiant : pas de décodage
+            int inlineKind = InlineLiterals.kind(id);
+            return kind == RangeFilter.Kind.NUMERIC && inlineKind == InlineLiterals.INTEGER
+                    || kind == RangeFilter.Kind.DATE && inlineKind == InlineLiterals.DATE
+                    ? InlineLiterals.value(id) : Double.NaN;
+        }
+        return kind.key(dictionary.decode(id).label());
+    }
+
+    // Nombre de couples (objet, sujet) indexés
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * Objets et sujets dont la valeur est comprise dans la plage du filtre.
+     */
+    Range range(RangeFilter filter) {
+        Set<Integer> rangeObjects = new HashSet<>();
+        Set<Integer> rangeSubjects = new HashSet<>();
+        for (int i = lowerBound(filter.getLower()); i < keys.length && keys[i] <= filter.getUpper(); i++) {
+            if (filter.contains(keys[i])) {
+                rangeObjects.add(objects[i]);
+                rangeSubjects.add(subjects[i]);
+            }
+        }
+        return new Range(rangeObjects, rangeSubjects);
+    }
+
+    // Première position dont la clé est supérieure ou égale à la borne
+    private int lowerBound(double bound) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < bound) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
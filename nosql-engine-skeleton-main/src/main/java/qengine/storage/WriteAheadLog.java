@@ -0,0 +1,339 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Term;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Journal d'écriture en ajout seul : nouveaux termes du dictionnaire, triplets encodés ajoutés et
+ * retirés. Chaque enregistrement est préfixé de sa longueur et suivi d'une somme CRC32 ; au rejeu,
+ * un enregistrement incomplet ou corrompu (écriture interrompue par une panne) marque la fin du
+ * journal et est tronqué.
+ *
+ * Les enregistrements sont accumulés en mémoire par {@code log*}, qui retourne leur position de
+ * fin ; {@link #commit(long)} les écrit puis les force sur le disque selon la {@link FsyncPolicy}.
+ * La validation est groupée : le premier thread qui valide écrit et synchronise tous les
+ * enregistrements en attente, y compris ceux des autres threads, qui n'ont alors plus rien à faire.
+ *
+ * Les enregistrements ne quittent la mémoire qu'une fois écrits. Si une écriture ou un fsync échoue,
+ * le fichier est tronqué à la fin de la dernière validation réussie (pour ne pas laisser
+ * d'enregistrement partiel devant les suivants) et le journal passe en échec : tout ajout ou
+ * validation ultérieur est refusé.
+ */
+public final class WriteAheadLog implements Closeable {
+
+    static final byte TERM = 1;
+    static final byte ADD = 2;
+    static final byte REMOVE = 3;
+
+    /**
+     * Reçoit les enregistrements lus au rejeu, dans l'ordre du journal.
+     */
+    public interface Listener {
+
+        void onTerm(int id, Term term);
+
+        void onAdd(int subject, int predicate, int object);
+
+        void onRemove(int subject, int predicate, int object);
+    }
+
+    // Tâches de fsync périodique des journaux en FsyncPolicy.INTERVAL
+    private static final ScheduledExecutorService SYNCER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "fsync-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final FileChannel channel;
+    private final FsyncPolicy policy;
+    private final ScheduledFuture<?> periodicSync; // null hors FsyncPolicy.INTERVAL
+    private final Object flushLock = new Object();
+
+    // Enregistrements en attente d'écriture, protégés par this
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+    private int recordStart; // Début, dans pending, de l'enregistrement en cours
+    private long appended; // Position de fin du dernier enregistrement ajouté
+    private volatile long durable; // Position jusqu'à laquelle le journal est validé
+    private long synced; // Position jusqu'à laquelle le journal est forcé sur le disque, protégée par flushLock
+    private long syncs = 0;
+    private volatile IOException failure = null; // Erreur qui a mis le journal en échec
+
+    /**
+     * Ouvre (ou crée) un journal en ajout.
+     *
+     * @param file           le fichier du journal
+     * @param policy         la politique de synchronisation
+     * @param intervalMillis pour {@link FsyncPolicy#INTERVAL}, période du fsync de fond
+     */
+    public WriteAheadLog(Path file, FsyncPolicy policy, long intervalMillis) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+        this.policy = policy;
+        this.appended = channel.size();
+        this.durable = appended;
+        this.synced = appended;
+        this.periodicSync = policy == FsyncPolicy.INTERVAL
+                ? SYNCER.scheduleWithFixedDelay(this::syncWritten, intervalMillis, Math.max(1, intervalMillis),
+                TimeUnit.MILLISECONDS)
+                : null;
+    }
+
+    public synchronized long logTerm(int id, Term term) {
+        byte[] label = term.label().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = begin(TERM, 4 + 1 + 4 + label.length);
+        record.putInt(id).put(TermCodec.kindOf(term)).putInt(label.length).put(label);
+        return end(record);
+    }
+
+    public synchronized long logAdd(int subject, int predicate, int object) {
+        return logTriple(ADD, subject, predicate, object);
+    }
+
+    public synchronized long logRemove(int subject, int predicate, int object) {
+        return logTriple(REMOVE, subject, predicate, object);
+    }
+
+    private long logTriple(byte type, int subject, int predicate, int object) {
+        ByteBuffer record = begin(type, 12);
+        record.putInt(subject).putInt(predicate).putInt(object);
+        return end(record);
+    }
+
+    // Réserve un enregistrement : longueur, type, puis le contenu écrit par l'appelant
+    private ByteBuffer begin(byte type, int payload) {
+        if (failure != null) {
+            throw new UncheckedIOException("Journal en échec, ajout refusé", failure);
+        }
+        int needed = 4 + 1 + payload + 8;
+        if (pending.remaining() < needed) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + needed));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        recordStart = pending.position();
+        pending.putInt(1 + payload).put(type);
+        return pending;
+    }
+
+    // Termine l'enregistrement par sa somme de contrôle et retourne sa position de fin dans le journal
+    private long end(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), recordStart + 4, record.position() - recordStart - 4);
+        record.putLong(crc.getValue());
+        appended += record.position() - recordStart;
+        return appended;
+    }
+
+    /**
+     * Écrit les enregistrements jusqu'à {@code position} et les synchronise selon la politique.
+     *
+     * @param position position retournée par un appel à {@code log*}
+     */
+    public void commit(long position) throws IOException {
+        if (durable >= position) {
+            return; // Déjà validé par une validation groupée
+        }
+        synchronized (flushLock) {
+            if (durable >= position) {
+                return;
+            }
+            checkHealthy();
+            ByteBuffer batch;
+            int length;
+            long end;
+            synchronized (this) {
+                // Les ajouts concurrents écrivent après length (ou dans une copie) : ces octets ne changent plus
+                length = pending.position();
+                batch = ByteBuffer.wrap(pending.array(), 0, length);
+                end = appended;
+            }
+            try {
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                if (policy == FsyncPolicy.ALWAYS) {
+                    channel.force(false);
+                    synced = end;
+                    syncs++;
+                }
+            } catch (IOException | RuntimeException e) {
+                throw fail(e);
+            }
+            synchronized (this) {
+                // Retire les octets écrits, en gardant les enregistrements ajoutés depuis
+                pending.flip().position(length);
+                pending.compact();
+            }
+            durable = end;
+        }
+    }
+
+    // fsync de fond : force les enregistrements validés depuis le dernier fsync
+    private void syncWritten() {
+        synchronized (flushLock) {
+            long end = durable;
+            if (failure != null || !channel.isOpen() || synced >= end) {
+                return;
+            }
+            try {
+                channel.force(false);
+                synced = end;
+                syncs++;
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            }
+        }
+    }
+
+    // Met le journal en échec et le ramène à la dernière validation réussie ; appelé sous flushLock
+    private IOException fail(Exception cause) {
+        IOException error = new IOException("Échec d'écriture du journal", cause);
+        failure = error;
+        try {
+            if (channel.isOpen()) {
+                channel.truncate(durable);
+                channel.position(durable);
+            }
+        } catch (IOException e) {
+            error.addSuppressed(e);
+        }
+        return error;
+    }
+
+    private void checkHealthy() throws IOException {
+        if (failure != null) {
+            throw new IOException("Journal en échec, validation refusée", failure);
+        }
+    }
+
+    // Vrai si une erreur d'écriture a mis le journal en échec
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    // Position de fin du dernier enregistrement ajouté, validé ou non
+    public synchronized long getAppendedPosition() {
+        return appended;
+    }
+
+    // Nombre de fsync effectués par les validations
+    public long getSyncCount() {
+        synchronized (flushLock) {
+            return syncs;
+        }
+    }
+
+    // Vide le journal après un point de reprise
+    public void truncate() throws IOException {
+        synchronized (flushLock) {
+            checkHealthy();
+            synchronized (this) {
+                pending.clear();
+                channel.truncate(0);
+                channel.position(0);
+                channel.force(true);
+                appended = 0;
+                durable = 0;
+                synced = 0;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        long end;
+        synchronized (this) {
+            if (!channel.isOpen()) {
+                return;
+            }
+            end = appended;
+        }
+        if (periodicSync != null) {
+            periodicSync.cancel(false);
+        }
+        try {
+            commit(end);
+        } finally {
+            synchronized (flushLock) {
+                if (failure == null && channel.isOpen()) {
+                    channel.force(true);
+                }
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Rejoue un journal : transmet ses enregistrements valides dans l'ordre, puis tronque le
+     * fichier après le dernier d'entre eux.
+     *
+     * @return le nombre d'enregistrements rejoués
+     */
+    public static long replay(Path file, Listener listener) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long records = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Lecture en flux par un tampon borné : seul l'enregistrement courant est en mémoire
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+            long size = channel.size();
+            long valid = 0;
+            byte[] record = new byte[256];
+            CRC32 crc = new CRC32();
+            while (size - valid >= 4) {
+                int length = in.readInt();
+                if (length < 1 || size - valid - 4 < length + 8L) {
+                    break; // Enregistrement incomplet
+                }
+                if (record.length < length) {
+                    record = new byte[Math.max(length, record.length * 2)];
+                }
+                in.readFully(record, 0, length);
+                crc.reset();
+                crc.update(record, 0, length);
+                if (in.readLong() != crc.getValue()) {
+                    break; // Enregistrement corrompu
+                }
+                dispatch(ByteBuffer.wrap(record, 0, length), listener);
+                valid += 4 + length + 8;
+                records++;
+            }
+            if (valid < channel.size()) {
+                channel.truncate(valid);
+                channel.force(true);
+            }
+        }
+        return records;
+    }
+
+    private static void dispatch(ByteBuffer record, Listener listener) {
+        byte type = record.get();
+        switch (type) {
+            case TERM -> {
+                int id = record.getInt();
+                byte kind = record.get();
+                byte[] label = new byte[record.getInt()];
+                record.get(label);
+                listener.onTerm(id, TermCodec.createTerm(kind, new String(label, StandardCharsets.UTF_8)));
+            }
+            case ADD -> listener.onAdd(record.getInt(), record.getInt(), record.getInt());
+            case REMOVE -> listener.onRemove(record.getInt(), record.getInt(), record.getInt());
+            default -> throw new IllegalStateException("Type d'enregistrement inconnu dans le journal : " + type);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package qengine.model;
+
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe RangeFilter.
+ */
+class RangeFilterTest {
+
+    private final Variable x = SameObjectTermFactory.instance().createOrGetVariable("?x");
+
+    @Test
+    void testComparisonOperators() {
+        assertTrue(RangeFilter.of(x, "<", "10").accepts("9.5"));
+        assertFalse(RangeFilter.of(x, "<", "10").accepts("10"));
+        assertTrue(RangeFilter.of(x, "<=", "10").accepts("10"));
+        assertTrue(RangeFilter.of(x, ">=", "-3").accepts("-3"));
+        assertFalse(RangeFilter.of(x, ">", "-3").accepts("-3"));
+        assertTrue(RangeFilter.of(x, "=", "1e2").accepts("100"));
+        assertThrows(IllegalArgumentException.class, () -> RangeFilter.of(x, "!=", "10"));
+        assertThrows(IllegalArgumentException.class, () -> RangeFilter.of(x, "<", "dix"));
+    }
+
+    @Test
+    void testDatesAndOtherValues() {
+        RangeFilter after = RangeFilter.of(x, ">", "2000-01-01");
+        assertEquals(RangeFilter.Kind.DATE, after.getKind());
+        assertTrue(after.accepts("2000-01-02"));
+        assertFalse(after.accepts("1999-12-31"));
+        assertFalse(after.accepts("2000"), "Un nombre n'est pas une date.");
+        assertFalse(RangeFilter.of(x, ">", "0").accepts("http://example.org/a"), "Un IRI n'est dans aucune plage.");
+    }
+
+    @Test
+    void testIntersect() {
+        RangeFilter range = RangeFilter.of(x, ">=", "10").intersect(RangeFilter.of(x, "<", "20"));
+        assertEquals(new RangeFilter(x, RangeFilter.Kind.NUMERIC, 10, true, 20, false), range);
+        assertEquals(range, range.intersect(RangeFilter.of(x, ">", "5")));
+        assertFalse(range.intersect(RangeFilter.of(x, ">", "10")).accepts("10"));
+        assertThrows(IllegalArgumentException.class, () -> range.intersect(RangeFilter.of(x, "<", "2000-01-01")));
+    }
+}
@@ -5,6 +5,8 @@ import fr.boreal.model.logicalElements.api.Variable;
 import fr.boreal.model.query.api.Query;
 import org.junit.jupiter.api.Test;
 import qengine.model.RDFAtom;
+import qengine.model.RangeFilter;
+import qengine.model.SolutionModifiers;
 import qengine.model.StarQuery;
 
 import java.io.IOException;
@@ -126,4 +128,106 @@ class StarQuerySparQLParserTest {
         }
     }
 
+    @Test
+    void testParseSolutionModifiers() throws IOException {
+        String modifiersQueryFile = "src/test/resources/modifiers_query.queryset";
+
+        try (StarQuerySparQLParser parser = new StarQuerySparQLParser(modifiersQueryFile)) {
+            StarQuery withModifiers = (StarQuery) parser.next();
+            SolutionModifiers modifiers = withModifiers.getModifiers();
+            assertEquals(10, modifiers.getLimit(), "La limite devrait être 10.");
+            assertEquals(5, modifiers.getOffset(), "Le décalage devrait être 5.");
+            assertEquals(SolutionModifiers.CentralOrder.DESC, modifiers.getOrder(), "Le tri devrait être décroissant.");
+
+            StarQuery withoutModifiers = (StarQuery) parser.next();
+            assertEquals(SolutionModifiers.NONE, withoutModifiers.getModifiers(), "La seconde requête n'a pas de modificateurs.");
+            assertFalse(parser.hasNext(), "Le fichier ne contient que deux requêtes.");
+        }
+    }
+
+    @Test
+    void testParseModifiersOnSeparateLines() throws IOException {
+        String modifiersQueryFile = "src/test/resources/modifiers_multiline_query.queryset";
+
+        try (StarQuerySparQLParser parser = new StarQuerySparQLParser(modifiersQueryFile)) {
+            SolutionModifiers first = ((StarQuery) parser.next()).getModifiers();
+            assertEquals(10, first.getLimit(), "La limite devrait être 10.");
+            assertEquals(5, first.getOffset(), "Le décalage devrait être 5.");
+            assertEquals(SolutionModifiers.CentralOrder.DESC, first.getOrder(), "Le tri devrait être décroissant.");
+
+            // Modificateurs après l'accolade fermante puis sur la ligne suivante
+            SolutionModifiers second = ((StarQuery) parser.next()).getModifiers();
+            assertEquals(4, second.getLimit(), "La limite devrait être 4.");
+            assertEquals(2, second.getOffset(), "Le décalage devrait être 2.");
+
+            // Une ligne vide termine la requête : le LIMIT qui suit est seul
+            assertThrows(RuntimeException.class, parser::next,
+                    "Des modificateurs séparés par une ligne vide ne forment pas une requête.");
+        }
+    }
+
+    @Test
+    void testParseIsolatedQuery() {
+        // Modificateurs sur des lignes séparées, après l'accolade fermante
+        StarQuery query = StarQuerySparQLParser.parseQuery("""
+                SELECT ?v0 WHERE {
+                    ?v0 <http://schema.org/eligibleRegion> <http://db.uwaterloo.ca/~galuc/wsdbm/Country137> .
+                }
+                ORDER BY DESC(?v0)
+                LIMIT 3
+                """);
+        assertEquals("?v0", query.getCentralVariable().label());
+        assertEquals(1, query.getRdfAtoms().size());
+        assertEquals(3, query.getModifiers().getLimit());
+        assertEquals(SolutionModifiers.CentralOrder.DESC, query.getModifiers().getOrder());
+
+        assertThrows(RuntimeException.class, () -> StarQuerySparQLParser.parseQuery("SELECT ?x WHERE { ?x"),
+                "Une requête SparQL invalide devrait lever une exception.");
+    }
+
+    @Test
+    void testParseRangeFilter() {
+        StarQuery query = StarQuerySparQLParser.parseQuery("""
+                SELECT ?v0 ?v1 WHERE {
+                    ?v0 <http://schema.org/birthDate> ?v1 .
+                    ?v0 <http://xmlns.com/foaf/age> ?v2 .
+                    FILTER(?v1 >= "1980-01-01" && ?v1 < "1990-01-01")
+                    FILTER(18 < ?v2)
+                }
+                """);
+        assertEquals(2, query.getFilters().size());
+        RangeFilter dates = query.getFilters().stream()
+                .filter(filter -> filter.getVariable().label().equals("?v1")).findFirst().orElseThrow();
+        assertEquals(RangeFilter.Kind.DATE, dates.getKind());
+        assertTrue(dates.accepts("1980-01-01"));
+        assertFalse(dates.accepts("1990-01-01"));
+        RangeFilter ages = query.getFilters().stream()
+                .filter(filter -> filter.getVariable().label().equals("?v2")).findFirst().orElseThrow();
+        assertTrue(ages.accepts("19"));
+        assertFalse(ages.accepts("18"), "La comparaison 18 < ?v2 est retournée.");
+
+        assertThrows(IllegalArgumentException.class, () -> StarQuerySparQLParser.parseQuery("""
+                SELECT ?v0 WHERE { ?v0 <http://schema.org/name> ?v1 . FILTER(regex(?v1, "^A")) }
+                """), "Seules les comparaisons de plage sont supportées.");
+    }
+
+    @Test
+    void testParsePrefixFilter() {
+        StarQuery query = StarQuerySparQLParser.parseQuery("""
+                SELECT ?v0 ?v1 WHERE {
+                    ?v0 <http://schema.org/name> ?v1 .
+                    ?v0 <http://schema.org/birthDate> ?v2 .
+                    FILTER(STRSTARTS(?v1, "Al") && ?v2 > "1980-01-01" && STRSTARTS(?v1, "Ali"))
+                }
+                """);
+        assertEquals(1, query.getPrefixFilters().size());
+        assertEquals("Ali", query.getPrefixFilters().get(0).getPrefix(), "Le préfixe le plus long est retenu.");
+        assertEquals("?v1", query.getPrefixFilters().get(0).getVariable().label());
+        assertEquals(1, query.getFilters().size());
+
+        assertThrows(IllegalArgumentException.class, () -> StarQuerySparQLParser.parseQuery("""
+                SELECT ?v0 WHERE { ?v0 <http://schema.org/name> ?v1 . FILTER(STRSTARTS(STR(?v0), "http")) }
+                """), "STRSTARTS n'est supporté que sur une variable.");
+    }
+
 }
@@ -0,0 +1,59 @@
+package qengine.program;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(95, histogram.getValueAtPercentile(95));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+        assertEquals(1, histogram.getMin());
+        assertEquals(50.5, histogram.getMean(), 1e-9);
+    }
+
+    @Test
+    public void testLargeValuesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1_000);
+        }
+        long p99 = histogram.getValueAtPercentile(99);
+        assertEquals(9_900_000, p99, 9_900_000 * 2.0 / LatencyHistogram.SUB_BUCKETS, "Erreur relative bornée.");
+        assertTrue(p99 >= 9_900_000, "Le percentile est la borne haute de son intervalle.");
+        assertEquals(10_000_000, histogram.getValueAtPercentile(100), "Le maximum est exact.");
+    }
+
+    @Test
+    public void testBucketBoundaries() {
+        for (long value : new long[]{127, 128, 129, 255, 256, 1L << 40, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.highestEquivalent(index) >= value, "Borne haute pour " + value);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.highestEquivalent(index - 1) < value, "Intervalle précédent pour " + value);
+            }
+        }
+    }
+
+    @Test
+    public void testAddMergesCounts() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10);
+        second.record(20);
+        second.record(30);
+        first.add(second);
+        assertEquals(3, first.getCount());
+        assertEquals(30, first.getMax());
+        assertEquals(10, first.getMin());
+        assertThrows(IllegalArgumentException.class, () -> first.record(-1));
+    }
+}
@@ -0,0 +1,147 @@
+package qengine.program;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.storage.RDFHexaStore;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SparqlEndpointTest {
+
+    private static final String KNOWS = "http://example.org/knows";
+    private static final String QUERY = "SELECT ?x WHERE { ?x <" + KNOWS + "> <http://example.org/bob> . }";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private SparqlEndpoint endpoint;
+
+    private static Literal<String> term(String label) {
+        return SameObjectTermFactory.instance().createOrGetLiteral(label);
+    }
+
+    @BeforeEach
+    public void start() throws IOException {
+        RDFHexaStore store = new RDFHexaStore();
+        for (int i = 0; i < 50; i++) {
+            store.add(new RDFAtom(term("http://example.org/p" + i), term(KNOWS), term("http://example.org/bob")));
+        }
+        store.add(new RDFAtom(term("http://example.org/bob"), term(KNOWS), term("http://example.org/alice")));
+        endpoint = new SparqlEndpoint(store, 0);
+    }
+
+    @AfterEach
+    public void stop() {
+        endpoint.close();
+    }
+
+    private URI uri(String parameters) {
+        return URI.create("http://localhost:" + endpoint.getPort() + SparqlEndpoint.PATH + parameters);
+    }
+
+    private HttpResponse<String> get(String query) throws IOException, InterruptedException {
+        String encoded = URLEncoder.encode(query, StandardCharsets.UTF_8);
+        return client.send(HttpRequest.newBuilder(uri("?query=" + encoded)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void testGetReturnsHeaderAndOneLinePerAnswer() throws IOException, InterruptedException {
+        HttpResponse<String> response = get(QUERY);
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/tab-separated-values"));
+
+        List<String> lines = response.body().lines().toList();
+        assertEquals("?x", lines.get(0));
+        assertEquals(50, lines.size() - 1);
+        assertTrue(lines.contains("http://example.org/p7"));
+    }
+
+    @Test
+    public void testPostBodyAndForm() throws IOException, InterruptedException {
+        HttpResponse<String> direct = client.send(HttpRequest.newBuilder(uri(""))
+                .header("Content-Type", "application/sparql-query")
+                .POST(HttpRequest.BodyPublishers.ofString(QUERY + "\nLIMIT 5")).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, direct.statusCode());
+        assertEquals(6, direct.body().lines().count(), "En-tête et cinq réponses.");
+
+        HttpResponse<String> form = client.send(HttpRequest.newBuilder(uri(""))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("query=" + URLEncoder.encode(QUERY, StandardCharsets.UTF_8)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, form.statusCode());
+        assertEquals(51, form.body().lines().count());
+    }
+
+    @Test
+    public void testInvalidRequests() throws IOException, InterruptedException {
+        assertEquals(400, get("SELECT ?x WHERE { ?x").statusCode());
+        assertEquals(400, client.send(HttpRequest.newBuilder(uri("")).build(), HttpResponse.BodyHandlers.ofString())
+                .statusCode(), "Paramètre query manquant.");
+        assertEquals(405, client.send(HttpRequest.newBuilder(uri("?query=x")).DELETE().build(),
+                HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    public void testFailureWhileStreamingAbortsResponse() throws IOException {
+        RDFHexaStore failing = new RDFHexaStore() {
+            @Override
+            public Iterator<Substitution> match(StarQuery query) {
+                Iterator<Substitution> answers = super.match(query);
+                return new Iterator<>() {
+                    private int returned = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return true;
+                    }
+
+                    @Override
+                    public Substitution next() {
+                        if (++returned > 2) {
+                            throw new IllegalStateException("Panne pendant l'évaluation.");
+                        }
+                        return answers.next();
+                    }
+                };
+            }
+        };
+        for (int i = 0; i < 5; i++) {
+            failing.add(new RDFAtom(term("http://example.org/p" + i), term(KNOWS), term("http://example.org/bob")));
+        }
+        try (SparqlEndpoint broken = new SparqlEndpoint(failing, 0)) {
+            URI uri = URI.create("http://localhost:" + broken.getPort() + SparqlEndpoint.PATH + "?query="
+                    + URLEncoder.encode(QUERY, StandardCharsets.UTF_8));
+            // Le corps ne se termine pas normalement : le client ne peut pas prendre les deux lignes pour le résultat complet
+            assertThrows(IOException.class, () -> client.send(HttpRequest.newBuilder(uri).build(),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+    }
+
+    @Test
+    public void testConcurrentClients() {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        String encoded = URLEncoder.encode(QUERY, StandardCharsets.UTF_8);
+        for (int i = 0; i < 100; i++) {
+            responses.add(client.sendAsync(HttpRequest.newBuilder(uri("?query=" + encoded)).build(),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.join().statusCode());
+            assertEquals(51, response.join().body().lines().count());
+        }
+    }
+}
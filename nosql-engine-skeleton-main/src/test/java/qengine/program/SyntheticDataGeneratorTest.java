@@ -0,0 +1,101 @@
+package qengine.program;
+
+import org.junit.jupiter.api.Test;
+import qengine.model.StarQuery;
+import qengine.storage.RDFHexaStore;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SyntheticDataGeneratorTest {
+
+    @Test
+    public void testGeneratesExactCountDeterministically() {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(5_000, 16, 1.0, 8, 1.0, 7);
+        List<String> first = new ArrayList<>();
+        generator.generate((s, p, o) -> first.add(s + " " + p + " " + o));
+        List<String> second = new ArrayList<>();
+        new SyntheticDataGenerator(5_000, 16, 1.0, 8, 1.0, 7).generate((s, p, o) -> second.add(s + " " + p + " " + o));
+
+        assertEquals(5_000, first.size());
+        assertEquals(first, second, "Même graine, mêmes triplets.");
+    }
+
+    @Test
+    public void testSubjectsFollowCharacteristicSets() {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(5_000, 16, 1.0, 8, 1.0, 7);
+        Set<List<Integer>> sets = new HashSet<>();
+        for (int[] set : generator.getCharacteristicSets()) {
+            sets.add(Arrays.stream(set).boxed().toList());
+        }
+
+        Map<Integer, TreeSet<Integer>> bySubject = new HashMap<>();
+        generator.generate((s, p, o) -> bySubject.computeIfAbsent(s, k -> new TreeSet<>()).add(p));
+        bySubject.remove(Collections.max(bySubject.keySet())); // Le dernier sujet peut être tronqué
+        for (TreeSet<Integer> predicates : bySubject.values()) {
+            assertTrue(sets.contains(new ArrayList<>(predicates)), "Chaque sujet porte un ensemble généré.");
+        }
+    }
+
+    @Test
+    public void testSubjectsNeverShareValueIris() {
+        // Plusieurs graines : le nombre de sujets tirés dépasse souvent l'estimation
+        for (long seed = 0; seed < 10; seed++) {
+            SyntheticDataGenerator generator = new SyntheticDataGenerator(3_000, 12, 1.0, 6, 1.0, seed);
+            Set<String> subjects = new HashSet<>();
+            Set<String> values = new HashSet<>();
+            generator.generate((s, p, o) -> {
+                subjects.add(generator.node(s));
+                if (generator.kindOf(p) != SyntheticDataGenerator.ObjectKind.REFERENCE) {
+                    values.add(generator.node(o));
+                }
+            });
+            for (String subject : subjects) {
+                assertTrue(subject.contains("/Entity"), subject);
+                assertFalse(values.contains(subject), "Un sujet ne doit pas être une valeur : " + subject);
+            }
+            for (String value : values) {
+                assertFalse(value.contains("/Entity"), value);
+            }
+        }
+    }
+
+    @Test
+    public void testQueriesParseAndMatchGeneratedData() throws IOException {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(2_000, 12, 1.0, 6, 1.0, 3);
+        Path data = Files.createTempFile("synthetic", ".nt");
+        Path queryFile = Files.createTempFile("synthetic", ".queryset");
+        try {
+            StringWriter triples = new StringWriter();
+            generator.writeNTriples(triples);
+            Files.writeString(data, triples.toString());
+            StringWriter queryText = new StringWriter();
+            generator.writeQueries(queryText, generator.generateQueries(20, 1, 3, 1.0));
+            Files.writeString(queryFile, queryText.toString());
+
+            RDFHexaStore store = new RDFHexaStore();
+            store.addAll(Verification.parseRDFData(data.toString()));
+            List<StarQuery> queries = Verification.parseSparQLQueries(queryFile.toString());
+
+            assertEquals(20, queries.size());
+            for (StarQuery query : queries) {
+                assertTrue(store.match(query).hasNext(), "Sans constante, chaque forme générée a des réponses.");
+            }
+        } finally {
+            Files.deleteIfExists(data);
+            Files.deleteIfExists(queryFile);
+        }
+    }
+
+    @Test
+    public void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new SyntheticDataGenerator(0, 16, 1.0, 8, 1.0, 7));
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(100, 16, 1.0, 8, 1.0, 7);
+        assertThrows(IllegalArgumentException.class, () -> generator.generateQueries(1, 1, 2, 0));
+    }
+}
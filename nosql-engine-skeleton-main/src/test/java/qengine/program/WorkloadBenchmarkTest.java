@@ -0,0 +1,46 @@
+package qengine.program;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkloadBenchmarkTest {
+
+    private static final Literal<String> ALICE = SameObjectTermFactory.instance().createOrGetLiteral("Alice");
+    private static final Literal<String> BOB = SameObjectTermFactory.instance().createOrGetLiteral("Bob");
+    private static final Literal<String> KNOWS = SameObjectTermFactory.instance().createOrGetLiteral("knows");
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+
+    @Test
+    public void testTemplateIgnoresObjectConstants() {
+        StarQuery withBob = new StarQuery("q1", List.of(new RDFAtom(VAR_X, KNOWS, BOB)), List.of(VAR_X));
+        StarQuery withAlice = new StarQuery("q2", List.of(new RDFAtom(VAR_X, KNOWS, ALICE)), List.of(VAR_X));
+        assertEquals(WorkloadBenchmark.templateOf(withBob), WorkloadBenchmark.templateOf(withAlice));
+    }
+
+    @Test
+    public void testRunReportsEveryMeasuredQuery() {
+        List<RDFAtom> atoms = List.of(new RDFAtom(ALICE, KNOWS, BOB), new RDFAtom(BOB, KNOWS, ALICE));
+        List<StarQuery> queries = List.of(
+                new StarQuery("q1", List.of(new RDFAtom(VAR_X, KNOWS, BOB)), List.of(VAR_X)),
+                new StarQuery("q2", List.of(new RDFAtom(VAR_X, KNOWS, ALICE)), List.of(VAR_X)));
+
+        WorkloadBenchmark.Report report = WorkloadBenchmark.run(
+                WorkloadBenchmark.createEngine("hexastore"), atoms, queries, 1, 3);
+
+        assertEquals(6, report.latencies.getCount(), "Deux requêtes sur trois tours mesurés.");
+        assertEquals(2, report.answersPerRun);
+        assertEquals(1, report.byTemplate.size(), "Les deux requêtes relèvent du même modèle.");
+        String json = report.toJson("hexastore", "data.nt", "queries.queryset");
+        assertTrue(json.contains("\"store\": \"hexastore\""));
+        assertTrue(json.contains("\"p99\""));
+        assertThrows(IllegalArgumentException.class, () -> WorkloadBenchmark.createEngine("inconnu"));
+    }
+}
@@ -0,0 +1,83 @@
+package qengine.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CharacteristicSetIndexTest {
+
+    // Ajoute un triplet à l'index puis met à jour les ensembles caractéristiques
+    private static void add(RDFIndex index, CharacteristicSetIndex sets, int s, int p, int o) {
+        if (index.addTriple(s, p, o)) {
+            sets.onTripleAdded(s, p);
+        }
+    }
+
+    @Test
+    public void testSubjectsGroupedByPredicateSet() {
+        RDFIndex index = new RDFIndex();
+        CharacteristicSetIndex sets = new CharacteristicSetIndex(index);
+
+        add(index, sets, 0, 10, 100);
+        add(index, sets, 0, 11, 101);
+        add(index, sets, 1, 11, 102);
+        add(index, sets, 1, 10, 103);
+        add(index, sets, 2, 10, 104);
+
+        assertEquals(2, sets.getSets().size(), "Deux ensembles : {10, 11} et {10}.");
+        assertSame(sets.getSet(0), sets.getSet(1), "Les sujets 0 et 1 partagent le même ensemble.");
+        assertArrayEquals(new int[]{10, 11}, sets.getSet(0).getPredicates());
+        assertEquals(Set.of(0, 1), sets.getSet(0).getSubjects());
+        assertEquals(3, sets.countSubjects(new int[]{10}), "Trois sujets ont le prédicat 10.");
+        assertEquals(2, sets.countSubjects(new int[]{11, 10}), "Deux sujets ont les prédicats 10 et 11.");
+        assertEquals(0, sets.countSubjects(new int[]{12}), "Aucun sujet n'a le prédicat 12.");
+    }
+
+    @Test
+    public void testOccurrencesAndEstimate() {
+        RDFIndex index = new RDFIndex();
+        CharacteristicSetIndex sets = new CharacteristicSetIndex(index);
+
+        add(index, sets, 0, 10, 100);
+        add(index, sets, 0, 10, 101);
+        add(index, sets, 0, 10, 101); // Doublon ignoré
+        add(index, sets, 1, 10, 100);
+
+        CharacteristicSetIndex.CharacteristicSet set = sets.getSet(0);
+        assertEquals(3, set.occurrences(10), "Trois triplets distincts portent le prédicat 10.");
+        assertEquals(3.0, sets.estimateStar(new int[]{10}, new int[]{-1}), 1e-9, "Étoile (?x, 10, ?y) : 3 réponses.");
+        assertEquals(2.0, sets.estimateStar(new int[]{10}, new int[]{100}), 1e-9, "Étoile (?x, 10, 100) : 2 réponses.");
+        assertEquals(List.of(), sets.supersetsOf(new int[]{10, 11}));
+    }
+
+    @Test
+    public void testRemovalMovesSubjectToSmallerSet() {
+        RDFIndex index = new RDFIndex();
+        CharacteristicSetIndex sets = new CharacteristicSetIndex(index);
+
+        add(index, sets, 0, 10, 100);
+        add(index, sets, 0, 10, 101);
+        add(index, sets, 0, 11, 102);
+        add(index, sets, 1, 10, 103);
+
+        index.removeTriple(0, 10, 100);
+        sets.onTripleRemoved(0, 10);
+        assertEquals(1, sets.getSet(0).occurrences(10), "Le sujet 0 garde un triplet du prédicat 10.");
+
+        index.removeTriple(0, 11, 102);
+        sets.onTripleRemoved(0, 11);
+        assertSame(sets.getSet(0), sets.getSet(1), "Le sujet 0 rejoint l'ensemble {10}.");
+        assertEquals(1, sets.getSets().size(), "L'ensemble {10, 11} vide est supprimé.");
+        assertEquals(2, sets.getSet(1).occurrences(10));
+
+        // Retrait en lot de tous les triplets du sujet 0
+        index.removeTriple(0, 10, 101);
+        sets.onTriplesRemoved(0, new int[]{10});
+        assertNull(sets.getSet(0), "Un sujet sans triplet n'a plus d'ensemble.");
+        assertEquals(1, sets.countSubjects(new int[]{10}));
+        assertEquals(1.0, sets.estimateStar(new int[]{10}, new int[]{-1}), 1e-9);
+    }
+}
@@ -0,0 +1,297 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.RangeFilter;
+import qengine.model.SolutionModifiers;
+import qengine.model.StarQuery;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static qengine.storage.StoreFixtures.*;
+
+public class ConcurrentRDFHexaStoreTest {
+
+    // Chaque sujet reçoit chaque prédicat, avec des objets partagés
+    private static List<RDFAtom> atoms() {
+        return grid(500, 4, 7, 31, 0);
+    }
+
+    private static List<StarQuery> queries() {
+        return List.of(
+                new StarQuery("q1", List.of(new RDFAtom(VAR_X, term("p0"), term("o3"))), List.of(VAR_X)),
+                new StarQuery("q2", List.of(new RDFAtom(VAR_X, term("p1"), VAR_Y),
+                        new RDFAtom(VAR_X, term("p2"), term("o9"))), List.of(VAR_X, VAR_Y)),
+                new StarQuery("q3", List.of(new RDFAtom(VAR_X, term("p3"), VAR_Y)), List.of(VAR_X, VAR_Y)));
+    }
+
+    @Test
+    public void testSequentialBehaviourMatchesHexaStore() {
+        ConcurrentRDFHexaStore store = new ConcurrentRDFHexaStore();
+        RDFHexaStore reference = new RDFHexaStore();
+        for (RDFAtom atom : atoms()) {
+            assertEquals(reference.add(atom), store.add(atom));
+        }
+        assertFalse(store.add(atoms().get(0)), "Un doublon ne doit pas être ajouté.");
+        assertEquals(reference.size(), store.size());
+        assertEquals(new HashSet<>(reference.getAtoms()), new HashSet<>(store.getAtoms()));
+
+        RDFAtom pattern = new RDFAtom(term("s4"), term("p1"), VAR_Y);
+        assertEquals(answers(reference.match(pattern)), answers(store.match(pattern)));
+        for (StarQuery query : queries()) {
+            assertEquals(answers(reference.match(query)), answers(store.match(query)), query.getLabel());
+        }
+    }
+
+    @Test
+    public void testReadersDuringInsertions() throws InterruptedException {
+        ConcurrentRDFHexaStore store = new ConcurrentRDFHexaStore();
+        List<RDFAtom> atoms = atoms();
+        List<StarQuery> queries = queries();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        Thread writer = new Thread(() -> {
+            try {
+                atoms.forEach(store::add);
+            } catch (Throwable t) {
+                failures.add(t);
+            } finally {
+                writing.set(false);
+            }
+        });
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            readers.add(new Thread(() -> {
+                try {
+                    // Tant que l'écrivain travaille, le nombre de réponses d'une requête ne peut que croître
+                    Map<String, Integer> previous = new HashMap<>();
+                    do {
+                        for (StarQuery query : queries) {
+                            int count = answers(store.match(query)).size();
+                            assertTrue(count >= previous.getOrDefault(query.getLabel(), 0), query.getLabel());
+                            previous.put(query.getLabel(), count);
+                        }
+                    } while (writing.get());
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            }));
+        }
+        readers.forEach(Thread::start);
+        writer.start();
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertTrue(failures.isEmpty(), () -> "Échec concurrent : " + failures.peek());
+        assertEquals(atoms.size(), store.size());
+        RDFHexaStore reference = new RDFHexaStore();
+        reference.addAll(atoms);
+        for (StarQuery query : queries) {
+            assertEquals(answers(reference.match(query)), answers(store.match(query)), query.getLabel());
+        }
+    }
+
+    @Test
+    public void testSnapshotIgnoresLaterInsertions() {
+        ConcurrentRDFHexaStore store = new ConcurrentRDFHexaStore();
+        List<RDFAtom> atoms = atoms();
+        store.addAll(atoms.subList(0, 100));
+        ConcurrentRDFHexaStore.Snapshot snapshot = store.snapshot();
+        long version = store.getVersion();
+        StarQuery query = queries().get(2);
+        Set<Map<Variable, Term>> before = answers(snapshot.match(query));
+
+        store.addAll(atoms.subList(100, atoms.size()));
+        assertEquals(version + 1, store.getVersion(), "Un addAll publie une seule version.");
+        assertEquals(before, answers(snapshot.match(query)), "Le snapshot ne doit pas voir les nouveaux triplets.");
+        assertEquals(100, snapshot.size());
+        assertEquals(100, snapshot.getAtoms().size());
+        assertTrue(answers(store.match(query)).size() > before.size());
+        assertEquals(atoms.size(), store.size());
+    }
+
+    @Test
+    public void testCompactionKeepsAnswersAndOldSnapshots() {
+        ConcurrentRDFHexaStore store = new ConcurrentRDFHexaStore(10);
+        RDFHexaStore reference = new RDFHexaStore();
+        List<RDFAtom> atoms = atoms();
+        ConcurrentRDFHexaStore.Snapshot early = null;
+        for (int i = 0; i < atoms.size(); i++) {
+            store.add(atoms.get(i));
+            reference.add(atoms.get(i));
+            if (i == 5) {
+                early = store.snapshot();
+            }
+        }
+        // Réponses identiques pendant les fusions en arrière-plan, puis une fois la base à jour
+        for (StarQuery query : queries()) {
+            assertEquals(answers(reference.match(query)), answers(store.match(query)), query.getLabel());
+        }
+        store.awaitCompaction();
+        assertFalse(store.add(atoms.get(3)), "Un doublon de la base ne doit pas être ajouté.");
+        assertEquals(atoms.size(), store.size());
+        for (StarQuery query : queries()) {
+            assertEquals(answers(reference.match(query)), answers(store.match(query)), query.getLabel());
+        }
+        RDFAtom pattern = new RDFAtom(term("s42"), VAR_X, VAR_Y);
+        assertEquals(answers(reference.match(pattern)), answers(store.match(pattern)));
+        assertEquals(6, early.getAtoms().size(), "Un ancien snapshot reste lisible après les fusions.");
+    }
+
+    @Test
+    public void testBatchesBecomeVisibleAtomically() throws InterruptedException {
+        ConcurrentRDFHexaStore store = new ConcurrentRDFHexaStore(64);
+        int batches = 200;
+        int batchSize = 7;
+        StarQuery query = new StarQuery("lot", List.of(new RDFAtom(VAR_X, term("lot"), VAR_Y)), List.of(VAR_X, VAR_Y));
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        Thread writer = new Thread(() -> {
+            try {
+                for (int b = 0; b < batches; b++) {
+                    List<RDFAtom> batch = new ArrayList<>();
+                    for (int k = 0; k < batchSize; k++) {
+                        batch.add(new RDFAtom(term("b" + b), term("lot"), term("v" + k)));
+                    }
+                    store.addAll(batch);
+                }
+            } finally {
+                writing.set(false);
+            }
+        });
+        Thread reader = new Thread(() -> {
+            try {
+                do {
+                    int count = answers(store.match(query)).size();
+                    assertEquals(0, count % batchSize, "Un lot ne doit jamais être visible en partie.");
+                } while (writing.get());
+            } catch (Throwable t) {
+                failures.add(t);
+            }
+        });
+        reader.start();
+        writer.start();
+        writer.join();
+        reader.join();
+
+        assertTrue(failures.isEmpty(), () -> "Échec concurrent : " + failures.peek());
+        assertEquals((long) batches * batchSize, answers(store.match(query)).size());
+    }
+
+    @Test
+    public void testFailedBatchIsNeverPublished() {
+        ConcurrentRDFHexaStore store = new ConcurrentRDFHexaStore();
+        List<RDFAtom> atoms = atoms();
+        store.addAll(atoms.subList(0, 10));
+        long version = store.getVersion();
+
+        // Le flux échoue après avoir livré dix nouveaux atomes
+        Stream<RDFAtom> failing = atoms.subList(10, 30).stream().peek(atom -> {
+            if (atom == atoms.get(20)) {
+                throw new IllegalStateException("Erreur d'analyse");
+            }
+        });
+        assertThrows(IllegalStateException.class, () -> store.addAll(failing));
+        assertEquals(version, store.getVersion(), "Un lot en échec ne publie aucune version.");
+        assertEquals(10, store.size());
+
+        // Un ajout ultérieur ne publie que son propre triplet
+        RDFAtom other = new RDFAtom(term("autre"), term("p0"), term("o0"));
+        assertTrue(store.add(other));
+        assertEquals(11, store.size());
+        RDFHexaStore reference = new RDFHexaStore();
+        reference.addAll(atoms.subList(0, 10));
+        reference.add(other);
+        assertEquals(new HashSet<>(reference.getAtoms()), new HashSet<>(store.getAtoms()));
+
+        // Les triplets du lot annulé peuvent être ajoutés à nouveau
+        assertTrue(store.add(atoms.get(15)));
+        assertTrue(store.match(atoms.get(15)).hasNext());
+        assertEquals(12, store.size());
+    }
+
+    @Test
+    public void testRemovalsAreVersionedAndCompacted() {
+        ConcurrentRDFHexaStore store = new ConcurrentRDFHexaStore(10);
+        RDFHexaStore reference = new RDFHexaStore();
+        List<RDFAtom> atoms = atoms();
+        store.addAll(atoms);
+        reference.addAll(atoms);
+        ConcurrentRDFHexaStore.Snapshot full = store.snapshot();
+
+        // Retraits répartis sur la base, le delta figé et le delta, pendant les fusions
+        List<RDFAtom> removed = new ArrayList<>();
+        for (int i = 0; i < atoms.size(); i += 3) {
+            removed.add(atoms.get(i));
+        }
+        long version = store.getVersion();
+        assertTrue(store.removeAll(removed));
+        reference.removeAll(removed);
+        assertEquals(version + 1, store.getVersion(), "Un removeAll publie une seule version.");
+        assertFalse(store.remove(removed.get(0)), "Un triplet retiré ne peut pas l'être à nouveau.");
+        assertFalse(store.remove(new RDFAtom(term("inconnu"), term("p0"), term("o0"))));
+        ConcurrentRDFHexaStore.Snapshot pruned = store.snapshot();
+
+        for (StarQuery query : queries()) {
+            assertEquals(answers(reference.match(query)), answers(store.match(query)), query.getLabel());
+        }
+        assertEquals(reference.size(), store.size());
+        assertEquals(atoms.size(), full.getAtoms().size(), "Un snapshot antérieur voit encore les triplets retirés.");
+
+        // Un triplet retiré peut être rajouté ; le snapshot pris entre les deux ne le voit pas
+        List<RDFAtom> restored = removed.subList(0, 20);
+        assertTrue(store.addAll(restored));
+        reference.addAll(restored);
+        assertFalse(store.add(restored.get(0)));
+        store.awaitCompaction();
+        assertFalse(store.addAll(atoms.subList(0, 40)), "Les triplets rajoutés sont de nouveau présents.");
+        assertEquals(new HashSet<>(reference.getAtoms()), new HashSet<>(store.getAtoms()));
+        assertEquals(reference.size(), store.size());
+        assertEquals(atoms.size() - removed.size(), pruned.getAtoms().size());
+        RDFAtom pattern = new RDFAtom(VAR_X, term("p0"), VAR_Y);
+        assertEquals(answers(reference.match(pattern)), answers(store.match(pattern)));
+        for (StarQuery query : queries()) {
+            assertEquals(answers(reference.match(query)), answers(store.match(query)), query.getLabel());
+        }
+    }
+
+    @Test
+    public void testLimitsCancellationAndMetrics() {
+        ConcurrentRDFHexaStore store = new ConcurrentRDFHexaStore(100);
+        store.addAll(atoms());
+        List<QueryMetrics> reported = new ArrayList<>();
+        store.setMetricsListener(reported::add);
+
+        store.setQueryLimits(new QueryLimits(QueryLimits.UNLIMITED, 100));
+        assertThrows(QueryAbortedException.class, () -> store.match(new RDFAtom(VAR_X, term("p3"), VAR_Y)));
+        store.setQueryLimits(QueryLimits.NONE);
+
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        QueryAbortedException aborted = assertThrows(QueryAbortedException.class,
+                () -> store.match(queries().get(2), token));
+        assertEquals(QueryAbortedException.Reason.CANCELLED, aborted.getReason());
+
+        // FILTER de plage résolu par l'index des valeurs de la version
+        store.add(new RDFAtom(term("s1"), term("age"), term("30")));
+        store.add(new RDFAtom(term("s2"), term("age"), term("40")));
+        StarQuery adults = new StarQuery("age", List.of(new RDFAtom(VAR_X, term("age"), VAR_Y)), List.of(VAR_X, VAR_Y),
+                SolutionModifiers.NONE, List.of(RangeFilter.of(VAR_Y, ">", "35")));
+        assertEquals(Set.of(Map.of(VAR_X, term("s2"), VAR_Y, term("40"))), answers(store.match(adults)));
+        assertEquals(1, reported.size(), "Les mesures de la requête sont transmises à l'écouteur.");
+
+        // Le retrait publie une version dont l'index des valeurs ne voit plus le triplet
+        assertTrue(store.remove(new RDFAtom(term("s2"), term("age"), term("40"))));
+        assertTrue(answers(store.match(adults)).isEmpty());
+    }
+}
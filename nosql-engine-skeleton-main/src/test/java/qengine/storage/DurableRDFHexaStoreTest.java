@@ -0,0 +1,131 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import qengine.model.RDFAtom;
+import qengine.model.SolutionModifiers;
+import qengine.model.StarQuery;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DurableRDFHexaStoreTest {
+
+    private static final Literal<String> ALICE = SameObjectTermFactory.instance().createOrGetLiteral("Alice");
+    private static final Literal<String> BOB = SameObjectTermFactory.instance().createOrGetLiteral("Bob");
+    private static final Literal<String> CAROL = SameObjectTermFactory.instance().createOrGetLiteral("Carol");
+    private static final Literal<String> KNOWS = SameObjectTermFactory.instance().createOrGetLiteral("knows");
+    private static final Literal<String> LIKES = SameObjectTermFactory.instance().createOrGetLiteral("likes");
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+    private static final Variable VAR_Y = SameObjectTermFactory.instance().createOrGetVariable("?y");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testReopenReplaysLog() throws IOException {
+        try (DurableRDFHexaStore store = new DurableRDFHexaStore(directory)) {
+            assertTrue(store.add(new RDFAtom(ALICE, KNOWS, BOB)));
+            assertFalse(store.add(new RDFAtom(ALICE, KNOWS, BOB)), "Un doublon n'est pas journalisé.");
+            assertTrue(store.addAll(List.of(new RDFAtom(BOB, KNOWS, CAROL), new RDFAtom(CAROL, LIKES, ALICE))));
+            assertTrue(store.remove(new RDFAtom(BOB, KNOWS, CAROL)));
+        }
+
+        try (DurableRDFHexaStore store = new DurableRDFHexaStore(directory)) {
+            assertEquals(2, store.size());
+            assertEquals(new HashSet<>(List.of(new RDFAtom(ALICE, KNOWS, BOB), new RDFAtom(CAROL, LIKES, ALICE))),
+                    new HashSet<>(store.getAtoms()));
+            StarQuery query = new StarQuery("q", List.of(new RDFAtom(VAR_X, KNOWS, BOB)), List.of(VAR_X));
+            assertEquals(ALICE, store.match(query).next().toMap().get(VAR_X));
+        }
+    }
+
+    @Test
+    public void testRecoveryWithoutClose() throws IOException {
+        // Le store n'est pas fermé, comme lors d'une panne du processus : le journal validé suffit
+        DurableRDFHexaStore crashed = new DurableRDFHexaStore(directory, FsyncPolicy.NEVER, 0);
+        crashed.add(new RDFAtom(ALICE, KNOWS, BOB));
+        crashed.add(new RDFAtom(BOB, LIKES, CAROL));
+
+        try (DurableRDFHexaStore store = new DurableRDFHexaStore(directory)) {
+            assertEquals(2, store.size());
+            assertEquals(7, store.getReplayedRecords(), "Cinq termes et deux triplets.");
+        }
+        crashed.close();
+    }
+
+    @Test
+    public void testCheckpointEmptiesLog() throws IOException {
+        try (DurableRDFHexaStore store = new DurableRDFHexaStore(directory, FsyncPolicy.INTERVAL, 10)) {
+            store.add(new RDFAtom(ALICE, KNOWS, BOB));
+            store.add(new RDFAtom(BOB, KNOWS, CAROL));
+            store.checkpoint();
+            assertEquals(0, Files.size(directory.resolve(DurableRDFHexaStore.LOG)));
+            store.add(new RDFAtom(CAROL, LIKES, ALICE));
+            store.remove(new RDFAtom(ALICE, KNOWS, BOB));
+        }
+
+        try (DurableRDFHexaStore store = new DurableRDFHexaStore(directory)) {
+            assertEquals(new HashSet<>(List.of(new RDFAtom(BOB, KNOWS, CAROL), new RDFAtom(CAROL, LIKES, ALICE))),
+                    new HashSet<>(store.getAtoms()));
+            assertEquals(3, store.getReplayedRecords(), "Un nouveau terme, un ajout et un retrait depuis la sauvegarde.");
+        }
+    }
+
+    @Test
+    public void testFailedCommitLeavesStoreUnchanged() throws IOException {
+        try (DurableRDFHexaStore store = new DurableRDFHexaStore(directory)) {
+            store.add(new RDFAtom(ALICE, KNOWS, BOB));
+            Thread.currentThread().interrupt(); // La validation échoue : le canal du journal est fermé
+            try {
+                assertThrows(UncheckedIOException.class, () -> store.add(new RDFAtom(BOB, KNOWS, CAROL)));
+            } finally {
+                Thread.interrupted();
+            }
+            assertEquals(1, store.size(), "Un ajout non validé n'est pas visible.");
+            assertFalse(store.match(new RDFAtom(BOB, KNOWS, VAR_X)).hasNext());
+            assertThrows(UncheckedIOException.class, () -> store.remove(new RDFAtom(ALICE, KNOWS, BOB)));
+            assertEquals(1, store.size());
+        }
+
+        try (DurableRDFHexaStore store = new DurableRDFHexaStore(directory)) {
+            assertEquals(List.of(new RDFAtom(ALICE, KNOWS, BOB)), List.copyOf(store.getAtoms()));
+        }
+    }
+
+    @Test
+    public void testLimitsAndCancellationReachTheStore() throws IOException {
+        try (DurableRDFHexaStore store = new DurableRDFHexaStore(directory)) {
+            store.addAll(List.of(new RDFAtom(ALICE, KNOWS, BOB), new RDFAtom(BOB, KNOWS, CAROL),
+                    new RDFAtom(CAROL, KNOWS, ALICE)));
+            StarQuery query = new StarQuery("tri", List.of(new RDFAtom(VAR_X, KNOWS, VAR_Y)), List.of(VAR_X, VAR_Y),
+                    new SolutionModifiers(SolutionModifiers.NO_LIMIT, 0, SolutionModifiers.CentralOrder.ASC));
+
+            // Le tri matérialise les trois sujets
+            store.setQueryLimits(new QueryLimits(QueryLimits.UNLIMITED, 2));
+            QueryAbortedException aborted = assertThrows(QueryAbortedException.class, () -> {
+                Iterator<Substitution> results = store.match(query, null);
+                results.forEachRemaining(answer -> { });
+            });
+            assertEquals(QueryAbortedException.Reason.ROW_LIMIT, aborted.getReason());
+            store.setQueryLimits(QueryLimits.NONE);
+
+            CancellationToken token = new CancellationToken();
+            assertTrue(store.match(query, token).hasNext());
+            token.cancel();
+            aborted = assertThrows(QueryAbortedException.class, () -> store.match(query, token));
+            assertEquals(QueryAbortedException.Reason.CANCELLED, aborted.getReason());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package qengine.storage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmergentSchemaTest {
+
+    // Ajoute un triplet à l'index puis met à jour les ensembles caractéristiques
+    private static void add(RDFIndex index, CharacteristicSetIndex sets, int s, int p, int o) {
+        if (index.addTriple(s, p, o)) {
+            sets.onTripleAdded(s, p);
+        }
+    }
+
+    @Test
+    public void testDetectAndRoute() {
+        RDFIndex index = new RDFIndex();
+        CharacteristicSetIndex sets = new CharacteristicSetIndex(index);
+
+        // Sujets 0 et 1 : prédicats {10, 11, 12}, le sujet 1 a deux objets pour 12
+        add(index, sets, 0, 10, 100);
+        add(index, sets, 0, 11, 101);
+        add(index, sets, 0, 12, 102);
+        add(index, sets, 1, 10, 100);
+        add(index, sets, 1, 11, 103);
+        add(index, sets, 1, 12, 104);
+        add(index, sets, 1, 12, 105);
+        // Sujet 2 : seulement {10, 11}
+        add(index, sets, 2, 10, 100);
+        add(index, sets, 2, 11, 106);
+
+        EmergentSchema schema = EmergentSchema.detect(index, sets, 2);
+        assertEquals(1, schema.getTables().size(), "Un seul groupe de trois prédicats ou plus.");
+
+        PropertyTable table = schema.getTables().get(0);
+        assertArrayEquals(new int[]{10, 11, 12}, table.getPredicates());
+        assertEquals(2, table.rowCount());
+        assertEquals(0, table.subject(0));
+        assertEquals(1, table.subject(1));
+        int column = table.columnOf(12);
+        assertEquals(2, table.valuesTo(column, 1) - table.valuesFrom(column, 1), "Deux objets pour (1, 12).");
+        assertEquals(-1, table.columnOf(13));
+
+        assertSame(table, schema.route(new int[]{12, 10}), "Tous les sujets ayant 10 et 12 sont dans la table.");
+        assertNull(schema.route(new int[]{10, 11}), "Le sujet 2 possède 10 et 11 mais n'est pas dans la table.");
+        assertNull(schema.route(new int[]{10, 13}), "Le prédicat 13 n'est couvert par aucune table.");
+    }
+
+    @Test
+    public void testDetectIgnoresSparseGroups() {
+        RDFIndex index = new RDFIndex();
+        CharacteristicSetIndex sets = new CharacteristicSetIndex(index);
+        add(index, sets, 0, 10, 100);
+        add(index, sets, 0, 11, 101);
+        add(index, sets, 0, 12, 102);
+
+        assertTrue(EmergentSchema.detect(index, sets, 2).getTables().isEmpty(), "Un seul sujet : pas de table.");
+    }
+}
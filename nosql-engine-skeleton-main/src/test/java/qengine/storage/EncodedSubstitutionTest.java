@@ -0,0 +1,52 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EncodedSubstitutionTest {
+
+    private static final Term ALICE = SameObjectTermFactory.instance().createOrGetLiteral("Alice");
+    private static final Term BOB = SameObjectTermFactory.instance().createOrGetLiteral("Bob");
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+    private static final Variable VAR_Y = SameObjectTermFactory.instance().createOrGetVariable("?y");
+    private static final Variable VAR_Z = SameObjectTermFactory.instance().createOrGetVariable("?z");
+
+    @Test
+    public void testCreateImageOfDecodesSingleVariable() {
+        RDFDictionary dictionary = new RDFDictionary();
+        int alice = dictionary.encode(ALICE);
+        int bob = dictionary.encode(BOB);
+
+        EncodedSubstitution substitution = new EncodedSubstitution(dictionary, new Variable[]{VAR_X, VAR_Y}, new int[]{alice, bob});
+
+        assertEquals(ALICE, substitution.createImageOf(VAR_X), "?x devrait être décodé en Alice.");
+        assertEquals(BOB, substitution.createImageOf(VAR_Y), "?y devrait être décodé en Bob.");
+        assertEquals(VAR_Z, substitution.createImageOf(VAR_Z), "Une variable non liée est sa propre image.");
+        assertEquals(ALICE, substitution.createImageOf(ALICE), "Une constante est sa propre image.");
+        assertEquals(List.of(VAR_X, VAR_Y), List.copyOf(substitution.keys()), "Les clés sont les colonnes de la ligne.");
+        assertEquals(bob, substitution.getId(VAR_Y), "L'identifiant encodé devrait être accessible sans décodage.");
+        assertEquals(-1, substitution.getId(VAR_Z), "Une variable non liée n'a pas d'identifiant.");
+    }
+
+    @Test
+    public void testToMapAndEquality() {
+        RDFDictionary dictionary = new RDFDictionary();
+        int alice = dictionary.encode(ALICE);
+
+        EncodedSubstitution substitution = new EncodedSubstitution(dictionary, new Variable[]{VAR_X}, new int[]{alice});
+        Substitution expected = new SubstitutionImpl(Map.of(VAR_X, ALICE));
+
+        assertEquals(Map.of(VAR_X, ALICE), substitution.toMap(), "La ligne décodée devrait lier ?x à Alice.");
+        assertEquals(expected, substitution, "La substitution encodée devrait être égale à sa version décodée.");
+        assertEquals(expected.hashCode(), substitution.hashCode(), "Les codes de hachage devraient coïncider.");
+    }
+}
@@ -0,0 +1,182 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.model.PrefixFilter;
+import qengine.model.RDFAtom;
+import qengine.model.SolutionModifiers;
+import qengine.model.StarQuery;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrontCodedDictionaryTest {
+
+    private static final String WSDBM = "http://db.uwaterloo.ca/~galuc/wsdbm/";
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+    private static final Variable VAR_Y = SameObjectTermFactory.instance().createOrGetVariable("?y");
+    private static final Variable VAR_Z = SameObjectTermFactory.instance().createOrGetVariable("?z");
+
+    private static Term literal(String label) {
+        return SameObjectTermFactory.instance().createOrGetLiteral(label);
+    }
+
+    @Test
+    public void testEncodeLookupDecode() {
+        FrontCodedDictionary dictionary = new FrontCodedDictionary();
+        List<Term> terms = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            terms.add(literal(WSDBM + "User" + i));
+        }
+        terms.add(literal("é€ – non ASCII"));
+        terms.add(SameObjectTermFactory.instance().createOrGetConstant(WSDBM + "User7"));
+        for (int i = 0; i < terms.size(); i++) {
+            assertEquals(i, dictionary.encode(terms.get(i)), "Identifiants attribués dans l'ordre d'insertion.");
+        }
+        dictionary.compact();
+
+        assertEquals(terms.size(), dictionary.termCount());
+        for (int i = 0; i < terms.size(); i++) {
+            assertEquals(i, dictionary.lookup(terms.get(i)));
+            assertEquals(i, dictionary.encode(terms.get(i)));
+            assertEquals(terms.get(i), dictionary.decode(i));
+        }
+        assertEquals(-1, dictionary.lookup(literal(WSDBM + "User50000")));
+        assertEquals(-1, dictionary.lookup(literal(WSDBM)));
+        assertEquals(-1, dictionary.lookup(literal("")));
+        assertNull(dictionary.decode(99999));
+    }
+
+    @Test
+    public void testReleaseAndReuse() {
+        FrontCodedDictionary dictionary = new FrontCodedDictionary();
+        for (int i = 0; i < 100; i++) {
+            dictionary.encode(literal(WSDBM + "Product" + i));
+        }
+        dictionary.compact();
+        int released = dictionary.lookup(literal(WSDBM + "Product42"));
+        assertTrue(dictionary.release(released));
+        assertFalse(dictionary.release(released));
+        assertEquals(-1, dictionary.lookup(literal(WSDBM + "Product42")));
+        assertNull(dictionary.decode(released));
+
+        assertEquals(released, dictionary.encode(literal(WSDBM + "Review1")), "L'identifiant libéré est réattribué.");
+        dictionary.compact();
+        assertEquals(100, dictionary.termCount());
+        assertEquals(literal(WSDBM + "Review1"), dictionary.decode(released));
+        assertEquals(-1, dictionary.lookup(literal(WSDBM + "Product42")));
+        assertEquals(43, dictionary.lookup(literal(WSDBM + "Product43")));
+    }
+
+    @Test
+    public void testStoreAnswersAndFootprint() {
+        RDFHexaStore plain = new RDFHexaStore();
+        FrontCodedDictionary frontCoded = new FrontCodedDictionary();
+        RDFHexaStore compact = new RDFHexaStore(frontCoded);
+        for (int s = 0; s < 3000; s++) {
+            for (RDFHexaStore store : List.of(plain, compact)) {
+                store.add(new RDFAtom(literal(WSDBM + "User" + s), literal("http://schema.org/follows"),
+                        literal(WSDBM + "User" + (s * 7 % 3000))));
+                store.add(new RDFAtom(literal(WSDBM + "User" + s), literal("http://schema.org/nationality"),
+                        literal(WSDBM + "Country" + s % 25)));
+            }
+        }
+        frontCoded.compact();
+        assertEquals(new HashSet<>(plain.getAtoms()), new HashSet<>(compact.getAtoms()));
+
+        StarQuery query = new StarQuery("pays", List.of(
+                new RDFAtom(VAR_X, literal("http://schema.org/nationality"), literal(WSDBM + "Country3")),
+                new RDFAtom(VAR_X, literal("http://schema.org/follows"), VAR_Y)), List.of(VAR_X, VAR_Y));
+        assertEquals(answers(plain.match(query)), answers(compact.match(query)));
+
+        // Mesure après décodage de tous les termes : le décodage ne doit rien conserver
+        Term decoded = null;
+        for (int id = 0; id < frontCoded.size(); id++) {
+            decoded = frontCoded.decode(id);
+            assertEquals(literal(decoded.label()), decoded);
+            assertEquals(id, frontCoded.lookup(decoded));
+        }
+        assertNotSame(decoded, frontCoded.decode(frontCoded.size() - 1), "Terme décodé conservé par une fabrique.");
+        long plainBytes = plain.memoryReport().getBytes("dictionnaire") + plain.memoryReport().getBytes("termes");
+        long compactBytes = compact.memoryReport().getBytes("dictionnaire") + compact.memoryReport().getBytes("termes");
+        assertTrue(compactBytes * 3 < plainBytes, compactBytes + " octets contre " + plainBytes);
+    }
+
+    @Test
+    public void testLiteralsWithPrefixMatchDefaultDictionary() {
+        RDFDictionary plain = new RDFDictionary();
+        FrontCodedDictionary frontCoded = new FrontCodedDictionary();
+        List<Term> terms = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            terms.add(literal("Nom" + i));
+            terms.add(literal(WSDBM + "User" + i));
+        }
+        terms.add(SameObjectTermFactory.instance().createOrGetConstant("Nom7"));
+        terms.add(literal("Nomé"));
+        for (Term term : terms) {
+            plain.encode(term);
+            frontCoded.encode(term); // Fusions automatiques en cours de route
+        }
+        for (int id : new int[]{7, 8, 4000}) {
+            plain.release(id);
+            frontCoded.release(id);
+        }
+        frontCoded.encode(literal("Nom5000")); // Reste dans le delta
+        plain.encode(literal("Nom5000"));
+
+        for (String prefix : List.of("Nom1", "Nom19", "Nom", "Nomé", "N", "", WSDBM + "User19", "Zorro", "Nom5000x")) {
+            assertEquals(plain.literalsWithPrefix(prefix), frontCoded.literalsWithPrefix(prefix), prefix);
+        }
+    }
+
+    @Test
+    public void testPrefixFilterAnswers() {
+        PrefixFilter startsWith12 = new PrefixFilter(VAR_Y, "12");
+        PrefixFilter named = new PrefixFilter(VAR_Y, "Nom1");
+        List<StarQuery> queries = List.of(
+                // Sujets lus dans po_s pour les littéraux du préfixe
+                new StarQuery("nom", List.of(new RDFAtom(VAR_X, literal("nom"), VAR_Y),
+                        new RDFAtom(VAR_X, literal("age"), literal("30"))), List.of(VAR_X, VAR_Y),
+                        SolutionModifiers.NONE, List.of(), List.of(named)),
+                new StarQuery("age", List.of(new RDFAtom(VAR_X, literal("age"), VAR_Y),
+                        new RDFAtom(VAR_X, literal("nom"), literal("Nom72"))), List.of(VAR_X, VAR_Y),
+                        SolutionModifiers.NONE, List.of(), List.of(startsWith12)),
+                // Variable centrale filtrée
+                new StarQuery("central", List.of(new RDFAtom(literal("u1"), literal("age"), VAR_Y),
+                        new RDFAtom(literal("u61"), literal("age"), VAR_Y)), List.of(VAR_Y),
+                        SolutionModifiers.NONE, List.of(), List.of(new PrefixFilter(VAR_Y, "1"))),
+                // Prédicat variable : les littéraux du préfixe ne sont vérifiés que ligne par ligne
+                new StarQuery("variable", List.of(new RDFAtom(VAR_X, VAR_Z, VAR_Y),
+                        new RDFAtom(VAR_X, literal("nom"), literal("Nom12"))), List.of(VAR_X, VAR_Y, VAR_Z),
+                        SolutionModifiers.NONE, List.of(), List.of(startsWith12)));
+
+        List<RDFStorage> stores = List.of(new RDFHexaStore(), new RDFHexaStore(true),
+                new RDFHexaStore(new FrontCodedDictionary()), new PartitionedRDFHexaStore(3));
+        for (RDFStorage store : stores) {
+            for (int s = 0; s < 300; s++) {
+                store.add(new RDFAtom(literal("u" + s), literal("nom"), literal("Nom" + s)));
+                store.add(new RDFAtom(literal("u" + s), literal("age"), literal(Integer.toString(s % 60))));
+            }
+        }
+        for (StarQuery query : queries) {
+            Set<Map<Variable, Term>> expected = answers(stores.get(0).match(new StarQuery(query.getLabel(),
+                    query.getRdfAtoms(), query.getAnswerVariables())));
+            PrefixFilter filter = query.getPrefixFilters().get(0);
+            expected.removeIf(row -> !filter.accepts(row.get(filter.getVariable())));
+            assertFalse(expected.isEmpty(), query.getLabel());
+            for (RDFStorage store : stores) {
+                assertEquals(expected, answers(store.match(query)), query.getLabel());
+            }
+        }
+    }
+
+    private static Set<Map<Variable, Term>> answers(Iterator<Substitution> results) {
+        Set<Map<Variable, Term>> answers = new HashSet<>();
+        results.forEachRemaining(substitution -> answers.add(substitution.toMap()));
+        return answers;
+    }
+}
@@ -0,0 +1,108 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InlineLiteralsTest {
+
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+    private static final Variable VAR_Y = SameObjectTermFactory.instance().createOrGetVariable("?y");
+
+    private static Literal<String> term(String label) {
+        return SameObjectTermFactory.instance().createOrGetLiteral(label);
+    }
+
+    @Test
+    public void testCanonicalLabelsRoundTrip() {
+        for (String label : List.of("0", "9764726", "-42", "134217727", "-134217728",
+                "1988-09-24", "0001-01-01", "9999-12-31", "true", "false")) {
+            int id = InlineLiterals.encode(label);
+            assertTrue(InlineLiterals.isInline(id), label);
+            assertEquals(label, InlineLiterals.label(id));
+        }
+        assertEquals(InlineLiterals.DATE, InlineLiterals.kind(InlineLiterals.encode("1970-01-02")));
+        assertEquals(1, InlineLiterals.value(InlineLiterals.encode("1970-01-02")));
+    }
+
+    @Test
+    public void testNonCanonicalLabelsAreRejected() {
+        for (String label : List.of("", "-", "-0", "007", "+5", "12a", "134217728", "999999999", "1e5",
+                "1988-02-30", "1988-9-24x", "1988/09/24", "True", "http://schema.org/birthDate")) {
+            assertEquals(-1, InlineLiterals.encode(label), label);
+        }
+    }
+
+    @Test
+    public void testIdOrderFollowsValueOrder() {
+        int[] ids = {InlineLiterals.encode("-5"), InlineLiterals.encode("0"), InlineLiterals.encode("17"),
+                InlineLiterals.encode("9764726")};
+        for (int i = 1; i < ids.length; i++) {
+            assertTrue(ids[i - 1] < ids[i]);
+        }
+        assertTrue(InlineLiterals.encode("1988-09-24") < InlineLiterals.encode("2001-01-01"));
+        assertFalse(InlineLiterals.isInline(0));
+        assertFalse(InlineLiterals.isInline(-1));
+    }
+
+    @Test
+    public void testDictionarySkipsInlineLiterals() {
+        RDFDictionary dictionary = new RDFDictionary(false, true);
+        Term number = term("9764726");
+        int id = dictionary.encode(number);
+
+        assertTrue(InlineLiterals.isInline(id));
+        assertEquals(0, dictionary.termCount(), "Aucune entrée pour un littéral en ligne.");
+        assertEquals(id, dictionary.lookup(number));
+        assertSame(number, dictionary.decode(id));
+        assertEquals(0, dictionary.encode(term("Alice")), "Les autres termes restent numérotés à partir de 0.");
+
+        RDFDictionary plain = new RDFDictionary();
+        assertEquals(0, plain.encode(number), "Sans l'option, le littéral est ajouté au dictionnaire.");
+    }
+
+    @Test
+    public void testStoreAnswersMatchDictionaryEncoding() {
+        RDFHexaStore inline = new RDFHexaStore(true);
+        RDFHexaStore plain = new RDFHexaStore();
+        inline.setExecutionMode(ExecutionMode.BATCH);
+        for (int s = 0; s < 300; s++) {
+            for (RDFHexaStore store : List.of(inline, plain)) {
+                store.add(new RDFAtom(term("u" + s), term("age"), term(Integer.toString(s % 40))));
+                store.add(new RDFAtom(term("u" + s), term("actif"), term(s % 3 == 0 ? "true" : "false")));
+                store.add(new RDFAtom(term("u" + s), term("nom"), term("Nom" + s)));
+            }
+        }
+        assertTrue(inline.getAtoms().containsAll(plain.getAtoms()));
+        assertEquals(plain.dictionary().termCount() - 42, inline.dictionary().termCount(),
+                "Les 40 âges et les 2 booléens ne sont pas dans le dictionnaire.");
+
+        List<StarQuery> queries = List.of(
+                new StarQuery("age", List.of(new RDFAtom(VAR_X, term("age"), term("7")),
+                        new RDFAtom(VAR_X, term("actif"), term("true"))), List.of(VAR_X)),
+                // Variable centrale liée à des littéraux en ligne
+                new StarQuery("valeur", List.of(new RDFAtom(term("u9"), term("age"), VAR_Y),
+                        new RDFAtom(term("u49"), term("age"), VAR_Y)), List.of(VAR_Y)),
+                new StarQuery("valeurs", List.of(new RDFAtom(VAR_X, term("age"), VAR_Y),
+                        new RDFAtom(VAR_X, term("nom"), term("Nom12"))), List.of(VAR_X, VAR_Y)));
+        for (StarQuery query : queries) {
+            assertEquals(answers(plain.match(query)), answers(inline.match(query)), query.getLabel());
+        }
+        assertFalse(answers(inline.match(new RDFAtom(VAR_X, term("age"), term("39")))).isEmpty());
+    }
+
+    private static Set<Map<Variable, Term>> answers(Iterator<Substitution> results) {
+        Set<Map<Variable, Term>> answers = new HashSet<>();
+        results.forEachRemaining(substitution -> answers.add(substitution.toMap()));
+        return answers;
+    }
+}
@@ -0,0 +1,60 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemoryReportTest {
+
+    private static Literal<String> literal(String value) {
+        return SameObjectTermFactory.instance().createOrGetLiteral(value);
+    }
+
+    @Test
+    public void testReportCoversEveryStructure() {
+        RDFHexaStore store = new RDFHexaStore();
+        for (int i = 0; i < 200; i++) {
+            store.add(new RDFAtom(literal("s" + i), literal("p" + i % 3), literal("o" + i % 10)));
+        }
+        MemoryReport report = store.memoryReport();
+
+        assertEquals(200, report.getTriples());
+        for (String permutation : new String[]{"sp_o", "so_p", "ps_o", "po_s", "os_p", "op_s"}) {
+            assertTrue(report.getBytes(permutation) > 0, "Permutation " + permutation);
+            assertTrue(report.getBytes(permutation + " listes") > 0, "Listes de " + permutation);
+        }
+        assertTrue(report.getBytes("dictionnaire") > 0);
+        assertTrue(report.getBytes("termes") > 0);
+        assertTrue(report.getBytes("ensembles caractéristiques") > 0);
+        assertEquals(0, report.getBytes("tables de propriétés"), "Pas de tables sans schéma émergent.");
+        assertEquals((double) report.getTotalBytes() / 200, report.getBytesPerTriple(), 1e-9);
+        assertTrue(report.toString().contains("octets par triplet"));
+    }
+
+    @Test
+    public void testSetSizeHistogram() {
+        RDFHexaStore store = new RDFHexaStore();
+        // (p0, o0) a 5 sujets, (p0, o1) en a 1
+        for (int i = 0; i < 5; i++) {
+            store.add(new RDFAtom(literal("s" + i), literal("p0"), literal("o0")));
+        }
+        store.add(new RDFAtom(literal("s0"), literal("p0"), literal("o1")));
+
+        long[] histogram = store.memoryReport().getSetSizeHistogram("po_s");
+        assertEquals(1, histogram[0], "Une liste de taille 1.");
+        assertEquals(1, histogram[2], "Une liste de taille comprise entre 4 et 7.");
+        assertEquals(0, store.memoryReport().getSetSizeHistogram("inconnue").length);
+    }
+
+    @Test
+    public void testHashMapEstimate() {
+        assertEquals(MemoryReport.HASH_MAP + 16 + 16 * 4, MemoryReport.hashMap(0));
+        assertEquals(MemoryReport.HASH_MAP + 16 + 32 * 4 + 13 * MemoryReport.NODE, MemoryReport.hashMap(13),
+                "Au-delà de 12 entrées, la table double.");
+        assertEquals(0, MemoryReport.boxed(127));
+        assertEquals(MemoryReport.INTEGER, MemoryReport.boxed(128));
+    }
+}
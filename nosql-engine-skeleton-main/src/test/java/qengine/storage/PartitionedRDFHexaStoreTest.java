@@ -0,0 +1,179 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.RangeFilter;
+import qengine.model.SolutionModifiers;
+import qengine.model.StarQuery;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static qengine.storage.StoreFixtures.*;
+
+public class PartitionedRDFHexaStoreTest {
+
+    // Les objets sont partagés entre sujets, donc entre partitions
+    private static List<RDFAtom> atoms() {
+        return grid(300, 4, 7, 23, 5);
+    }
+
+    private static void assertSameAnswers(RDFStorage expected, RDFStorage actual, StarQuery query) {
+        assertEquals(answers(expected.match(query)), answers(actual.match(query)), query.getLabel());
+    }
+
+    private static List<StarQuery> queries() {
+        return List.of(
+                // Étoiles centrées sur le sujet : évaluées partition par partition
+                new StarQuery("sujet", List.of(new RDFAtom(VAR_X, term("p1"), VAR_Y),
+                        new RDFAtom(VAR_X, term("p2"), term("o9"))), List.of(VAR_X, VAR_Y)),
+                new StarQuery("sujet2", List.of(new RDFAtom(VAR_X, term("p3"), VAR_Y)), List.of(VAR_X)),
+                // Étoiles centrées sur l'objet : leurs triplets appartiennent à des partitions différentes
+                new StarQuery("objet", List.of(new RDFAtom(VAR_Y, term("p0"), VAR_X),
+                        new RDFAtom(VAR_Z, term("p1"), VAR_X)), List.of(VAR_X, VAR_Y, VAR_Z)),
+                new StarQuery("objet-fixe", List.of(new RDFAtom(term("s12"), term("p1"), VAR_X),
+                        new RDFAtom(VAR_Y, term("p2"), VAR_X)), List.of(VAR_X, VAR_Y)),
+                new StarQuery("mixte", List.of(new RDFAtom(VAR_X, term("p3"), VAR_Y),
+                        new RDFAtom(VAR_Z, term("p0"), VAR_X)), List.of(VAR_X, VAR_Y, VAR_Z)));
+    }
+
+    @Test
+    public void testAnswersMatchHexaStore() {
+        RDFHexaStore reference = new RDFHexaStore();
+        PartitionedRDFHexaStore store = new PartitionedRDFHexaStore(4);
+        reference.addAll(atoms());
+        assertTrue(store.addAll(atoms()));
+        assertFalse(store.add(atoms().get(0)), "Un doublon ne doit pas être ajouté.");
+
+        assertEquals(reference.size(), store.size());
+        assertEquals(new HashSet<>(reference.getAtoms()), new HashSet<>(store.getAtoms()));
+        for (StarQuery query : queries()) {
+            assertSameAnswers(reference, store, query);
+        }
+        for (RDFAtom pattern : List.of(new RDFAtom(term("s7"), VAR_X, VAR_Y), new RDFAtom(VAR_X, term("p2"), VAR_Y),
+                new RDFAtom(term("inconnu"), VAR_X, VAR_Y))) {
+            assertEquals(answers(reference.match(pattern)), answers(store.match(pattern)));
+        }
+    }
+
+    @Test
+    public void testSubjectsAreSpreadOverPartitions() {
+        PartitionedRDFHexaStore store = new PartitionedRDFHexaStore(4);
+        store.addAll(atoms());
+        long[] sizes = store.partitionSizes();
+        assertEquals(4, sizes.length);
+        assertEquals(store.size(), Arrays.stream(sizes).sum());
+        for (long size : sizes) {
+            assertTrue(size > store.size() / 8, "Partitions déséquilibrées : " + Arrays.toString(sizes));
+        }
+    }
+
+    @Test
+    public void testModifiersAppliedAfterMerge() {
+        RDFHexaStore reference = new RDFHexaStore();
+        PartitionedRDFHexaStore store = new PartitionedRDFHexaStore(3);
+        reference.addAll(atoms());
+        atoms().forEach(store::add); // Ajouts séquentiels : mêmes identifiants que le store de référence
+
+        for (SolutionModifiers.CentralOrder order : SolutionModifiers.CentralOrder.values()) {
+            SolutionModifiers modifiers = new SolutionModifiers(10, 5, order);
+            // Deux atomes, pour que ?x soit la seule variable centrale possible
+            StarQuery subjectStar = new StarQuery("sujet", List.of(new RDFAtom(VAR_X, term("p1"), VAR_Y),
+                    new RDFAtom(VAR_X, term("p2"), VAR_Z)), List.of(VAR_X, VAR_Y, VAR_Z), modifiers);
+            StarQuery objectStar = new StarQuery("objet", List.of(new RDFAtom(VAR_Y, term("p0"), VAR_X),
+                    new RDFAtom(VAR_Z, term("p3"), VAR_X)), List.of(VAR_X, VAR_Y, VAR_Z), modifiers);
+            for (StarQuery query : List.of(subjectStar, objectStar)) {
+                List<Map<Variable, Term>> actual = answerList(store.match(query));
+                assertEquals(10, actual.size(), query.getLabel());
+                if (order == SolutionModifiers.CentralOrder.NONE) {
+                    continue;
+                }
+                // Même ordre que le store de référence sur la variable centrale
+                List<Term> expectedCentral = answerList(reference.match(query)).stream().map(m -> m.get(VAR_X)).toList();
+                assertEquals(expectedCentral, actual.stream().map(m -> m.get(VAR_X)).toList(), query.getLabel());
+            }
+        }
+    }
+
+    @Test
+    public void testRemoveRoutesToSubjectPartition() {
+        PartitionedRDFHexaStore store = new PartitionedRDFHexaStore(4);
+        List<RDFAtom> atoms = atoms();
+        store.addAll(atoms);
+        assertTrue(store.remove(atoms.get(0)));
+        assertFalse(store.remove(atoms.get(0)));
+        assertFalse(store.remove(new RDFAtom(term("inconnu"), term("p0"), term("o0"))));
+        assertTrue(store.removeAll(atoms.subList(1, 10)));
+        assertEquals(atoms.size() - 10, store.size());
+    }
+
+    @Test
+    public void testLimitsAndCancellation() {
+        PartitionedRDFHexaStore store = new PartitionedRDFHexaStore(3);
+        store.addAll(atoms());
+        // Requêtes triées : le tri matérialise les candidats de la variable centrale
+        SolutionModifiers ordered = new SolutionModifiers(SolutionModifiers.NO_LIMIT, 0, SolutionModifiers.CentralOrder.ASC);
+        StarQuery subjectStar = new StarQuery("sujet", List.of(new RDFAtom(VAR_X, term("p3"), VAR_Y)),
+                List.of(VAR_X, VAR_Y), ordered);
+        StarQuery objectStar = new StarQuery("objet", List.of(new RDFAtom(VAR_Y, term("p0"), VAR_X),
+                new RDFAtom(VAR_Z, term("p1"), VAR_X)), List.of(VAR_X, VAR_Y, VAR_Z), ordered);
+
+        store.setQueryLimits(new QueryLimits(QueryLimits.UNLIMITED, 5));
+        for (StarQuery query : List.of(subjectStar, objectStar)) {
+            QueryAbortedException aborted = assertThrows(QueryAbortedException.class, () -> answers(store.match(query)));
+            assertEquals(QueryAbortedException.Reason.ROW_LIMIT, aborted.getReason(), query.getLabel());
+        }
+        store.setQueryLimits(QueryLimits.NONE);
+
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        for (StarQuery query : List.of(subjectStar, objectStar)) {
+            QueryAbortedException aborted = assertThrows(QueryAbortedException.class,
+                    () -> answers(store.match(query, token)));
+            assertEquals(QueryAbortedException.Reason.CANCELLED, aborted.getReason(), query.getLabel());
+        }
+
+        // Une lecture partielle n'attend pas les réponses restantes des partitions
+        Iterator<Substitution> results = store.match(new StarQuery("tout", List.of(new RDFAtom(VAR_X, VAR_Y, VAR_Z)),
+                List.of(VAR_X, VAR_Y, VAR_Z)));
+        assertTrue(results.hasNext());
+        assertNotNull(results.next());
+    }
+
+    @Test
+    public void testRangeFilterAcrossPartitionsSeesWrites() {
+        RDFHexaStore reference = new RDFHexaStore();
+        PartitionedRDFHexaStore store = new PartitionedRDFHexaStore(3);
+        for (int s = 0; s < 40; s++) {
+            RDFAtom age = new RDFAtom(term("s" + s), term("age"), term(String.valueOf(s)));
+            RDFAtom knows = new RDFAtom(term("t" + s), term("connaît"), term(String.valueOf(s)));
+            reference.addAll(List.of(age, knows));
+            store.addAll(List.of(age, knows));
+        }
+        // Étoile centrée sur l'objet : l'index des valeurs porte sur l'union des partitions
+        StarQuery query = new StarQuery("plage", List.of(new RDFAtom(VAR_Y, term("age"), VAR_X),
+                new RDFAtom(VAR_Z, term("connaît"), VAR_X)), List.of(VAR_X, VAR_Y, VAR_Z), SolutionModifiers.NONE,
+                List.of(RangeFilter.of(VAR_X, ">", "30")));
+        assertSameAnswers(reference, store, query);
+        assertEquals(9, answers(store.match(query)).size());
+
+        // Une écriture invalide l'index mis en cache
+        for (RDFAtom atom : List.of(new RDFAtom(term("s99"), term("age"), term("99")),
+                new RDFAtom(term("t99"), term("connaît"), term("99")))) {
+            reference.add(atom);
+            store.add(atom);
+        }
+        store.remove(new RDFAtom(term("s35"), term("age"), term("35")));
+        reference.remove(new RDFAtom(term("s35"), term("age"), term("35")));
+        assertSameAnswers(reference, store, query);
+        assertEquals(9, answers(store.match(query)).size());
+    }
+
+    @Test
+    public void testInvalidPartitionCount() {
+        assertThrows(IllegalArgumentException.class, () -> new PartitionedRDFHexaStore(0));
+    }
+}
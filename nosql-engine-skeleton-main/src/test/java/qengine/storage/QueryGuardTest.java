@@ -0,0 +1,112 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.SolutionModifiers;
+import qengine.model.StarQuery;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static qengine.storage.StoreFixtures.*;
+
+public class QueryGuardTest {
+
+    private static final int SUBJECTS = 3000;
+
+    private RDFHexaStore store;
+
+    // Chaque sujet a deux valeurs pour p1 et une pour p2
+    @BeforeEach
+    public void load() {
+        store = new RDFHexaStore();
+        for (int s = 0; s < SUBJECTS; s++) {
+            store.add(new RDFAtom(term("s" + s), term("p1"), term("a" + s)));
+            store.add(new RDFAtom(term("s" + s), term("p1"), term("b" + s)));
+            store.add(new RDFAtom(term("s" + s), term("p2"), term("c")));
+        }
+    }
+
+    private static long count(Iterator<Substitution> results) {
+        long count = 0;
+        while (results.hasNext()) {
+            results.next();
+            count++;
+        }
+        return count;
+    }
+
+    private static StarQuery star() {
+        return new StarQuery("etoile", List.of(new RDFAtom(VAR_X, term("p1"), VAR_Y),
+                new RDFAtom(VAR_X, term("p2"), VAR_Z)), List.of(VAR_X, VAR_Y));
+    }
+
+    @Test
+    public void testLimitsValidation() {
+        assertThrows(IllegalArgumentException.class, () -> new QueryLimits(0, QueryLimits.UNLIMITED));
+        assertThrows(IllegalArgumentException.class, () -> new QueryLimits(QueryLimits.UNLIMITED, -5));
+        assertThrows(NullPointerException.class, () -> store.setQueryLimits(null));
+        assertEquals(QueryLimits.NONE, new QueryLimits(QueryLimits.UNLIMITED, QueryLimits.UNLIMITED));
+    }
+
+    @Test
+    public void testRowLimitAbortsLargeScan() {
+        store.setQueryLimits(new QueryLimits(QueryLimits.UNLIMITED, 1000));
+        QueryAbortedException aborted = assertThrows(QueryAbortedException.class,
+                () -> store.match(new RDFAtom(VAR_X, VAR_Y, VAR_Z)));
+        assertEquals(QueryAbortedException.Reason.ROW_LIMIT, aborted.getReason());
+        assertTrue(aborted.getMessage().contains("1000"));
+
+        // Les requêtes sélectives restent sous la limite
+        assertEquals(2, count(store.match(new RDFAtom(term("s5"), term("p1"), VAR_Y))));
+        assertEquals(2L * SUBJECTS, count(store.match(star())), "Le développement d'un candidat reste petit.");
+    }
+
+    @Test
+    public void testRowLimitAbortsOrderedDriver() {
+        store.setQueryLimits(new QueryLimits(QueryLimits.UNLIMITED, 1000));
+        StarQuery ordered = new StarQuery("triee", star().getRdfAtoms(), List.of(VAR_X),
+                new SolutionModifiers(10, 0, SolutionModifiers.CentralOrder.ASC));
+        assertThrows(QueryAbortedException.class, () -> store.match(ordered));
+    }
+
+    @Test
+    public void testTimeout() throws InterruptedException {
+        QueryGuard guard = QueryGuard.start(new QueryLimits(20, QueryLimits.UNLIMITED), null);
+        guard.check();
+        Thread.sleep(40);
+        QueryAbortedException aborted = assertThrows(QueryAbortedException.class, guard::check);
+        assertEquals(QueryAbortedException.Reason.TIMEOUT, aborted.getReason());
+
+        // Les lignes ne consultent l'horloge que par intervalles
+        QueryGuard rows = QueryGuard.start(new QueryLimits(20, QueryLimits.UNLIMITED), null);
+        Thread.sleep(40);
+        assertThrows(QueryAbortedException.class, () -> {
+            for (int i = 1; i <= QueryGuard.CHECK_INTERVAL; i++) {
+                rows.onRow(i);
+            }
+        });
+    }
+
+    @Test
+    public void testCancellation() {
+        CancellationToken cancelled = new CancellationToken();
+        cancelled.cancel();
+        QueryAbortedException aborted = assertThrows(QueryAbortedException.class, () -> store.match(star(), cancelled));
+        assertEquals(QueryAbortedException.Reason.CANCELLED, aborted.getReason());
+
+        // Annulation pendant la lecture : les candidats restants ne sont pas examinés
+        CancellationToken token = new CancellationToken();
+        Iterator<Substitution> results = store.match(star(), token);
+        assertTrue(results.hasNext());
+        results.next();
+        token.cancel();
+        assertThrows(QueryAbortedException.class, () -> count(results));
+
+        // Un jeton non annulé ne change pas les réponses
+        assertEquals(2L * SUBJECTS, count(store.match(star(), new CancellationToken())));
+    }
+}
@@ -0,0 +1,103 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryMetricsTest {
+
+    private static final Literal<String> ALICE = SameObjectTermFactory.instance().createOrGetLiteral("Alice");
+    private static final Literal<String> BOB = SameObjectTermFactory.instance().createOrGetLiteral("Bob");
+    private static final Literal<String> CAROL = SameObjectTermFactory.instance().createOrGetLiteral("Carol");
+    private static final Literal<String> KNOWS = SameObjectTermFactory.instance().createOrGetLiteral("knows");
+    private static final Literal<String> LIKES = SameObjectTermFactory.instance().createOrGetLiteral("likes");
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+    private static final Variable VAR_Y = SameObjectTermFactory.instance().createOrGetVariable("?y");
+
+    private static RDFHexaStore store() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(ALICE, KNOWS, BOB));
+        store.add(new RDFAtom(ALICE, LIKES, CAROL));
+        store.add(new RDFAtom(CAROL, KNOWS, BOB));
+        store.add(new RDFAtom(CAROL, LIKES, ALICE));
+        store.add(new RDFAtom(BOB, LIKES, ALICE));
+        return store;
+    }
+
+    private static StarQuery query() {
+        return new StarQuery("q", List.of(new RDFAtom(VAR_X, KNOWS, BOB), new RDFAtom(VAR_X, LIKES, VAR_Y)),
+                List.of(VAR_X, VAR_Y));
+    }
+
+    @Test
+    public void testListenerReceivesMetricsWhenExhausted() {
+        RDFHexaStore store = store();
+        List<QueryMetrics> received = new ArrayList<>();
+        store.setMetricsListener(received::add);
+
+        Iterator<Substitution> results = store.match(query());
+        List<Substitution> answers = new ArrayList<>();
+        results.forEachRemaining(answers::add);
+
+        assertEquals(1, received.size(), "Une seule notification par évaluation.");
+        QueryMetrics metrics = received.get(0);
+        assertEquals(2, metrics.getAnswers());
+        assertEquals(4, metrics.getIndexLookups(), "Deux ensembles de candidats, puis un findMatches par candidat.");
+        assertEquals(2, metrics.getCandidates());
+        assertEquals(0, metrics.getRejectedCandidates());
+        assertEquals(2, metrics.getRowsScanned(1), "Un triplet (x, likes, y) lu par candidat retenu.");
+        assertEquals(2, metrics.getIntermediateRows(1));
+        assertEquals(0, metrics.getDecodes(), "Aucun terme décodé avant la lecture des réponses.");
+
+        answers.forEach(Substitution::toMap);
+        assertEquals(4, metrics.getDecodes(), "Deux variables décodées par réponse.");
+        assertTrue(metrics.getPlanNanos() > 0);
+    }
+
+    @Test
+    public void testNoMetricsWithoutListener() {
+        RDFHexaStore store = store();
+        List<QueryMetrics> received = new ArrayList<>();
+        store.setMetricsListener(received::add);
+        store.setMetricsListener(null);
+        store.match(query()).forEachRemaining(s -> { });
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void testJfrEventEmitted() throws IOException {
+        RDFHexaStore store = store();
+        Path dump = Files.createTempFile("qengine", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("qengine.StarQuery");
+            recording.start();
+            store.match(query()).forEachRemaining(s -> { });
+            recording.stop();
+            recording.dump(dump);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+                    .filter(e -> e.getEventType().getName().equals("qengine.StarQuery"))
+                    .toList();
+            assertEquals(1, events.size());
+            assertEquals(2, events.get(0).getLong("answers"));
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+}
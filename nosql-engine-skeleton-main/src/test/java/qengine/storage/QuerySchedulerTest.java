@@ -0,0 +1,181 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.SolutionModifiers;
+import qengine.model.StarQuery;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuerySchedulerTest {
+
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+    private static final Variable VAR_Y = SameObjectTermFactory.instance().createOrGetVariable("?y");
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private RDFHexaStore store;
+
+    private static Literal<String> term(String label) {
+        return SameObjectTermFactory.instance().createOrGetLiteral(label);
+    }
+
+    // Les requêtes lourdes restent bloquées jusqu'à l'ouverture du verrou
+    @BeforeEach
+    public void load() {
+        store = new RDFHexaStore() {
+            @Override
+            public Iterator<Substitution> match(StarQuery query, CancellationToken token) {
+                if (query.getLabel().startsWith("lourde")) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                if (query.getLabel().startsWith("erreur")) {
+                    throw new StackOverflowError("Évaluation trop profonde.");
+                }
+                return super.match(query, token);
+            }
+        };
+        for (int i = 0; i < 200; i++) {
+            store.add(new RDFAtom(term("s" + i), term("type"), term("personne")));
+            store.add(new RDFAtom(term("s" + i), term("nom"), term("n" + i)));
+        }
+    }
+
+    private static StarQuery query(String label, String object) {
+        return new StarQuery(label, List.of(new RDFAtom(VAR_X, term("type"), term("personne")),
+                new RDFAtom(VAR_X, term("nom"), object == null ? VAR_Y : term(object))), List.of(VAR_X));
+    }
+
+    @Test
+    public void testClassificationFromIndexStatistics() {
+        try (QueryScheduler scheduler = new QueryScheduler(store, 50, 2, 1)) {
+            assertEquals(QueryScheduler.Lane.CHEAP, scheduler.classify(query("legere", "n3")));
+            assertEquals(QueryScheduler.Lane.EXPENSIVE, scheduler.classify(query("large", null)));
+        }
+    }
+
+    @Test
+    public void testCheapQueriesBypassBlockedExpensiveOnes() throws Exception {
+        try (QueryScheduler scheduler = new QueryScheduler(store, 50, 3, 1)) {
+            List<CompletableFuture<List<Substitution>>> expensive = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                expensive.add(scheduler.submit(query("lourde" + i, null)));
+            }
+            List<CompletableFuture<List<Substitution>>> cheap = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                cheap.add(scheduler.submit(query("legere" + i, "n" + i)));
+            }
+            for (CompletableFuture<List<Substitution>> answers : cheap) {
+                assertEquals(1, answers.get(10, TimeUnit.SECONDS).size());
+            }
+
+            QueryScheduler.LaneStats blocked = scheduler.stats(QueryScheduler.Lane.EXPENSIVE);
+            assertEquals(1, blocked.running(), "Une seule requête lourde à la fois.");
+            assertEquals(2, blocked.queued());
+            assertEquals(20, scheduler.stats(QueryScheduler.Lane.CHEAP).started());
+            assertTrue(expensive.stream().noneMatch(CompletableFuture::isDone));
+
+            release.countDown();
+            for (CompletableFuture<List<Substitution>> answers : expensive) {
+                assertEquals(200, answers.get(10, TimeUnit.SECONDS).size());
+            }
+            QueryScheduler.LaneStats done = scheduler.stats(QueryScheduler.Lane.EXPENSIVE);
+            assertEquals(0, done.queued());
+            assertEquals(3, done.started());
+            assertTrue(done.maxWaitNanos() > 0 && done.averageWaitMillis() > 0);
+        }
+    }
+
+    @Test
+    public void testCloseCancelsQueuedQueries() throws Exception {
+        QueryScheduler scheduler = new QueryScheduler(store, 50, 2, 1);
+        CompletableFuture<List<Substitution>> running = scheduler.submit(query("lourde0", null));
+        CompletableFuture<List<Substitution>> queued = scheduler.submit(query("lourde1", null));
+        while (scheduler.stats(QueryScheduler.Lane.EXPENSIVE).running() == 0) {
+            Thread.sleep(1);
+        }
+        scheduler.close();
+        assertThrows(CancellationException.class, queued::join);
+        assertThrows(RejectedExecutionException.class, () -> scheduler.submit(query("legere", "n1")));
+
+        release.countDown();
+        assertEquals(200, running.get(10, TimeUnit.SECONDS).size(), "Les requêtes en cours se terminent.");
+    }
+
+    @Test
+    public void testLimitsErrorsAndCancellation() throws Exception {
+        try (QueryScheduler scheduler = new QueryScheduler(store, 50, 2, 1)) {
+            // Une erreur termine le futur et laisse le thread disponible
+            ExecutionException failed = assertThrows(ExecutionException.class,
+                    () -> scheduler.submit(query("erreur", "n3")).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(StackOverflowError.class, failed.getCause());
+            assertEquals(1, scheduler.submit(query("legere", "n3")).get(5, TimeUnit.SECONDS).size());
+
+            // Les limites du store s'appliquent aux requêtes planifiées (le tri matérialise les 200 sujets)
+            store.setQueryLimits(new QueryLimits(QueryLimits.UNLIMITED, 10));
+            StarQuery sorted = new StarQuery("triee", query("triee", null).getRdfAtoms(), List.of(VAR_X),
+                    new SolutionModifiers(SolutionModifiers.NO_LIMIT, 0, SolutionModifiers.CentralOrder.ASC));
+            failed = assertThrows(ExecutionException.class, () -> scheduler.submit(sorted).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(QueryAbortedException.class, failed.getCause());
+            store.setQueryLimits(QueryLimits.NONE);
+
+            // L'annulation du futur interrompt la requête en cours
+            CompletableFuture<List<Substitution>> running = scheduler.submit(query("lourde0", null));
+            while (scheduler.stats(QueryScheduler.Lane.EXPENSIVE).running() == 0) {
+                Thread.sleep(1);
+            }
+            running.cancel(false);
+            release.countDown();
+            while (scheduler.stats(QueryScheduler.Lane.EXPENSIVE).running() != 0) {
+                Thread.sleep(1);
+            }
+            assertTrue(running.isCancelled());
+        }
+    }
+
+    @Test
+    public void testCancelledWhileQueued() throws Exception {
+        try (QueryScheduler scheduler = new QueryScheduler(store, 50, 2, 1)) {
+            // Les deux threads sont occupés : une lourde et une légère bloquées
+            CompletableFuture<List<Substitution>> expensive = scheduler.submit(query("lourde0", null));
+            CompletableFuture<List<Substitution>> cheap = scheduler.submit(query("lourde1", "n3"));
+            while (scheduler.stats(QueryScheduler.Lane.EXPENSIVE).running()
+                    + scheduler.stats(QueryScheduler.Lane.CHEAP).running() != 2) {
+                Thread.sleep(1);
+            }
+            CompletableFuture<List<Substitution>> waiting = scheduler.submit(query("legere", "n4"));
+            assertEquals(1, scheduler.stats(QueryScheduler.Lane.CHEAP).queued());
+
+            // L'annulation retire la requête de sa file, sans attendre qu'un thread la prenne
+            waiting.cancel(false);
+            assertEquals(0, scheduler.stats(QueryScheduler.Lane.CHEAP).queued());
+
+            release.countDown();
+            assertEquals(200, expensive.get(5, TimeUnit.SECONDS).size());
+            assertEquals(1, cheap.get(5, TimeUnit.SECONDS).size());
+            assertEquals(1, scheduler.submit(query("legere", "n5")).get(5, TimeUnit.SECONDS).size());
+            // Seules les requêtes exécutées entrent dans les temps d'attente
+            assertEquals(2, scheduler.stats(QueryScheduler.Lane.CHEAP).started());
+            assertTrue(waiting.isCancelled());
+        }
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new QueryScheduler(store, 50, 2, 2));
+        assertThrows(IllegalArgumentException.class, () -> new QueryScheduler(store, q -> 0, 50, 4, 1, 0));
+    }
+}
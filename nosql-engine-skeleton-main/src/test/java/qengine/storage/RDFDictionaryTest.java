@@ -4,6 +4,9 @@ import fr.boreal.model.logicalElements.api.Term;
 import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class RDFDictionaryTest {
@@ -84,4 +87,69 @@ public class RDFDictionaryTest {
         assertThrows(IllegalArgumentException.class, () -> dictionary.decodeTriple(invalidTriple),
                 "Décoder un triple avec une longueur invalide doit lancer une IllegalArgumentException."); // Vérifie qu'une exception est levée pour une longueur invalide
     }
+
+    @Test
+    public void testReleaseReusesIdentifier() {
+        // Test : Un identifiant libéré est réattribué au terme suivant
+        RDFDictionary dictionary = new RDFDictionary();
+        Term bob = SameObjectTermFactory.instance().createOrGetLiteral("Bob");
+        Term alice = SameObjectTermFactory.instance().createOrGetLiteral("Alice");
+        Term carol = SameObjectTermFactory.instance().createOrGetLiteral("Carol");
+
+        int bobId = dictionary.encode(bob);
+        dictionary.encode(alice);
+        assertTrue(dictionary.release(bobId), "Le terme Bob doit être retiré.");
+        assertFalse(dictionary.release(bobId), "Un identifiant déjà libéré ne porte plus de terme.");
+        assertEquals(-1, dictionary.lookup(bob));
+        assertNull(dictionary.decode(bobId));
+        assertEquals(1, dictionary.termCount());
+
+        assertEquals(bobId, dictionary.encode(carol), "L'identifiant libéré doit être réutilisé.");
+        assertEquals(2, dictionary.size(), "La borne des identifiants ne change pas.");
+    }
+
+    @Test
+    public void testLiteralsWithPrefix() {
+        // Test : Recherche des littéraux par préfixe, à jour après ajout et retrait
+        RDFDictionary dictionary = new RDFDictionary();
+        int alice = dictionary.encode(SameObjectTermFactory.instance().createOrGetLiteral("Alice"));
+        int alina = dictionary.encode(SameObjectTermFactory.instance().createOrGetLiteral("Alina"));
+        dictionary.encode(SameObjectTermFactory.instance().createOrGetLiteral("Bob"));
+        dictionary.encode(SameObjectTermFactory.instance().createOrGetConstant("Alix"));
+
+        assertEquals(Set.of(alice, alina), dictionary.literalsWithPrefix("Ali"), "Les constantes ne sont pas des littéraux.");
+        assertEquals(Set.of(alice), dictionary.literalsWithPrefix("Alice"));
+        assertTrue(dictionary.literalsWithPrefix("Alicia").isEmpty());
+
+        int alibaba = dictionary.encode(SameObjectTermFactory.instance().createOrGetLiteral("Alibaba"));
+        dictionary.release(alice);
+        assertEquals(Set.of(alina, alibaba), dictionary.literalsWithPrefix("Ali"));
+        assertEquals(3, dictionary.literalsWithPrefix("").size());
+    }
+
+    @Test
+    public void testLiteralsWithPrefixAcrossMerges() {
+        // Test : Le delta des littéraux est fusionné dans la base sans perdre ni ressusciter de terme
+        RDFDictionary dictionary = new RDFDictionary(true);
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 5000; i++) {
+            int id = dictionary.encode(SameObjectTermFactory.instance().createOrGetLiteral("nom" + i));
+            if (String.valueOf(i).startsWith("1")) {
+                expected.add(id);
+            }
+            if (i == 1500) {
+                // Recherche intermédiaire : les littéraux suivants arrivent dans le delta de la base construite
+                assertEquals(expected, dictionary.literalsWithPrefix("nom1"));
+            }
+        }
+        assertEquals(expected, dictionary.literalsWithPrefix("nom1"));
+
+        int released = dictionary.lookup(SameObjectTermFactory.instance().createOrGetLiteral("nom11"));
+        dictionary.release(released);
+        expected.remove(released);
+        int reused = dictionary.encode(SameObjectTermFactory.instance().createOrGetLiteral("autre"));
+        assertEquals(released, reused, "L'identifiant libéré est réattribué.");
+        assertEquals(expected, dictionary.literalsWithPrefix("nom1"), "Un terme libéré n'est plus retourné.");
+        assertEquals(Set.of(reused), dictionary.literalsWithPrefix("autre"));
+    }
 }
@@ -5,6 +5,7 @@ import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
 import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
 import org.apache.commons.lang3.NotImplementedException;
 import qengine.model.RDFAtom;
+import qengine.model.SolutionModifiers;
 import qengine.model.StarQuery;
 
 import org.junit.jupiter.api.Test;
@@ -280,4 +281,234 @@ public class RDFHexaStoreTest {
         assertEquals(OBJECT_2, substitution.toMap().get(VAR_Y), "VAR_Y devrait être lié à OBJECT_2.");
     }
 
+    @Test
+    public void testMatchStarQueryWithLimitAndOffset() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(OBJECT_2, PREDICATE_1, OBJECT_1));
+
+        RDFAtom atom = new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1);
+
+        StarQuery limited = new StarQuery("LimitQuery", List.of(atom), List.of(VAR_X),
+                new SolutionModifiers(2, 0, SolutionModifiers.CentralOrder.NONE));
+        List<Substitution> limitedResults = new ArrayList<>();
+        store.match(limited).forEachRemaining(limitedResults::add);
+        assertEquals(2, limitedResults.size(), "La limite devrait restreindre le nombre de réponses à 2.");
+
+        StarQuery shifted = new StarQuery("OffsetQuery", List.of(atom), List.of(VAR_X),
+                new SolutionModifiers(SolutionModifiers.NO_LIMIT, 2, SolutionModifiers.CentralOrder.NONE));
+        List<Substitution> shiftedResults = new ArrayList<>();
+        store.match(shifted).forEachRemaining(shiftedResults::add);
+        assertEquals(1, shiftedResults.size(), "Le décalage devrait ignorer les deux premières réponses.");
+        assertFalse(limitedResults.contains(shiftedResults.get(0)), "Les réponses décalées ne devraient pas recouper les premières.");
+    }
+
+    @Test
+    public void testMatchStarQueryOrderedByCentralVariable() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1)); // SUBJECT_1 reçoit le plus petit identifiant
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(OBJECT_2, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_3));
+        store.add(new RDFAtom(OBJECT_2, PREDICATE_2, OBJECT_3));
+
+        RDFAtom atom1 = new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1);
+        RDFAtom atom2 = new RDFAtom(VAR_X, PREDICATE_2, OBJECT_3);
+
+        StarQuery ascending = new StarQuery("AscQuery", List.of(atom1, atom2), List.of(VAR_X),
+                new SolutionModifiers(1, 0, SolutionModifiers.CentralOrder.ASC));
+        Iterator<Substitution> first = store.match(ascending);
+        assertEquals(SUBJECT_1, first.next().toMap().get(VAR_X), "Le premier identifiant devrait être SUBJECT_1.");
+        assertFalse(first.hasNext(), "Une seule réponse devrait être produite avec LIMIT 1.");
+
+        StarQuery descending = new StarQuery("DescQuery", List.of(atom1, atom2), List.of(VAR_X),
+                new SolutionModifiers(1, 0, SolutionModifiers.CentralOrder.DESC));
+        Iterator<Substitution> last = store.match(descending);
+        assertEquals(OBJECT_2, last.next().toMap().get(VAR_X), "Le dernier identifiant devrait être OBJECT_2.");
+    }
+
+    @Test
+    public void testMatchStarQueryWithUnknownConstant() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+
+        RDFAtom atom = new RDFAtom(VAR_X, PREDICATE_2, OBJECT_1);
+        StarQuery query = new StarQuery("UnknownQuery", List.of(atom), List.of(VAR_X));
+
+        assertFalse(store.match(query).hasNext(), "Une constante inconnue ne devrait produire aucune réponse.");
+    }
+
+    @Test
+    public void testBatchModeMatchesRowMode() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_3));
+        store.add(new RDFAtom(OBJECT_2, PREDICATE_1, OBJECT_1));
+
+        RDFAtom atom1 = new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1);
+        RDFAtom atom2 = new RDFAtom(VAR_X, PREDICATE_2, VAR_Y);
+        StarQuery query = new StarQuery("BatchQuery", List.of(atom1, atom2), List.of(VAR_X, VAR_Y));
+
+        Set<Map<Variable, Term>> rowResults = new HashSet<>();
+        store.match(query).forEachRemaining(s -> rowResults.add(s.toMap()));
+
+        store.setExecutionMode(ExecutionMode.BATCH);
+        Set<Map<Variable, Term>> batchResults = new HashSet<>();
+        store.match(query).forEachRemaining(s -> batchResults.add(s.toMap()));
+
+        assertEquals(2, rowResults.size(), "Deux sujets possèdent les deux prédicats.");
+        assertEquals(rowResults, batchResults, "Les deux modes d'exécution devraient produire les mêmes réponses.");
+    }
+
+    @Test
+    public void testEmergentSchemaMatchesIndexEvaluation() {
+        Literal<String> predicate3 = SameObjectTermFactory.instance().createOrGetLiteral("predicate3");
+        Variable varZ = SameObjectTermFactory.instance().createOrGetVariable("?z");
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2));
+        store.add(new RDFAtom(SUBJECT_1, predicate3, OBJECT_3));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_3));
+        store.add(new RDFAtom(SUBJECT_2, predicate3, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_2, predicate3, OBJECT_2));
+
+        RDFAtom atom1 = new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1);
+        RDFAtom atom2 = new RDFAtom(VAR_X, PREDICATE_2, VAR_Y);
+        RDFAtom atom3 = new RDFAtom(VAR_X, predicate3, varZ);
+        StarQuery query = new StarQuery("TableQuery", List.of(atom1, atom2, atom3), List.of(VAR_X, VAR_Y, varZ),
+                new SolutionModifiers(SolutionModifiers.NO_LIMIT, 0, SolutionModifiers.CentralOrder.DESC));
+
+        List<Map<Variable, Term>> indexResults = new ArrayList<>();
+        store.match(query).forEachRemaining(s -> indexResults.add(s.toMap()));
+
+        assertEquals(1, store.buildEmergentSchema(1).getTables().size(), "Une table pour les trois prédicats.");
+        List<Map<Variable, Term>> tableResults = new ArrayList<>();
+        store.match(query).forEachRemaining(s -> tableResults.add(s.toMap()));
+
+        assertEquals(3, indexResults.size(), "Une réponse pour subject1, deux pour subject2.");
+        assertEquals(new HashSet<>(indexResults), new HashSet<>(tableResults), "La table devrait produire les mêmes réponses.");
+        assertEquals(SUBJECT_2, tableResults.get(0).get(VAR_X), "Ordre décroissant : subject2 d'abord.");
+
+        store.add(new RDFAtom(OBJECT_1, PREDICATE_1, OBJECT_1));
+        assertNull(store.getEmergentSchema(), "Une insertion invalide les tables de propriétés.");
+    }
+
+    @Test
+    public void testEmergentSchemaDrivenBySelectiveConstant() {
+        Literal<String> predicate3 = SameObjectTermFactory.instance().createOrGetLiteral("predicate3");
+        Variable varZ = SameObjectTermFactory.instance().createOrGetVariable("?z");
+        RDFHexaStore store = new RDFHexaStore();
+        for (int s = 0; s < 50; s++) {
+            Literal<String> subject = SameObjectTermFactory.instance().createOrGetLiteral("sujet" + s);
+            store.add(new RDFAtom(subject, PREDICATE_1, s == 7 ? OBJECT_3 : OBJECT_1));
+            store.add(new RDFAtom(subject, PREDICATE_2, OBJECT_2));
+            store.add(new RDFAtom(subject, predicate3, OBJECT_1));
+        }
+        assertEquals(1, store.buildEmergentSchema(1).getTables().size());
+        List<QueryMetrics> reported = new ArrayList<>();
+        store.setMetricsListener(reported::add);
+
+        StarQuery query = new StarQuery("Rare", List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_3),
+                new RDFAtom(VAR_X, PREDICATE_2, VAR_Y), new RDFAtom(VAR_X, predicate3, varZ)),
+                List.of(VAR_X, VAR_Y, varZ));
+        List<Map<Variable, Term>> results = new ArrayList<>();
+        store.match(query).forEachRemaining(s -> results.add(s.toMap()));
+
+        assertEquals(List.of(Map.of(VAR_X, SameObjectTermFactory.instance().createOrGetLiteral("sujet7"),
+                VAR_Y, OBJECT_2, varZ, OBJECT_1)), results);
+        assertTrue(reported.get(0).usedPropertyTable(), "Les réponses sont lues dans la table.");
+        assertEquals(1, reported.get(0).getCandidates(), "La constante rare pilote : la table n'est pas parcourue.");
+    }
+
+    @Test
+    public void testAddDuplicateIsIgnored() {
+        RDFHexaStore store = new RDFHexaStore();
+
+        assertTrue(store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1)), "Le premier ajout devrait réussir.");
+        assertFalse(store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1)), "Un doublon ne devrait pas être ajouté.");
+        assertEquals(1, store.size(), "Le doublon ne devrait pas être compté.");
+    }
+
+    @Test
+    public void testEstimateCardinalityWithCharacteristicSets() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_3));
+        store.add(new RDFAtom(OBJECT_2, PREDICATE_1, OBJECT_3));
+
+        RDFAtom atom1 = new RDFAtom(VAR_X, PREDICATE_1, VAR_Y);
+        RDFAtom atom2 = new RDFAtom(VAR_X, PREDICATE_2, OBJECT_2);
+        StarQuery query = new StarQuery("EstimateQuery", List.of(atom1, atom2), List.of(VAR_X));
+
+        List<Substitution> results = new ArrayList<>();
+        store.match(query).forEachRemaining(results::add);
+
+        assertEquals(1, results.size(), "Seul SUBJECT_1 possède les deux prédicats avec l'objet OBJECT_2.");
+        assertEquals(1.0, store.estimateCardinality(query), 1e-9, "L'estimation devrait être exacte ici.");
+    }
+
+    @Test
+    public void testRemoveAtom() {
+        RDFHexaStore store = new RDFHexaStore();
+        RDFAtom kept = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1);
+        RDFAtom removed = new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2);
+        store.add(kept);
+        store.add(removed);
+
+        assertTrue(store.remove(removed), "Le RDFAtom présent doit être retiré.");
+        assertFalse(store.remove(removed), "Un RDFAtom absent ne peut pas être retiré.");
+        assertFalse(store.remove(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_3)), "Termes inconnus : rien à retirer.");
+        assertEquals(1, store.size());
+        assertEquals(List.of(kept), new ArrayList<>(store.getAtoms()));
+        assertFalse(store.match(new RDFAtom(VAR_X, PREDICATE_2, VAR_Y)).hasNext());
+        assertEquals(1.0, store.estimateCardinality(new StarQuery("q", List.of(new RDFAtom(VAR_X, PREDICATE_1, VAR_Y)),
+                List.of(VAR_X, VAR_Y))), 1e-9, "Les statistiques doivent suivre la suppression.");
+    }
+
+    @Test
+    public void testRemoveAllMatchesRebuiltStore() {
+        List<RDFAtom> atoms = new ArrayList<>();
+        Literal<?>[] subjects = {SUBJECT_1, SUBJECT_2, OBJECT_3};
+        Literal<?>[] predicates = {PREDICATE_1, PREDICATE_2};
+        Literal<?>[] objects = {OBJECT_1, OBJECT_2, OBJECT_3};
+        for (Literal<?> subject : subjects) {
+            for (Literal<?> predicate : predicates) {
+                for (Literal<?> object : objects) {
+                    atoms.add(new RDFAtom(subject, predicate, object));
+                }
+            }
+        }
+        List<RDFAtom> toRemove = atoms.subList(0, 12);
+        List<RDFAtom> remaining = atoms.subList(12, atoms.size());
+
+        RDFHexaStore store = new RDFHexaStore();
+        store.setReclaimDictionaryIds(true);
+        store.addAll(atoms);
+        assertTrue(store.removeAll(toRemove));
+        assertFalse(store.removeAll(toRemove), "Un second retrait ne retire plus rien.");
+
+        RDFHexaStore rebuilt = new RDFHexaStore();
+        rebuilt.addAll(remaining);
+        assertEquals(rebuilt.size(), store.size());
+        assertEquals(new HashSet<>(rebuilt.getAtoms()), new HashSet<>(store.getAtoms()));
+        StarQuery query = new StarQuery("q", List.of(new RDFAtom(VAR_X, PREDICATE_1, VAR_Y),
+                new RDFAtom(VAR_X, PREDICATE_2, OBJECT_3)), List.of(VAR_X, VAR_Y));
+        assertEquals(rebuilt.estimateCardinality(query), store.estimateCardinality(query), 1e-9);
+        assertEquals(rebuilt.getCharacteristicSets().getSets().size(), store.getCharacteristicSets().getSets().size());
+        Set<Map<Variable, Term>> expected = new HashSet<>();
+        rebuilt.match(query).forEachRemaining(s -> expected.add(s.toMap()));
+        Set<Map<Variable, Term>> actual = new HashSet<>();
+        store.match(query).forEachRemaining(s -> actual.add(s.toMap()));
+        assertEquals(expected, actual);
+
+        // SUBJECT_1 n'apparaît plus : son identifiant est libéré puis réutilisé
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        assertTrue(store.getAtoms().contains(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1)));
+    }
 }
@@ -3,6 +3,7 @@ package qengine.storage;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -45,4 +46,65 @@ public class RDFIndexTest {
         List<int[]> results2 = index.findMatches(1, 2, -1); // subject=1, predicate=2, any object
         assertEquals(1, results2.size(), "Should find one triple with subject=1 and predicate=2.");
     }
+
+    @Test
+    public void testFindCandidates() {
+        RDFIndex index = new RDFIndex();
+
+        index.addTriple(0, 1, 2);
+        index.addTriple(3, 1, 2);
+        index.addTriple(0, 4, 5);
+
+        assertEquals(Set.of(0, 3), index.findCandidates(-1, 1, 2, 0), "Subjects with predicate=1 and object=2.");
+        assertEquals(Set.of(1, 4), index.findCandidates(0, -1, -1, 1), "Predicates of subject=0.");
+        assertEquals(Set.of(2, 5), index.findCandidates(0, -1, -1, 2), "Objects of subject=0.");
+        assertTrue(index.findCandidates(-1, 9, -1, 0).isEmpty(), "Unknown predicate should give no candidates.");
+    }
+
+    @Test
+    public void testFindBySubjectOnly() {
+        RDFIndex index = new RDFIndex();
+
+        index.addTriple(0, 1, 2);
+        index.addTriple(0, 4, 5);
+        index.addTriple(3, 1, 2);
+
+        List<int[]> results = index.findMatches(0, -1, -1); // subject=0, any predicate and object
+        assertEquals(2, results.size(), "Should only find the triples of subject=0.");
+        assertTrue(results.stream().allMatch(triple -> triple[0] == 0), "Every triple should have subject=0.");
+    }
+
+    @Test
+    public void testRemoveTriplePrunesEmptyMaps() {
+        RDFIndex index = new RDFIndex();
+
+        index.addTriple(0, 1, 2);
+        index.addTriple(0, 1, 3);
+
+        assertTrue(index.removeTriple(0, 1, 2), "Removing an existing triple should succeed.");
+        assertFalse(index.removeTriple(0, 1, 2), "Removing it twice should fail.");
+        assertEquals(1, index.findMatches(-1, -1, -1).size());
+        assertTrue(index.findCandidates(-1, 1, 2, 0).isEmpty(), "No subject left with predicate=1 and object=2.");
+
+        assertTrue(index.removeTriple(0, 1, 3));
+        index.permutations().forEach((name, permutation) ->
+                assertTrue(permutation.isEmpty(), "Permutation " + name + " should be pruned."));
+    }
+
+    @Test
+    public void testRemoveTriplesInBatch() {
+        RDFIndex index = new RDFIndex();
+
+        index.addTriple(0, 1, 2);
+        index.addTriple(0, 1, 3);
+        index.addTriple(0, 4, 5);
+        index.addTriple(6, 1, 2);
+
+        List<int[]> removed = index.removeTriples(List.of(new int[]{0, 1, 2}, new int[]{0, 4, 5},
+                new int[]{0, 4, 5}, new int[]{9, 9, 9}));
+        assertEquals(2, removed.size(), "Duplicates and absent triples should be skipped.");
+        assertEquals(2, index.findMatches(-1, -1, -1).size());
+        assertEquals(Set.of(1), index.findCandidates(0, -1, -1, 1), "Subject=0 should keep only predicate=1.");
+        assertEquals(Set.of(6), index.findCandidates(-1, 1, 2, 0));
+    }
 }
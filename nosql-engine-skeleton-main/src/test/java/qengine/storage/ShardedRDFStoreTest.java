@@ -0,0 +1,179 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import qengine.model.PrefixFilter;
+import qengine.model.RDFAtom;
+import qengine.model.RangeFilter;
+import qengine.model.SolutionModifiers;
+import qengine.model.StarQuery;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static qengine.storage.StoreFixtures.*;
+
+public class ShardedRDFStoreTest {
+
+    private static final int SHARDS = 3;
+
+    private final List<ShardServer> servers = new ArrayList<>();
+    private final RDFHexaStore reference = new RDFHexaStore();
+    private ShardedRDFStore store;
+
+    private static List<RDFAtom> atoms() {
+        return grid(200, 3, 5, 17, 4);
+    }
+
+    // Chaque shard ne reçoit que ses sujets, comme un processus chargeant sa part du fichier
+    @BeforeEach
+    public void startShards() throws IOException {
+        List<ConcurrentRDFHexaStore> shardStores = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            shardStores.add(new ConcurrentRDFHexaStore());
+        }
+        for (RDFAtom atom : atoms()) {
+            shardStores.get(ShardedRDFStore.shardOf(atom.getTripleSubject(), SHARDS)).add(atom);
+            reference.add(atom);
+        }
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (ConcurrentRDFHexaStore shardStore : shardStores) {
+            ShardServer server = new ShardServer(shardStore, 0);
+            servers.add(server);
+            addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+        }
+        store = new ShardedRDFStore(addresses);
+    }
+
+    @AfterEach
+    public void stopShards() throws IOException {
+        for (ShardServer server : servers) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testAnswersMatchSingleStore() {
+        assertEquals(reference.size(), store.size());
+        assertEquals(new HashSet<>(reference.getAtoms()), new HashSet<>(store.getAtoms()));
+
+        List<StarQuery> queries = List.of(
+                new StarQuery("sujet", List.of(new RDFAtom(VAR_X, term("p1"), VAR_Y),
+                        new RDFAtom(VAR_X, term("p2"), term("o3"))), List.of(VAR_X, VAR_Y)),
+                new StarQuery("objet-fixe", List.of(new RDFAtom(term("s10"), term("p1"), VAR_X),
+                        new RDFAtom(VAR_Y, term("p2"), VAR_X)), List.of(VAR_X, VAR_Y)),
+                new StarQuery("objet", List.of(new RDFAtom(VAR_Y, term("p0"), VAR_X),
+                        new RDFAtom(VAR_Z, term("p1"), VAR_X)), List.of(VAR_X, VAR_Y, VAR_Z)),
+                new StarQuery("inconnu", List.of(new RDFAtom(VAR_X, term("absent"), VAR_Y)), List.of(VAR_X)));
+        for (StarQuery query : queries) {
+            assertEquals(answers(reference.match(query)), answers(store.match(query)), query.getLabel());
+        }
+        for (RDFAtom pattern : List.of(new RDFAtom(VAR_X, term("p2"), term("o4")), new RDFAtom(term("s10"), VAR_X, VAR_Y))) {
+            assertEquals(answers(reference.match(pattern)), answers(store.match(pattern)));
+        }
+    }
+
+    @Test
+    public void testLimitAndOffsetAcrossShards() {
+        List<RDFAtom> star = List.of(new RDFAtom(VAR_X, term("p1"), VAR_Y));
+        Set<Map<Variable, Term>> all = answers(reference.match(new StarQuery("tout", star, List.of(VAR_X, VAR_Y))));
+
+        Set<Map<Variable, Term>> paged = new HashSet<>();
+        for (long offset = 0; offset < all.size(); offset += 40) {
+            StarQuery page = new StarQuery("page", star, List.of(VAR_X, VAR_Y),
+                    new SolutionModifiers(40, offset, SolutionModifiers.CentralOrder.NONE));
+            Set<Map<Variable, Term>> answers = answers(store.match(page));
+            assertTrue(answers.size() <= 40);
+            paged.addAll(answers);
+        }
+        assertEquals(all, paged, "Les pages successives doivent couvrir toutes les réponses.");
+
+        // Abandon d'une réponse en cours : les shards restent disponibles
+        Iterator<Substitution> partial = store.match(new StarQuery("partiel", star, List.of(VAR_X, VAR_Y),
+                new SolutionModifiers(1, 0, SolutionModifiers.CentralOrder.NONE)));
+        assertTrue(partial.hasNext());
+        partial.next();
+        assertFalse(partial.hasNext());
+        assertEquals(reference.size(), store.size());
+    }
+
+    @Test
+    public void testUpdatesRouteToSubjectShard() {
+        RDFAtom atom = new RDFAtom(term("nouveau"), term("p0"), term("o0"));
+        assertTrue(store.add(atom));
+        assertFalse(store.add(atom));
+        assertEquals(reference.size() + 1, store.size());
+        assertEquals(1, answers(store.match(new RDFAtom(term("nouveau"), VAR_X, VAR_Y))).size());
+
+        assertTrue(store.remove(atom));
+        assertFalse(store.remove(atom));
+        assertTrue(store.removeAll(atoms().subList(0, 10)));
+        assertEquals(reference.size() - 10, store.size());
+        assertFalse(store.match(new RDFAtom(term("nouveau"), VAR_X, VAR_Y)).hasNext());
+    }
+
+    @Test
+    public void testOrderFollowsCentralLabels() {
+        List<List<RDFAtom>> stars = List.of(
+                List.of(new RDFAtom(VAR_X, term("p1"), VAR_Y)), // Fusion des flux triés des shards
+                List.of(new RDFAtom(VAR_Y, term("p0"), VAR_X), new RDFAtom(VAR_Z, term("p1"), VAR_X))); // Jointure
+        for (List<RDFAtom> star : stars) {
+            List<Variable> variables = star.size() == 1 ? List.of(VAR_X, VAR_Y) : List.of(VAR_X, VAR_Y, VAR_Z);
+            List<String> labels = new ArrayList<>();
+            reference.match(new StarQuery("tout", star, variables))
+                    .forEachRemaining(answer -> labels.add(answer.createImageOf(VAR_X).label()));
+            Collections.sort(labels);
+            for (SolutionModifiers.CentralOrder order : List.of(SolutionModifiers.CentralOrder.ASC,
+                    SolutionModifiers.CentralOrder.DESC)) {
+                List<String> expected = new ArrayList<>(labels);
+                if (order == SolutionModifiers.CentralOrder.DESC) {
+                    Collections.reverse(expected);
+                }
+                StarQuery query = new StarQuery("tri", star, variables, new SolutionModifiers(15, 7, order));
+                List<String> actual = answerList(store.match(query)).stream().map(row -> row.get(VAR_X).label()).toList();
+                assertEquals(expected.subList(7, 22), actual, order + " " + star);
+            }
+        }
+    }
+
+    @Test
+    public void testCoordinatorJoinRespectsLimits() {
+        StarQuery objectStar = new StarQuery("objet", List.of(new RDFAtom(VAR_Y, term("p0"), VAR_X),
+                new RDFAtom(VAR_Z, term("p1"), VAR_X)), List.of(VAR_X, VAR_Y, VAR_Z));
+        StarQuery subjectStar = new StarQuery("sujet", List.of(new RDFAtom(VAR_X, term("p1"), VAR_Y)),
+                List.of(VAR_X, VAR_Y));
+
+        // Les réponses de chaque atome sont matérialisées par le coordinateur avant la jointure
+        store.setQueryLimits(new QueryLimits(QueryLimits.UNLIMITED, 20));
+        QueryAbortedException aborted = assertThrows(QueryAbortedException.class, () -> answers(store.match(objectStar)));
+        assertEquals(QueryAbortedException.Reason.ROW_LIMIT, aborted.getReason());
+        store.setQueryLimits(QueryLimits.NONE);
+        assertEquals(answers(reference.match(objectStar)), answers(store.match(objectStar)));
+
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        for (StarQuery query : List.of(objectStar, subjectStar)) {
+            aborted = assertThrows(QueryAbortedException.class, () -> answers(store.match(query, token)));
+            assertEquals(QueryAbortedException.Reason.CANCELLED, aborted.getReason(), query.getLabel());
+        }
+    }
+
+    @Test
+    public void testQueryFiltersAreSentToShards() throws IOException {
+        StarQuery query = new StarQuery("filtre", List.of(new RDFAtom(VAR_X, term("p1"), VAR_Y)), List.of(VAR_X, VAR_Y),
+                SolutionModifiers.NONE, List.of(RangeFilter.of(VAR_Y, ">=", "1980-01-01")),
+                List.of(new PrefixFilter(VAR_Y, "o1")));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ShardProtocol.writeQuery(new DataOutputStream(bytes), query);
+        StarQuery read = ShardProtocol.readQuery(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(query, read);
+        assertFalse(store.match(query).hasNext(), "Aucun objet n'est une date.");
+    }
+}
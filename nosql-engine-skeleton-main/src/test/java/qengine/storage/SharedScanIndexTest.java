@@ -0,0 +1,89 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.SolutionModifiers;
+import qengine.model.StarQuery;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static qengine.storage.StoreFixtures.*;
+
+public class SharedScanIndexTest {
+
+    // Chaque sujet a une région parmi dix, un nom, un type et un statut
+    private static RDFHexaStore store() {
+        RDFHexaStore store = new RDFHexaStore();
+        for (int s = 0; s < 100; s++) {
+            store.add(new RDFAtom(term("s" + s), term("region"), term("pays" + s % 10)));
+            store.add(new RDFAtom(term("s" + s), term("nom"), term("n" + s)));
+            store.add(new RDFAtom(term("s" + s), term("type"), term(s % 2 == 0 ? "personne" : "robot")));
+            store.add(new RDFAtom(term("s" + s), term("statut"), term(s % 3 == 0 ? "actif" : "inactif")));
+        }
+        return store;
+    }
+
+    private static StarQuery region(String country) {
+        return new StarQuery(country, List.of(new RDFAtom(VAR_X, term("region"), term(country))), List.of(VAR_X));
+    }
+
+    // Atomes communs (type, personne) et (statut, actif), région propre à la requête
+    private static StarQuery activePeople(String country) {
+        return new StarQuery("actifs-" + country, List.of(new RDFAtom(VAR_X, term("type"), term("personne")),
+                new RDFAtom(VAR_X, term("region"), term(country)), new RDFAtom(VAR_X, term("statut"), term("actif"))),
+                List.of(VAR_X));
+    }
+
+    @Test
+    public void testBatchMatchesSeparateEvaluation() {
+        RDFHexaStore store = store();
+        List<StarQuery> queries = new ArrayList<>();
+        for (int c = 0; c < 10; c++) {
+            queries.add(region("pays" + c));
+            queries.add(activePeople("pays" + c));
+        }
+        queries.add(region("pays3")); // Doublon
+        queries.add(region("inconnu"));
+        queries.add(new StarQuery("avecNom", List.of(new RDFAtom(VAR_X, term("region"), term("pays4")),
+                new RDFAtom(VAR_X, term("nom"), VAR_Y)), List.of(VAR_X, VAR_Y),
+                new SolutionModifiers(3, 1, SolutionModifiers.CentralOrder.DESC)));
+        queries.add(new StarQuery("objet", List.of(new RDFAtom(term("s5"), term("region"), VAR_X)), List.of(VAR_X)));
+
+        List<Iterator<Substitution>> batch = store.matchAll(queries);
+        assertEquals(queries.size(), batch.size());
+        for (int i = 0; i < queries.size(); i++) {
+            StarQuery query = queries.get(i);
+            List<Map<Variable, Term>> expected = answerList(store.match(query));
+            List<Map<Variable, Term>> actual = answerList(batch.get(i));
+            if (query.getModifiers().isOrdered()) {
+                assertEquals(expected, actual, query.getLabel());
+            } else {
+                assertEquals(new HashSet<>(expected), new HashSet<>(actual), query.getLabel());
+            }
+        }
+    }
+
+    @Test
+    public void testCommonAtomsIntersectedOnce() {
+        RDFHexaStore store = store();
+        RDFDictionary dictionary = store.dictionary();
+        int type = dictionary.lookup(term("type"));
+        int status = dictionary.lookup(term("statut"));
+        int region = dictionary.lookup(term("region"));
+        SharedScanIndex shared = new SharedScanIndex(store.index(), List.of(
+                new int[]{type, dictionary.lookup(term("personne"))}, new int[]{status, dictionary.lookup(term("actif"))}));
+
+        Set<Integer> subjects = shared.commonSubjects();
+        assertEquals(17, subjects.size(), "Sujets multiples de 6 parmi 100.");
+        assertSame(subjects, shared.findCandidates(-1, type, dictionary.lookup(term("personne")), 0));
+        assertSame(subjects, shared.findCandidates(-1, status, dictionary.lookup(term("actif")), 0));
+        assertThrows(UnsupportedOperationException.class, () -> subjects.add(-5));
+        // Les autres motifs sont lus dans l'index
+        assertEquals(50, shared.findCandidates(-1, type, dictionary.lookup(term("robot")), 0).size());
+        assertEquals(10, shared.findCandidates(-1, region, dictionary.lookup(term("pays1")), 0).size());
+    }
+}
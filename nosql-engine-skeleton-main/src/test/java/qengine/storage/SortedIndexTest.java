@@ -0,0 +1,85 @@
+package qengine.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SortedIndexTest {
+
+    private static Set<List<Integer>> asSet(List<int[]> triples) {
+        Set<List<Integer>> set = new HashSet<>();
+        for (int[] triple : triples) {
+            assertTrue(set.add(List.of(triple[0], triple[1], triple[2])), "Triplet en double : " + Arrays.toString(triple));
+        }
+        return set;
+    }
+
+    // Compare toutes les formes de motifs et de candidats avec l'index par tables de hachage
+    private static void assertSameAsReference(RDFIndex reference, SortedIndex sorted, int values) {
+        for (int s = -1; s < values; s++) {
+            for (int p = -1; p < values; p++) {
+                for (int o = -1; o < values; o++) {
+                    assertEquals(asSet(reference.findMatches(s, p, o)), asSet(sorted.findMatches(s, p, o)),
+                            "Motif (" + s + ", " + p + ", " + o + ")");
+                    for (int position = 0; position < 3; position++) {
+                        int[] pattern = {s, p, o};
+                        if (pattern[position] != -1) {
+                            continue;
+                        }
+                        Set<Integer> candidates = sorted.findCandidates(s, p, o, position);
+                        assertEquals(new HashSet<>(reference.findCandidates(s, p, o, position)), new HashSet<>(candidates));
+                        assertEquals(reference.findCandidates(s, p, o, position).size(), candidates.size());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesHashIndex() {
+        Random random = new Random(7);
+        RDFIndex reference = new RDFIndex();
+        List<int[]> triples = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            int[] triple = {random.nextInt(8), random.nextInt(8), random.nextInt(8)};
+            if (reference.addTriple(triple[0], triple[1], triple[2])) {
+                triples.add(triple);
+            }
+        }
+        SortedIndex sorted = SortedIndex.merge(null, triples);
+        assertEquals(triples.size(), sorted.size());
+        assertSameAsReference(reference, sorted, 9);
+    }
+
+    @Test
+    public void testMergeKeepsBaseUnchanged() {
+        Random random = new Random(11);
+        RDFIndex reference = new RDFIndex();
+        List<int[]> first = new ArrayList<>();
+        List<int[]> second = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            int[] triple = {random.nextInt(10), random.nextInt(5), random.nextInt(10)};
+            if (reference.addTriple(triple[0], triple[1], triple[2])) {
+                (i % 3 == 0 ? second : first).add(triple);
+            }
+        }
+        SortedIndex base = SortedIndex.merge(SortedIndex.empty(), first);
+        SortedIndex merged = SortedIndex.merge(base, second);
+
+        assertEquals(first.size(), base.size(), "La fusion ne doit pas modifier l'index d'origine.");
+        assertEquals(asSet(first), asSet(base.getAllTriples()));
+        assertSameAsReference(reference, merged, 11);
+    }
+
+    @Test
+    public void testEmptyIndexAndImmutability() {
+        SortedIndex empty = SortedIndex.empty();
+        assertEquals(0, empty.size());
+        assertTrue(empty.findMatches(-1, -1, -1).isEmpty());
+        assertTrue(empty.findCandidates(1, -1, -1, 2).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> empty.findCandidates(-1, -1, -1, 0).add(1));
+        assertThrows(IllegalArgumentException.class, () -> empty.findCandidates(-1, -1, -1, 3));
+    }
+}
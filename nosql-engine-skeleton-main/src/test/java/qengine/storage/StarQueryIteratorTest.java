@@ -0,0 +1,54 @@
+package qengine.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StarQueryIteratorTest {
+
+    @Test
+    public void testFilterBitmap() {
+        int[] values = {1, 5, 64, 70, 130};
+        long[] bits = new long[3];
+        for (int id : new int[]{5, 70, 130}) {
+            bits[id >>> 6] |= 1L << id;
+        }
+
+        int length = StarQueryIterator.filterBitmap(values, values.length, bits);
+        assertEquals(3, length, "Three values are present in the bitmap.");
+        assertArrayEquals(new int[]{5, 70, 130}, Arrays.copyOf(values, length));
+    }
+
+    @Test
+    public void testFilterBitmapIgnoresInlineLiterals() {
+        int inline = InlineLiterals.encode("1988-09-24");
+        int[] values = {5, inline, 70};
+        long[] bits = new long[2];
+        bits[0] = -1L;
+        bits[1] = -1L;
+
+        int length = StarQueryIterator.filterBitmap(values, values.length, bits);
+        assertArrayEquals(new int[]{5, 70}, Arrays.copyOf(values, length), "Inline ids lie outside the bitmap.");
+    }
+
+    @Test
+    public void testFilterSorted() {
+        int[] values = {5, 70, 130};
+
+        int length = StarQueryIterator.filterSorted(values, values.length, new int[]{2, 70, 200});
+        assertEquals(1, length, "Only 70 is present in the sorted array.");
+        assertEquals(70, values[0]);
+    }
+
+    @Test
+    public void testBindRejectsConflictingVariable() {
+        int[] slots = {0, -1, 1};
+        int[] row = {3, 4};
+
+        assertSame(row, StarQueryIterator.bind(slots, new int[]{3, 9, 4}, row), "Compatible row without new binding is shared.");
+        assertNull(StarQueryIterator.bind(slots, new int[]{3, 9, 5}, row), "Conflicting binding should be rejected.");
+        assertArrayEquals(new int[]{3, 7}, StarQueryIterator.bind(slots, new int[]{3, 9, 7}, new int[]{3, -1}));
+    }
+}
@@ -0,0 +1,60 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import qengine.model.RDFAtom;
+
+import java.util.*;
+
+/**
+ * Termes, jeux de triplets et lecture des réponses partagés par les tests des stores.
+ */
+final class StoreFixtures {
+
+    static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+    static final Variable VAR_Y = SameObjectTermFactory.instance().createOrGetVariable("?y");
+    static final Variable VAR_Z = SameObjectTermFactory.instance().createOrGetVariable("?z");
+
+    private StoreFixtures() {
+    }
+
+    static Literal<String> term(String label) {
+        return SameObjectTermFactory.instance().createOrGetLiteral(label);
+    }
+
+    /**
+     * Grille de triplets : le sujet {@code s<i>} reçoit chaque prédicat {@code p<j>}, sauf si
+     * {@code (i + j) % gap == 0}, avec l'objet {@code o<(i * step + j) % objects>} ; les objets sont
+     * ainsi partagés entre sujets.
+     *
+     * @param gap période des triplets omis, 0 pour n'en omettre aucun
+     */
+    static List<RDFAtom> grid(int subjects, int predicates, int step, int objects, int gap) {
+        List<RDFAtom> atoms = new ArrayList<>();
+        for (int s = 0; s < subjects; s++) {
+            for (int p = 0; p < predicates; p++) {
+                if (gap == 0 || (s + p) % gap != 0) {
+                    atoms.add(new RDFAtom(term("s" + s), term("p" + p), term("o" + (s * step + p) % objects)));
+                }
+            }
+        }
+        return atoms;
+    }
+
+    // Réponses sans ordre ni doublon
+    static Set<Map<Variable, Term>> answers(Iterator<Substitution> results) {
+        Set<Map<Variable, Term>> answers = new HashSet<>();
+        results.forEachRemaining(substitution -> answers.add(substitution.toMap()));
+        return answers;
+    }
+
+    // Réponses dans l'ordre de l'itérateur
+    static List<Map<Variable, Term>> answerList(Iterator<Substitution> results) {
+        List<Map<Variable, Term>> answers = new ArrayList<>();
+        results.forEachRemaining(substitution -> answers.add(substitution.toMap()));
+        return answers;
+    }
+}
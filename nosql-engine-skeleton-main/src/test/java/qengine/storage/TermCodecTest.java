@@ -0,0 +1,52 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TermCodecTest {
+
+    private static final SameObjectTermFactory FACTORY = SameObjectTermFactory.instance();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<Term> terms = List.of(FACTORY.createOrGetLiteral("é€ – non ASCII"), FACTORY.createOrGetConstant("http://a/b"),
+                FACTORY.createOrGetVariable("?x"), FACTORY.createOrGetLiteral(""));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (Term term : terms) {
+                TermCodec.write(out, term);
+            }
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (Term term : terms) {
+            assertSame(term, TermCodec.read(in));
+            Term decoded = TermCodec.decode(TermCodec.encode(term)); // Hors de la fabrique partagée
+            assertEquals(term, decoded);
+            assertNotSame(term, decoded);
+        }
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testLiteralKeysPrecedeConstants() {
+        byte[] literal = TermCodec.encode(FACTORY.createOrGetLiteral("zzz"));
+        byte[] constant = TermCodec.encode(FACTORY.createOrGetConstant("aaa"));
+        assertTrue(Arrays.compareUnsigned(literal, constant) < 0);
+        byte[] prefix = TermCodec.literalPrefix("zz");
+        assertArrayEquals(prefix, Arrays.copyOf(literal, prefix.length));
+    }
+
+    @Test
+    public void testUnknownKind() {
+        byte[] corrupted = {7, 0, 0, 0, 1, 'a'};
+        assertThrows(IOException.class, () -> TermCodec.read(new DataInputStream(new ByteArrayInputStream(corrupted))));
+        assertThrows(IllegalArgumentException.class, () -> TermCodec.createTerm((byte) 7, "a"));
+    }
+}
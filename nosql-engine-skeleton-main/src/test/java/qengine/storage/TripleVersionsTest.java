@@ -0,0 +1,42 @@
+package qengine.storage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TripleVersionsTest {
+
+    @Test
+    public void testPutAndGetAcrossGrowth() {
+        TripleVersions versions = new TripleVersions();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(versions.putIfAbsent(i, i % 7, -i, i + 1));
+        }
+        assertFalse(versions.putIfAbsent(5, 5, -5, 99), "Un triplet présent garde sa version.");
+        assertEquals(10_000, versions.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i + 1, versions.get(i, i % 7, -i));
+        }
+        assertEquals(0, versions.get(5, 6, -5));
+        assertEquals(0, versions.get(10_000, 4, -10_000));
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        TripleVersions versions = new TripleVersions();
+        for (int i = 0; i < 100; i++) {
+            versions.putIfAbsent(i, 1, i, i + 1);
+        }
+        TripleVersions copy = versions.copy();
+        assertTrue(copy.remove(3, 1, 3));
+        assertTrue(copy.putIfAbsent(200, 1, 200, 7));
+        assertEquals(4, versions.get(3, 1, 3), "L'original ne voit pas les retraits de la copie.");
+        assertEquals(0, versions.get(200, 1, 200));
+        assertEquals(0, copy.get(3, 1, 3));
+
+        long[] total = {0};
+        copy.forEach((subject, predicate, object, version) -> total[0] += version);
+        assertEquals(100, copy.size());
+        assertEquals(5050 - 4 + 7, total[0]);
+    }
+}
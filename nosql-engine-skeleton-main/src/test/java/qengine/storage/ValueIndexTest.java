@@ -0,0 +1,133 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.RangeFilter;
+import qengine.model.SolutionModifiers;
+import qengine.model.StarQuery;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static qengine.storage.StoreFixtures.*;
+
+public class ValueIndexTest {
+
+    private static final Variable VAR_A = SameObjectTermFactory.instance().createOrGetVariable("?a");
+    private static final Variable VAR_D = SameObjectTermFactory.instance().createOrGetVariable("?d");
+    private static final Variable VAR_P = SameObjectTermFactory.instance().createOrGetVariable("?p");
+
+    // Chaque personne a un ou deux âges, une date de naissance et un nom ; certaines valeurs ne sont pas numériques
+    private static void load(RDFStorage store) {
+        for (int s = 0; s < 200; s++) {
+            store.add(new RDFAtom(term("p" + s), term("age"), term(Integer.toString(s % 60))));
+            if (s % 7 == 0) {
+                store.add(new RDFAtom(term("p" + s), term("age"), term(s % 14 == 0 ? "inconnu" : (s % 60) + ".5")));
+            }
+            store.add(new RDFAtom(term("p" + s), term("naissance"),
+                    term(LocalDate.of(1950, 1, 1).plusDays(s * 97L).toString())));
+            store.add(new RDFAtom(term("p" + s), term("nom"), term("Nom" + s)));
+        }
+    }
+
+    // Réponses de la requête sans ses filtres, filtrées ensuite une à une
+    private static Set<Map<Variable, Term>> expected(RDFStorage store, StarQuery query) {
+        Set<Map<Variable, Term>> expected = answers(store.match(new StarQuery(query.getLabel(), query.getRdfAtoms(),
+                query.getAnswerVariables())));
+        expected.removeIf(row -> query.getFilters().stream()
+                .anyMatch(filter -> !filter.accepts(row.get(filter.getVariable()).label())));
+        return expected;
+    }
+
+    private static StarQuery filtered(List<RDFAtom> atoms, RangeFilter... filters) {
+        return new StarQuery("filtre", atoms, List.of(VAR_X, VAR_A, VAR_D, VAR_P).stream()
+                .filter(variable -> atoms.stream().anyMatch(atom -> Arrays.asList(atom.getTerms()).contains(variable)))
+                .toList(), SolutionModifiers.NONE, List.of(filters));
+    }
+
+    private static List<StarQuery> queries() {
+        RangeFilter twenties = RangeFilter.of(VAR_A, ">=", "20").intersect(RangeFilter.of(VAR_A, "<", "30"));
+        RangeFilter eighties = RangeFilter.of(VAR_D, ">", "1980-01-01").intersect(RangeFilter.of(VAR_D, "<=", "1989-12-31"));
+        List<RDFAtom> ageAndName = List.of(new RDFAtom(VAR_X, term("age"), VAR_A), new RDFAtom(VAR_X, term("nom"), VAR_D));
+        List<RDFAtom> ageAndBirth = List.of(new RDFAtom(VAR_X, term("age"), VAR_A), new RDFAtom(VAR_X, term("naissance"), VAR_D));
+        return List.of(
+                filtered(ageAndName, twenties),
+                filtered(ageAndName, RangeFilter.of(VAR_A, "=", "14.5")),
+                filtered(ageAndName, RangeFilter.of(VAR_A, "<", "-1")),
+                filtered(ageAndBirth, twenties, eighties),
+                filtered(ageAndBirth, eighties),
+                // Variable centrale filtrée : les valeurs admises pilotent le parcours
+                filtered(List.of(new RDFAtom(term("p3"), term("age"), VAR_A), new RDFAtom(term("p63"), term("age"), VAR_A)),
+                        RangeFilter.of(VAR_A, ">", "2")),
+                // Aucune valeur numérique : le nom n'est dans aucune plage, la date non plus en NUMERIC
+                filtered(ageAndName, RangeFilter.of(VAR_D, ">", "0")),
+                filtered(ageAndBirth, RangeFilter.of(VAR_D, ">", "0")),
+                // Prédicat variable : pas d'index de valeurs, chaque ligne est comparée
+                filtered(List.of(new RDFAtom(VAR_X, VAR_P, VAR_A), new RDFAtom(VAR_X, term("nom"), term("Nom7"))),
+                        RangeFilter.of(VAR_A, ">=", "5")),
+                filtered(List.of(new RDFAtom(VAR_X, VAR_P, VAR_D), new RDFAtom(VAR_X, term("nom"), term("Nom7"))),
+                        RangeFilter.of(VAR_D, "<", "2000-01-01")));
+    }
+
+    @Test
+    public void testFilteredAnswersMatchBruteForce() {
+        for (RDFHexaStore store : List.of(new RDFHexaStore(), new RDFHexaStore(true))) {
+            load(store);
+            for (ExecutionMode mode : ExecutionMode.values()) {
+                store.setExecutionMode(mode);
+                for (StarQuery query : queries()) {
+                    assertEquals(expected(store, query), answers(store.match(query)), query.getFilters().toString());
+                }
+            }
+            assertEquals(32, answers(store.match(queries().get(0))).size(), "30 âges entiers et 21.5, 27.5.");
+        }
+    }
+
+    @Test
+    public void testRangeScan() {
+        RDFHexaStore store = new RDFHexaStore();
+        load(store);
+        RDFDictionary dictionary = store.dictionary();
+        RDFIndex index = new RDFIndex();
+        store.encodedTriples().forEach(triple -> index.addTriple(triple[0], triple[1], triple[2]));
+
+        ValueIndex ages = ValueIndex.build(dictionary, index, dictionary.lookup(term("age")), RangeFilter.Kind.NUMERIC);
+        assertEquals(200 + 14, ages.size(), "Les valeurs « inconnu » ne sont pas indexées.");
+        ValueIndex.Range range = ages.range(RangeFilter.of(VAR_A, "<=", "1"));
+        assertEquals(Set.of(dictionary.lookup(term("0")), dictionary.lookup(term("1"))), range.objects());
+        assertEquals(Set.of(dictionary.lookup(term("p0")), dictionary.lookup(term("p1")), dictionary.lookup(term("p60")),
+                dictionary.lookup(term("p61")), dictionary.lookup(term("p120")), dictionary.lookup(term("p121")),
+                dictionary.lookup(term("p180")), dictionary.lookup(term("p181"))), range.subjects());
+        assertTrue(ages.range(RangeFilter.of(VAR_A, ">", "59.5")).objects().isEmpty());
+        assertEquals(0, ValueIndex.build(dictionary, index, dictionary.lookup(term("nom")), RangeFilter.Kind.DATE).size());
+    }
+
+    @Test
+    public void testIndexFollowsUpdates() {
+        RDFHexaStore store = new RDFHexaStore();
+        load(store);
+        StarQuery old = filtered(List.of(new RDFAtom(VAR_X, term("age"), VAR_A), new RDFAtom(VAR_X, term("nom"), VAR_D)),
+                RangeFilter.of(VAR_A, ">", "100"));
+        assertFalse(store.match(old).hasNext());
+
+        store.add(new RDFAtom(term("p5"), term("age"), term("101")));
+        assertEquals(1, answers(store.match(old)).size());
+        store.remove(new RDFAtom(term("p5"), term("age"), term("101")));
+        assertFalse(store.match(old).hasNext());
+    }
+
+    @Test
+    public void testPartitionedStoreAppliesFilters() {
+        RDFHexaStore single = new RDFHexaStore();
+        PartitionedRDFHexaStore partitioned = new PartitionedRDFHexaStore(3);
+        load(single);
+        load(partitioned);
+        for (StarQuery query : queries()) {
+            assertEquals(answers(single.match(query)), answers(partitioned.match(query)), query.getFilters().toString());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    // Enregistre les enregistrements rejoués sous forme de texte
+    private static List<String> replay(Path file) throws IOException {
+        List<String> records = new ArrayList<>();
+        WriteAheadLog.replay(file, new WriteAheadLog.Listener() {
+            public void onTerm(int id, Term term) {
+                records.add("terme " + id + " " + term.label());
+            }
+
+            public void onAdd(int subject, int predicate, int object) {
+                records.add("ajout " + subject + " " + predicate + " " + object);
+            }
+
+            public void onRemove(int subject, int predicate, int object) {
+                records.add("retrait " + subject + " " + predicate + " " + object);
+            }
+        });
+        return records;
+    }
+
+    @Test
+    public void testReplayInOrder() throws IOException {
+        Path file = directory.resolve("wal.log");
+        try (WriteAheadLog log = new WriteAheadLog(file, FsyncPolicy.ALWAYS, 0)) {
+            log.logTerm(0, SameObjectTermFactory.instance().createOrGetLiteral("Alice"));
+            log.logTerm(1, SameObjectTermFactory.instance().createOrGetConstant("http://example.org/knows"));
+            log.commit(log.logAdd(0, 1, 0));
+            log.commit(log.logRemove(0, 1, 0));
+        }
+        assertEquals(List.of("terme 0 Alice", "terme 1 http://example.org/knows", "ajout 0 1 0", "retrait 0 1 0"),
+                replay(file));
+    }
+
+    @Test
+    public void testGroupCommitSharesFsync() throws IOException {
+        Path file = directory.resolve("wal.log");
+        try (WriteAheadLog log = new WriteAheadLog(file, FsyncPolicy.ALWAYS, 0)) {
+            long first = log.logAdd(0, 1, 2);
+            long last = log.logAdd(3, 4, 5);
+            log.commit(last);
+            assertEquals(1, log.getSyncCount(), "Un seul fsync pour les deux enregistrements.");
+            log.commit(first);
+            assertEquals(1, log.getSyncCount(), "Un enregistrement déjà validé ne provoque pas de fsync.");
+        }
+        try (WriteAheadLog log = new WriteAheadLog(file, FsyncPolicy.NEVER, 0)) {
+            log.commit(log.logAdd(6, 7, 8));
+            assertEquals(0, log.getSyncCount(), "Aucun fsync à la validation avec NEVER.");
+        }
+        assertEquals(3, replay(file).size(), "Le journal rouvert est complété en ajout.");
+    }
+
+    @Test
+    public void testTornTailIsTruncated() throws IOException {
+        Path file = directory.resolve("wal.log");
+        try (WriteAheadLog log = new WriteAheadLog(file, FsyncPolicy.ALWAYS, 0)) {
+            log.commit(log.logAdd(0, 1, 2));
+        }
+        long valid = Files.size(file);
+        // Écriture interrompue : un début d'enregistrement sans contenu ni somme de contrôle
+        Files.write(file, new byte[]{0, 0, 0, 13, WriteAheadLog.ADD, 1}, StandardOpenOption.APPEND);
+
+        assertEquals(List.of("ajout 0 1 2"), replay(file));
+        assertEquals(valid, Files.size(file), "La fin incomplète doit être tronquée.");
+    }
+
+    @Test
+    public void testCorruptedRecordEndsReplay() throws IOException {
+        Path file = directory.resolve("wal.log");
+        try (WriteAheadLog log = new WriteAheadLog(file, FsyncPolicy.ALWAYS, 0)) {
+            log.logAdd(0, 1, 2);
+            log.commit(log.logAdd(3, 4, 5));
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 10] ^= 1; // Altère le contenu du second enregistrement
+        Files.write(file, bytes);
+
+        assertEquals(List.of("ajout 0 1 2"), replay(file));
+    }
+
+    @Test
+    public void testIntervalSyncRunsInBackground() throws IOException, InterruptedException {
+        Path file = directory.resolve("wal.log");
+        try (WriteAheadLog log = new WriteAheadLog(file, FsyncPolicy.INTERVAL, 5)) {
+            log.commit(log.logAdd(0, 1, 2));
+            // Aucune validation ne suit : le fsync vient de la tâche de fond
+            for (int wait = 0; wait < 400 && log.getSyncCount() == 0; wait++) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, log.getSyncCount());
+            Thread.sleep(30);
+            assertEquals(1, log.getSyncCount(), "Pas de fsync quand le journal n'a pas avancé.");
+        }
+    }
+
+    @Test
+    public void testFailedCommitRejectsLaterRecords() throws IOException {
+        Path file = directory.resolve("wal.log");
+        WriteAheadLog log = new WriteAheadLog(file, FsyncPolicy.ALWAYS, 0);
+        log.commit(log.logAdd(0, 1, 2));
+        long position = log.logAdd(3, 4, 5);
+        Thread.currentThread().interrupt(); // L'écriture suivante ferme le canal (ClosedByInterruptException)
+        try {
+            assertThrows(IOException.class, () -> log.commit(position));
+        } finally {
+            Thread.interrupted();
+        }
+        assertTrue(log.isFailed());
+        assertThrows(UncheckedIOException.class, () -> log.logAdd(6, 7, 8));
+        assertThrows(IOException.class, () -> log.commit(position));
+        log.close();
+
+        assertEquals(List.of("ajout 0 1 2"), replay(file));
+    }
+}